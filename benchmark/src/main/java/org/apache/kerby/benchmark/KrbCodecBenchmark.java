@@ -20,6 +20,9 @@
 package org.apache.kerby.benchmark;
 
 import org.apache.kerby.kerberos.kerb.type.ap.ApReq;
+import org.apache.kerby.kerberos.kerb.type.kdc.AsReq;
+import org.apache.kerby.kerberos.kerb.type.kdc.TgsReq;
+import org.apache.kerby.kerberos.kerb.type.ticket.Ticket;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
@@ -39,16 +42,19 @@ import java.util.concurrent.TimeUnit;
 public class KrbCodecBenchmark {
     private static final Logger LOG = LoggerFactory.getLogger(KrbCodecBenchmark.class);
 
-    private static ByteBuffer apreqToken;
+    private static ByteBuffer apreqToken = readToken("/apreq.token");
+    private static ByteBuffer asreqToken = readToken("/asreq.token");
+    private static ByteBuffer tgsreqToken = readToken("/tgsreq.token");
 
-    static {
-        try (InputStream is = KrbCodecBenchmark.class.getResourceAsStream("/apreq.token");) {
+    private static ByteBuffer readToken(String resource) {
+        try (InputStream is = KrbCodecBenchmark.class.getResourceAsStream(resource);) {
             byte[] bytes = new byte[is.available()];
             is.read(bytes);
-            apreqToken = ByteBuffer.wrap(bytes);
+            return ByteBuffer.wrap(bytes);
         } catch (IOException e) {
             LOG.error("Fail to read bytes from input stream. " + e);
         }
+        return null;
     }
 
     @Benchmark
@@ -62,4 +68,79 @@ public class KrbCodecBenchmark {
             throw new RuntimeException("Decoding test failed");
         }
     }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 5)
+    public void decodeAsReq() throws Exception {
+        AsReq asReq = new AsReq();
+        asReq.decode(asreqToken.duplicate());
+        String clientName = asReq.getReqBody().getCname().toString();
+        if (clientName == null) {
+            throw new RuntimeException("Decoding test failed");
+        }
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 5)
+    public void decodeTgsReq() throws Exception {
+        TgsReq tgsReq = new TgsReq();
+        tgsReq.decode(tgsreqToken.duplicate());
+        String serverName = tgsReq.getReqBody().getSname().toString();
+        if (serverName == null) {
+            throw new RuntimeException("Decoding test failed");
+        }
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 5)
+    public void decodeTgsReqLazily() throws Exception {
+        TgsReq tgsReq = new TgsReq();
+        tgsReq.useLazyDecoding(true);
+        tgsReq.decode(tgsreqToken.duplicate());
+        String serverName = tgsReq.getReqBody().getSname().toString();
+        if (serverName == null) {
+            throw new RuntimeException("Decoding test failed");
+        }
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 5)
+    public byte[] encodeApReq() throws Exception {
+        return makeApReq(false).encode();
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 5)
+    public byte[] encodeApReqWithFrozenTicket() throws Exception {
+        return makeApReq(true).encode();
+    }
+
+    private static ApReq makeApReq(boolean frozen) throws Exception {
+        Ticket ticket = frozen ? FROZEN_TICKET : TICKET;
+        ApReq apReq = new ApReq();
+        apReq.setApOptions(AP_REQ.getApOptions());
+        apReq.setTicket(ticket);
+        apReq.setEncryptedAuthenticator(AP_REQ.getEncryptedAuthenticator());
+        return apReq;
+    }
+
+    private static final ApReq AP_REQ = new ApReq();
+    private static final Ticket TICKET = new Ticket();
+    private static final Ticket FROZEN_TICKET = new Ticket();
+
+    static {
+        try {
+            AP_REQ.decode(apreqToken.duplicate());
+            TICKET.decode(AP_REQ.getTicket().encode());
+            FROZEN_TICKET.decode(AP_REQ.getTicket().encode());
+            FROZEN_TICKET.freeze();
+        } catch (IOException e) {
+            LOG.error("Fail to decode the AP-REQ token. " + e);
+        }
+    }
 }
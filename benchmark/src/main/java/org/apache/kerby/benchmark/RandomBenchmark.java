@@ -0,0 +1,79 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.benchmark;
+
+import org.apache.kerby.kerberos.kerb.crypto.random.StripedRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures confounder and session key sized random generation under
+ * contention, a single shared SecureRandom against StripedRandom.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RandomBenchmark {
+
+    @Param({"16", "32"})
+    private int size;
+
+    private SecureRandom secureRandom;
+    private StripedRandom stripedRandom;
+
+    @Setup
+    public void setup() {
+        secureRandom = new SecureRandom();
+        stripedRandom = new StripedRandom();
+        stripedRandom.init();
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Threads(8)
+    @Warmup(iterations = 5)
+    public byte[] sharedSecureRandom() {
+        byte[] bytes = new byte[size];
+        secureRandom.nextBytes(bytes);
+        return bytes;
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Threads(8)
+    @Warmup(iterations = 5)
+    public byte[] stripedRandom() {
+        byte[] bytes = new byte[size];
+        stripedRandom.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.asn1.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Generate an Asn1FactoryProvider in each package marked with
+ * GenerateAsn1Factories, creating the concrete ASN1 types of the package with
+ * plain constructor calls so decoding doesn't need reflection. A module gets
+ * the processor by listing this artifact in its annotation processor path.
+ */
+@SupportedAnnotationTypes(Asn1FactoryProcessor.GENERATE_FACTORIES)
+public class Asn1FactoryProcessor extends AbstractProcessor {
+    static final String GENERATE_FACTORIES = "org.apache.kerby.asn1.GenerateAsn1Factories";
+    private static final String ASN1_TYPE = "org.apache.kerby.asn1.type.Asn1Type";
+    private static final String PROVIDER_TYPE = "org.apache.kerby.asn1.Asn1FactoryProvider";
+    // Asn1FactoryProvider.CLASS_NAME, kept here so the processor has no dependencies
+    private static final String PROVIDER_CLASS_NAME = "GeneratedAsn1Factories";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations,
+                           RoundEnvironment roundEnv) {
+        TypeElement asn1Type = processingEnv.getElementUtils().getTypeElement(ASN1_TYPE);
+        if (roundEnv.processingOver() || asn1Type == null || annotations.isEmpty()) {
+            return false;
+        }
+
+        TypeElement generateFactories =
+            processingEnv.getElementUtils().getTypeElement(GENERATE_FACTORIES);
+        Set<String> marked = new HashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(generateFactories)) {
+            marked.add(((PackageElement) element).getQualifiedName().toString());
+        }
+
+        Map<String, List<TypeElement>> packages = new TreeMap<>();
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            if (marked.contains(getPackage(type).getQualifiedName().toString())) {
+                collectTypes(type, asn1Type.asType(), packages);
+            }
+        }
+
+        for (Map.Entry<String, List<TypeElement>> entry : packages.entrySet()) {
+            try {
+                writeProvider(entry.getKey(), entry.getValue());
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Failed to generate ASN1 factories for package "
+                        + entry.getKey() + ": " + e.getMessage());
+            }
+        }
+
+        return true;
+    }
+
+    private void collectTypes(TypeElement type, TypeMirror asn1Type,
+                              Map<String, List<TypeElement>> packages) {
+        if (type.getModifiers().contains(Modifier.PRIVATE)) {
+            return;
+        }
+
+        if (isCreatable(type, asn1Type)) {
+            String pkg = getPackage(type).getQualifiedName().toString();
+            List<TypeElement> types = packages.get(pkg);
+            if (types == null) {
+                types = new ArrayList<>();
+                packages.put(pkg, types);
+            }
+            types.add(type);
+        }
+
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            if (nested.getModifiers().contains(Modifier.STATIC)) {
+                collectTypes(nested, asn1Type, packages);
+            }
+        }
+    }
+
+    private boolean isCreatable(TypeElement type, TypeMirror asn1Type) {
+        if (type.getKind() != ElementKind.CLASS
+            || type.getModifiers().contains(Modifier.ABSTRACT)
+            || !type.getTypeParameters().isEmpty()
+            || !processingEnv.getTypeUtils().isAssignable(
+                processingEnv.getTypeUtils().erasure(type.asType()), asn1Type)) {
+            return false;
+        }
+
+        for (ExecutableElement ctor
+            : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (ctor.getParameters().isEmpty()) {
+                return !ctor.getModifiers().contains(Modifier.PRIVATE)
+                    && ctor.getThrownTypes().isEmpty();
+            }
+        }
+        return false;
+    }
+
+    private static PackageElement getPackage(Element element) {
+        Element current = element;
+        while (current.getKind() != ElementKind.PACKAGE) {
+            current = current.getEnclosingElement();
+        }
+        return (PackageElement) current;
+    }
+
+    private void writeProvider(String pkg, List<TypeElement> types) throws IOException {
+        String className = pkg.isEmpty() ? PROVIDER_CLASS_NAME
+            : pkg + "." + PROVIDER_CLASS_NAME;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(className,
+            types.toArray(new Element[types.size()]));
+
+        try (Writer writer = file.openWriter()) {
+            PrintWriter out = new PrintWriter(writer);
+            if (!pkg.isEmpty()) {
+                out.println("package " + pkg + ";");
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * Generated by " + getClass().getName() + ", do not edit.");
+            out.println(" */");
+            out.println("public final class " + PROVIDER_CLASS_NAME
+                + " implements " + PROVIDER_TYPE + " {");
+            out.println();
+            out.println("    @Override");
+            out.println("    public org.apache.kerby.asn1.Asn1TypeFactory<?> getFactory(Class<?> type) {");
+            out.println("        switch (type.getName()) {");
+            for (int i = 0; i < types.size(); i++) {
+                String binaryName = processingEnv.getElementUtils()
+                    .getBinaryName(types.get(i)).toString();
+                out.println("            case \"" + binaryName + "\":");
+                out.println("                return new Factory(" + i + ");");
+            }
+            out.println("            default:");
+            out.println("                return null;");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+            out.println("    private static final class Factory");
+            out.println("        implements org.apache.kerby.asn1.Asn1TypeFactory"
+                + "<org.apache.kerby.asn1.type.Asn1Type> {");
+            out.println("        private final int id;");
+            out.println();
+            out.println("        Factory(int id) {");
+            out.println("            this.id = id;");
+            out.println("        }");
+            out.println();
+            out.println("        @Override");
+            out.println("        public org.apache.kerby.asn1.type.Asn1Type create() {");
+            out.println("            switch (id) {");
+            for (int i = 0; i < types.size(); i++) {
+                out.println("                case " + i + ":");
+                out.println("                    return new "
+                    + types.get(i).getQualifiedName() + "();");
+            }
+            out.println("                default:");
+            out.println("                    throw new IllegalStateException(\"Unknown type \" + id);");
+            out.println("            }");
+            out.println("        }");
+            out.println("    }");
+            out.println("}");
+            out.flush();
+        }
+    }
+}
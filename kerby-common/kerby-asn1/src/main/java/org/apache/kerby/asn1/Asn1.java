@@ -70,7 +70,10 @@ public final class Asn1 {
      * See avove.
      */
     public static Asn1Type decode(ByteBuffer content) throws IOException {
-        Asn1ParseResult parseResult = Asn1Parser.parse(content);
+        Asn1ParseResult parseResult = Asn1Parser.readItem(content);
+        if (parseResult == null) {
+            throw new IOException("No content to decode");
+        }
         return Asn1Converter.convert(parseResult, false);
     }
 
@@ -122,6 +125,37 @@ public final class Asn1 {
         System.out.println(output);
     }
 
+    /**
+     * Dump a value to the given output.
+     * @param value
+     * @param out
+     * @throws IOException
+     */
+    public static void dump(Asn1Type value, Appendable out) throws IOException {
+        Asn1Dumper dumper = new Asn1Dumper(out);
+        dumper.dumpType(0, value);
+        dumper.flush();
+    }
+
+    /**
+     * Dump the items of an encoding to the given output as they're read,
+     * without parsing or decoding it first.
+     * @param content
+     * @param out
+     * @throws IOException
+     */
+    public static void streamDump(ByteBuffer content, Appendable out) throws IOException {
+        new Asn1Dumper(out).streamDump(content);
+    }
+
+    /**
+     * See above, with limits on the nesting depth and the output size.
+     */
+    public static void streamDump(ByteBuffer content, Appendable out,
+                                  int maxDepth, long maxLength) throws IOException {
+        new Asn1Dumper(out, maxDepth, maxLength).streamDump(content);
+    }
+
     /**
      * Parse first, and then dump out the parse result.
      * @param hexStr
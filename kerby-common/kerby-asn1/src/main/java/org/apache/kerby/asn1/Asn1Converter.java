@@ -75,13 +75,7 @@ public final class Asn1Converter {
 
     public static Asn1Type convertAs(Asn1ParseResult parseResult,
                                      Class<? extends Asn1Type> type) throws IOException {
-        Asn1Type value;
-        try {
-            value = type.newInstance();
-        } catch (Exception e) {
-            throw new RuntimeException("Invalid type: "
-                + type.getCanonicalName(), e);
-        }
+        Asn1Type value = Asn1Factories.create(type);
         Asn1Binder.bind(parseResult, value);
         return value;
     }
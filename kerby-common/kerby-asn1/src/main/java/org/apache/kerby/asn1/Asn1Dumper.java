@@ -19,21 +19,83 @@
  */
 package org.apache.kerby.asn1;
 
+import org.apache.kerby.asn1.parse.Asn1Header;
 import org.apache.kerby.asn1.parse.Asn1Item;
 import org.apache.kerby.asn1.parse.Asn1ParseResult;
 import org.apache.kerby.asn1.parse.Asn1Parser;
+import org.apache.kerby.asn1.parse.Asn1Reader;
 import org.apache.kerby.asn1.type.Asn1Specific;
 import org.apache.kerby.asn1.type.Asn1Simple;
 import org.apache.kerby.asn1.type.Asn1Type;
 
+import java.io.Flushable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
+/**
+ * Dumps ASN1 values, parse results or raw encodings in a readable form.
+ *
+ * The output goes to an Appendable, a StringBuilder by default, so a dump can
+ * be written straight to a Writer or a log. The nesting depth and the output
+ * size can be limited, so dumping a large structure like a PKINIT SignedData
+ * stays cheap; truncated parts are shown as "...". Errors from the Appendable
+ * are kept and thrown by {@link #flush()}, as the dumpable types can't throw.
+ */
 public final class Asn1Dumper {
-    private StringBuilder builder = new StringBuilder();
+    private static final String ELLIPSIS = "...";
+
+    private final Appendable out;
+    private final int maxDepth;
+    private final long maxLength;
+    private long length;
+    private boolean truncated;
+    private IOException error;
+
+    public Asn1Dumper() {
+        this(new StringBuilder());
+    }
+
+    /**
+     * @param out The output
+     */
+    public Asn1Dumper(Appendable out) {
+        this(out, Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param out The output
+     * @param maxDepth The levels of nesting dumped, with four spaces of
+     *                 indentation per level when dumping values
+     * @param maxLength The number of characters written before truncating
+     */
+    public Asn1Dumper(Appendable out, int maxDepth, long maxLength) {
+        this.out = out;
+        this.maxDepth = maxDepth;
+        this.maxLength = maxLength;
+    }
 
     public String output() {
-        return builder.toString();
+        return out.toString();
+    }
+
+    /**
+     * @return true if the output was cut at the size limit
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Flush the output, and throw the error met when writing it if any.
+     * @throws IOException e
+     */
+    public void flush() throws IOException {
+        if (error != null) {
+            throw error;
+        }
+        if (out instanceof Flushable) {
+            ((Flushable) out).flush();
+        }
     }
 
     public void parseAndDump(byte[] content) throws IOException {
@@ -54,12 +116,30 @@ public final class Asn1Dumper {
         dumpParseResult(0, parseResult);
     }
 
+    /**
+     * Dump the items of an encoding as they're read, without parsing it into
+     * a tree or decoding it first. The output has the same form as dumping
+     * the parse result, except that the body length of an indefinite length
+     * container is shown as "?", as it's only known after its content.
+     * @param content The content, which isn't consumed
+     * @throws IOException e
+     */
+    public void streamDump(ByteBuffer content) throws IOException {
+        Asn1Reader reader = new Asn1Reader(content);
+        while (reader.available() && !truncated && error == null) {
+            streamItem(reader, content.limit(), 0);
+        }
+        flush();
+    }
+
     public void dumpType(Asn1Type value) {
         dumpType(0, value);
     }
 
     public Asn1Dumper dumpType(int indents, Asn1Type value) {
-        if (value == null) {
+        if (indents / 4 > maxDepth) {
+            indent(indents).append(ELLIPSIS);
+        } else if (value == null) {
             indent(indents).append("Null");
         } else if (value instanceof Asn1Simple) {
             indent(indents).append(value.toString());
@@ -76,7 +156,9 @@ public final class Asn1Dumper {
     }
 
     public Asn1Dumper dumpParseResult(int indents, Asn1ParseResult value) {
-        if (value == null) {
+        if (indents / 4 > maxDepth) {
+            indent(indents).append(ELLIPSIS);
+        } else if (value == null) {
             indent(indents).append("Null");
         } else if (value instanceof Asn1Item) {
             indent(indents).append(value.toString());
@@ -92,32 +174,34 @@ public final class Asn1Dumper {
 
     public Asn1Dumper indent(int numSpaces) {
         for (int i = 0; i < numSpaces; i++) {
-            builder.append(' ');
+            write(" ");
         }
         return this;
     }
 
     public Asn1Dumper append(Asn1Simple<?> simpleValue) {
         if (simpleValue != null) {
-            builder.append(simpleValue.toString());
+            write(simpleValue.toString());
         } else {
-            builder.append("null");
+            write("null");
         }
         return this;
     }
 
     public Asn1Dumper append(String string) {
-        builder.append(string);
+        write(string);
         return this;
     }
 
     public Asn1Dumper appendType(Class<?> cls) {
-        builder.append("<").append(cls.getSimpleName()).append("> ");
+        write("<");
+        write(cls.getSimpleName());
+        write("> ");
         return this;
     }
 
     public Asn1Dumper newLine() {
-        builder.append("\n");
+        write("\n");
         return this;
     }
 
@@ -133,4 +217,80 @@ public final class Asn1Dumper {
 
         return this;
     }
+
+    /**
+     * Read and dump an item and its content, if within the depth limit.
+     * Items deeper than the limit are still walked when they have an
+     * indefinite length, as that's the only way to find their end.
+     * @return true if the item is an end of contents
+     */
+    private boolean streamItem(Asn1Reader reader, int limit, int depth) throws IOException {
+        int offset = reader.getPosition();
+        Asn1Header header = reader.readHeader();
+        Tag tag = header.getTag();
+        int bodyStart = reader.getPosition();
+        boolean definite = header.isDefinitiveLength();
+        int bodyEnd = definite ? bodyStart + header.getLength() : -1;
+        if (definite && (bodyEnd > limit || bodyEnd < bodyStart)) {
+            throw new IOException("Invalid length " + header.getLength()
+                + " at offset " + offset);
+        }
+
+        boolean dumping = depth <= maxDepth;
+        if (dumping) {
+            if (length > 0) {
+                newLine();
+            }
+            indent(depth * 4).append(tag.typeStr()).append(" [tag=").append(tag.toString())
+                .append(", off=").append(String.valueOf(offset))
+                .append(", len=").append(String.valueOf(bodyStart - offset)).append("+")
+                .append(definite ? String.valueOf(header.getLength()) : "?")
+                .append(definite || tag.isPrimitive() ? "]" : "(undefined)]");
+        }
+
+        if (tag.isPrimitive()) {
+            if (!definite) {
+                throw new IOException("Indefinite length primitive at offset " + offset);
+            }
+        } else if (!definite) {
+            while (!truncated && error == null) {
+                if (reader.getPosition() >= limit) {
+                    throw new IOException("Missing end of contents for the container at offset "
+                        + offset);
+                }
+                if (streamItem(reader, limit, depth + 1)) {
+                    break;
+                }
+            }
+            return false;
+        } else if (depth < maxDepth) {
+            while (reader.getPosition() < bodyEnd && !truncated && error == null) {
+                streamItem(reader, bodyEnd, depth + 1);
+            }
+        } else if (dumping && bodyEnd > bodyStart) {
+            newLine().indent(depth * 4 + 4).append(ELLIPSIS);
+        }
+
+        reader.setPosition(bodyEnd);
+        return tag.isEOC();
+    }
+
+    private void write(String string) {
+        if (truncated || error != null) {
+            return;
+        }
+
+        try {
+            if (length + string.length() > maxLength) {
+                out.append(string, 0, (int) (maxLength - length)).append(ELLIPSIS);
+                length = maxLength;
+                truncated = true;
+            } else {
+                out.append(string);
+                length += string.length();
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+    }
 }
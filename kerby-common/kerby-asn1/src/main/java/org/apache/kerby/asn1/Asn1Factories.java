@@ -0,0 +1,132 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.asn1;
+
+import org.apache.kerby.asn1.type.Asn1Type;
+import org.apache.kerby.asn1.type.Asn1TypeFactories;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.ParameterizedType;
+
+/**
+ * Resolve and cache the factory of ASN1 types, used when decoding to create
+ * field values and collection elements.
+ *
+ * The factory comes from the generated provider of the type's package. For
+ * types compiled without the annotation processor, a factory calling the
+ * cached default constructor is used instead.
+ */
+public final class Asn1Factories {
+    private static final Asn1FactoryProvider BUILTIN_FACTORIES = new Asn1TypeFactories();
+
+    private static final ClassValue<Asn1TypeFactory<?>> FACTORIES =
+        new ClassValue<Asn1TypeFactory<?>>() {
+            @Override
+            protected Asn1TypeFactory<?> computeValue(Class<?> type) {
+                Asn1TypeFactory<?> factory = getGeneratedFactory(type);
+                if (factory == null) {
+                    factory = new ConstructorFactory<>(type);
+                }
+                return factory;
+            }
+        };
+
+    private static final ClassValue<Asn1TypeFactory<?>> TYPE_ARGUMENT_FACTORIES =
+        new ClassValue<Asn1TypeFactory<?>>() {
+            @Override
+            protected Asn1TypeFactory<?> computeValue(Class<?> type) {
+                Class<?> argument = (Class<?>) ((ParameterizedType)
+                    type.getGenericSuperclass()).getActualTypeArguments()[0];
+                return FACTORIES.get(argument);
+            }
+        };
+
+    private Asn1Factories() {
+
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T extends Asn1Type> Asn1TypeFactory<T> getFactory(Class<T> type) {
+        return (Asn1TypeFactory<T>) FACTORIES.get(type);
+    }
+
+    public static <T extends Asn1Type> T create(Class<T> type) {
+        return getFactory(type).create();
+    }
+
+    /**
+     * Get the factory of the ASN1 type given as the type argument of a
+     * generic super class, like the element type of a collection.
+     * @param type The class extending the generic class
+     * @return The factory of the type argument
+     */
+    public static Asn1TypeFactory<?> getTypeArgumentFactory(Class<?> type) {
+        return TYPE_ARGUMENT_FACTORIES.get(type);
+    }
+
+    private static Asn1TypeFactory<?> getGeneratedFactory(Class<?> type) {
+        if (type.getPackage() == Asn1Type.class.getPackage()) {
+            return BUILTIN_FACTORIES.getFactory(type);
+        }
+
+        Package pkg = type.getPackage();
+        String className = pkg == null ? Asn1FactoryProvider.CLASS_NAME
+            : pkg.getName() + "." + Asn1FactoryProvider.CLASS_NAME;
+        try {
+            Class<?> providerClass = Class.forName(className, true, type.getClassLoader());
+            if (Asn1FactoryProvider.class.isAssignableFrom(providerClass)) {
+                return ((Asn1FactoryProvider) providerClass.newInstance()).getFactory(type);
+            }
+        } catch (Exception e) {
+            return null; // Not compiled with the processor
+        }
+        return null;
+    }
+
+    /**
+     * Fallback for types without a generated factory.
+     */
+    private static final class ConstructorFactory<T extends Asn1Type>
+        implements Asn1TypeFactory<T> {
+        private final Class<?> type;
+        private volatile Constructor<T> constructor;
+
+        ConstructorFactory(Class<?> type) {
+            this.type = type;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T create() {
+            try {
+                Constructor<T> ctor = constructor;
+                if (ctor == null) {
+                    ctor = (Constructor<T>) type.getDeclaredConstructor();
+                    ctor.setAccessible(true);
+                    constructor = ctor;
+                }
+                return ctor.newInstance();
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Failed to create "
+                    + type.getName() + ", no default constructor?", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.asn1;
+
+/**
+ * Provide factories for the ASN1 types of a package. The provider class is
+ * generated as {@link #CLASS_NAME} in each package marked with
+ * {@link GenerateAsn1Factories}.
+ */
+public interface Asn1FactoryProvider {
+
+    String CLASS_NAME = "GeneratedAsn1Factories";
+
+    /**
+     * @param type The ASN1 type
+     * @return The factory for the type, or null if not provided
+     */
+    Asn1TypeFactory<?> getFactory(Class<?> type);
+}
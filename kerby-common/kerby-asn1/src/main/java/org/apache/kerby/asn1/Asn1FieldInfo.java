@@ -29,7 +29,9 @@ public class Asn1FieldInfo {
     private int tagNo = -1; // Indicate a non-tagged field
     private boolean isImplicit;
     private Class<? extends Asn1Type> type;
+    private Asn1TypeFactory<? extends Asn1Type> factory;
     private Tag tag = null;
+    private final TaggingOption taggingOption;
 
     /**
      * Constructor for a tagged field, the tagNo being the same of index.
@@ -55,6 +57,7 @@ public class Asn1FieldInfo {
         this.tagNo = tagNo;
         this.type = type;
         this.isImplicit = isImplicit;
+        this.taggingOption = makeTaggingOption();
     }
 
     /**
@@ -66,6 +69,7 @@ public class Asn1FieldInfo {
         this.index = index;
         this.type = type;
         this.tagNo = -1; // Indicate a non-tagged field
+        this.taggingOption = makeTaggingOption();
     }
 
     public boolean isTagged() {
@@ -73,6 +77,10 @@ public class Asn1FieldInfo {
     }
 
     public TaggingOption getTaggingOption() {
+        return taggingOption;
+    }
+
+    private TaggingOption makeTaggingOption() {
         if (isImplicit) {
             return TaggingOption.newImplicitContextSpecific(tagNo);
         } else {
@@ -93,12 +101,10 @@ public class Asn1FieldInfo {
     }
 
     public Asn1Type createFieldValue() {
-        try {
-            return type.newInstance();
-        } catch (Exception e) {
-            throw new IllegalArgumentException(
-                "Bad field type provided, no default constructor?", e);
+        if (factory == null) {
+            factory = Asn1Factories.getFactory(type);
         }
+        return factory.create();
     }
 
     public Tag getFieldTag() {
@@ -24,13 +24,13 @@ package org.apache.kerby.asn1;
  */
 public final class TaggingOption {
     /** The tag number. We limit it to an int, although it's theorically unlimited */
-    private int tagNo;
+    private final int tagNo;
     
     /** A flag set to TRUE when the tag is IMPLICIT */
-    private boolean isImplicit;
+    private final boolean isImplicit;
     
     /** A flag set to TRUE when the tag is an APPLICATION tag */
-    private boolean isAppSpecific;
+    private final boolean isAppSpecific;
 
     /**
      * Create an implicit application specific tagging option with tagNo.
@@ -0,0 +1,76 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.asn1.parse;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Reads the children of a container one by one. If the container body isn't
+ * parsed yet, each child is read straight from the buffer when asked for, so
+ * decoding can bind it right away without keeping a children list.
+ */
+public final class Asn1ChildReader {
+    private final Asn1Container container;
+    private final Iterator<Asn1ParseResult> parsedChildren;
+    private final Asn1Reader reader;
+    private int position;
+    private boolean finished;
+
+    public Asn1ChildReader(Asn1Container container) {
+        this.container = container;
+        if (container.isParsed()) {
+            this.parsedChildren = container.getChildren().iterator();
+            this.reader = null;
+        } else {
+            this.parsedChildren = null;
+            this.reader = new Asn1Reader(container.getBuffer());
+            this.position = container.getBodyStart();
+        }
+    }
+
+    /**
+     * Read the next child.
+     * @return The child, or null if no more
+     * @throws IOException e
+     */
+    public Asn1ParseResult next() throws IOException {
+        if (parsedChildren != null) {
+            return parsedChildren.hasNext() ? parsedChildren.next() : null;
+        }
+
+        if (finished || container.checkBodyFinished(position)) {
+            return null;
+        }
+
+        reader.setPosition(position);
+        Asn1ParseResult child = Asn1Parser.readItem(reader);
+        if (child == null) {
+            finished = true;
+            return null;
+        }
+
+        position += child.getEncodingLength();
+        if (child.isEOC()) {
+            finished = true;
+        }
+        return child;
+    }
+}
@@ -22,36 +22,64 @@ package org.apache.kerby.asn1.parse;
 import org.apache.kerby.asn1.Asn1Dumpable;
 import org.apache.kerby.asn1.Asn1Dumper;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * ASN1 constructed types, mainly structured ones, but also some primitive ones.
+ *
+ * The children are parsed on first access when the container comes from
+ * {@link Asn1Parser#readItem(Asn1Reader)}; decoding reads them one at a time
+ * with {@link Asn1ChildReader} instead and never builds the list.
  */
 public class Asn1Container
     extends Asn1ParseResult implements Asn1Dumpable {
 
-    private List<Asn1ParseResult> children = new ArrayList<>();
+    private List<Asn1ParseResult> children;
 
     public Asn1Container(Asn1Header header, int bodyStart, ByteBuffer buffer) {
         super(header, bodyStart, buffer);
     }
 
     public List<Asn1ParseResult> getChildren() {
+        if (children == null) {
+            children = new ArrayList<>();
+            if (getBodyLength() != 0) {
+                try {
+                    Asn1Parser.parse(this);
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to parse " + simpleInfo(), e);
+                }
+            }
+        }
         return children;
     }
 
+    /**
+     * @return true if the children are already parsed into the list
+     */
+    public boolean isParsed() {
+        return children != null;
+    }
+
     public void addItem(Asn1ParseResult value) {
+        if (children == null) {
+            children = new ArrayList<>();
+        }
         children.add(value);
     }
 
     public void clear() {
-        children.clear();
+        if (children != null) {
+            children.clear();
+        }
     }
 
     @Override
     public void dumpWith(Asn1Dumper dumper, int indents) {
+        List<Asn1ParseResult> children = getChildren();
         dumper.indent(indents).append(toString());
         if (children.size() > 0) {
             dumper.newLine();
@@ -75,6 +75,14 @@ public class Asn1DerivedItem extends Asn1Item {
         return newBodyBuffer;
     }
 
+    @Override
+    public byte[] readBodyBytes() {
+        ByteBuffer bodyBuffer = getBodyBuffer().duplicate();
+        byte[] result = new byte[bodyBuffer.remaining()];
+        bodyBuffer.get(result);
+        return result;
+    }
+
     @Override
     public int getBodyLength() {
         if (newBodyLength == -1) {
@@ -73,6 +73,14 @@ public abstract class Asn1ParseResult extends Asn1Object {
     }
 
     public byte[] readBodyBytes() {
+        if (buffer.hasArray() && getBodyEnd() >= bodyStart) {
+            // Copy straight from the backing array, no buffer duplicate
+            byte[] result = new byte[getBodyEnd() - bodyStart];
+            System.arraycopy(buffer.array(), buffer.arrayOffset() + bodyStart,
+                result, 0, result.length);
+            return result;
+        }
+
         ByteBuffer bodyBuffer = getBodyBuffer();
         byte[] result = new byte[bodyBuffer.remaining()];
         bodyBuffer.get(result);
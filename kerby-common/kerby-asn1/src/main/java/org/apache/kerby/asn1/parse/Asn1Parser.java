@@ -54,6 +54,44 @@ public class Asn1Parser {
         container.setBodyEnd(pos);
     }
 
+    /**
+     * Read the next item without parsing the body of a definite length
+     * container, which is left to decoding to read in the same pass. Bodies
+     * of indefinite length containers are parsed, as that's the only way to
+     * find their end.
+     * @param content The content
+     * @return The item, or null if no more content
+     * @throws IOException e
+     */
+    public static Asn1ParseResult readItem(ByteBuffer content) throws IOException {
+        return readItem(new Asn1Reader(content));
+    }
+
+    /**
+     * See above.
+     * @param reader The reader
+     * @return The item, or null if no more content
+     * @throws IOException e
+     */
+    public static Asn1ParseResult readItem(Asn1Reader reader) throws IOException {
+        if (!reader.available()) {
+            return null;
+        }
+
+        Asn1Header header = reader.readHeader();
+        int bodyStart = reader.getPosition();
+        if (header.getTag().isPrimitive()) {
+            return new Asn1Item(header, bodyStart, reader.getBuffer());
+        }
+
+        Asn1Container container = new Asn1Container(header,
+            bodyStart, reader.getBuffer());
+        if (!header.isDefinitiveLength()) {
+            parse(container);
+        }
+        return container;
+    }
+
     public static Asn1ParseResult parse(ByteBuffer content) throws IOException {
         Asn1Reader reader = new Asn1Reader(content);
         return parse(reader);
@@ -0,0 +1,311 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.asn1.parse;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Incremental ASN1 parser, fed with the bytes of an encoding as they arrive.
+ *
+ * It tells how many more bytes are needed to complete the next item: the
+ * exact remainder once a definite length header is read, or the minimal
+ * progress for a header or an indefinite length BER container, whose end is
+ * only known when the end of contents of every nested container is read.
+ * Since it never asks for bytes past the item, reading from a stream doesn't
+ * consume the data that follows.
+ *
+ * A complete item is returned as a buffer holding exactly its encoding, to
+ * be parsed or decoded like any other. The input bytes are accumulated in a
+ * buffer that grows up to the maximum item length.
+ */
+public final class Asn1StreamParser {
+    /**
+     * The default maximum length of an item, in bytes.
+     */
+    public static final int DEFAULT_MAX_LENGTH = 4 * 1024 * 1024;
+
+    private static final int MAX_DEPTH = 64;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int maxLength;
+    private byte[] buffer;
+    private int count;
+    private int needed;
+
+    public Asn1StreamParser() {
+        this(DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * @param maxLength The maximum length of an item, in bytes
+     */
+    public Asn1StreamParser(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Add input bytes.
+     * @param input The input, consumed
+     */
+    public void feed(ByteBuffer input) {
+        int length = input.remaining();
+        ensureCapacity(count + length);
+        input.get(buffer, count, length);
+        count += length;
+    }
+
+    /**
+     * Read the available bytes from a channel, at most as many as fit in the
+     * buffered item.
+     * @param channel The channel, blocking or not
+     * @return The number of bytes read, or -1 at the end of the channel
+     * @throws IOException e
+     */
+    public int read(ReadableByteChannel channel) throws IOException {
+        int wanted = getNeededBytes();
+        if (wanted == 0) {
+            return 0;
+        }
+
+        ensureCapacity(Math.min(count + Math.max(wanted, INITIAL_CAPACITY), maxLength));
+        int read = channel.read(ByteBuffer.wrap(buffer, count, buffer.length - count));
+        if (read > 0) {
+            count += read;
+        }
+        return read;
+    }
+
+    /**
+     * Read exactly the next item from a stream, blocking until it's complete.
+     * @param in The input stream
+     * @return The item encoding, or null if the stream ends before an item
+     * @throws IOException e, or EOFException if the stream ends inside an item
+     */
+    public ByteBuffer read(InputStream in) throws IOException {
+        int wanted = getNeededBytes();
+        while (wanted > 0) {
+            ensureCapacity(count + wanted);
+            int read = in.read(buffer, count, wanted);
+            if (read < 0) {
+                if (count == 0) {
+                    return null;
+                }
+                throw new EOFException("Stream ended in an ASN1 item, "
+                    + wanted + " more bytes expected");
+            }
+            count += read;
+            wanted = getNeededBytes();
+        }
+
+        return next();
+    }
+
+    /**
+     * @return The number of bytes buffered
+     */
+    public int getBufferedBytes() {
+        return count;
+    }
+
+    /**
+     * Get the number of bytes to add before the next item can be complete,
+     * without going past its end.
+     * @return The number of bytes, 0 if the next item is complete
+     * @throws IOException e, if the encoding is invalid or too long
+     */
+    public int getNeededBytes() throws IOException {
+        if (scan(0, 0) >= 0) {
+            return 0;
+        }
+        return needed;
+    }
+
+    /**
+     * Get the encoding length of the next item, known once its header is
+     * read when of definite length, else once it's complete.
+     * @return The length, or -1 if not known yet
+     * @throws IOException e, if the encoding is invalid or too long
+     */
+    public int getExpectedLength() throws IOException {
+        int end = scan(0, 0);
+        if (end >= 0) {
+            return end;
+        }
+
+        int[] header = new int[2];
+        if (readHeader(0, header) && header[1] >= 0) {
+            return header[0] + header[1];
+        }
+        return -1;
+    }
+
+    /**
+     * Take the next item, if complete.
+     * @return The item encoding, or null if more bytes are needed
+     * @throws IOException e, if the encoding is invalid or too long
+     */
+    public ByteBuffer next() throws IOException {
+        int end = scan(0, 0);
+        if (end < 0) {
+            return null;
+        }
+
+        ByteBuffer result;
+        if (end == count) {
+            // Hand off the buffer, the common case of a single item per input
+            result = ByteBuffer.wrap(buffer, 0, end).slice();
+            buffer = null;
+        } else {
+            byte[] bytes = new byte[end];
+            System.arraycopy(buffer, 0, bytes, 0, end);
+            System.arraycopy(buffer, end, buffer, 0, count - end);
+            result = ByteBuffer.wrap(bytes);
+        }
+        count -= end;
+        return result;
+    }
+
+    /**
+     * Take and parse the next item, if complete.
+     * @return The parse result, or null if more bytes are needed
+     * @throws IOException e
+     */
+    public Asn1ParseResult parseNext() throws IOException {
+        ByteBuffer content = next();
+        return content != null ? Asn1Parser.parse(content) : null;
+    }
+
+    /**
+     * Find the end of the item at the given position within the buffered
+     * bytes, or set the number of bytes needed to progress.
+     * @return The end position, or -1 if the item isn't complete
+     */
+    private int scan(int pos, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("Too deeply nested ASN1 item at offset " + pos);
+        }
+
+        int[] header = new int[2];
+        if (!readHeader(pos, header)) {
+            return -1;
+        }
+
+        int bodyStart = pos + header[0];
+        if (header[1] >= 0) {
+            long end = (long) bodyStart + header[1];
+            if (end > maxLength) {
+                throw new IOException("Too long ASN1 item of " + end + " bytes, the limit is " + maxLength);
+            }
+            if (end > count) {
+                needed = (int) (end - count);
+                return -1;
+            }
+            return (int) end;
+        }
+
+        if ((buffer[pos] & 0x20) == 0) {
+            throw new IOException("Indefinite length primitive at offset " + pos);
+        }
+
+        int childPos = bodyStart;
+        while (true) {
+            int childEnd = scan(childPos, depth + 1);
+            if (childEnd < 0) {
+                return -1;
+            }
+            if (childEnd - childPos == 2 && buffer[childPos] == 0) {
+                return childEnd;
+            }
+            childPos = childEnd;
+        }
+    }
+
+    /**
+     * Read the header at the given position into its length and the body
+     * length, -1 if indefinite, or set the number of bytes needed to progress.
+     * @return true if the header is complete
+     */
+    private boolean readHeader(int pos, int[] header) throws IOException {
+        int p = pos;
+        if (p >= count) {
+            needed = 1;
+            return false;
+        }
+
+        if ((buffer[p++] & 0x1f) == 0x1f) {
+            do {
+                if (p >= count) {
+                    needed = 1;
+                    return false;
+                }
+                if (p - pos > 5) {
+                    throw new IOException("Too long tag number at offset " + pos);
+                }
+            } while ((buffer[p++] & 0x80) != 0);
+        }
+
+        if (p >= count) {
+            needed = 1;
+            return false;
+        }
+
+        int first = buffer[p++] & 0xff;
+        int length;
+        if (first == 0x80) {
+            length = -1;
+        } else if (first < 0x80) {
+            length = first;
+        } else {
+            int num = first & 0x7f;
+            if (num > 4) {
+                throw new IOException("Bad length of more than 4 bytes: " + num);
+            }
+            if (p + num > count) {
+                needed = p + num - count;
+                return false;
+            }
+            length = 0;
+            for (int i = 0; i < num; i++) {
+                length = (length << 8) + (buffer[p++] & 0xff);
+            }
+            if (length < 0) {
+                throw new IOException("Invalid length " + length + " at offset " + pos);
+            }
+        }
+
+        header[0] = p - pos;
+        header[1] = length;
+        return true;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buffer == null) {
+            buffer = new byte[Math.max(capacity, INITIAL_CAPACITY)];
+        } else if (capacity > buffer.length) {
+            byte[] newBuffer = new byte[Math.max(capacity, buffer.length * 2)];
+            System.arraycopy(buffer, 0, newBuffer, 0, count);
+            buffer = newBuffer;
+        }
+    }
+}
@@ -80,6 +80,15 @@ public abstract class AbstractAsn1Type<T> extends Asn1Encodeable {
         }
     }
 
+    /**
+     * Set the value without resetting the encoding, for a value that's the
+     * same as the encoded one but in another form.
+     * @param value The value
+     */
+    void restoreValue(T value) {
+        this.value = value;
+    }
+
     @Override
     public String toString() {
         return tag().typeStr();
@@ -36,7 +36,6 @@ public class Asn1Choice
     extends AbstractAsn1Type<Asn1Type> implements Asn1Dumpable {
 
     private final Asn1FieldInfo[] fieldInfos;
-    private final Tag[] tags;
 
     private Asn1FieldInfo chosenField;
 
@@ -44,8 +43,6 @@ public class Asn1Choice
         super(UniversalTag.CHOICE);
 
         this.fieldInfos = fieldInfos;
-        this.tags = new Tag[fieldInfos.length];
-        initTags();
     }
 
     @Override
@@ -58,25 +55,12 @@ public class Asn1Choice
         return super.tag();
     }
 
-    private void initTags() {
-        for (int i = 0; i < fieldInfos.length; i++) {
-            tags[i] = fieldInfos[i].getFieldTag();
-        }
+    Asn1FieldInfo[] getFieldInfos() {
+        return fieldInfos;
     }
 
     public boolean matchAndSetValue(Tag tag) {
-        int foundPos = -1;
-        for (int i = 0; i < fieldInfos.length; i++) {
-            if (tag.isContextSpecific()) {
-                if (fieldInfos[i].getTagNo() == tag.tagNo()) {
-                    foundPos = i;
-                    break;
-                }
-            } else if (tags[i].equals(tag)) {
-                foundPos = i;
-                break;
-            }
-        }
+        int foundPos = Asn1FieldMatcher.forChoice(getClass(), fieldInfos).match(tag, -1);
 
         if (foundPos != -1) {
             this.chosenField = fieldInfos[foundPos];
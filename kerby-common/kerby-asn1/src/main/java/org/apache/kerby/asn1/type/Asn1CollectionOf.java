@@ -20,28 +20,54 @@
 package org.apache.kerby.asn1.type;
 
 import org.apache.kerby.asn1.Asn1Binder;
+import org.apache.kerby.asn1.Asn1Factories;
 import org.apache.kerby.asn1.UniversalTag;
+import org.apache.kerby.asn1.parse.Asn1ChildReader;
 import org.apache.kerby.asn1.parse.Asn1ParseResult;
 
 import java.io.IOException;
-import java.lang.reflect.ParameterizedType;
 import java.util.List;
 
 public abstract class Asn1CollectionOf<T extends Asn1Type>
     extends Asn1Collection {
 
+    private boolean lazyDecoding;
+
     public Asn1CollectionOf(UniversalTag universalTag) {
         super(universalTag);
     }
 
+    /**
+     * Enable or disable lazy decoding mode for the elements, as described
+     * in {@link Asn1CollectionType}. The elements themselves are decoded
+     * along with the collection.
+     * @param isLazy true to decode the element fields on demand
+     */
+    public void useLazyDecoding(boolean isLazy) {
+        this.lazyDecoding = isLazy;
+    }
+
+    public boolean isLazyDecoding() {
+        return lazyDecoding;
+    }
+
     @Override
     protected void decodeElements() throws IOException {
-        for (Asn1ParseResult parsingItem : getContainer().getChildren()) {
+        Asn1ChildReader childReader = new Asn1ChildReader(getContainer());
+        Asn1ParseResult parsingItem;
+        while ((parsingItem = childReader.next()) != null) {
             if (parsingItem.isEOC()) {
                 continue;
             }
 
             Asn1Type tmpValue = createElement();
+            if (lazyDecoding) {
+                if (tmpValue instanceof Asn1CollectionType) {
+                    ((Asn1CollectionType) tmpValue).useLazyDecoding(true);
+                } else if (tmpValue instanceof Asn1OctetString) {
+                    ((Asn1OctetString) tmpValue).useSlicing(true);
+                }
+            }
             Asn1Binder.bind(parsingItem, tmpValue);
             addItem(tmpValue);
         }
@@ -69,20 +95,12 @@ public abstract class Asn1CollectionOf<T extends Asn1Type>
         super.addItem(element);
     }
 
-    private Class<T> getElementType() {
-        Class<T> elementType = (Class<T>) ((ParameterizedType)
-            getClass().getGenericSuperclass()).getActualTypeArguments()[0];
-        return elementType;
-    }
-
     protected T createElement() throws IOException {
-        Class<?> eleType = getElementType();
         try {
-            T result = (T) eleType.newInstance();
-            return result;
-        } catch (Exception e) {
-            throw new IOException("Failed to create element type, "
-                + "no default constructor? " + eleType.getName(), e);
+            return (T) Asn1Factories.getTypeArgumentFactory(getClass()).create();
+        } catch (RuntimeException e) {
+            throw new IOException("Failed to create element type of "
+                + getClass().getName(), e);
         }
     }
 }
@@ -26,21 +26,31 @@ import org.apache.kerby.asn1.Asn1FieldInfo;
 import org.apache.kerby.asn1.EnumType;
 import org.apache.kerby.asn1.TaggingOption;
 import org.apache.kerby.asn1.UniversalTag;
+import org.apache.kerby.asn1.parse.Asn1ChildReader;
 import org.apache.kerby.asn1.parse.Asn1Container;
 import org.apache.kerby.asn1.parse.Asn1ParseResult;
 
 import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
-import java.util.List;
 
 /**
- * For collection type that may consist of tagged fields
+ * For collection type that may consist of tagged fields.
+ *
+ * In lazy decoding mode, a constructed field is not decoded along with the
+ * collection. Only its parse result, the byte range in the decoded content,
+ * is kept until the field is first accessed, then it's decoded and cached.
+ * An untouched field is re-encoded by copying its original bytes verbatim.
+ * Octet string fields are decoded in slicing mode, as views into the content.
+ * The decoded content must not be modified while any field is pending, and
+ * like the rest of the type, the lazy access isn't thread safe.
  */
 public abstract class Asn1CollectionType
     extends AbstractAsn1Type<Asn1CollectionType> implements Asn1Dumpable {
     private final Asn1FieldInfo[] fieldInfos;
     private final Asn1Type[] fields;
+    private Asn1ParseResult[] pendingFields;
+    private boolean lazyDecoding;
 
     public Asn1CollectionType(UniversalTag universalTag,
                               final Asn1FieldInfo[] fieldInfos) {
@@ -52,11 +62,28 @@ public abstract class Asn1CollectionType
         usePrimitive(false);
     }
 
+    /**
+     * Enable or disable lazy decoding of constructed fields, see above. The
+     * mode is inherited by the collection fields decoded on demand.
+     * @param isLazy true to decode the fields on demand
+     */
+    public void useLazyDecoding(boolean isLazy) {
+        this.lazyDecoding = isLazy;
+    }
+
+    public boolean isLazyDecoding() {
+        return lazyDecoding;
+    }
+
     @Override
     protected int encodingBodyLength() throws IOException {
         int allLen = 0;
         int fieldLen;
         for (int i = 0; i < fields.length; ++i) {
+            if (isPending(i)) {
+                allLen += pendingFields[i].getEncodingLength();
+                continue;
+            }
             Asn1Encodeable field = (Asn1Encodeable) fields[i];
             if (field != null) {
                 if (fieldInfos[i].isTagged()) {
@@ -75,6 +102,10 @@ public abstract class Asn1CollectionType
     @Override
     protected void encodeBody(ByteBuffer buffer) throws IOException {
         for (int i = 0; i < fields.length; ++i) {
+            if (isPending(i)) {
+                encodePending(buffer, pendingFields[i]);
+                continue;
+            }
             Asn1Type field = fields[i];
             if (field != null) {
                 if (fieldInfos[i].isTagged()) {
@@ -91,24 +122,82 @@ public abstract class Asn1CollectionType
     @Override
     protected void decodeBody(Asn1ParseResult parseResult) throws IOException {
         useDefinitiveLength(parseResult.isDefinitiveLength());
+        pendingFields = null;
 
-        Asn1Container container = (Asn1Container) parseResult;
-        List<Asn1ParseResult> parseResults = container.getChildren();
+        Asn1ChildReader childReader = new Asn1ChildReader((Asn1Container) parseResult);
 
+        Asn1FieldMatcher matcher = Asn1FieldMatcher.forCollection(getClass(), fieldInfos);
         int lastPos = -1, foundPos = -1;
 
-        for (Asn1ParseResult parseItem : parseResults) {
+        Asn1ParseResult parseItem;
+        while ((parseItem = childReader.next()) != null) {
             if (parseItem.isEOC()) {
                 continue;
             }
 
-            foundPos = match(lastPos, parseItem);
+            foundPos = match(matcher, lastPos, parseItem);
             if (foundPos == -1) {
                 throw new IOException("Unexpected item: " + parseItem.simpleInfo());
             }
             lastPos = foundPos;
 
-            attemptBinding(parseItem, foundPos);
+            if (isLazyDecodable(matcher, parseItem, foundPos)) {
+                if (pendingFields == null) {
+                    pendingFields = new Asn1ParseResult[fields.length];
+                }
+                pendingFields[foundPos] = parseItem;
+            } else {
+                attemptBinding(parseItem, foundPos);
+            }
+        }
+    }
+
+    private boolean isLazyDecodable(Asn1FieldMatcher matcher,
+                                    Asn1ParseResult parseItem, int foundPos) {
+        // Choice and any fields are already resolved when matching
+        return lazyDecoding && fields[foundPos] == null && !matcher.isAny(foundPos)
+            && !parseItem.isPrimitive() && parseItem.isDefinitiveLength();
+    }
+
+    private boolean isPending(int index) {
+        return pendingFields != null && pendingFields[index] != null;
+    }
+
+    private void encodePending(ByteBuffer buffer, Asn1ParseResult parseItem) {
+        ByteBuffer content = parseItem.getBuffer().duplicate();
+        int offset = parseItem.getOffset();
+        content.limit(offset + parseItem.getEncodingLength());
+        content.position(offset);
+        buffer.put(content);
+    }
+
+    /**
+     * Decode the field if it's still pending in lazy decoding mode.
+     * @param index The field index
+     */
+    private void checkPendingField(int index) {
+        if (!isPending(index)) {
+            return;
+        }
+
+        Asn1ParseResult parseItem = pendingFields[index];
+        pendingFields[index] = null;
+        checkAndInitField(index);
+
+        Asn1Type fieldValue = fields[index];
+        if (fieldValue instanceof Asn1CollectionType) {
+            ((Asn1CollectionType) fieldValue).useLazyDecoding(true);
+        } else if (fieldValue instanceof Asn1TaggingCollection) {
+            ((Asn1TaggingCollection) fieldValue).useLazyDecoding(true);
+        } else if (fieldValue instanceof Asn1CollectionOf) {
+            ((Asn1CollectionOf<?>) fieldValue).useLazyDecoding(true);
+        }
+
+        try {
+            attemptBinding(parseItem, index);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to decode field "
+                + fieldInfos[index].getIndex().getName(), e);
         }
     }
 
@@ -118,6 +207,10 @@ public abstract class Asn1CollectionType
         checkAndInitField(foundPos);
         Asn1Type fieldValue = fields[foundPos];
 
+        if (lazyDecoding && fieldValue instanceof Asn1OctetString) {
+            ((Asn1OctetString) fieldValue).useSlicing(true);
+        }
+
         if (fieldValue instanceof Asn1Any) {
             Asn1Any any = (Asn1Any) fieldValue;
             any.setDecodeInfo(fieldInfo);
@@ -132,53 +225,12 @@ public abstract class Asn1CollectionType
         }
     }
 
-    private int match(int lastPos, Asn1ParseResult parseItem) {
-        int foundPos = -1;
-        for (int i = lastPos + 1; i < fieldInfos.length; ++i) {
-            Asn1Type fieldValue = fields[i];
-            Asn1FieldInfo fieldInfo = fieldInfos[i];
-
-            if (fieldInfo.isTagged()) {
-                if (!parseItem.isContextSpecific()) {
-                    continue;
-                }
-                if (fieldInfo.getTagNo() == parseItem.tagNo()) {
-                    foundPos = i;
-                    break;
-                }
-            } else if (fieldValue != null) {
-                if (fieldValue.tag().equals(parseItem.tag())) {
-                    foundPos = i;
-                    break;
-                } else if (fieldValue instanceof Asn1Choice) {
-                    Asn1Choice aChoice = (Asn1Choice) fieldValue;
-                    if (aChoice.matchAndSetValue(parseItem.tag())) {
-                        foundPos = i;
-                        break;
-                    }
-                } else if (fieldValue instanceof Asn1Any) {
-                    foundPos = i;
-                    break;
-                }
-            } else {
-                if (fieldInfo.getFieldTag().equals(parseItem.tag())) {
-                    foundPos = i;
-                    break;
-
-                } else if (Asn1Choice.class
-                        .isAssignableFrom(fieldInfo.getType())) {
-                    Asn1Choice aChoice = (Asn1Choice) (fields[i] = fieldInfo
-                            .createFieldValue());
-                    if (aChoice.matchAndSetValue(parseItem.tag())) {
-                        foundPos = i;
-                        break;
-                    }
-                } else if (Asn1Any.class
-                        .isAssignableFrom(fieldInfo.getType())) {
-                    foundPos = i;
-                    break;
-                }
-            }
+    private int match(Asn1FieldMatcher matcher, int lastPos,
+                      Asn1ParseResult parseItem) {
+        int foundPos = matcher.match(parseItem.tag(), lastPos);
+        if (foundPos != -1 && matcher.isUntaggedChoice(foundPos)) {
+            checkAndInitField(foundPos);
+            ((Asn1Choice) fields[foundPos]).matchAndSetValue(parseItem.tag());
         }
 
         return foundPos;
@@ -194,6 +246,7 @@ public abstract class Asn1CollectionType
 
     @SuppressWarnings("unchecked")
     protected <T extends Asn1Type> T getFieldAs(EnumType index, Class<T> t) {
+        checkPendingField(index.getValue());
         Asn1Type value = fields[index.getValue()];
         if (value == null) {
             return null;
@@ -206,10 +259,14 @@ public abstract class Asn1CollectionType
         if (value instanceof Asn1Encodeable) {
             ((Asn1Encodeable) value).outerEncodeable = this;
         }
+        if (pendingFields != null) {
+            pendingFields[index.getValue()] = null;
+        }
         fields[index.getValue()] = value;
     }
 
     protected String getFieldAsString(EnumType index) {
+        checkPendingField(index.getValue());
         Asn1Type value = fields[index.getValue()];
         if (value == null) {
             return null;
@@ -230,6 +287,20 @@ public abstract class Asn1CollectionType
         return null;
     }
 
+    /**
+     * Get an octets field as a read-only buffer, that in lazy decoding mode
+     * is a view into the decoded content and not a copy.
+     * @param index The field index
+     * @return The field value buffer, or null if absent
+     */
+    protected ByteBuffer getFieldAsOctetsBuffer(EnumType index) {
+        Asn1OctetString value = getFieldAs(index, Asn1OctetString.class);
+        if (value != null) {
+            return value.getValueBuffer();
+        }
+        return null;
+    }
+
     protected void setFieldAsOctets(EnumType index, byte[] bytes) {
         Asn1OctetString value = new Asn1OctetString(bytes);
         setFieldAs(index, value);
@@ -264,6 +335,7 @@ public abstract class Asn1CollectionType
     }
 
     protected <T extends Asn1Type> T getFieldAsAny(EnumType index, Class<T> t) {
+        checkPendingField(index.getValue());
         Asn1Type value = fields[index.getValue()];
         if (value != null && value instanceof Asn1Any) {
             Asn1Any any = (Asn1Any) value;
@@ -283,6 +355,7 @@ public abstract class Asn1CollectionType
     protected void setAnyFieldValueType(EnumType index,
                                         Class<? extends Asn1Type> valueType) {
         if (valueType != null) {
+            checkPendingField(index.getValue());
             checkAndInitField(index.getValue());
             Asn1Type value = fields[index.getValue()];
             if (value != null && value instanceof Asn1Any) {
@@ -304,6 +377,7 @@ public abstract class Asn1CollectionType
 
             dumper.indent(indents + 4).append(fdName).append(" = ");
 
+            checkPendingField(i);
             Asn1Type fdValue = fields[i];
             if (fdValue == null || fdValue instanceof Asn1Simple) {
                 dumper.append((Asn1Simple<?>) fdValue);
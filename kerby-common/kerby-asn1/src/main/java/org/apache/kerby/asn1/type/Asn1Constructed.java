@@ -23,6 +23,7 @@ import org.apache.kerby.asn1.Asn1Converter;
 import org.apache.kerby.asn1.Asn1Dumpable;
 import org.apache.kerby.asn1.Asn1Dumper;
 import org.apache.kerby.asn1.Tag;
+import org.apache.kerby.asn1.parse.Asn1ChildReader;
 import org.apache.kerby.asn1.parse.Asn1Container;
 import org.apache.kerby.asn1.parse.Asn1ParseResult;
 
@@ -107,7 +108,9 @@ public class Asn1Constructed
     }
 
     protected void decodeElements() throws IOException {
-        for (Asn1ParseResult parsingItem : getContainer().getChildren()) {
+        Asn1ChildReader childReader = new Asn1ChildReader(getContainer());
+        Asn1ParseResult parsingItem;
+        while ((parsingItem = childReader.next()) != null) {
             if (parsingItem.isEOC()) {
                 continue;
             }
@@ -22,6 +22,7 @@ package org.apache.kerby.asn1.type;
 import org.apache.kerby.asn1.Tag;
 import org.apache.kerby.asn1.TaggingOption;
 import org.apache.kerby.asn1.UniversalTag;
+import org.apache.kerby.asn1.parse.Asn1ChildReader;
 import org.apache.kerby.asn1.parse.Asn1Container;
 import org.apache.kerby.asn1.parse.Asn1DerivedItem;
 import org.apache.kerby.asn1.parse.Asn1ParseResult;
@@ -39,6 +40,7 @@ public abstract class Asn1Encodeable extends Asn1Object implements Asn1Type {
 
     protected int bodyLength = -1;
     public Asn1Encodeable outerEncodeable = null;
+    private byte[] frozenBody;
 
     // encoding options
     private EncodingType encodingType = EncodingType.BER;
@@ -143,12 +145,43 @@ public abstract class Asn1Encodeable extends Asn1Object implements Asn1Type {
         Asn1Util.encodeTag(buffer, tag());
         int bodyLen = getBodyLength();
         Asn1Util.encodeLength(buffer, bodyLen);
-        encodeBody(buffer);
+        encodeFrozenOrBody(buffer);
+    }
+
+    /**
+     * Freeze the value, encoding its body once and copying the cached bytes
+     * on later encodings, tagged or not. It's meant for values encoded again
+     * and again without change, like a ticket sent in many requests. Setting
+     * a field of the value thaws it, but nested values must not be changed
+     * in place while it's frozen. Types encoding through another value, like
+     * choice and any, should have that value frozen instead.
+     * @throws IOException e
+     */
+    public void freeze() throws IOException {
+        if (frozenBody == null) {
+            ByteBuffer body = ByteBuffer.allocate(getBodyLength());
+            encodeBody(body);
+            frozenBody = body.array();
+        }
+    }
+
+    public boolean isFrozen() {
+        return frozenBody != null;
+    }
+
+    void encodeFrozenOrBody(ByteBuffer buffer) throws IOException {
+        byte[] body = frozenBody;
+        if (body != null) {
+            buffer.put(body);
+        } else {
+            encodeBody(buffer);
+        }
     }
 
     public void resetBodyLength() {
-        if (bodyLength != -1) {
+        if (bodyLength != -1 || frozenBody != null) {
             bodyLength = -1;
+            frozenBody = null;
             if (outerEncodeable != null) {
                 outerEncodeable.resetBodyLength();
             }
@@ -203,7 +236,10 @@ public abstract class Asn1Encodeable extends Asn1Object implements Asn1Type {
 
     @Override
     public void decode(ByteBuffer content) throws IOException {
-        Asn1ParseResult parseResult = Asn1Parser.parse(content);
+        Asn1ParseResult parseResult = Asn1Parser.readItem(content);
+        if (parseResult == null) {
+            throw new IOException("No content to decode");
+        }
         decode(parseResult);
     }
 
@@ -249,12 +285,12 @@ public abstract class Asn1Encodeable extends Asn1Object implements Asn1Type {
         Tag taggingTag = taggingOption.getTag(!isPrimitive());
         Asn1Util.encodeTag(buffer, taggingTag);
 
-        int taggingBodyLen = taggingOption.isImplicit() ? encodingBodyLength()
+        int taggingBodyLen = taggingOption.isImplicit() ? getBodyLength()
             : encodingLength();
         Asn1Util.encodeLength(buffer, taggingBodyLen);
 
         if (taggingOption.isImplicit()) {
-            encodeBody(buffer);
+            encodeFrozenOrBody(buffer);
         } else {
             encode(buffer);
         }
@@ -269,7 +305,10 @@ public abstract class Asn1Encodeable extends Asn1Object implements Asn1Type {
     @Override
     public void taggedDecode(ByteBuffer content,
                              TaggingOption taggingOption) throws IOException {
-        Asn1ParseResult parseResult = Asn1Parser.parse(content);
+        Asn1ParseResult parseResult = Asn1Parser.readItem(content);
+        if (parseResult == null) {
+            throw new IOException("No content to decode");
+        }
         taggedDecode(parseResult, taggingOption);
     }
 
@@ -292,10 +331,12 @@ public abstract class Asn1Encodeable extends Asn1Object implements Asn1Type {
         if (taggingOption.isImplicit()) {
             decodeBody(tmpParseResult);
         } else {
-
             Asn1Container container = (Asn1Container) parseResult;
-            tmpParseResult = container.getChildren().get(0);
-            
+            tmpParseResult = new Asn1ChildReader(container).next();
+            if (tmpParseResult == null) {
+                throw new IOException("Missing tagged value in " + parseResult.simpleInfo());
+            }
+
             decode(tmpParseResult);
         }
     }
@@ -0,0 +1,204 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.asn1.type;
+
+import org.apache.kerby.asn1.Asn1FieldInfo;
+import org.apache.kerby.asn1.Tag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lookup tables from the tag of a parsed item to the fields it can be, built
+ * once per collection or choice type on first decoding. A context specific
+ * tag number maps to the tagged fields, another tag maps to the untagged
+ * fields of that tag or with an alternative of that tag for choices, and
+ * any fields match all items. The candidates are in field order, so the
+ * first one after the last matched position is the one a linear scan of the
+ * fields would find.
+ */
+final class Asn1FieldMatcher {
+    private static final int[] NONE = new int[0];
+
+    private static final ClassValue<Holder> MATCHERS = new ClassValue<Holder>() {
+        @Override
+        protected Holder computeValue(Class<?> type) {
+            return new Holder();
+        }
+    };
+
+    private final Asn1FieldInfo[] fieldInfos;
+    private final int[][] contextFields;
+    private final Map<Tag, int[]> tagFields;
+    private final int[] anyFields;
+    private final boolean[] untaggedChoices;
+
+    private Asn1FieldMatcher(Asn1FieldInfo[] fieldInfos, boolean forChoice) {
+        this.fieldInfos = fieldInfos;
+        this.untaggedChoices = new boolean[fieldInfos.length];
+
+        List<List<Integer>> contexts = new ArrayList<>();
+        Map<Tag, List<Integer>> tags = new HashMap<>();
+        List<Integer> anys = new ArrayList<>();
+
+        for (int i = 0; i < fieldInfos.length; i++) {
+            Asn1FieldInfo fieldInfo = fieldInfos[i];
+            Class<?> type = fieldInfo.getType();
+            if (forChoice) {
+                // A choice matches context tags by tag number only
+                if (fieldInfo.isTagged()) {
+                    add(contexts, fieldInfo.getTagNo(), i);
+                }
+                addTag(tags, fieldInfo.getFieldTag(), i, false);
+            } else if (fieldInfo.isTagged()) {
+                add(contexts, fieldInfo.getTagNo(), i);
+            } else if (Asn1Choice.class.isAssignableFrom(type)) {
+                untaggedChoices[i] = true;
+                Asn1Choice choice = (Asn1Choice) fieldInfo.createFieldValue();
+                for (Asn1FieldInfo choiceInfo : choice.getFieldInfos()) {
+                    if (choiceInfo.isTagged()) {
+                        add(contexts, choiceInfo.getTagNo(), i);
+                    }
+                    addTag(tags, choiceInfo.getFieldTag(), i, false);
+                }
+            } else if (Asn1Any.class.isAssignableFrom(type)) {
+                anys.add(i);
+            } else {
+                addTag(tags, fieldInfo.getFieldTag(), i, true);
+            }
+        }
+
+        this.contextFields = new int[contexts.size()][];
+        for (int i = 0; i < contexts.size(); i++) {
+            contextFields[i] = toArray(contexts.get(i));
+        }
+        this.tagFields = new HashMap<>(tags.size() * 2);
+        for (Map.Entry<Tag, List<Integer>> entry : tags.entrySet()) {
+            tagFields.put(entry.getKey(), toArray(entry.getValue()));
+        }
+        this.anyFields = toArray(anys);
+    }
+
+    static Asn1FieldMatcher forCollection(Class<?> type, Asn1FieldInfo[] fieldInfos) {
+        return get(type, fieldInfos, false);
+    }
+
+    static Asn1FieldMatcher forChoice(Class<?> type, Asn1FieldInfo[] fieldInfos) {
+        return get(type, fieldInfos, true);
+    }
+
+    private static Asn1FieldMatcher get(Class<?> type, Asn1FieldInfo[] fieldInfos,
+                                        boolean forChoice) {
+        Holder holder = MATCHERS.get(type);
+        Asn1FieldMatcher matcher = holder.matcher;
+        if (matcher == null || matcher.fieldInfos != fieldInfos) {
+            matcher = new Asn1FieldMatcher(fieldInfos, forChoice);
+            holder.matcher = matcher;
+        }
+        return matcher;
+    }
+
+    /**
+     * Find the field an item is.
+     * @param tag The item tag
+     * @param lastPos The position of the last matched field, or -1
+     * @return The field index, or -1 if none
+     */
+    int match(Tag tag, int lastPos) {
+        int found = first(anyFields, lastPos);
+        if (tag.isContextSpecific() && tag.tagNo() < contextFields.length) {
+            found = min(found, first(contextFields[tag.tagNo()], lastPos));
+        }
+        int[] fields = tagFields.get(tag);
+        if (fields != null) {
+            found = min(found, first(fields, lastPos));
+        }
+        return found;
+    }
+
+    boolean isUntaggedChoice(int index) {
+        return untaggedChoices[index];
+    }
+
+    boolean isAny(int index) {
+        return Arrays.binarySearch(anyFields, index) >= 0;
+    }
+
+    private static int first(int[] fields, int lastPos) {
+        for (int field : fields) {
+            if (field > lastPos) {
+                return field;
+            }
+        }
+        return -1;
+    }
+
+    private static int min(int found, int other) {
+        if (found == -1) {
+            return other;
+        }
+        return other == -1 ? found : Math.min(found, other);
+    }
+
+    private static void add(List<List<Integer>> contexts, int tagNo, int index) {
+        while (contexts.size() <= tagNo) {
+            contexts.add(new ArrayList<Integer>());
+        }
+        addIndex(contexts.get(tagNo), index);
+    }
+
+    private static void addTag(Map<Tag, List<Integer>> tags, Tag tag, int index,
+                               boolean withContextTag) {
+        // Context tags of choice alternatives only match by tag number
+        if (tag.isContextSpecific() && !withContextTag) {
+            return;
+        }
+        List<Integer> fields = tags.get(tag);
+        if (fields == null) {
+            fields = new ArrayList<>();
+            tags.put(tag, fields);
+        }
+        addIndex(fields, index);
+    }
+
+    private static void addIndex(List<Integer> fields, int index) {
+        if (fields.isEmpty() || fields.get(fields.size() - 1) != index) {
+            fields.add(index);
+        }
+    }
+
+    private static int[] toArray(List<Integer> fields) {
+        if (fields.isEmpty()) {
+            return NONE;
+        }
+        int[] result = new int[fields.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = fields.get(i);
+        }
+        return result;
+    }
+
+    private static final class Holder {
+        private volatile Asn1FieldMatcher matcher;
+    }
+}
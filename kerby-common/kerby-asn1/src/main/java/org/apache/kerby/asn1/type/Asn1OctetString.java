@@ -24,8 +24,18 @@ import org.apache.kerby.asn1.parse.Asn1Item;
 import org.apache.kerby.asn1.parse.Asn1ParseResult;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
+/**
+ * Octet string. In slicing mode the decoded value is kept as a read-only
+ * view into the decoded content instead of a copy, and only copied when
+ * first got as an array. Like lazy decoding, the decoded content must stay
+ * unchanged meanwhile.
+ */
 public class Asn1OctetString extends Asn1Simple<byte[]> {
+    private boolean slicing;
+    private ByteBuffer valueBuffer;
+
     public Asn1OctetString() {
         this(null);
     }
@@ -34,15 +44,69 @@ public class Asn1OctetString extends Asn1Simple<byte[]> {
         super(UniversalTag.OCTET_STRING, value);
     }
 
+    /**
+     * Enable or disable slicing mode for later decoding, see above.
+     * @param isSlicing true to decode into views
+     */
+    public void useSlicing(boolean isSlicing) {
+        this.slicing = isSlicing;
+    }
+
+    public boolean isSlicing() {
+        return slicing;
+    }
+
+    @Override
+    public byte[] getValue() {
+        ByteBuffer view = valueBuffer;
+        if (view != null) {
+            byte[] bytes = new byte[view.remaining()];
+            view.duplicate().get(bytes);
+            valueBuffer = null;
+            restoreValue(bytes);
+        }
+        return super.getValue();
+    }
+
+    @Override
+    public void setValue(byte[] value) {
+        valueBuffer = null;
+        super.setValue(value);
+    }
+
+    /**
+     * Get the value as a read-only buffer, without copying a sliced value.
+     * @return The value buffer, or null if no value
+     */
+    public ByteBuffer getValueBuffer() {
+        if (valueBuffer != null) {
+            return valueBuffer.duplicate();
+        }
+        byte[] value = super.getValue();
+        return value != null ? ByteBuffer.wrap(value).asReadOnlyBuffer() : null;
+    }
+
     @Override
     protected byte[] encodeBody() {
         return getValue();
     }
 
+    @Override
+    protected void encodeBody(ByteBuffer buffer) {
+        if (valueBuffer != null) {
+            buffer.put(valueBuffer.duplicate());
+        } else {
+            super.encodeBody(buffer);
+        }
+    }
+
     @Override
     protected int encodingBodyLength() {
-        if (getValue() != null) {
-            return getValue().length;
+        if (valueBuffer != null) {
+            return valueBuffer.remaining();
+        }
+        if (super.getValue() != null) {
+            return super.getValue().length;
         }
         return 0;
     }
@@ -50,7 +114,12 @@ public class Asn1OctetString extends Asn1Simple<byte[]> {
     @Override
     protected void decodeBody(Asn1ParseResult parseResult) throws IOException {
         Asn1Item item = (Asn1Item) parseResult;
-        setValue(item.readBodyBytes());
+        if (slicing) {
+            setValue(null);
+            valueBuffer = item.getBodyBuffer().slice().asReadOnlyBuffer();
+        } else {
+            setValue(item.readBodyBytes());
+        }
     }
 
     @Override
@@ -60,10 +129,9 @@ public class Asn1OctetString extends Asn1Simple<byte[]> {
             + ", len=" + getHeaderLength() + "+" + getBodyLength()
             + "] ";
 
-        byte[] valueBytes = getValue();
         String valueStr = "<null>";
-        if (valueBytes != null) {
-            valueStr = "<" + valueBytes.length + " octets>";
+        if (valueBuffer != null || super.getValue() != null) {
+            valueStr = "<" + encodingBodyLength() + " octets>";
         }
 
         return typeStr + valueStr;
@@ -20,6 +20,9 @@
 package org.apache.kerby.asn1.type;
 
 import org.apache.kerby.asn1.UniversalTag;
+import org.apache.kerby.asn1.parse.Asn1DerivedItem;
+import org.apache.kerby.asn1.parse.Asn1ParseResult;
+import org.apache.kerby.asn1.util.AsciiStringCache;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -29,6 +32,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 public abstract class Asn1String extends Asn1Simple<String> {
+    private static final AsciiStringCache DECODED_STRINGS = new AsciiStringCache(1024);
+
     public Asn1String(UniversalTag universalTag) {
         super(universalTag, null);
     }
@@ -53,65 +58,29 @@ public abstract class Asn1String extends Asn1Simple<String> {
         return 0;
     }
 
+    @Override
+    protected void decodeBody(Asn1ParseResult parseResult) throws IOException {
+        int length = parseResult.getBodyLength();
+        if (length > 0 && !(parseResult instanceof Asn1DerivedItem)) {
+            // ASCII decodes the same in all string types, so share the value
+            String value = DECODED_STRINGS.decode(parseResult.getBuffer(),
+                parseResult.getBodyStart(), length);
+            if (value != null) {
+                setBytes(null);
+                setValue(value);
+                return;
+            }
+        }
+        super.decodeBody(parseResult);
+    }
+
     protected void toValue() throws IOException {
         byte[] bytes = getBytes();
         setValue(new String(bytes, StandardCharsets.US_ASCII));
     }
 
     public static String fromUTF8ByteArray(byte[] bytes) {
-        int i = 0;
-        int length = 0;
-
-        while (i < bytes.length) {
-            length++;
-            if ((bytes[i] & 0xf0) == 0xf0) {
-                // surrogate pair
-                length++;
-                i += 4;
-            } else if ((bytes[i] & 0xe0) == 0xe0) {
-                i += 3;
-            } else if ((bytes[i] & 0xc0) == 0xc0) {
-                i += 2;
-            } else {
-                i += 1;
-            }
-        }
-
-        char[] cs = new char[length];
-        i = 0;
-        length = 0;
-
-        while (i < bytes.length) {
-            char ch;
-
-            if ((bytes[i] & 0xf0) == 0xf0) {
-                int codePoint = ((bytes[i] & 0x03) << 18) | ((bytes[i + 1] & 0x3F) << 12)
-                        | ((bytes[i + 2] & 0x3F) << 6) | (bytes[i + 3] & 0x3F);
-                int u = codePoint - 0x10000;
-                char w1 = (char) (0xD800 | (u >> 10));
-                char w2 = (char) (0xDC00 | (u & 0x3FF));
-                cs[length++] = w1;
-                ch = w2;
-                i += 4;
-            } else if ((bytes[i] & 0xe0) == 0xe0) {
-                ch = (char) (((bytes[i] & 0x0f) << 12)
-                        | ((bytes[i + 1] & 0x3f) << 6) | (bytes[i + 2] & 0x3f));
-                i += 3;
-            } else if ((bytes[i] & 0xd0) == 0xd0) {
-                ch = (char) (((bytes[i] & 0x1f) << 6) | (bytes[i + 1] & 0x3f));
-                i += 2;
-            } else if ((bytes[i] & 0xc0) == 0xc0) {
-                ch = (char) (((bytes[i] & 0x1f) << 6) | (bytes[i + 1] & 0x3f));
-                i += 2;
-            } else {
-                ch = (char) (bytes[i] & 0xff);
-                i += 1;
-            }
-
-            cs[length++] = ch;
-        }
-
-        return new String(cs);
+        return new String(bytes, StandardCharsets.UTF_8);
     }
 
     public static byte[] toUTF8ByteArray(String string) {
@@ -21,12 +21,13 @@ package org.apache.kerby.asn1.type;
 
 import org.apache.kerby.asn1.Asn1Dumpable;
 import org.apache.kerby.asn1.Asn1Dumper;
+import org.apache.kerby.asn1.Asn1Factories;
 import org.apache.kerby.asn1.Tag;
+import org.apache.kerby.asn1.parse.Asn1ChildReader;
 import org.apache.kerby.asn1.parse.Asn1Container;
 import org.apache.kerby.asn1.parse.Asn1ParseResult;
 
 import java.io.IOException;
-import java.lang.reflect.ParameterizedType;
 import java.nio.ByteBuffer;
 
 /**
@@ -65,7 +66,7 @@ public class Asn1Tagging<T extends Asn1Type>
     protected int encodingBodyLength() throws IOException {
         Asn1Encodeable value = (Asn1Encodeable) getValue();
         if (isImplicit()) {
-            return value.encodingBodyLength();
+            return value.getBodyLength();
         } else {
             return value.encodingLength();
         }
@@ -75,7 +76,7 @@ public class Asn1Tagging<T extends Asn1Type>
     protected void encodeBody(ByteBuffer buffer) throws IOException {
         Asn1Encodeable value = (Asn1Encodeable) getValue();
         if (isImplicit()) {
-            value.encodeBody(buffer);
+            value.encodeFrozenOrBody(buffer);
         } else {
             value.encode(buffer);
         }
@@ -88,18 +89,19 @@ public class Asn1Tagging<T extends Asn1Type>
             value.decodeBody(parseResult);
         } else {
             Asn1Container container = (Asn1Container) parseResult;
-            Asn1ParseResult body = container.getChildren().get(0);
+            Asn1ParseResult body = new Asn1ChildReader(container).next();
+            if (body == null) {
+                throw new IOException("Missing tagged value in " + parseResult.simpleInfo());
+            }
             value.decode(body);
         }
     }
 
     private void initValue() {
-        Class<? extends Asn1Type> valueType = (Class<T>) ((ParameterizedType)
-                getClass().getGenericSuperclass()).getActualTypeArguments()[0];
-        AbstractAsn1Type<?> value;
+        Asn1Type value;
         try {
-            value = (AbstractAsn1Type<?>) valueType.newInstance();
-        } catch (Exception e) {
+            value = Asn1Factories.getTypeArgumentFactory(getClass()).create();
+        } catch (RuntimeException e) {
             throw new RuntimeException("Failed to create tagged value", e);
         }
         setValue((T) value);
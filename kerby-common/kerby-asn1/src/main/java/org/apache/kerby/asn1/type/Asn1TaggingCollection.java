@@ -125,6 +125,14 @@ public abstract class Asn1TaggingCollection
     }
 
 
+    public void useLazyDecoding(boolean isLazy) {
+        tagged.useLazyDecoding(isLazy);
+    }
+
+    public boolean isLazyDecoding() {
+        return tagged.isLazyDecoding();
+    }
+
     @Override
     protected int encodingBodyLength() throws IOException {
         return tagging.encodingBodyLength();
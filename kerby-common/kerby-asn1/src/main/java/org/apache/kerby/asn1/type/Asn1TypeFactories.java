@@ -0,0 +1,138 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.asn1.type;
+
+import org.apache.kerby.asn1.Asn1FactoryProvider;
+import org.apache.kerby.asn1.Asn1TypeFactory;
+
+/**
+ * Factories of the concrete types of this package. They're written by hand
+ * so kerby-asn1 itself builds without the factory processor.
+ */
+public final class Asn1TypeFactories implements Asn1FactoryProvider {
+
+    @Override
+    public Asn1TypeFactory<?> getFactory(Class<?> type) {
+        switch (type.getName()) {
+            case "org.apache.kerby.asn1.type.Asn1Any":
+                return new Factory(0);
+            case "org.apache.kerby.asn1.type.Asn1BitString":
+                return new Factory(1);
+            case "org.apache.kerby.asn1.type.Asn1BmpString":
+                return new Factory(2);
+            case "org.apache.kerby.asn1.type.Asn1Boolean":
+                return new Factory(3);
+            case "org.apache.kerby.asn1.type.Asn1Flags":
+                return new Factory(4);
+            case "org.apache.kerby.asn1.type.Asn1GeneralString":
+                return new Factory(5);
+            case "org.apache.kerby.asn1.type.Asn1GeneralizedTime":
+                return new Factory(6);
+            case "org.apache.kerby.asn1.type.Asn1IA5String":
+                return new Factory(7);
+            case "org.apache.kerby.asn1.type.Asn1Integer":
+                return new Factory(8);
+            case "org.apache.kerby.asn1.type.Asn1NumericsString":
+                return new Factory(9);
+            case "org.apache.kerby.asn1.type.Asn1ObjectIdentifier":
+                return new Factory(10);
+            case "org.apache.kerby.asn1.type.Asn1OctetString":
+                return new Factory(11);
+            case "org.apache.kerby.asn1.type.Asn1PrintableString":
+                return new Factory(12);
+            case "org.apache.kerby.asn1.type.Asn1Sequence":
+                return new Factory(13);
+            case "org.apache.kerby.asn1.type.Asn1Set":
+                return new Factory(14);
+            case "org.apache.kerby.asn1.type.Asn1T61String":
+                return new Factory(15);
+            case "org.apache.kerby.asn1.type.Asn1T61Utf8String":
+                return new Factory(16);
+            case "org.apache.kerby.asn1.type.Asn1UniversalString":
+                return new Factory(17);
+            case "org.apache.kerby.asn1.type.Asn1UtcTime":
+                return new Factory(18);
+            case "org.apache.kerby.asn1.type.Asn1Utf8String":
+                return new Factory(19);
+            case "org.apache.kerby.asn1.type.Asn1VisibleString":
+                return new Factory(20);
+            default:
+                return null;
+        }
+    }
+
+    private static final class Factory implements Asn1TypeFactory<Asn1Type> {
+        private final int id;
+
+        Factory(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public Asn1Type create() {
+            switch (id) {
+                case 0:
+                    return new Asn1Any();
+                case 1:
+                    return new Asn1BitString();
+                case 2:
+                    return new Asn1BmpString();
+                case 3:
+                    return new Asn1Boolean();
+                case 4:
+                    return new Asn1Flags();
+                case 5:
+                    return new Asn1GeneralString();
+                case 6:
+                    return new Asn1GeneralizedTime();
+                case 7:
+                    return new Asn1IA5String();
+                case 8:
+                    return new Asn1Integer();
+                case 9:
+                    return new Asn1NumericsString();
+                case 10:
+                    return new Asn1ObjectIdentifier();
+                case 11:
+                    return new Asn1OctetString();
+                case 12:
+                    return new Asn1PrintableString();
+                case 13:
+                    return new Asn1Sequence();
+                case 14:
+                    return new Asn1Set();
+                case 15:
+                    return new Asn1T61String();
+                case 16:
+                    return new Asn1T61Utf8String();
+                case 17:
+                    return new Asn1UniversalString();
+                case 18:
+                    return new Asn1UtcTime();
+                case 19:
+                    return new Asn1Utf8String();
+                case 20:
+                    return new Asn1VisibleString();
+                default:
+                    throw new IllegalStateException("Unknown type " + id);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.asn1.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A small, lossy cache of decoded ASCII strings, so the few distinct values
+ * decoded again and again, like realms and principal name components, are
+ * shared instead of allocated per message. It's direct mapped by the string
+ * hash: a colliding string replaces the cached one. It's safe for concurrent
+ * use without locking, as strings are immutable and a racing update only
+ * loses a cache entry.
+ */
+public final class AsciiStringCache {
+    /**
+     * Longer strings are decoded without caching.
+     */
+    public static final int MAX_CACHED_LENGTH = 64;
+
+    private final String[] entries;
+    private final int mask;
+
+    /**
+     * @param size The number of entries, rounded up to a power of two
+     */
+    public AsciiStringCache(int size) {
+        int capacity = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+        this.entries = new String[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Decode an ASCII string from a range of a buffer.
+     * @param buffer The buffer
+     * @param offset The absolute start of the range
+     * @param length The range length
+     * @return The string, or null if there is a non ASCII byte
+     */
+    public String decode(ByteBuffer buffer, int offset, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            byte b = buffer.get(offset + i);
+            if (b < 0) {
+                return null;
+            }
+            hash = 31 * hash + b;
+        }
+
+        if (length > MAX_CACHED_LENGTH) {
+            return newString(buffer, offset, length);
+        }
+
+        int index = (hash ^ (hash >>> 16)) & mask;
+        String entry = entries[index];
+        if (entry != null && matches(entry, buffer, offset, length)) {
+            return entry;
+        }
+
+        String value = newString(buffer, offset, length);
+        entries[index] = value;
+        return value;
+    }
+
+    private static boolean matches(String entry, ByteBuffer buffer, int offset, int length) {
+        if (entry.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (entry.charAt(i) != buffer.get(offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String newString(ByteBuffer buffer, int offset, int length) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + offset,
+                length, StandardCharsets.US_ASCII);
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.asn1.util;
+
+import org.apache.kerby.asn1.type.Asn1Type;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A growable buffer to encode values into, heap or direct, that keeps its
+ * storage across encodings. Each thread has a pooled heap and direct buffer
+ * from {@link #heap()} and {@link #direct()}; other instances are owned by
+ * their creator. The byte buffer returned by an encoding is only valid until
+ * the next encoding into the same instance, so it must be consumed, like
+ * written to a socket, before that.
+ */
+public final class EncodingBuffer {
+    public static final int INITIAL_CAPACITY = 4 * 1024;
+
+    /**
+     * Storage larger than this isn't kept, so one huge message doesn't pin
+     * its memory in a thread for good.
+     */
+    public static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private static final ThreadLocal<EncodingBuffer> HEAP_BUFFER =
+        new ThreadLocal<EncodingBuffer>() {
+            @Override
+            protected EncodingBuffer initialValue() {
+                return new EncodingBuffer(false);
+            }
+        };
+
+    private static final ThreadLocal<EncodingBuffer> DIRECT_BUFFER =
+        new ThreadLocal<EncodingBuffer>() {
+            @Override
+            protected EncodingBuffer initialValue() {
+                return new EncodingBuffer(true);
+            }
+        };
+
+    private final boolean direct;
+    private ByteBuffer storage;
+
+    public EncodingBuffer(boolean direct) {
+        this.direct = direct;
+    }
+
+    /**
+     * @return The heap buffer pooled for the current thread
+     */
+    public static EncodingBuffer heap() {
+        return HEAP_BUFFER.get();
+    }
+
+    /**
+     * @return The direct buffer pooled for the current thread
+     */
+    public static EncodingBuffer direct() {
+        return DIRECT_BUFFER.get();
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Get a cleared byte buffer with the given limit to write into, growing
+     * the storage as needed.
+     * @param length The bytes to write
+     * @return The byte buffer, positioned at zero
+     */
+    public ByteBuffer prepare(int length) {
+        if (storage == null || storage.capacity() < length) {
+            int capacity = storage == null ? INITIAL_CAPACITY : storage.capacity() * 2;
+            capacity = Math.max(length, Math.min(capacity, MAX_RETAINED_CAPACITY));
+            ByteBuffer buffer = allocate(capacity);
+            if (capacity > MAX_RETAINED_CAPACITY) {
+                buffer.limit(length);
+                return buffer;
+            }
+            storage = buffer;
+        }
+
+        storage.clear();
+        storage.limit(length);
+        return storage;
+    }
+
+    /**
+     * Encode a value, leaving room for a header that the caller fills.
+     * @param value The value to encode
+     * @param headerLength The bytes to leave before the encoding
+     * @return The byte buffer, flipped and positioned at the header
+     * @throws IOException e
+     */
+    public ByteBuffer encode(Asn1Type value, int headerLength) throws IOException {
+        ByteBuffer buffer = prepare(headerLength + value.encodingLength());
+        buffer.position(headerLength);
+        value.encode(buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Encode a value.
+     * @param value The value to encode
+     * @return The byte buffer, flipped and ready for reading
+     * @throws IOException e
+     */
+    public ByteBuffer encode(Asn1Type value) throws IOException {
+        return encode(value, 0);
+    }
+
+    /**
+     * Encode a value and write it to a channel.
+     * @param value The value to encode
+     * @param channel The channel to write to
+     * @return The bytes written
+     * @throws IOException e
+     */
+    public int encode(Asn1Type value, WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = encode(value);
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return length;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+}
@@ -19,6 +19,10 @@
  */
 package org.apache.kerby.asn1;
 
+import org.apache.kerby.asn1.parse.Asn1ChildReader;
+import org.apache.kerby.asn1.parse.Asn1Container;
+import org.apache.kerby.asn1.parse.Asn1ParseResult;
+import org.apache.kerby.asn1.parse.Asn1Parser;
 import org.apache.kerby.asn1.type.Asn1Boolean;
 import org.apache.kerby.asn1.type.Asn1IA5String;
 import org.apache.kerby.asn1.type.Asn1Sequence;
@@ -26,6 +30,7 @@ import org.apache.kerby.asn1.type.Asn1String;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -57,4 +62,34 @@ public class Asn1CollectionTest {
         Asn1Boolean field2 = (Asn1Boolean) seq.getValue().get(1);
         assertThat(field2.getValue()).isEqualTo(TEST_BOOL);
     }
+
+    @Test
+    public void testIndefiniteLengthSequenceDecoding() throws IOException {
+        byte[] bytes = new byte[EXPECTED_BYTES.length + 2];
+        System.arraycopy(EXPECTED_BYTES, 0, bytes, 0, EXPECTED_BYTES.length);
+        bytes[1] = (byte) 0x80;
+
+        Asn1Sequence seq = new Asn1Sequence();
+        seq.decode(bytes);
+        assertThat(seq.getValue()).hasSize(2);
+        assertThat(((Asn1String) seq.getValue().get(0)).getValue()).isEqualTo(TEST_STR);
+        assertThat(((Asn1Boolean) seq.getValue().get(1)).getValue()).isEqualTo(TEST_BOOL);
+    }
+
+    @Test
+    public void testChildReaderStreaming() throws IOException {
+        Asn1ParseResult result = Asn1Parser.readItem(ByteBuffer.wrap(EXPECTED_BYTES));
+        assertThat(result).isInstanceOf(Asn1Container.class);
+        Asn1Container container = (Asn1Container) result;
+        assertThat(container.isParsed()).isFalse();
+
+        Asn1ChildReader reader = new Asn1ChildReader(container);
+        assertThat(reader.next().tagNo()).isEqualTo(0x16);
+        assertThat(reader.next().tagNo()).isEqualTo(0x01);
+        assertThat(reader.next()).isNull();
+        assertThat(container.isParsed()).isFalse();
+
+        assertThat(container.getChildren()).hasSize(2);
+        assertThat(container.isParsed()).isTrue();
+    }
 }
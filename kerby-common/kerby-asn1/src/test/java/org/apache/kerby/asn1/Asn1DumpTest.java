@@ -23,6 +23,9 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 public class Asn1DumpTest {
 
@@ -92,4 +95,47 @@ public class Asn1DumpTest {
                     + "empty-container.txt failed. " + e.toString());
         }
     }
+
+    @Test
+    public void testStreamDump() throws IOException {
+        byte[] data = DataTest.createSammplePersonnelEncodingData();
+        Asn1Dumper dumper = new Asn1Dumper();
+        dumper.parseAndDump(data);
+
+        StringBuilder output = new StringBuilder();
+        ByteBuffer content = ByteBuffer.wrap(data);
+        Asn1.streamDump(content, output);
+        assertThat(output.toString()).isEqualTo(dumper.output());
+        assertThat(content.position()).isEqualTo(0);
+    }
+
+    @Test
+    public void testStreamDumpWithLimits() throws IOException {
+        byte[] data = DataTest.createSammplePersonnelEncodingData();
+
+        StringBuilder output = new StringBuilder();
+        Asn1.streamDump(ByteBuffer.wrap(data), output, 0, Long.MAX_VALUE);
+        String[] lines = output.toString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1]).isEqualTo("    ...");
+
+        Asn1Dumper dumper = new Asn1Dumper(new StringBuilder(), Integer.MAX_VALUE, 20);
+        dumper.streamDump(ByteBuffer.wrap(data));
+        assertThat(dumper.isTruncated()).isTrue();
+        assertThat(dumper.output()).hasSize(23).endsWith("...");
+    }
+
+    @Test
+    public void testStreamDumpWithIndefiniteLength() throws IOException {
+        // SEQUENCE of indefinite length holding INTEGER 5, then end of contents
+        byte[] data = new byte[] {0x30, (byte) 0x80, 0x02, 0x01, 0x05, 0x00, 0x00};
+        StringBuilder output = new StringBuilder();
+        Asn1.streamDump(ByteBuffer.wrap(data), output);
+
+        String[] lines = output.toString().split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).contains("off=0, len=2+?(undefined)");
+        assertThat(lines[1]).startsWith("    ").contains("off=2, len=2+1");
+        assertThat(lines[2]).startsWith("    ").contains("off=5, len=2+0");
+    }
 }
@@ -0,0 +1,66 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.asn1;
+
+import org.apache.kerby.asn1.type.Asn1Integer;
+import org.apache.kerby.asn1.type.Asn1OctetString;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class Asn1FactoriesTest {
+
+    @Test
+    public void testGeneratedFactory() {
+        Asn1TypeFactory<PersonnelRecord.Name> factory =
+            Asn1Factories.getFactory(PersonnelRecord.Name.class);
+        assertThat(factory.getClass().getName())
+            .startsWith(getClass().getPackage().getName() + "." + Asn1FactoryProvider.CLASS_NAME);
+        assertThat(factory.create()).isInstanceOf(PersonnelRecord.Name.class);
+        assertThat(Asn1Factories.getFactory(PersonnelRecord.Name.class)).isSameAs(factory);
+    }
+
+    @Test
+    public void testBuiltinFactory() {
+        assertThat(Asn1Factories.create(Asn1Integer.class)).isInstanceOf(Asn1Integer.class);
+        assertThat(Asn1Factories.getFactory(Asn1OctetString.class).getClass().getName())
+            .doesNotContain("ConstructorFactory");
+    }
+
+    @Test
+    public void testFallbackFactory() {
+        // Private types are skipped by the processor
+        assertThat(Asn1Factories.create(PrivateType.class)).isInstanceOf(PrivateType.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoDefaultConstructor() {
+        Asn1Factories.create(NoDefaultConstructor.class);
+    }
+
+    private static class PrivateType extends Asn1OctetString {
+    }
+
+    public static class NoDefaultConstructor extends Asn1OctetString {
+        public NoDefaultConstructor(byte[] value) {
+            super(value);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.asn1;
+
+import org.apache.kerby.asn1.type.Asn1Boolean;
+import org.apache.kerby.asn1.type.Asn1Choice;
+import org.apache.kerby.asn1.type.Asn1IA5String;
+import org.apache.kerby.asn1.type.Asn1Integer;
+import org.apache.kerby.asn1.type.Asn1OctetString;
+import org.apache.kerby.asn1.type.Asn1SequenceType;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Matching of decoded items to tagged, optional and choice fields.
+ */
+public class Asn1FieldMatchingTest {
+
+    @Test
+    public void testTaggedAndChoiceFields() throws IOException {
+        Record record = new Record();
+        record.setNumber(7);
+        record.setPick(Pick.ofText("text"));
+        record.setData(new byte[] {1, 2, 3});
+
+        Record decoded = new Record();
+        decoded.decode(record.encode());
+        assertThat(decoded.getNumber()).isEqualTo(7);
+        assertThat(decoded.getPick().getText()).isEqualTo("text");
+        assertThat(decoded.getData()).isEqualTo(new byte[] {1, 2, 3});
+        assertThat(decoded.encode()).isEqualTo(record.encode());
+    }
+
+    @Test
+    public void testOptionalAndTaggedChoiceFields() throws IOException {
+        Record record = new Record();
+        record.setPick(Pick.ofFlag(true));
+        record.setData(new byte[] {4});
+
+        Record decoded = new Record();
+        decoded.decode(record.encode());
+        assertThat(decoded.getNumber()).isNull();
+        assertThat(decoded.getPick().getFlag()).isTrue();
+        assertThat(decoded.getData()).isEqualTo(new byte[] {4});
+
+        // Decoding again into the same record
+        decoded.decode(record.encode());
+        assertThat(decoded.getPick().getFlag()).isTrue();
+    }
+
+    @Test
+    public void testOutOfOrderFields() throws IOException {
+        Data data = new Data();
+        data.setData(new byte[] {5});
+        data.setNumber(8);
+
+        try {
+            new Record().decode(data.encode());
+            fail("Fields out of order should be rejected");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("Unexpected item");
+        }
+    }
+
+    public static class Pick extends Asn1Choice {
+        protected enum PickField implements EnumType {
+            TEXT,
+            FLAG;
+
+            @Override
+            public int getValue() {
+                return ordinal();
+            }
+
+            @Override
+            public String getName() {
+                return name();
+            }
+        }
+
+        static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
+                new ExplicitField(PickField.TEXT, -1, Asn1IA5String.class),
+                new ExplicitField(PickField.FLAG, 1, Asn1Boolean.class)
+        };
+
+        public Pick() {
+            super(fieldInfos);
+        }
+
+        static Pick ofText(String text) {
+            Pick pick = new Pick();
+            pick.setChoiceValue(PickField.TEXT, new Asn1IA5String(text));
+            return pick;
+        }
+
+        static Pick ofFlag(boolean flag) {
+            Pick pick = new Pick();
+            pick.setChoiceValue(PickField.FLAG, new Asn1Boolean(flag));
+            return pick;
+        }
+
+        public String getText() {
+            return getChoiceValueAs(PickField.TEXT, Asn1IA5String.class).getValue();
+        }
+
+        public Boolean getFlag() {
+            return getChoiceValueAs(PickField.FLAG, Asn1Boolean.class).getValue();
+        }
+    }
+
+    public static class Record extends Asn1SequenceType {
+        protected enum RecordField implements EnumType {
+            NUMBER,
+            PICK,
+            DATA;
+
+            @Override
+            public int getValue() {
+                return ordinal();
+            }
+
+            @Override
+            public String getName() {
+                return name();
+            }
+        }
+
+        static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
+                new ExplicitField(RecordField.NUMBER, 0, Asn1Integer.class),
+                new ExplicitField(RecordField.PICK, -1, Pick.class),
+                new ExplicitField(RecordField.DATA, -1, Asn1OctetString.class)
+        };
+
+        public Record() {
+            super(fieldInfos);
+        }
+
+        public Integer getNumber() {
+            return getFieldAsInteger(RecordField.NUMBER);
+        }
+
+        public void setNumber(int number) {
+            setFieldAsInt(RecordField.NUMBER, number);
+        }
+
+        public Pick getPick() {
+            return getFieldAs(RecordField.PICK, Pick.class);
+        }
+
+        public void setPick(Pick pick) {
+            setFieldAs(RecordField.PICK, pick);
+        }
+
+        public byte[] getData() {
+            return getFieldAsOctets(RecordField.DATA);
+        }
+
+        public void setData(byte[] data) {
+            setFieldAsOctets(RecordField.DATA, data);
+        }
+    }
+
+    /**
+     * The record fields in another order.
+     */
+    public static class Data extends Asn1SequenceType {
+        protected enum DataField implements EnumType {
+            DATA,
+            NUMBER;
+
+            @Override
+            public int getValue() {
+                return ordinal();
+            }
+
+            @Override
+            public String getName() {
+                return name();
+            }
+        }
+
+        static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
+                new ExplicitField(DataField.DATA, -1, Asn1OctetString.class),
+                new ExplicitField(DataField.NUMBER, 0, Asn1Integer.class)
+        };
+
+        public Data() {
+            super(fieldInfos);
+        }
+
+        public void setData(byte[] data) {
+            setFieldAsOctets(DataField.DATA, data);
+        }
+
+        public void setNumber(int number) {
+            setFieldAsInt(DataField.NUMBER, number);
+        }
+    }
+}
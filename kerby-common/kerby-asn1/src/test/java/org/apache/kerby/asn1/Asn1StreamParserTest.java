@@ -0,0 +1,127 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.asn1;
+
+import org.apache.kerby.asn1.parse.Asn1Container;
+import org.apache.kerby.asn1.parse.Asn1ParseResult;
+import org.apache.kerby.asn1.parse.Asn1StreamParser;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class Asn1StreamParserTest {
+
+    @Test
+    public void testFeedByteByByte() throws IOException {
+        byte[] data = DataTest.createSammplePersonnelEncodingData();
+        Asn1StreamParser parser = new Asn1StreamParser();
+        assertThat(parser.getExpectedLength()).isEqualTo(-1);
+
+        // 0x60 0x81 0x85: the header is complete after three bytes
+        for (int i = 0; i < data.length - 1; i++) {
+            parser.feed(ByteBuffer.wrap(data, i, 1));
+            if (i >= 2) {
+                assertThat(parser.getExpectedLength()).isEqualTo(data.length);
+                assertThat(parser.getNeededBytes()).isEqualTo(data.length - i - 1);
+            }
+            assertThat(parser.next()).isNull();
+        }
+        parser.feed(ByteBuffer.wrap(data, data.length - 1, 1));
+        assertThat(parser.getNeededBytes()).isEqualTo(0);
+
+        ByteBuffer content = parser.next();
+        assertThat(content.remaining()).isEqualTo(data.length);
+        PersonnelRecord record = new PersonnelRecord();
+        record.decode(content);
+        assertThat(record.encode()).isEqualTo(data);
+        assertThat(parser.getBufferedBytes()).isEqualTo(0);
+    }
+
+    @Test
+    public void testReadItemsFromStream() throws IOException {
+        byte[] data = DataTest.createSammplePersonnelEncodingData();
+        byte[] twice = new byte[data.length * 2];
+        System.arraycopy(data, 0, twice, 0, data.length);
+        System.arraycopy(data, 0, twice, data.length, data.length);
+
+        ByteArrayInputStream in = new ByteArrayInputStream(twice);
+        Asn1StreamParser parser = new Asn1StreamParser();
+        assertThat(parser.read(in).remaining()).isEqualTo(data.length);
+        // Nothing past the first item is consumed
+        assertThat(in.available()).isEqualTo(data.length);
+        assertThat(parser.read(in).remaining()).isEqualTo(data.length);
+        assertThat(parser.read(in)).isNull();
+    }
+
+    @Test
+    public void testReadFromChannel() throws IOException {
+        byte[] data = DataTest.createSammplePersonnelEncodingData();
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(data));
+        Asn1StreamParser parser = new Asn1StreamParser();
+        while (parser.getNeededBytes() > 0) {
+            assertThat(parser.read(channel)).isPositive();
+        }
+        assertThat(parser.next().remaining()).isEqualTo(data.length);
+        assertThat(parser.read(channel)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testIndefiniteLength() throws IOException {
+        // SEQUENCE { INTEGER 5, SEQUENCE { } } with indefinite lengths, then an INTEGER
+        byte[] data = new byte[] {0x30, (byte) 0x80, 0x02, 0x01, 0x05,
+            0x30, (byte) 0x80, 0x00, 0x00, 0x00, 0x00, 0x02, 0x01, 0x07};
+        Asn1StreamParser parser = new Asn1StreamParser();
+
+        parser.feed(ByteBuffer.wrap(data, 0, 9));
+        assertThat(parser.getExpectedLength()).isEqualTo(-1);
+        assertThat(parser.getNeededBytes()).isEqualTo(1);
+        assertThat(parser.parseNext()).isNull();
+
+        parser.feed(ByteBuffer.wrap(data, 9, data.length - 9));
+        assertThat(parser.getExpectedLength()).isEqualTo(11);
+        Asn1ParseResult result = parser.parseNext();
+        assertThat(result.isDefinitiveLength()).isFalse();
+        assertThat(((Asn1Container) result).getChildren()).hasSize(3);
+
+        assertThat(parser.next().remaining()).isEqualTo(3);
+        assertThat(parser.getBufferedBytes()).isEqualTo(0);
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedStream() throws IOException {
+        byte[] data = DataTest.createSammplePersonnelEncodingData();
+        new Asn1StreamParser().read(new ByteArrayInputStream(data, 0, data.length - 1));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTooLongItem() throws IOException {
+        byte[] data = DataTest.createSammplePersonnelEncodingData();
+        Asn1StreamParser parser = new Asn1StreamParser(data.length - 1);
+        parser.feed(ByteBuffer.wrap(data, 0, 3));
+        parser.getNeededBytes();
+    }
+}
@@ -118,4 +118,51 @@ public class PersonnelRecordTest {
         assertThat(decoded.getChildren().getElements().get(1).getDateOfBirth().getValue().getValue())
                 .isEqualTo(expected.getChildren().getElements().get(1).getDateOfBirth().getValue().getValue());
     }
+
+    @Test
+    public void testLazyDecoding() throws IOException {
+        PersonnelRecord expected = DataTest.createSamplePersonnel();
+        byte[] data = DataTest.createSammplePersonnelEncodingData();
+
+        PersonnelRecord decoded = new PersonnelRecord();
+        decoded.useLazyDecoding(true);
+        decoded.decode(data);
+
+        // Untouched fields are copied verbatim
+        assertThat(decoded.encode()).isEqualTo(data);
+
+        PersonnelRecord.Name name = decoded.getName();
+        assertThat(name.isLazyDecoding()).isTrue();
+        assertThat(name.getGivenName())
+                .isEqualTo(expected.getName().getGivenName());
+        assertThat(decoded.getTitle()).isEqualTo(expected.getTitle());
+        assertThat(decoded.getChildren().getElements().get(1).getName().getFamilyName())
+                .isEqualTo(expected.getChildren().getElements().get(1).getName().getFamilyName());
+        assertThat(decoded.encode()).isEqualTo(data);
+
+        decoded.setName(expected.getNameOfSpouse());
+        assertThat(decoded.getName().getGivenName())
+                .isEqualTo(expected.getNameOfSpouse().getGivenName());
+    }
+
+    @Test
+    public void testFreezing() throws IOException {
+        PersonnelRecord pr = DataTest.createSamplePersonnel();
+        byte[] data = DataTest.createSammplePersonnelEncodingData();
+
+        pr.getNameOfSpouse().freeze();
+        pr.freeze();
+        assertThat(pr.isFrozen()).isTrue();
+        assertThat(pr.encode()).isEqualTo(data);
+        assertThat(pr.encode()).isEqualTo(data);
+
+        // Setting a field thaws the value and the ones containing it
+        pr.getNameOfSpouse().setGivenName("Mari");
+        assertThat(pr.getNameOfSpouse().isFrozen()).isFalse();
+        assertThat(pr.isFrozen()).isFalse();
+
+        PersonnelRecord decoded = new PersonnelRecord();
+        decoded.decode(pr.encode());
+        assertThat(decoded.getNameOfSpouse().getGivenName()).isEqualTo("Mari");
+    }
 }
@@ -28,6 +28,6 @@ done
 
 java $DEBUG \
 -classpath target/lib/*:. \
--DKERBY_LOGFILE=kinit \
-org.apache.kerby.kerberos.tool.kinit.KinitToolWithConcurrence $args
+-DKERBY_LOGFILE=kdcload \
+org.apache.kerby.kerberos.tool.kdcload.KdcLoadTool $args
 
@@ -39,8 +39,10 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -133,22 +135,26 @@ public class LocalKadminImpl implements LocalKadmin {
     @Override
     public void createBuiltinPrincipals() throws KrbException {
         String tgsPrincipal = getTgsPrincipal();
-        if (backend.getIdentity(tgsPrincipal) == null) {
-            addPrincipal(tgsPrincipal);
-        } else {
+        if (backend.getIdentity(tgsPrincipal) != null) {
             String errorMsg = "The tgs principal already exists in backend.";
             LOG.error(errorMsg);
             throw new KrbException(errorMsg);
         }
 
         String kadminPrincipal = getKadminPrincipal();
-        if (backend.getIdentity(kadminPrincipal) == null) {
-            addPrincipal(kadminPrincipal);
-        } else {
+        if (backend.getIdentity(kadminPrincipal) != null) {
             String errorMsg = "The kadmin principal already exists in backend.";
             LOG.error(errorMsg);
             throw new KrbException(errorMsg);
         }
+
+        Map<String, String> principals = new LinkedHashMap<>(2);
+        principals.put(tgsPrincipal, null);
+        principals.put(kadminPrincipal, null);
+        Map<String, KrbException> failures = addPrincipals(principals, new KOptions());
+        if (!failures.isEmpty()) {
+            throw failures.values().iterator().next();
+        }
     }
 
     @Override
@@ -207,6 +213,62 @@ public class LocalKadminImpl implements LocalKadmin {
         backend.addIdentity(identity);
     }
 
+    /**
+     * Add a batch of principals to backend, deriving their keys in parallel.
+     * Principals that already exist or fail to be added are skipped and
+     * reported, the others are still added.
+     *
+     * @param principals The principals mapped to their passwords, a null
+     *                   password means random keys for the principal
+     * @param kOptions   The KOptions with principal info
+     * @return The principals that were not added, mapped to the error
+     * @throws KrbException e
+     */
+    public Map<String, KrbException> addPrincipals(Map<String, String> principals,
+                                                   KOptions kOptions) throws KrbException {
+        Map<String, KrbException> failures = new LinkedHashMap<>();
+        Map<String, String> passwords = new LinkedHashMap<>(principals.size());
+        for (Map.Entry<String, String> entry : principals.entrySet()) {
+            String principal = fixPrincipal(entry.getKey());
+            if (backend.getIdentity(principal) != null) {
+                failures.put(principal, new KrbException("Principal already exists: " + principal));
+            } else {
+                passwords.put(principal, entry.getValue());
+            }
+        }
+
+        Map<String, List<EncryptionKey>> keys;
+        try {
+            keys = EncryptionUtil.generateKeys(passwords, getKdcConfig().getEncryptionTypes());
+        } catch (KrbException e) {
+            // Find out which entries fail by adding them one by one
+            LOG.warn("Failed to derive keys for the batch, adding principals one by one. " + e);
+            for (Map.Entry<String, String> entry : passwords.entrySet()) {
+                try {
+                    if (entry.getValue() == null) {
+                        addPrincipal(entry.getKey(), kOptions);
+                    } else {
+                        addPrincipal(entry.getKey(), entry.getValue(), kOptions);
+                    }
+                } catch (KrbException ke) {
+                    failures.put(entry.getKey(), ke);
+                }
+            }
+            return failures;
+        }
+
+        for (Map.Entry<String, List<EncryptionKey>> entry : keys.entrySet()) {
+            KrbIdentity identity = AdminHelper.createIdentity(entry.getKey(), kOptions);
+            identity.addKeys(entry.getValue());
+            try {
+                backend.addIdentity(identity);
+            } catch (KrbException e) {
+                failures.put(entry.getKey(), e);
+            }
+        }
+        return failures;
+    }
+
     @Override
     public void exportKeytab(File keytabFile, String principal)
             throws KrbException {
@@ -0,0 +1,302 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.transport.TransportPair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.naming.NameNotFoundException;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.InitialDirContext;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the KDCs of the client realm and their addresses.
+ *
+ * The KDCs are the configured KDC host and the realm "kdc" entries, followed
+ * by the KDCs found in the "_kerberos._tcp" and "_kerberos._udp" DNS SRV
+ * records of the realm when dns_lookup_kdc is enabled. The KDCs are resolved
+ * to transport addresses once and kept for the discovery TTL, so requests
+ * neither read the config nor resolve the addresses again.
+ *
+ * A discovery where a look up failed, or that found no KDC, is only kept for
+ * {@link #RETRY_MILLIS}. Meanwhile the KDCs of the last complete discovery,
+ * if any, are still used.
+ */
+public class KdcDiscovery {
+    private static final Logger LOG = LoggerFactory.getLogger(KdcDiscovery.class);
+
+    /**
+     * The time to keep a failed or empty discovery before trying again.
+     */
+    public static final long RETRY_MILLIS = 10 * 1000;
+
+    private final KrbSetting setting;
+    private final SrvResolver resolver;
+    private final long ttlMillis;
+    private final long retryMillis;
+    private volatile Map<String, TransportPair> kdcs;
+    private volatile long expiresAt;
+    /** Whether the kept KDCs are from a complete discovery. */
+    private boolean complete;
+
+    /**
+     * Discover KDCs looking up SRV records with the JNDI DNS provider.
+     * @param setting The krb setting
+     */
+    public KdcDiscovery(KrbSetting setting) {
+        this(setting, new DnsSrvResolver());
+    }
+
+    /**
+     * @param setting The krb setting
+     * @param resolver The SRV records resolver
+     */
+    public KdcDiscovery(KrbSetting setting, SrvResolver resolver) {
+        this(setting, resolver, RETRY_MILLIS);
+    }
+
+    KdcDiscovery(KrbSetting setting, SrvResolver resolver, long retryMillis) {
+        this.setting = setting;
+        this.resolver = resolver;
+        this.ttlMillis = setting.getKrbConfig().getKdcDiscoveryTtl() * 1000;
+        this.retryMillis = Math.min(retryMillis, ttlMillis);
+    }
+
+    /**
+     * Get the KDCs and their addresses, in the configured order.
+     * @return The KDCs, a copy the caller may change
+     * @throws KrbException if the realm isn't set
+     */
+    public Map<String, TransportPair> getKdcs() throws KrbException {
+        long now = System.currentTimeMillis();
+        Map<String, TransportPair> result = kdcs;
+        if (result == null || now >= expiresAt) {
+            result = refresh(now);
+        }
+        return new LinkedHashMap<>(result);
+    }
+
+    /**
+     * Drop the discovered KDCs, to discover them again on the next request.
+     */
+    public synchronized void clear() {
+        kdcs = null;
+        complete = false;
+    }
+
+    private synchronized Map<String, TransportPair> refresh(long now) throws KrbException {
+        if (kdcs != null && now < expiresAt) {
+            return kdcs;
+        }
+
+        Map<String, TransportPair> result = new LinkedHashMap<>();
+        if (discover(result) && !result.isEmpty()) {
+            kdcs = result;
+            complete = true;
+            expiresAt = now + ttlMillis;
+            return result;
+        }
+
+        if (kdcs == null || !complete) {
+            kdcs = result;
+        } else {
+            LOG.info("Keep using the previously discovered KDCs " + kdcs.keySet());
+        }
+        expiresAt = now + retryMillis;
+        return kdcs;
+    }
+
+    /**
+     * @return Whether no look up failed
+     */
+    private boolean discover(Map<String, TransportPair> result) throws KrbException {
+        boolean succeeded = true;
+        // A KDC may include the port number
+        for (String kdc : ClientUtil.getKDCList(setting)) {
+            if (kdc == null || result.containsKey(kdc)) {
+                continue;
+            }
+            try {
+                result.put(kdc, ClientUtil.getTransportPair(setting, kdc));
+            } catch (IOException e) {
+                LOG.info("ignore this kdc " + kdc + ". " + e);
+                succeeded = false;
+            }
+        }
+
+        if (setting.getKrbConfig().getDnsLookUpKdc()) {
+            String realm = setting.getKdcRealm();
+            if (setting.allowTcp()) {
+                succeeded &= addSrvKdcs(result, "_kerberos._tcp." + realm, true);
+            }
+            if (setting.allowUdp()) {
+                succeeded &= addSrvKdcs(result, "_kerberos._udp." + realm, false);
+            }
+        }
+        return succeeded;
+    }
+
+    /**
+     * @return Whether the look up succeeded
+     */
+    private boolean addSrvKdcs(Map<String, TransportPair> result, String name, boolean tcp) {
+        List<SrvRecord> records;
+        try {
+            records = new ArrayList<>(resolver.resolve(name));
+        } catch (IOException e) {
+            LOG.warn("Failed to look up KDCs in " + name + ". " + e);
+            return false;
+        }
+
+        // Lower priorities first, then the heavier records of a priority
+        Collections.sort(records, new Comparator<SrvRecord>() {
+            @Override
+            public int compare(SrvRecord record1, SrvRecord record2) {
+                if (record1.getPriority() != record2.getPriority()) {
+                    return record1.getPriority() < record2.getPriority() ? -1 : 1;
+                }
+                return record1.getWeight() > record2.getWeight() ? -1
+                    : record1.getWeight() == record2.getWeight() ? 0 : 1;
+            }
+        });
+
+        for (SrvRecord record : records) {
+            String host = record.getTarget();
+            if (host.endsWith(".")) {
+                host = host.substring(0, host.length() - 1);
+            }
+            // A "." target means there's no such service
+            if (host.isEmpty()) {
+                continue;
+            }
+
+            String kdc = host + ":" + record.getPort();
+            TransportPair tpair = result.get(kdc);
+            if (tpair == null) {
+                tpair = new TransportPair();
+                result.put(kdc, tpair);
+            }
+            InetSocketAddress address = new InetSocketAddress(host, record.getPort());
+            if (tcp) {
+                tpair.tcpAddress = address;
+            } else {
+                tpair.udpAddress = address;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Looks up DNS SRV records.
+     */
+    public interface SrvResolver {
+        /**
+         * @param name The record name, like "_kerberos._tcp.EXAMPLE.COM"
+         * @return The records, empty if there's none
+         * @throws IOException if the look up failed
+         */
+        List<SrvRecord> resolve(String name) throws IOException;
+    }
+
+    /**
+     * A DNS SRV record.
+     */
+    public static class SrvRecord {
+        private final int priority;
+        private final int weight;
+        private final int port;
+        private final String target;
+
+        public SrvRecord(int priority, int weight, int port, String target) {
+            this.priority = priority;
+            this.weight = weight;
+            this.port = port;
+            this.target = target;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+    }
+
+    /**
+     * Looks up SRV records with the JNDI DNS provider and the system DNS
+     * servers.
+     */
+    public static class DnsSrvResolver implements SrvResolver {
+        @Override
+        public List<SrvRecord> resolve(String name) throws IOException {
+            List<SrvRecord> records = new ArrayList<>();
+            try {
+                DirContext context = new InitialDirContext();
+                try {
+                    Attributes attributes = context.getAttributes("dns:/" + name,
+                        new String[] {"SRV"});
+                    Attribute srv = attributes.get("SRV");
+                    if (srv == null) {
+                        return records;
+                    }
+                    NamingEnumeration<?> values = srv.getAll();
+                    while (values.hasMore()) {
+                        // priority weight port target
+                        String[] fields = values.next().toString().trim().split("\\s+");
+                        if (fields.length == 4) {
+                            records.add(new SrvRecord(Integer.parseInt(fields[0]),
+                                Integer.parseInt(fields[1]), Integer.parseInt(fields[2]), fields[3]));
+                        }
+                    }
+                } finally {
+                    context.close();
+                }
+            } catch (NameNotFoundException e) {
+                return records;
+            } catch (NamingException | NumberFormatException e) {
+                throw new IOException("Failed to look up " + name, e);
+            }
+            return records;
+        }
+    }
+}
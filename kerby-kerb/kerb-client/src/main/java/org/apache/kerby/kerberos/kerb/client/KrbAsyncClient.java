@@ -0,0 +1,148 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client;
+
+import org.apache.kerby.KOptions;
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.client.impl.AsyncInternalKrbClient;
+import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+
+import java.io.File;
+
+/**
+ * A Krb client API for applications to send many KDC requests at once. The
+ * asynchronous requests return right after sending, and are pipelined on
+ * shared TCP connections to the KDC.
+ */
+public class KrbAsyncClient extends KrbClientBase {
+    private AsyncInternalKrbClient asyncClient;
+
+    /**
+     * Default constructor.
+     * @throws KrbException e
+     */
+    public KrbAsyncClient() throws KrbException {
+        super();
+    }
+
+    /**
+     * Construct with prepared KrbConfig.
+     * @param krbConfig The krb config
+     */
+    public KrbAsyncClient(KrbConfig krbConfig) {
+        super(krbConfig);
+    }
+
+    /**
+     * Constructor with conf dir
+     * @param confDir The conf dir
+     * @throws KrbException e
+     */
+    public KrbAsyncClient(File confDir) throws KrbException {
+        super(confDir);
+    }
+
+    /**
+     * Constructor with prepared KrbClient.
+     * @param krbClient The krb client
+     */
+    public KrbAsyncClient(KrbClient krbClient) {
+        super(krbClient);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init() throws KrbException {
+        super.init();
+        asyncClient = new AsyncInternalKrbClient(getSetting());
+        asyncClient.init();
+    }
+
+    /**
+     * Request a TGT with user plain credential, without waiting for it.
+     * @param principal The principal
+     * @param password The password
+     * @return The pending TGT
+     * @throws KrbException e
+     */
+    public KrbFuture<TgtTicket> requestTgtAsync(String principal,
+                                                String password) throws KrbException {
+        KOptions requestOptions = new KOptions();
+        requestOptions.add(KrbOption.CLIENT_PRINCIPAL, principal);
+        requestOptions.add(KrbOption.USE_PASSWD, true);
+        requestOptions.add(KrbOption.USER_PASSWD, password);
+        return requestTgtAsync(requestOptions);
+    }
+
+    /**
+     * Request a TGT with using well prepared requestOptions, without waiting
+     * for it.
+     * @param requestOptions The request options
+     * @return The pending TGT
+     * @throws KrbException e
+     */
+    public KrbFuture<TgtTicket> requestTgtAsync(KOptions requestOptions) throws KrbException {
+        if (requestOptions == null) {
+            throw new IllegalArgumentException("Null requestOptions specified");
+        }
+        return asyncClient.requestTgtAsync(requestOptions);
+    }
+
+    /**
+     * Request a service ticket with a TGT targeting for a server, without
+     * waiting for it.
+     * @param tgt The tgt ticket
+     * @param serverPrincipal The server principal
+     * @return The pending service ticket
+     * @throws KrbException e
+     */
+    public KrbFuture<SgtTicket> requestSgtAsync(TgtTicket tgt,
+                                                String serverPrincipal) throws KrbException {
+        KOptions requestOptions = new KOptions();
+        requestOptions.add(KrbOption.USE_TGT, tgt);
+        requestOptions.add(KrbOption.SERVER_PRINCIPAL, serverPrincipal);
+        return requestSgtAsync(requestOptions);
+    }
+
+    /**
+     * Request a service ticket provided request options, without waiting
+     * for it.
+     * @param requestOptions The request options
+     * @return The pending service ticket
+     * @throws KrbException e
+     */
+    public KrbFuture<SgtTicket> requestSgtAsync(KOptions requestOptions) throws KrbException {
+        return asyncClient.requestSgtAsync(requestOptions);
+    }
+
+    /**
+     * Close the KDC connections, failing the pending requests.
+     */
+    @Override
+    public void close() {
+        if (asyncClient != null) {
+            asyncClient.close();
+        }
+        super.close();
+    }
+}
@@ -20,7 +20,9 @@
 package org.apache.kerby.kerberos.kerb.client;
 
 import org.apache.kerby.KOptions;
+import org.apache.kerby.kerberos.kerb.KrbConstant;
 import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.ccache.CredCacheFile;
 import org.apache.kerby.kerberos.kerb.ccache.Credential;
 import org.apache.kerby.kerberos.kerb.ccache.CredentialCache;
 import org.apache.kerby.kerberos.kerb.client.impl.DefaultInternalKrbClient;
@@ -33,6 +35,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * A Krb client API for applications to interact with KDC
@@ -152,6 +155,30 @@ public class KrbClientBase {
         commonOptions.add(KrbOption.CONN_TIMEOUT, timeout);
     }
 
+    /**
+     * Set the max number of idle TCP connections kept per KDC, so requests
+     * from any thread reuse them instead of connecting each time.
+     * @param poolSize The pool size, 0 to connect for every request
+     */
+    public void setKdcConnectionPoolSize(int poolSize) {
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("Invalid pool size");
+        }
+        commonOptions.add(KrbOption.KDC_CONNECTION_POOL_SIZE, poolSize);
+    }
+
+    /**
+     * Set the max number of service tickets cached in memory, 0 to request
+     * every service ticket from the KDC.
+     * @param cacheSize The service ticket cache size
+     */
+    public void setSgtCacheSize(int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Invalid cache size");
+        }
+        commonOptions.add(KrbOption.SGT_CACHE_SIZE, cacheSize);
+    }
+
     /**
      * Init the client.
      * @throws KrbException e
@@ -161,6 +188,16 @@ public class KrbClientBase {
         innerClient.init();
     }
 
+    /**
+     * Close the client, releasing the pooled KDC connections. Clients made
+     * from this one share its connections, so they're closed as well.
+     */
+    public void close() {
+        if (innerClient != null) {
+            innerClient.close();
+        }
+    }
+
     /**
      * Get krb client settings from options and configs.
      * @return setting
@@ -234,7 +271,8 @@ public class KrbClientBase {
 
 
     /**
-     * Store tgt into the specified credential cache file.
+     * Store tgt into the specified credential cache file, replacing its
+     * content.
      * @param tgtTicket The tgt ticket
      * @param ccacheFile The credential cache file
      * @throws KrbException e
@@ -242,44 +280,39 @@ public class KrbClientBase {
     public void storeTicket(TgtTicket tgtTicket,
                             File ccacheFile) throws KrbException {
         LOG.info("Storing the tgt to the credential cache file.");
-        if (!ccacheFile.exists()) {
-            try {
-                if (!ccacheFile.createNewFile()) {
-                    throw new KrbException("Failed to create ccache file "
-                        + ccacheFile.getAbsolutePath());
-                }
-                // sets read-write permissions to owner only
-                ccacheFile.setReadable(false, false);
-                ccacheFile.setReadable(true, true);
-                if (!ccacheFile.setWritable(true, true)) {
-                    throw new KrbException("Cache file is not readable.");
-                }
-            } catch (IOException e) {
-                throw new KrbException("Failed to create ccache file "
-                    + ccacheFile.getAbsolutePath(), e);
-            }
-        }
-        if (ccacheFile.exists() && ccacheFile.canWrite()) {
-            CredentialCache cCache = new CredentialCache(tgtTicket);
-            try {
-                cCache.store(ccacheFile);
-            } catch (IOException e) {
-                throw new KrbException("Failed to store tgt", e);
-            }
-        } else {
-            throw new IllegalArgumentException("Invalid ccache file, "
-                    + "not exist or writable: " + ccacheFile.getAbsolutePath());
+        checkCacheFile(ccacheFile);
+        try {
+            new CredCacheFile(ccacheFile).store(new CredentialCache(tgtTicket));
+        } catch (IOException e) {
+            throw new KrbException("Failed to store tgt", e);
         }
     }
 
     /**
-     * Store sgt into the specified credential cache file.
+     * Store sgt into the specified credential cache file. Service tickets
+     * are appended to the cache, while a renewed tgt replaces its content,
+     * as does a service ticket of another client than the cache's one.
      * @param sgtTicket The sgt ticket
      * @param ccacheFile The credential cache file
      * @throws KrbException e
      */
     public void storeTicket(SgtTicket sgtTicket, File ccacheFile) throws KrbException {
         LOG.info("Storing the sgt to the credential cache file.");
+        checkCacheFile(ccacheFile);
+        try {
+            CredCacheFile cacheFile = new CredCacheFile(ccacheFile);
+            List<String> serverNames = sgtTicket.getEncKdcRepPart().getSname().getNameStrings();
+            if (!serverNames.isEmpty() && KrbConstant.TGS_PRINCIPAL.equals(serverNames.get(0))) {
+                cacheFile.store(new CredentialCache(sgtTicket));
+            } else {
+                cacheFile.appendOrStore(new Credential(sgtTicket, sgtTicket.getClientPrincipal()));
+            }
+        } catch (IOException e) {
+            throw new KrbException("Failed to store sgt", e);
+        }
+    }
+
+    private void checkCacheFile(File ccacheFile) throws KrbException {
         if (!ccacheFile.exists()) {
             try {
                 if (!ccacheFile.createNewFile()) {
@@ -297,14 +330,7 @@ public class KrbClientBase {
                     + ccacheFile.getAbsolutePath(), e);
             }
         }
-        if (ccacheFile.exists() && ccacheFile.canWrite()) {
-            CredentialCache cCache = new CredentialCache(sgtTicket);
-            try {
-                cCache.store(ccacheFile);
-            } catch (IOException e) {
-                throw new KrbException("Failed to store tgt", e);
-            }
-        } else {
+        if (!ccacheFile.canWrite()) {
             throw new IllegalArgumentException("Invalid ccache file, "
                     + "not exist or writable: " + ccacheFile.getAbsolutePath());
         }
@@ -339,9 +365,10 @@ public class KrbClientBase {
     }
 
     public CredentialCache resolveCredCache(File ccacheFile) throws IOException {
-        CredentialCache cc = new CredentialCache();
-        cc.load(ccacheFile);
-
-        return cc;
+        if (!ccacheFile.exists() || !ccacheFile.canRead()) {
+            throw new IllegalArgumentException("Invalid ccache file: "
+                    + ccacheFile.getAbsolutePath());
+        }
+        return new CredCacheFile(ccacheFile).load();
     }
 }
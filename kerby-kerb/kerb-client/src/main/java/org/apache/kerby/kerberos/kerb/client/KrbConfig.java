@@ -302,6 +302,69 @@ public class KrbConfig extends Krb5Conf {
         return getEncTypes(KrbConfigKey.DEFAULT_TKT_ENCTYPES, true, LIBDEFAULT);
     }
 
+    /**
+     * Get the max number of string2key results cached in memory for
+     * password logins, 0 to disable the cache, which is the default.
+     * @return The string2key cache size
+     */
+    public int getStr2keyCacheSize() {
+        return getInt(KrbConfigKey.STR2KEY_CACHE_SIZE, true, LIBDEFAULT);
+    }
+
+    /**
+     * Get the max number of idle TCP connections kept per KDC for reuse by
+     * later requests, 0 to connect for every request.
+     * @return The KDC connection pool size
+     */
+    public int getKdcConnectionPoolSize() {
+        return getInt(KrbConfigKey.KDC_CONNECTION_POOL_SIZE, true, LIBDEFAULT);
+    }
+
+    /**
+     * Get the max number of service tickets cached in memory, 0 to request
+     * every service ticket from the KDC.
+     * @return The service ticket cache size
+     */
+    public int getSgtCacheSize() {
+        return getInt(KrbConfigKey.SGT_CACHE_SIZE, true, LIBDEFAULT);
+    }
+
+    /**
+     * Get the time in seconds before the end time of a cached service ticket
+     * to drop it. The renewals start another margin earlier.
+     * @return The refresh margin
+     */
+    public long getSgtCacheRefreshMargin() {
+        return getLong(KrbConfigKey.SGT_CACHE_REFRESH_MARGIN, true, LIBDEFAULT);
+    }
+
+    /**
+     * Whether the used cached service tickets are requested again before
+     * they are dropped.
+     * @return true to renew the cached service tickets
+     */
+    public boolean isSgtCacheRenewalEnabled() {
+        return getBoolean(KrbConfigKey.SGT_CACHE_RENEWAL, true, LIBDEFAULT);
+    }
+
+    /**
+     * Get the max number of principals to remember preauth hints for, 0 to
+     * wait for the KDC to ask for preauth data.
+     * @return The preauth hint cache size
+     */
+    public int getPreauthHintCacheSize() {
+        return getInt(KrbConfigKey.PREAUTH_HINT_CACHE_SIZE, true, LIBDEFAULT);
+    }
+
+    /**
+     * Get the time in seconds the discovered KDCs and their addresses are
+     * kept before they're discovered again.
+     * @return The KDC discovery TTL
+     */
+    public long getKdcDiscoveryTtl() {
+        return getLong(KrbConfigKey.KDC_DISCOVERY_TTL, true, LIBDEFAULT);
+    }
+
     public List<String> getPkinitAnchors() {
         return Arrays.asList(getStringArray(
                 KrbConfigKey.PKINIT_ANCHORS, true, LIBDEFAULT));
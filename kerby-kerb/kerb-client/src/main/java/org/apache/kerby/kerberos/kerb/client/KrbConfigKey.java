@@ -57,6 +57,13 @@ public enum KrbConfigKey implements ConfigKey {
     DEFAULT_TKT_ENCTYPES("aes256-cts-hmac-sha1-96 aes128-cts-hmac-sha1-96 "
             + "des3-cbc-sha1 arcfour-hmac-md5 camellia256-cts-cmac "
             + "camellia128-cts-cmac des-cbc-crc des-cbc-md5 des-cbc-md4"),
+    STR2KEY_CACHE_SIZE(0),
+    KDC_CONNECTION_POOL_SIZE(0),
+    SGT_CACHE_SIZE(0),
+    SGT_CACHE_REFRESH_MARGIN(5 * 60L),
+    SGT_CACHE_RENEWAL(false),
+    PREAUTH_HINT_CACHE_SIZE(1024),
+    KDC_DISCOVERY_TTL(5 * 60L),
 
     PKINIT_ANCHORS(null),
     PKINIT_IDENTITIES(null),
@@ -26,6 +26,10 @@ public class KrbContext {
 
     private KrbSetting krbSetting;
     private PreauthHandler preauthHandler;
+    private StringToKeyCache str2keyCache;
+    private SgtTicketCache sgtCache;
+    private PreauthHintCache preauthHintCache;
+    private KdcDiscovery kdcDiscovery;
 
     /**
      * Init with krbsetting.
@@ -35,6 +39,12 @@ public class KrbContext {
         this.krbSetting = krbSetting;
         preauthHandler = new PreauthHandler();
         preauthHandler.init(this);
+        str2keyCache = new StringToKeyCache(getConfig().getStr2keyCacheSize());
+        sgtCache = new SgtTicketCache(krbSetting.getSgtCacheSize(),
+                getConfig().getSgtCacheRefreshMargin() * 1000,
+                getConfig().isSgtCacheRenewalEnabled());
+        preauthHintCache = new PreauthHintCache(getConfig().getPreauthHintCacheSize());
+        kdcDiscovery = new KdcDiscovery(krbSetting);
     }
 
     /**
@@ -76,4 +86,44 @@ public class KrbContext {
     public PreauthHandler getPreauthHandler() {
         return preauthHandler;
     }
+
+    /**
+     * Get the string2key cache for password logins.
+     * @return The string2key cache
+     */
+    public StringToKeyCache getStr2keyCache() {
+        return str2keyCache;
+    }
+
+    /**
+     * Get the service ticket cache.
+     * @return The service ticket cache
+     */
+    public SgtTicketCache getSgtCache() {
+        return sgtCache;
+    }
+
+    /**
+     * Get the preauth hint cache.
+     * @return The preauth hint cache
+     */
+    public PreauthHintCache getPreauthHintCache() {
+        return preauthHintCache;
+    }
+
+    /**
+     * Get the KDC discovery.
+     * @return The KDC discovery
+     */
+    public KdcDiscovery getKdcDiscovery() {
+        return kdcDiscovery;
+    }
+
+    /**
+     * Set the KDC discovery, to find the KDCs some other way.
+     * @param kdcDiscovery The KDC discovery
+     */
+    public void setKdcDiscovery(KdcDiscovery kdcDiscovery) {
+        this.kdcDiscovery = kdcDiscovery;
+    }
 }
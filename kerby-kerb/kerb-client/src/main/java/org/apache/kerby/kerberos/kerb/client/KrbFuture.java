@@ -0,0 +1,191 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The pending result of an asynchronous KDC exchange. Besides waiting on it,
+ * callbacks can be added to run once it's done, on the thread completing it.
+ *
+ * @param <T> The result type
+ */
+public class KrbFuture<T> implements Future<T> {
+    private T result;
+    private KrbException failure;
+    private boolean done;
+    private boolean cancelled;
+    private List<Callback<T>> callbacks;
+
+    /**
+     * Called when a KDC exchange is done.
+     *
+     * @param <T> The result type
+     */
+    public interface Callback<T> {
+        /**
+         * @param result The result
+         */
+        void onSuccess(T result);
+
+        /**
+         * @param failure The failure
+         */
+        void onFailure(KrbException failure);
+    }
+
+    /**
+     * Add a callback, run right away if already done.
+     * @param callback The callback
+     */
+    public void addCallback(Callback<T> callback) {
+        synchronized (this) {
+            if (!done) {
+                if (callbacks == null) {
+                    callbacks = new ArrayList<>(1);
+                }
+                callbacks.add(callback);
+                return;
+            }
+        }
+        invoke(callback);
+    }
+
+    /**
+     * Complete with a result.
+     * @param value The result
+     * @return false if already done
+     */
+    public boolean complete(T value) {
+        return finish(value, null, false);
+    }
+
+    /**
+     * Complete with a failure.
+     * @param e The failure
+     * @return false if already done
+     */
+    public boolean fail(KrbException e) {
+        return finish(null, e, false);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return finish(null, new KrbException("The request was cancelled"), true);
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public synchronized T get() throws InterruptedException, ExecutionException {
+        while (!done) {
+            wait();
+        }
+        return report();
+    }
+
+    @Override
+    public synchronized T get(long timeout, TimeUnit unit)
+        throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!done) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return report();
+    }
+
+    /**
+     * Wait for the result, like {@link #get()} but failing as the
+     * synchronous requests do.
+     * @return The result
+     * @throws KrbException e
+     */
+    public T getResult() throws KrbException {
+        try {
+            return get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KrbException("Interrupted while waiting for the KDC", e);
+        } catch (ExecutionException e) {
+            throw (KrbException) e.getCause();
+        }
+    }
+
+    private T report() throws ExecutionException {
+        if (cancelled) {
+            throw new CancellationException();
+        }
+        if (failure != null) {
+            throw new ExecutionException(failure);
+        }
+        return result;
+    }
+
+    private boolean finish(T value, KrbException e, boolean cancel) {
+        List<Callback<T>> toNotify;
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+            result = value;
+            failure = e;
+            cancelled = cancel;
+            done = true;
+            toNotify = callbacks;
+            callbacks = null;
+            notifyAll();
+        }
+
+        if (toNotify != null) {
+            for (Callback<T> callback : toNotify) {
+                invoke(callback);
+            }
+        }
+        return true;
+    }
+
+    private void invoke(Callback<T> callback) {
+        if (failure != null) {
+            callback.onFailure(failure);
+        } else {
+            callback.onSuccess(result);
+        }
+    }
+}
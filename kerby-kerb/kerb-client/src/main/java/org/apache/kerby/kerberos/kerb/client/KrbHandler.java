@@ -19,6 +19,7 @@
  */
 package org.apache.kerby.kerberos.kerb.client;
 
+import org.apache.kerby.asn1.util.EncodingBuffer;
 import org.apache.kerby.kerberos.kerb.KrbCodec;
 import org.apache.kerby.kerberos.kerb.KrbErrorCode;
 import org.apache.kerby.kerberos.kerb.KrbException;
@@ -71,20 +72,20 @@ public abstract class KrbHandler {
             kdcRequest.process();
         }
         KdcReq kdcReq = kdcRequest.getKdcReq();
-        int bodyLen = kdcReq.encodingLength();
-        KrbTransport transport = (KrbTransport) kdcRequest.getSessionData();
-        boolean isTcp = transport.isTcp();
+        boolean isTcp = isTcp(kdcRequest);
+        int headerLen = isTcp ? 4 : 0;
         ByteBuffer requestMessage;
 
-        if (!isTcp) {
-            requestMessage = ByteBuffer.allocate(bodyLen);
-
-        } else {
-            requestMessage = ByteBuffer.allocate(bodyLen + 4);
-            requestMessage.putInt(bodyLen);
+        // The message is sent before the thread encodes another one
+        EncodingBuffer buffer = isTcp ? EncodingBuffer.heap() : EncodingBuffer.direct();
+        try {
+            requestMessage = buffer.encode(kdcReq, headerLen);
+        } catch (IOException e) {
+            throw new KrbException("Encoding failed", e);
+        }
+        if (isTcp) {
+            requestMessage.putInt(0, requestMessage.limit() - headerLen);
         }
-        KrbCodec.encode(kdcReq, requestMessage);
-        requestMessage.flip();
         try {
             sendMessage(kdcRequest, requestMessage);
         } catch (IOException e) {
@@ -92,6 +93,17 @@ public abstract class KrbHandler {
         }
     }
 
+    /**
+     * Whether the request is sent over TCP, which frames the messages with
+     * their length.
+     *
+     * @param kdcRequest The kdc request, with its transport as session data
+     * @return true if over TCP
+     */
+    protected boolean isTcp(KdcRequest kdcRequest) {
+        return ((KrbTransport) kdcRequest.getSessionData()).isTcp();
+    }
+
     /**
      * Process the response messabe from kdc.
      *
@@ -138,6 +150,9 @@ public abstract class KrbHandler {
                 kdcRequest.resetPrequthContxt();
                 handleRequest(kdcRequest, false);
                 LOG.info("Retry with the new kdc request including pre-authentication.");
+            } else if (kdcRequest.recoverFromError(error.getErrorCode())) {
+                handleRequest(kdcRequest, false);
+                LOG.info("Retry with the new kdc request without pre-authentication.");
             } else {
                 LOG.info(error.getErrorCode().getMessage());
                 throw new KrbException(error.getErrorCode(), error.getEtext());
@@ -146,7 +161,8 @@ public abstract class KrbHandler {
     }
 
     /**
-     * Send message to kdc.
+     * Send message to kdc. The message buffer is pooled and must not be
+     * kept after the call.
      *
      * @param kdcRequest The kdc request
      * @param requestMessage The request message to kdc
@@ -43,6 +43,10 @@ public enum KrbOption implements KOption {
         KOptionType.INT)),
     CONN_TIMEOUT(new KOptionInfo("conn-timeout", "connection timeout",
         KOptionType.INT)),
+    KDC_CONNECTION_POOL_SIZE(new KOptionInfo("kdc-connection-pool-size",
+        "idle kdc connections kept per kdc", KOptionType.INT)),
+    SGT_CACHE_SIZE(new KOptionInfo("sgt-cache-size",
+        "service tickets cached in memory", KOptionType.INT)),
 
     LIFE_TIME(new KOptionInfo("-l", "life time",
         KOptionType.INT)),
@@ -126,4 +126,18 @@ public class KrbSetting {
         }
         return 1000; // by default
     }
+
+    public int getKdcConnectionPoolSize() {
+        if (commonOptions.contains(KrbOption.KDC_CONNECTION_POOL_SIZE)) {
+            return commonOptions.getIntegerOption(KrbOption.KDC_CONNECTION_POOL_SIZE);
+        }
+        return krbConfig.getKdcConnectionPoolSize();
+    }
+
+    public int getSgtCacheSize() {
+        if (commonOptions.contains(KrbOption.SGT_CACHE_SIZE)) {
+            return commonOptions.getIntegerOption(KrbOption.SGT_CACHE_SIZE);
+        }
+        return krbConfig.getSgtCacheSize();
+    }
 }
@@ -0,0 +1,106 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client;
+
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A memory only LRU cache of preauth hints, the encryption types that worked
+ * for a principal in previous AS exchanges.
+ *
+ * With a hint the first AS request of a principal carries an encrypted
+ * timestamp in the hinted encryption type, saving the round-trip to the KDC
+ * for a PREAUTH_REQUIRED error and its ETYPE_INFO2. A hint that turns out
+ * wrong is removed and the request resent without preauth data. A cache
+ * with a max size of zero or less is disabled.
+ */
+public class PreauthHintCache {
+    private final Map<String, List<EncryptionType>> hints;
+    private final int maxSize;
+
+    public PreauthHintCache(final int maxSize) {
+        this.maxSize = maxSize;
+        this.hints = new LinkedHashMap<String, List<EncryptionType>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<EncryptionType>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Get the hinted encryption types for a principal.
+     * @param principal The principal name
+     * @return The encryption types, or null if no hint
+     */
+    public List<EncryptionType> get(String principal) {
+        synchronized (hints) {
+            return hints.get(principal);
+        }
+    }
+
+    /**
+     * Remember the encryption types that worked for a principal.
+     * @param principal The principal name
+     * @param encryptionTypes The encryption types
+     */
+    public void put(String principal, List<EncryptionType> encryptionTypes) {
+        if (!isEnabled() || encryptionTypes.isEmpty()) {
+            return;
+        }
+        List<EncryptionType> hint = Collections.unmodifiableList(
+            new ArrayList<>(encryptionTypes));
+        synchronized (hints) {
+            hints.put(principal, hint);
+        }
+    }
+
+    /**
+     * Forget the hint for a principal.
+     * @param principal The principal name
+     */
+    public void remove(String principal) {
+        synchronized (hints) {
+            hints.remove(principal);
+        }
+    }
+
+    public int size() {
+        synchronized (hints) {
+            return hints.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (hints) {
+            hints.clear();
+        }
+    }
+}
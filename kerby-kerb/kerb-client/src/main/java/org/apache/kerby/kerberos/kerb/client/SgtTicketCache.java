@@ -0,0 +1,284 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client;
+
+import org.apache.kerby.KOption;
+import org.apache.kerby.KOptions;
+import org.apache.kerby.kerberos.kerb.KrbCodec;
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
+import org.apache.kerby.kerberos.kerb.type.kdc.EncTgsRepPart;
+import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
+import org.apache.kerby.kerberos.kerb.type.ticket.Ticket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A memory only LRU cache of service tickets, so that repeated requests for
+ * the same service don't go to the KDC while the last ticket is still good.
+ *
+ * Entries are keyed by client principal, service principal and the other
+ * request options like the KDC flags. An entry is dropped a refresh margin
+ * before the ticket end time, and tickets not lasting longer than the margin
+ * are not cached at all. With renewal enabled, a ticket used since it was
+ * cached is requested again another refresh margin before its entry is
+ * dropped, or halfway through for short lived entries, so hot services keep
+ * finding a fresh ticket. A cache with a max size of zero or less is
+ * disabled.
+ *
+ * The tickets are kept encoded, and each lookup decodes a new copy, so the
+ * callers can't change the cached ones.
+ */
+public class SgtTicketCache {
+    private static final Logger LOG = LoggerFactory.getLogger(SgtTicketCache.class);
+
+    private final int maxSize;
+    private final long refreshMargin;
+    private final boolean renewal;
+    private final Map<String, CacheEntry> entries;
+    private ScheduledExecutorService renewer;
+
+    /**
+     * Requests the cached service ticket again from the KDC, for the renewal.
+     */
+    public interface Loader {
+        /**
+         * @return The new service ticket
+         * @throws KrbException e
+         */
+        SgtTicket load() throws KrbException;
+    }
+
+    /**
+     * @param maxSize The max number of cached tickets
+     * @param refreshMargin The time in milliseconds before the ticket end
+     *                      time to drop it
+     * @param renewal Renew the used tickets before they are dropped or not
+     */
+    public SgtTicketCache(final int maxSize, long refreshMargin, boolean renewal) {
+        this.maxSize = maxSize;
+        this.refreshMargin = refreshMargin;
+        this.renewal = renewal;
+        this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Get a copy of a cached service ticket still good for use.
+     * @param clientPrincipal The client principal name
+     * @param serverPrincipal The service principal name
+     * @param requestOptions The request options
+     * @return The ticket, or null if none is cached
+     */
+    public SgtTicket get(String clientPrincipal, String serverPrincipal,
+                         KOptions requestOptions) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        String key = makeKey(clientPrincipal, serverPrincipal, requestOptions);
+        CacheEntry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() >= entry.expiry) {
+                entries.remove(key);
+                return null;
+            }
+            entry.used = true;
+        }
+
+        try {
+            return entry.toTicket();
+        } catch (KrbException e) {
+            LOG.debug("Failed to decode the cached ticket. " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Cache a copy of a service ticket.
+     * @param clientPrincipal The client principal name
+     * @param serverPrincipal The service principal name
+     * @param requestOptions The request options
+     * @param ticket The ticket
+     * @param loader The loader to renew the ticket, may be null
+     */
+    public void put(String clientPrincipal, String serverPrincipal,
+                    KOptions requestOptions, SgtTicket ticket, Loader loader) {
+        if (isEnabled()) {
+            put(makeKey(clientPrincipal, serverPrincipal, requestOptions),
+                ticket, loader, null);
+        }
+    }
+
+    /**
+     * @param renewedBy The renewer of the ticket, so that a renewal finishing
+     *                  after a clear doesn't cache it
+     */
+    private void put(String key, SgtTicket ticket, Loader loader,
+                     ScheduledExecutorService renewedBy) {
+        long expiry = ticket.getEncKdcRepPart().getEndTime().getTime() - refreshMargin;
+        long delay = expiry - System.currentTimeMillis();
+        if (delay <= 0) {
+            return;
+        }
+
+        CacheEntry entry;
+        try {
+            entry = new CacheEntry(ticket, expiry);
+        } catch (KrbException e) {
+            LOG.debug("Failed to encode the ticket to cache. " + e);
+            return;
+        }
+
+        synchronized (entries) {
+            if (renewedBy != null && renewedBy != renewer) {
+                return;
+            }
+            entries.put(key, entry);
+            if (renewal && loader != null) {
+                // Renew while the entry is still good, so that the lookups
+                // meanwhile don't miss and go to the KDC too
+                scheduleRenewal(key, entry, loader,
+                    Math.max(delay / 2, delay - refreshMargin));
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Remove all the cached tickets and cancel the renewals.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            if (renewer != null) {
+                renewer.shutdownNow();
+                renewer = null;
+            }
+        }
+    }
+
+    private void scheduleRenewal(final String key, final CacheEntry entry,
+                                 final Loader loader, long delay) {
+        if (renewer == null) {
+            renewer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "sgt-cache-renewal");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        final ScheduledExecutorService executor = renewer;
+        executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (entries) {
+                    // Replaced, evicted or not used since cached
+                    if (entries.get(key) != entry || !entry.used) {
+                        return;
+                    }
+                }
+                try {
+                    put(key, loader.load(), loader, executor);
+                } catch (KrbException e) {
+                    LOG.debug("Failed to renew the cached ticket. " + e);
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private static String makeKey(String clientPrincipal, String serverPrincipal,
+                                  KOptions requestOptions) {
+        List<String> options = new ArrayList<>();
+        for (KOption option : requestOptions.getOptions()) {
+            if (option != KrbOption.USE_TGT && option != KrbOption.SERVER_PRINCIPAL) {
+                options.add(option.getOptionInfo().getName() + "="
+                    + option.getOptionInfo().getValue());
+            }
+        }
+        Collections.sort(options);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(clientPrincipal).append('\n').append(serverPrincipal);
+        for (String option : options) {
+            sb.append('\n').append(option);
+        }
+        return sb.toString();
+    }
+
+    private static class CacheEntry {
+        private final byte[] ticket;
+        private final byte[] encKdcRepPart;
+        private final byte[] clientPrincipal;
+        private final String clientRealm;
+        private final long expiry;
+        private boolean used;
+
+        CacheEntry(SgtTicket ticket, long expiry) throws KrbException {
+            this.ticket = KrbCodec.encode(ticket.getTicket());
+            this.encKdcRepPart = KrbCodec.encode(ticket.getEncKdcRepPart());
+            PrincipalName client = ticket.getClientPrincipal();
+            this.clientPrincipal = client != null ? KrbCodec.encode(client) : null;
+            this.clientRealm = client != null ? client.getRealm() : null;
+            this.expiry = expiry;
+        }
+
+        SgtTicket toTicket() throws KrbException {
+            SgtTicket sgtTicket = new SgtTicket(KrbCodec.decode(ticket, Ticket.class),
+                KrbCodec.decode(encKdcRepPart, EncTgsRepPart.class));
+            if (clientPrincipal != null) {
+                PrincipalName client = KrbCodec.decode(clientPrincipal, PrincipalName.class);
+                client.setRealm(clientRealm);
+                sgtTicket.setClientPrincipal(client);
+            }
+            return sgtTicket;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.crypto.EncryptionHandler;
+import org.apache.kerby.kerberos.kerb.crypto.util.HmacSha2;
+import org.apache.kerby.kerberos.kerb.crypto.util.Random;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A memory only LRU cache of string2key results, so that repeated password
+ * logins for the same principal don't run the string2key function again.
+ *
+ * Entries are keyed by principal, salt, encryption type and s2kparams, which
+ * carry the iteration count. The password itself is never kept, only a HMAC
+ * of it under a random per cache secret, compared in constant time on every
+ * lookup. Key bytes are wiped when an entry is evicted, replaced or the cache
+ * is cleared. A cache with a max size of zero or less is disabled and always
+ * calls string2key, which is the default: the cache is opt-in through
+ * str2key_cache_size, since it keeps the long term keys in memory.
+ */
+public class StringToKeyCache {
+    private final int maxSize;
+    private final byte[] secret;
+    private final Map<CacheKey, CacheEntry> entries;
+
+    public StringToKeyCache(final int maxSize) {
+        this.maxSize = maxSize;
+        this.secret = Random.makeBytes(32);
+        this.entries = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+                if (size() > maxSize) {
+                    eldest.getValue().wipe();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Get the key for the password, from the cache if possible.
+     * @param principal The principal name
+     * @param password The password
+     * @param salt The salt
+     * @param s2kparams The string2key params, may be null
+     * @param eType The encryption type
+     * @return A copy of the cached or newly made key
+     * @throws KrbException e
+     */
+    public EncryptionKey string2Key(String principal, String password, String salt,
+                                    byte[] s2kparams, EncryptionType eType) throws KrbException {
+        if (!isEnabled()) {
+            return EncryptionHandler.string2Key(password, salt, s2kparams, eType);
+        }
+
+        CacheKey cacheKey = new CacheKey(principal, salt, eType, s2kparams);
+        byte[] passwordBytes = password.getBytes(StandardCharsets.UTF_8);
+        byte[] passwordMac = HmacSha2.hmac(HmacSha2.HMAC_SHA256, secret,
+                passwordBytes, 0, passwordBytes.length);
+        Arrays.fill(passwordBytes, (byte) 0);
+        synchronized (entries) {
+            CacheEntry entry = entries.get(cacheKey);
+            if (entry != null && MessageDigest.isEqual(entry.passwordMac, passwordMac)) {
+                return new EncryptionKey(eType, entry.keyData.clone());
+            }
+        }
+
+        EncryptionKey key = EncryptionHandler.string2Key(password, salt, s2kparams, eType);
+        synchronized (entries) {
+            CacheEntry old = entries.put(cacheKey,
+                    new CacheEntry(passwordMac, key.getKeyData().clone()));
+            if (old != null) {
+                old.wipe();
+            }
+        }
+        return key;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Wipe and remove all the cached keys.
+     */
+    public void clear() {
+        synchronized (entries) {
+            Iterator<CacheEntry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                it.next().wipe();
+                it.remove();
+            }
+        }
+    }
+
+    private static class CacheKey {
+        private final String principal;
+        private final String salt;
+        private final EncryptionType eType;
+        private final byte[] s2kparams;
+
+        CacheKey(String principal, String salt, EncryptionType eType, byte[] s2kparams) {
+            this.principal = principal;
+            this.salt = salt == null ? "" : salt;
+            this.eType = eType;
+            this.s2kparams = s2kparams == null ? null : s2kparams.clone();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey that = (CacheKey) o;
+            return principal.equals(that.principal)
+                    && salt.equals(that.salt)
+                    && eType == that.eType
+                    && Arrays.equals(s2kparams, that.s2kparams);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = principal.hashCode();
+            result = 31 * result + salt.hashCode();
+            result = 31 * result + eType.hashCode();
+            result = 31 * result + Arrays.hashCode(s2kparams);
+            return result;
+        }
+    }
+
+    private static class CacheEntry {
+        private final byte[] passwordMac;
+        private final byte[] keyData;
+
+        CacheEntry(byte[] passwordMac, byte[] keyData) {
+            this.passwordMac = passwordMac;
+            this.keyData = keyData;
+        }
+
+        void wipe() {
+            Arrays.fill(passwordMac, (byte) 0);
+            Arrays.fill(keyData, (byte) 0);
+        }
+    }
+}
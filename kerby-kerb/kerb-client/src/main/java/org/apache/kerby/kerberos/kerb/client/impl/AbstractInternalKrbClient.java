@@ -26,6 +26,7 @@ import org.apache.kerby.kerberos.kerb.client.KrbContext;
 import org.apache.kerby.kerberos.kerb.client.KrbOption;
 import org.apache.kerby.kerberos.kerb.client.KrbSetting;
 import org.apache.kerby.kerberos.kerb.client.PkinitOption;
+import org.apache.kerby.kerberos.kerb.client.SgtTicketCache;
 import org.apache.kerby.kerberos.kerb.client.TokenOption;
 import org.apache.kerby.kerberos.kerb.client.request.AsRequest;
 import org.apache.kerby.kerberos.kerb.client.request.AsRequestWithCert;
@@ -40,6 +41,8 @@ import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
 import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
 import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
 
+import java.util.List;
+
 /**
  * A krb client API for applications to interact with KDC
  */
@@ -77,6 +80,16 @@ public abstract class AbstractInternalKrbClient implements InternalKrbClient {
      */
     @Override
     public TgtTicket requestTgt(KOptions requestOptions) throws KrbException {
+        return doRequestTgt(makeAsRequest(requestOptions));
+    }
+
+    /**
+     * Make an AS request from the request options.
+     *
+     * @param requestOptions The request options
+     * @return The AS request
+     */
+    protected AsRequest makeAsRequest(KOptions requestOptions) {
         AsRequest asRequest = null;
 
         if (requestOptions.contains(KrbOption.USE_PASSWD)) {
@@ -116,7 +129,7 @@ public abstract class AbstractInternalKrbClient implements InternalKrbClient {
 
         asRequest.setRequestOptions(requestOptions);
 
-        return doRequestTgt(asRequest);
+        return asRequest;
     }
 
     /**
@@ -124,6 +137,68 @@ public abstract class AbstractInternalKrbClient implements InternalKrbClient {
      */
     @Override
     public SgtTicket requestSgt(KOptions requestOptions) throws KrbException {
+        TgsRequest tgsRequest = makeTgsRequest(requestOptions);
+        SgtTicket sgtTicket = getCachedSgt(tgsRequest);
+        if (sgtTicket == null) {
+            sgtTicket = doRequestSgt(tgsRequest);
+            cacheSgt(tgsRequest, sgtTicket);
+        }
+        return sgtTicket;
+    }
+
+    /**
+     * Get a cached service ticket for a TGS request made with a TGT.
+     *
+     * @param tgsRequest The TGS request
+     * @return The service ticket, or null if none is cached
+     */
+    protected SgtTicket getCachedSgt(TgsRequest tgsRequest) {
+        if (!(tgsRequest instanceof TgsRequestWithTgt)) {
+            return null;
+        }
+        return context.getSgtCache().get(tgsRequest.getClientPrincipal().getName(),
+            tgsRequest.getServerPrincipal().getName(), tgsRequest.getRequestOptions());
+    }
+
+    /**
+     * Cache the service ticket of a TGS request made with a TGT, renewed with
+     * the same TGT if enabled.
+     *
+     * @param tgsRequest The TGS request
+     * @param sgtTicket The service ticket
+     */
+    protected void cacheSgt(TgsRequest tgsRequest, SgtTicket sgtTicket) {
+        SgtTicketCache sgtCache = context.getSgtCache();
+        if (!sgtCache.isEnabled() || !(tgsRequest instanceof TgsRequestWithTgt)) {
+            return;
+        }
+
+        final TgtTicket tgt = ((TgsRequestWithTgt) tgsRequest).getTgt();
+        final String serverPrincipal = tgsRequest.getServerPrincipal().getName();
+        final List<KOption> options = tgsRequest.getRequestOptions().getOptions();
+        sgtCache.put(tgsRequest.getClientPrincipal().getName(), serverPrincipal,
+            tgsRequest.getRequestOptions(), sgtTicket, new SgtTicketCache.Loader() {
+                @Override
+                public SgtTicket load() throws KrbException {
+                    KOptions requestOptions = new KOptions();
+                    for (KOption option : options) {
+                        requestOptions.add(option);
+                    }
+                    requestOptions.add(KrbOption.USE_TGT, tgt);
+                    requestOptions.add(KrbOption.SERVER_PRINCIPAL, serverPrincipal);
+                    return doRequestSgt(makeTgsRequest(requestOptions));
+                }
+            });
+    }
+
+    /**
+     * Make a TGS request from the request options.
+     *
+     * @param requestOptions The request options
+     * @return The TGS request
+     * @throws KrbException e
+     */
+    protected TgsRequest makeTgsRequest(KOptions requestOptions) throws KrbException {
         TgsRequest tgsRequest = null;
         if (requestOptions.contains(TokenOption.USER_AC_TOKEN)) {
             tgsRequest = new TgsRequestWithToken(context);
@@ -143,7 +218,17 @@ public abstract class AbstractInternalKrbClient implements InternalKrbClient {
         tgsRequest.setServerPrincipal(new PrincipalName(serverPrincipal));
         tgsRequest.setRequestOptions(requestOptions);
 
-        return doRequestSgt(tgsRequest);
+        return tgsRequest;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        if (context != null) {
+            context.getSgtCache().clear();
+        }
     }
 
     protected abstract TgtTicket doRequestTgt(
@@ -0,0 +1,72 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client.impl;
+
+import org.apache.kerby.kerberos.kerb.client.KrbFuture;
+import org.apache.kerby.kerberos.kerb.client.request.KdcRequest;
+
+/**
+ * An asynchronous KDC exchange, from the first request message to the
+ * final reply, including the resent requests like after a preauth error.
+ *
+ * @param <T> The result type
+ */
+abstract class AsyncExchange<T> {
+    private final KdcRequest request;
+    private final KrbFuture<T> future = new KrbFuture<>();
+    private volatile boolean resent;
+    private volatile long deadline;
+
+    AsyncExchange(KdcRequest request) {
+        this.request = request;
+    }
+
+    KdcRequest getRequest() {
+        return request;
+    }
+
+    KrbFuture<T> getFuture() {
+        return future;
+    }
+
+    /**
+     * @return true if a request message was sent since the last reset
+     */
+    boolean isResent() {
+        return resent;
+    }
+
+    void setResent(boolean resent) {
+        this.resent = resent;
+    }
+
+    long getDeadline() {
+        return deadline;
+    }
+
+    void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * @return The result of the processed reply
+     */
+    abstract T getResult();
+}
@@ -0,0 +1,430 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client.impl;
+
+import org.apache.kerby.KOptions;
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.client.KrbFuture;
+import org.apache.kerby.kerberos.kerb.client.KrbHandler;
+import org.apache.kerby.kerberos.kerb.client.KrbSetting;
+import org.apache.kerby.kerberos.kerb.client.request.AsRequest;
+import org.apache.kerby.kerberos.kerb.client.request.KdcRequest;
+import org.apache.kerby.kerberos.kerb.client.request.TgsRequest;
+import org.apache.kerby.kerberos.kerb.transport.TransportPair;
+import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A krb client implementation sending requests without waiting for the
+ * replies, so a thread can have any number of requests in flight.
+ *
+ * Requests are pipelined on a few TCP connections per client, as many as
+ * the KDC connection pool size or one, and each UDP request gets its own
+ * socket. A single I/O thread only reads and writes the messages. The
+ * replies are processed by a few worker threads, as decrypting them or
+ * resending after a preauth error may derive keys from passwords, which
+ * would hold up the replies of the other requests. The workers also run the
+ * callbacks of the completed requests, so callbacks should not block.
+ */
+public class AsyncInternalKrbClient extends AbstractInternalKrbClient {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncInternalKrbClient.class);
+    private static final long SELECT_TIMEOUT = 100;
+
+    private final ConcurrentMap<KdcRequest, AsyncExchange<?>> exchanges =
+        new ConcurrentHashMap<>();
+    private final Queue<AsyncKdcConnection> updates = new ConcurrentLinkedQueue<>();
+    private final List<AsyncKdcConnection> tcpConnections = new ArrayList<>();
+    private int nextConnection;
+
+    private AsyncKrbHandler krbHandler;
+    private Selector selector;
+    private ExecutorService workers;
+    private volatile boolean closed;
+
+    public AsyncInternalKrbClient(KrbSetting krbSetting) {
+        super(krbSetting);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init() throws KrbException {
+        super.init();
+
+        krbHandler = new AsyncKrbHandler();
+        krbHandler.init(getContext());
+
+        try {
+            selector = Selector.open();
+        } catch (IOException e) {
+            throw new KrbException("Failed to open the selector", e);
+        }
+
+        workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "krb-client-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+        Thread ioThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                AsyncInternalKrbClient.this.run();
+            }
+        }, "krb-client-io");
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    /**
+     * Request a TGT without waiting for the reply.
+     * @param requestOptions The request options
+     * @return The pending TGT
+     * @throws KrbException e
+     */
+    public KrbFuture<TgtTicket> requestTgtAsync(KOptions requestOptions) throws KrbException {
+        final AsRequest asRequest = makeAsRequest(requestOptions);
+        return submit(new AsyncExchange<TgtTicket>(asRequest) {
+            @Override
+            TgtTicket getResult() {
+                return asRequest.getTicket();
+            }
+        });
+    }
+
+    /**
+     * Request a service ticket without waiting for the reply.
+     * @param requestOptions The request options
+     * @return The pending service ticket
+     * @throws KrbException e
+     */
+    public KrbFuture<SgtTicket> requestSgtAsync(KOptions requestOptions) throws KrbException {
+        final TgsRequest tgsRequest = makeTgsRequest(requestOptions);
+        SgtTicket cached = getCachedSgt(tgsRequest);
+        if (cached != null) {
+            KrbFuture<SgtTicket> future = new KrbFuture<>();
+            future.complete(cached);
+            return future;
+        }
+
+        return submit(new AsyncExchange<SgtTicket>(tgsRequest) {
+            @Override
+            SgtTicket getResult() {
+                SgtTicket sgtTicket = tgsRequest.getSgt();
+                cacheSgt(tgsRequest, sgtTicket);
+                return sgtTicket;
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected TgtTicket doRequestTgt(final AsRequest tgtTktReq) throws KrbException {
+        return submit(new AsyncExchange<TgtTicket>(tgtTktReq) {
+            @Override
+            TgtTicket getResult() {
+                return tgtTktReq.getTicket();
+            }
+        }).getResult();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected SgtTicket doRequestSgt(final TgsRequest ticketReq) throws KrbException {
+        return submit(new AsyncExchange<SgtTicket>(ticketReq) {
+            @Override
+            SgtTicket getResult() {
+                return ticketReq.getSgt();
+            }
+        }).getResult();
+    }
+
+    /**
+     * Close the connections and stop the I/O thread, failing the pending
+     * requests.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        if (workers != null) {
+            workers.shutdown();
+        }
+        super.close();
+    }
+
+    private <T> KrbFuture<T> submit(AsyncExchange<T> exchange) {
+        if (closed) {
+            exchange.getFuture().fail(new KrbException("The client is closed"));
+            return exchange.getFuture();
+        }
+
+        KdcRequest request = exchange.getRequest();
+        exchanges.put(request, exchange);
+        try {
+            request.setSessionData(getConnection());
+            krbHandler.handleRequest(request, false);
+        } catch (KrbException e) {
+            finish(exchange, e);
+        }
+        return exchange.getFuture();
+    }
+
+    /**
+     * Get a TCP connection to share, or a new UDP one, trying the KDCs in
+     * turn.
+     */
+    private AsyncKdcConnection getConnection() throws KrbException {
+        Map<String, TransportPair> kdcs = getContext().getKdcDiscovery().getKdcs();
+        if (kdcs.isEmpty()) {
+            throw new KrbException("Cannot get kdc for realm " + getSetting().getKdcRealm());
+        }
+
+        synchronized (tcpConnections) {
+            Iterator<AsyncKdcConnection> it = tcpConnections.iterator();
+            while (it.hasNext()) {
+                if (it.next().isClosed()) {
+                    it.remove();
+                }
+            }
+
+            int maxConnections = Math.max(1, getSetting().getKdcConnectionPoolSize());
+            if (tcpConnections.size() >= maxConnections) {
+                nextConnection = (nextConnection + 1) % tcpConnections.size();
+                return tcpConnections.get(nextConnection);
+            }
+
+            IOException failure = null;
+            for (TransportPair tpair : kdcs.values()) {
+                try {
+                    AsyncKdcConnection connection;
+                    if (tpair.tcpAddress != null) {
+                        connection = AsyncKdcConnection.connectTcp(this, tpair.tcpAddress,
+                            getSetting().getTimeout());
+                        tcpConnections.add(connection);
+                    } else if (tpair.udpAddress != null) {
+                        connection = AsyncKdcConnection.openUdp(this, tpair.udpAddress,
+                            getSetting().getTimeout());
+                    } else {
+                        continue;
+                    }
+                    requestUpdate(connection);
+                    return connection;
+                } catch (IOException e) {
+                    LOG.info("ignore this kdc");
+                    failure = e;
+                }
+            }
+
+            if (!tcpConnections.isEmpty()) {
+                return tcpConnections.get(0);
+            }
+            throw new KrbException("Failed to connect the KDC", failure);
+        }
+    }
+
+    /**
+     * Ask the I/O thread to register or update a connection.
+     */
+    void requestUpdate(AsyncKdcConnection connection) {
+        updates.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Pass a reply from the I/O thread to a worker.
+     */
+    void onResponse(final AsyncExchange<?> exchange, final ByteBuffer message) {
+        try {
+            workers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    processResponse(exchange, message);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            finish(exchange, new KrbException("The client is closed"));
+        }
+    }
+
+    /**
+     * Process a reply, on a worker thread.
+     */
+    private void processResponse(AsyncExchange<?> exchange, ByteBuffer message) {
+        exchange.setResent(false);
+        try {
+            krbHandler.onResponseMessage(exchange.getRequest(), message);
+        } catch (KrbException e) {
+            finish(exchange, e);
+            return;
+        }
+        if (!exchange.isResent()) {
+            finish(exchange, null);
+        }
+    }
+
+    /**
+     * Complete an exchange, failed if failure is not null.
+     */
+    void finish(AsyncExchange<?> exchange, KrbException failure) {
+        if (exchanges.remove(exchange.getRequest()) == null) {
+            return;
+        }
+
+        AsyncKdcConnection connection = (AsyncKdcConnection) exchange.getRequest().getSessionData();
+        if (connection != null && !connection.isTcp()) {
+            connection.release();
+        }
+
+        try {
+            if (failure != null) {
+                exchange.getFuture().fail(failure);
+            } else {
+                complete(exchange);
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to run the callback. " + e);
+        }
+    }
+
+    private static <T> void complete(AsyncExchange<T> exchange) {
+        exchange.getFuture().complete(exchange.getResult());
+    }
+
+    private void run() {
+        while (!closed) {
+            try {
+                selector.select(SELECT_TIMEOUT);
+            } catch (IOException e) {
+                LOG.error("Failed to select. " + e);
+                break;
+            }
+
+            AsyncKdcConnection connection;
+            while ((connection = updates.poll()) != null) {
+                try {
+                    connection.updateInterest(selector);
+                } catch (IOException e) {
+                    connection.fail(new KrbException("Failed to register the connection", e));
+                }
+            }
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                connection = (AsyncKdcConnection) key.attachment();
+                try {
+                    if (key.isValid() && key.isWritable()) {
+                        connection.onWritable();
+                    }
+                    if (key.isValid() && key.isReadable()) {
+                        connection.onReadable();
+                    }
+                } catch (IOException e) {
+                    connection.fail(new KrbException("Connection to the KDC failed", e));
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            for (SelectionKey key : selector.keys()) {
+                ((AsyncKdcConnection) key.attachment()).checkTimeout(now);
+            }
+        }
+
+        shutdown();
+    }
+
+    private void shutdown() {
+        KrbException failure = new KrbException("The client is closed");
+        for (SelectionKey key : selector.keys()) {
+            ((AsyncKdcConnection) key.attachment()).fail(failure);
+        }
+        AsyncKdcConnection connection;
+        while ((connection = updates.poll()) != null) {
+            connection.fail(failure);
+        }
+        for (AsyncExchange<?> exchange : exchanges.values()) {
+            finish(exchange, failure);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) { //NOPMD
+            // NOOP
+        }
+    }
+
+    /**
+     * Sends the request messages on the connection of the request.
+     */
+    private class AsyncKrbHandler extends KrbHandler {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected boolean isTcp(KdcRequest kdcRequest) {
+            return ((AsyncKdcConnection) kdcRequest.getSessionData()).isTcp();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void sendMessage(KdcRequest kdcRequest,
+                                   ByteBuffer requestMessage) throws IOException {
+            AsyncExchange<?> exchange = exchanges.get(kdcRequest);
+            if (exchange == null) {
+                throw new IOException("No pending exchange for the request");
+            }
+            exchange.setResent(true);
+            ((AsyncKdcConnection) kdcRequest.getSessionData()).send(exchange, requestMessage);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client.impl;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A non-blocking connection to a KDC driven by the I/O thread of an
+ * {@link AsyncInternalKrbClient}.
+ *
+ * Requests can be sent on a TCP connection while earlier ones are still
+ * pending. The KDC replies to them in order, so the replies are matched to
+ * the pending exchanges first in, first out. A UDP connection is used for
+ * one exchange only, as the reply can't be matched otherwise.
+ *
+ * The connection is kept as the session data of the requests it carries.
+ * It is not a {@link org.apache.kerby.kerberos.kerb.transport.KrbTransport},
+ * since the replies are read by the I/O thread rather than received by the
+ * requesting thread.
+ */
+final class AsyncKdcConnection {
+    private static final int MAX_UDP_MESSAGE_SIZE = 65507;
+    private static final int MAX_TCP_MESSAGE_SIZE = 4 * 1024 * 1024;
+
+    private final AsyncInternalKrbClient client;
+    private final SelectableChannel channel;
+    private final InetSocketAddress kdcAddress;
+    private final boolean isTcp;
+    private final int timeout;
+
+    private final Queue<ByteBuffer> writes = new ConcurrentLinkedQueue<>();
+    private final Queue<AsyncExchange<?>> pending = new ConcurrentLinkedQueue<>();
+    private boolean closed;
+
+    // Accessed by the I/O thread only
+    private SelectionKey key;
+    private final ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+    private ByteBuffer messageBuffer;
+
+    private AsyncKdcConnection(AsyncInternalKrbClient client, SelectableChannel channel,
+                               InetSocketAddress kdcAddress, int timeout) throws IOException {
+        this.client = client;
+        this.channel = channel;
+        this.kdcAddress = kdcAddress;
+        this.isTcp = channel instanceof SocketChannel;
+        this.timeout = timeout;
+        channel.configureBlocking(false);
+    }
+
+    /**
+     * Connect to a KDC over TCP, blocking until connected.
+     */
+    static AsyncKdcConnection connectTcp(AsyncInternalKrbClient client, InetSocketAddress kdcAddress,
+                                         int timeout) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        try {
+            channel.socket().setTcpNoDelay(true);
+            channel.socket().connect(kdcAddress, timeout);
+            return new AsyncKdcConnection(client, channel, kdcAddress, timeout);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open a UDP channel to a KDC.
+     */
+    static AsyncKdcConnection openUdp(AsyncInternalKrbClient client, InetSocketAddress kdcAddress,
+                                      int timeout) throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        try {
+            channel.connect(kdcAddress);
+            return new AsyncKdcConnection(client, channel, kdcAddress, timeout);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Send a request message of an exchange. The message is copied, so the
+     * caller can reuse it.
+     */
+    void send(AsyncExchange<?> exchange, ByteBuffer message) throws IOException {
+        ByteBuffer copy = ByteBuffer.allocate(message.remaining());
+        copy.put(message).flip();
+
+        // The message order on the connection must match the pending order
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Connection to " + kdcAddress + " closed");
+            }
+            exchange.setDeadline(System.currentTimeMillis() + timeout);
+            pending.add(exchange);
+            writes.add(copy);
+        }
+        client.requestUpdate(this);
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Fail the pending exchanges if the oldest one has timed out.
+     */
+    void checkTimeout(long now) {
+        AsyncExchange<?> oldest = pending.peek();
+        if (oldest != null && now > oldest.getDeadline()) {
+            fail(new KrbException("Timed out waiting for the KDC " + kdcAddress));
+        }
+    }
+
+    /**
+     * Register with the selector or update the interest ops. Called by the
+     * I/O thread.
+     */
+    void updateInterest(Selector selector) throws IOException {
+        if (isClosed()) {
+            return;
+        }
+        int ops = SelectionKey.OP_READ;
+        if (!writes.isEmpty()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        if (key == null) {
+            key = channel.register(selector, ops, this);
+        } else if (key.isValid()) {
+            key.interestOps(ops);
+        }
+    }
+
+    /**
+     * Write out the queued messages. Called by the I/O thread.
+     */
+    void onWritable() throws IOException {
+        ByteChannel out = (ByteChannel) channel;
+        ByteBuffer message;
+        while ((message = writes.peek()) != null) {
+            out.write(message);
+            if (message.hasRemaining()) {
+                return;
+            }
+            writes.poll();
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    /**
+     * Read the available replies and pass them on. Called by the I/O thread.
+     */
+    void onReadable() throws IOException {
+        if (isTcp) {
+            readTcp();
+        } else {
+            readUdp();
+        }
+    }
+
+    private void readTcp() throws IOException {
+        SocketChannel in = (SocketChannel) channel;
+        while (!isClosed()) {
+            if (messageBuffer == null) {
+                if (in.read(lengthBuffer) < 0) {
+                    throw new EOFException("Connection closed by the KDC " + kdcAddress);
+                }
+                if (lengthBuffer.hasRemaining()) {
+                    return;
+                }
+                int msgLen = lengthBuffer.getInt(0);
+                if (msgLen <= 0 || msgLen > MAX_TCP_MESSAGE_SIZE) {
+                    throw new IOException("Invalid message length " + msgLen);
+                }
+                messageBuffer = ByteBuffer.allocate(msgLen);
+            }
+
+            if (in.read(messageBuffer) < 0) {
+                throw new EOFException("Connection closed by the KDC " + kdcAddress);
+            }
+            if (messageBuffer.hasRemaining()) {
+                return;
+            }
+
+            ByteBuffer message = messageBuffer;
+            message.flip();
+            messageBuffer = null;
+            lengthBuffer.clear();
+            onMessage(message);
+        }
+    }
+
+    private void readUdp() throws IOException {
+        ByteBuffer message = ByteBuffer.allocate(MAX_UDP_MESSAGE_SIZE);
+        if (((DatagramChannel) channel).read(message) > 0) {
+            message.flip();
+            onMessage(message);
+        }
+    }
+
+    private void onMessage(ByteBuffer message) throws IOException {
+        AsyncExchange<?> exchange = pending.poll();
+        if (exchange == null) {
+            if (isTcp) {
+                throw new IOException("Unexpected message from the KDC " + kdcAddress);
+            }
+            // A late duplicate of a datagram
+            return;
+        }
+        client.onResponse(exchange, message);
+    }
+
+    /**
+     * Close the connection and fail its pending exchanges.
+     */
+    void fail(KrbException failure) {
+        List<AsyncExchange<?>> failed = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            AsyncExchange<?> exchange;
+            while ((exchange = pending.poll()) != null) {
+                failed.add(exchange);
+            }
+            writes.clear();
+        }
+        closeChannel();
+
+        for (AsyncExchange<?> exchange : failed) {
+            client.finish(exchange, failure);
+        }
+    }
+
+    private void closeChannel() {
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) { //NOPMD
+            // NOOP
+        }
+    }
+
+    boolean isTcp() {
+        return isTcp;
+    }
+
+    /**
+     * Close the connection, the pending exchanges are failed.
+     */
+    void release() {
+        fail(new KrbException("Connection to " + kdcAddress + " released"));
+    }
+}
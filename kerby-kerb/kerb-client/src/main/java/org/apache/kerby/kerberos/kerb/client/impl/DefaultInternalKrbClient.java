@@ -19,13 +19,12 @@
  */
 package org.apache.kerby.kerberos.kerb.client.impl;
 
+import org.apache.kerby.kerberos.kerb.KrbErrorCode;
 import org.apache.kerby.kerberos.kerb.KrbException;
-import org.apache.kerby.kerberos.kerb.client.ClientUtil;
 import org.apache.kerby.kerberos.kerb.client.KrbSetting;
 import org.apache.kerby.kerberos.kerb.client.request.AsRequest;
 import org.apache.kerby.kerberos.kerb.client.request.KdcRequest;
 import org.apache.kerby.kerberos.kerb.client.request.TgsRequest;
-import org.apache.kerby.kerberos.kerb.transport.KrbNetwork;
 import org.apache.kerby.kerberos.kerb.transport.KrbTransport;
 import org.apache.kerby.kerberos.kerb.transport.TransportPair;
 import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
@@ -34,17 +33,29 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.Iterator;
-import java.util.List;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * A default krb client implementation.
+ *
+ * Each request owns its transport, so a client can be shared by threads.
+ * With a KDC connection pool size set, TCP connections and UDP sockets are
+ * kept open and reused by later requests instead of connecting for every
+ * request.
+ *
+ * The KDCs are tried in parallel with a short stagger, and ordered by their
+ * recent failures and latencies, so an unreachable KDC costs little.
  */
 public class DefaultInternalKrbClient extends AbstractInternalKrbClient {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultInternalKrbClient.class);
 
     private DefaultKrbHandler krbHandler;
-    private KrbTransport transport;
+    private KdcConnectionPool connectionPool;
+    private KdcConnectionPool udpPool;
+    private KdcHealth kdcHealth;
+    private KdcConnector connector;
 
     public DefaultInternalKrbClient(KrbSetting krbSetting) {
         super(krbSetting);
@@ -59,57 +70,180 @@ public class DefaultInternalKrbClient extends AbstractInternalKrbClient {
 
         this.krbHandler = new DefaultKrbHandler();
         krbHandler.init(getContext());
+
+        int poolSize = getSetting().getKdcConnectionPoolSize();
+        if (poolSize > 0) {
+            connectionPool = new KdcConnectionPool(poolSize);
+            udpPool = new KdcConnectionPool(poolSize);
+        }
+
+        kdcHealth = new KdcHealth();
+        connector = new KdcConnector(getSetting().getTimeout(), kdcHealth, udpPool);
     }
 
-    private void doRequest(KdcRequest request) throws KrbException {
+    /**
+     * Close the pooled KDC connections.
+     */
+    @Override
+    public void close() {
+        if (connectionPool != null) {
+            connectionPool.clear();
+        }
+        if (udpPool != null) {
+            udpPool.clear();
+        }
+        super.close();
+    }
 
-        List<String> kdcList = ClientUtil.getKDCList(getSetting());
+    /**
+     * @return The idle TCP connections to reuse, or null if not pooled
+     */
+    public KdcConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
 
-        // tempKdc may include the port number
-        Iterator<String> tempKdc = kdcList.iterator();
-        if (!tempKdc.hasNext()) {
+    /**
+     * @return The idle UDP transports to reuse, or null if not pooled
+     */
+    public KdcConnectionPool getUdpPool() {
+        return udpPool;
+    }
+
+    private void doRequest(KdcRequest request) throws KrbException {
+        Map<String, TransportPair> kdcs = getKdcs();
+        if (kdcs.isEmpty()) {
             throw new KrbException("Cannot get kdc for realm " + getSetting().getKdcRealm());
         }
 
-        try {
-            sendIfPossible(request, tempKdc.next(), getSetting(), false);
-            LOG.info("Send to kdc success.");
-        } catch (Exception first) {
-            boolean ok = false;
-            while (tempKdc.hasNext()) {
+        boolean tryNextKdc = false;
+        if (connectionPool != null) {
+            Map.Entry<String, TransportPair> kdc = kdcs.entrySet().iterator().next();
+            KrbTransport transport = kdc.getValue().tcpAddress != null
+                ? connectionPool.poll(kdc.getValue().tcpAddress) : null;
+            if (transport != null) {
                 try {
-                    sendIfPossible(request, tempKdc.next(), getSetting(), true);
-                    ok = true;
-                    LOG.info("Send to kdc success.");
-                    break;
-                } catch (Exception ignore) {
-                    LOG.info("ignore this kdc");
+                    exchange(request, new KdcConnector.Connection(kdc.getKey(), kdc.getValue(), transport),
+                        false);
+                    return;
+                } catch (KrbException e) {
+                    if (!isTransportError(e)) {
+                        throw e;
+                    }
+                    // The KDC may have closed the idle connection meanwhile
+                    LOG.debug("Failed on a pooled connection, retrying on a new one. " + e);
+                    tryNextKdc = true;
                 }
             }
-            if (!ok) {
-                if (first instanceof KrbException) {
-                    throw (KrbException) first;
+        }
+
+        KrbException first = null;
+        while (!kdcs.isEmpty()) {
+            KdcConnector.Connection connection;
+            try {
+                connection = connector.connect(kdcs);
+            } catch (IOException e) {
+                if (first == null) {
+                    first = new KrbException("The request failed " + e.getMessage(), e);
                 }
-                throw new KrbException("The request failed " + first.getMessage(), first);
+                break;
             }
-        } finally {
-            if (transport != null) {
-                transport.release();
+
+            try {
+                exchange(request, connection, tryNextKdc);
+                LOG.info("Send to kdc success.");
+                return;
+            } catch (KrbException e) {
+                if (e.getKrbErrorCode() == KrbErrorCode.RESPONSE_TOO_BIG
+                    && !connection.getTransport().isTcp()
+                    && connection.getTransportPair().tcpAddress != null) {
+                    resendOverTcp(request, connection);
+                    return;
+                }
+                // The reply of a KDC is authoritative, only try the others if it didn't reply
+                if (!isTransportError(e)) {
+                    throw e;
+                }
+                LOG.info("Failed to send to kdc " + connection.getKdc() + ". " + e);
+                if (first == null) {
+                    first = e;
+                }
+                kdcs.keySet().removeAll(connection.getTriedKdcs());
+                tryNextKdc = true;
             }
         }
+        throw first;
+    }
 
+    /**
+     * Send a request again over TCP to the KDC that replied the response is
+     * too big for UDP.
+     */
+    private void resendOverTcp(KdcRequest request,
+                               KdcConnector.Connection connection) throws KrbException {
+        LOG.info("Response too big for UDP, retrying with TCP.");
+        KdcConnector.Connection tcpConnection;
+        try {
+            tcpConnection = connector.connectTcp(connection.getKdc(), connection.getTransportPair());
+        } catch (IOException e) {
+            throw new KrbException("The request failed " + e.getMessage(), e);
+        }
+        exchange(request, tcpConnection, true);
+    }
+
+    /**
+     * Get the KDCs and their addresses, the most likely to answer first.
+     */
+    private Map<String, TransportPair> getKdcs() throws KrbException {
+        Map<String, TransportPair> discovered = getContext().getKdcDiscovery().getKdcs();
+        Map<String, TransportPair> kdcs = new LinkedHashMap<>();
+        for (String kdc : kdcHealth.order(new ArrayList<>(discovered.keySet()))) {
+            kdcs.put(kdc, discovered.get(kdc));
+        }
+        return kdcs;
     }
 
-    private void sendIfPossible(KdcRequest request, String kdcString, KrbSetting setting,
-                                boolean tryNextKdc)
-        throws KrbException, IOException {
+    /**
+     * Exchange messages with the KDC on a transport owned by the request,
+     * pooling the transport afterwards if it's still usable.
+     */
+    private void exchange(KdcRequest request, KdcConnector.Connection connection,
+                          boolean tryNextKdc) throws KrbException {
+        KrbTransport transport = connection.getTransport();
+        boolean reusable = false;
+        long start = System.currentTimeMillis();
+        try {
+            request.setSessionData(transport);
+            krbHandler.handleRequest(request, tryNextKdc);
+            reusable = true;
+        } catch (KrbException e) {
+            // A KDC error reply leaves the connection in a clean state
+            reusable = !isTransportError(e);
+            if (!reusable) {
+                for (String kdc : connection.getTriedKdcs()) {
+                    kdcHealth.failure(kdc);
+                }
+            }
+            throw e;
+        } finally {
+            // The transport to the KDC that replied first, when raced over UDP
+            transport = connection.getTransport();
+            if (reusable) {
+                kdcHealth.success(connection.getKdc(), System.currentTimeMillis() - start);
+            }
+            if (reusable && connectionPool != null) {
+                if (transport.isTcp()) {
+                    connectionPool.offer(connection.getTransportPair().tcpAddress, transport);
+                } else {
+                    udpPool.offer(connection.getTransportPair().udpAddress, transport);
+                }
+            } else {
+                transport.release();
+            }
+        }
+    }
 
-        TransportPair tpair = ClientUtil.getTransportPair(setting, kdcString);
-        KrbNetwork network = new KrbNetwork();
-        network.setSocketTimeout(setting.getTimeout());
-        transport = network.connect(tpair);
-        request.setSessionData(transport);
-        krbHandler.handleRequest(request, tryNextKdc);
+    private static boolean isTransportError(KrbException e) {
+        return e.getCause() instanceof IOException;
     }
 
     /**
@@ -57,4 +57,9 @@ public interface InternalKrbClient {
      * @throws KrbException e
      */
     SgtTicket requestSgt(KOptions requestOptions) throws KrbException;
+
+    /**
+     * Release the resources held by the client, like pooled KDC connections.
+     */
+    void close();
 }
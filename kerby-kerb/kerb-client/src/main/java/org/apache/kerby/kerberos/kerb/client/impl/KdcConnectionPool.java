@@ -0,0 +1,173 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client.impl;
+
+import org.apache.kerby.kerberos.kerb.transport.KrbTransport;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Idle TCP connections to KDCs, kept for reuse by later requests.
+ *
+ * The KDC serves any number of requests on a TCP connection, so a client can
+ * send one request after another on it instead of connecting each time. A
+ * connection is owned by a single request between {@link #poll} and
+ * {@link #offer}, so the pool can be shared by any number of threads. The
+ * most recently used connection is reused first, and connections idle for
+ * longer than the KDC keeps them open are closed whenever the pool is used.
+ * The client closes the rest with {@link #clear} when it's closed.
+ *
+ * A separate pool keeps the UDP sockets of a client the same way, keyed by
+ * the KDC UDP address, so high request rates don't open a socket each time.
+ */
+public class KdcConnectionPool {
+    /**
+     * Idle time after which a connection is closed, below the three seconds
+     * the KDC waits for the next request on a connection.
+     */
+    public static final long MAX_IDLE_MILLIS = 2000;
+
+    private final int maxIdle;
+    private final long maxIdleMillis;
+    private final AtomicLong reused = new AtomicLong();
+    private final ConcurrentMap<InetSocketAddress, BlockingDeque<IdleTransport>> pools =
+        new ConcurrentHashMap<>();
+
+    /**
+     * @param maxIdle The max number of idle connections kept per KDC
+     */
+    public KdcConnectionPool(int maxIdle) {
+        this(maxIdle, MAX_IDLE_MILLIS);
+    }
+
+    /**
+     * @param maxIdle The max number of idle connections kept per KDC
+     * @param maxIdleMillis The idle time after which a connection is closed
+     */
+    KdcConnectionPool(int maxIdle, long maxIdleMillis) {
+        this.maxIdle = maxIdle;
+        this.maxIdleMillis = maxIdleMillis;
+    }
+
+    /**
+     * Take an idle connection to a KDC.
+     * @param kdcAddress The KDC TCP address
+     * @return The connection, or null if none can be reused
+     */
+    public KrbTransport poll(InetSocketAddress kdcAddress) {
+        BlockingDeque<IdleTransport> pool = pools.get(kdcAddress);
+        if (pool == null) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        evictIdle(pool, now);
+
+        IdleTransport idle;
+        while ((idle = pool.pollFirst()) != null) {
+            if (now - idle.since < maxIdleMillis) {
+                reused.incrementAndGet();
+                return idle.transport;
+            }
+            idle.transport.release();
+        }
+        return null;
+    }
+
+    /**
+     * Give back a connection after a complete exchange, to be reused.
+     * It's closed if there are enough idle connections to the KDC.
+     * @param kdcAddress The KDC TCP address
+     * @param transport The connection
+     */
+    public void offer(InetSocketAddress kdcAddress, KrbTransport transport) {
+        BlockingDeque<IdleTransport> pool = pools.get(kdcAddress);
+        if (pool == null) {
+            pool = new LinkedBlockingDeque<>(maxIdle);
+            BlockingDeque<IdleTransport> existing = pools.putIfAbsent(kdcAddress, pool);
+            if (existing != null) {
+                pool = existing;
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        evictIdle(pool, now);
+        if (!pool.offerFirst(new IdleTransport(transport, now))) {
+            transport.release();
+        }
+    }
+
+    /**
+     * Close the connections idle for too long. They're the oldest, at the
+     * tail of the pool.
+     */
+    private void evictIdle(BlockingDeque<IdleTransport> pool, long now) {
+        IdleTransport idle;
+        while ((idle = pool.peekLast()) != null && now - idle.since >= maxIdleMillis) {
+            // Another thread may have taken it meanwhile
+            if (pool.removeLastOccurrence(idle)) {
+                idle.transport.release();
+            }
+        }
+    }
+
+    /**
+     * Close all the idle connections.
+     */
+    public void clear() {
+        for (BlockingDeque<IdleTransport> pool : pools.values()) {
+            IdleTransport idle;
+            while ((idle = pool.pollFirst()) != null) {
+                idle.transport.release();
+            }
+        }
+    }
+
+    /**
+     * @param kdcAddress The KDC TCP address
+     * @return The number of idle connections to the KDC
+     */
+    public int getIdleCount(InetSocketAddress kdcAddress) {
+        BlockingDeque<IdleTransport> pool = pools.get(kdcAddress);
+        return pool != null ? pool.size() : 0;
+    }
+
+    /**
+     * @return The number of times an idle connection was reused
+     */
+    public long getReusedCount() {
+        return reused.get();
+    }
+
+    private static final class IdleTransport {
+        private final KrbTransport transport;
+        private final long since;
+
+        IdleTransport(KrbTransport transport, long since) {
+            this.transport = transport;
+            this.since = since;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client.impl;
+
+import org.apache.kerby.kerberos.kerb.transport.KrbTcpTransport;
+import org.apache.kerby.kerberos.kerb.transport.KrbTransport;
+import org.apache.kerby.kerberos.kerb.transport.KrbUdpTransport;
+import org.apache.kerby.kerberos.kerb.transport.TransportPair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.Socket;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connects to the first reachable of several KDCs, trying them in parallel.
+ *
+ * The KDCs are tried over TCP in the given order. The next one is tried when
+ * the previous attempts failed or haven't connected within
+ * {@link #STAGGER_MILLIS}, so an unreachable KDC delays a request by the
+ * stagger delay rather than the whole timeout. The first connection wins and
+ * the late ones are closed. When no KDC can be reached over TCP, or for KDCs
+ * without a TCP address, UDP is used like {@link
+ * org.apache.kerby.kerberos.kerb.transport.KrbNetwork} does, reusing the
+ * pooled UDP transports if any. Since UDP has no connection to race, the
+ * request itself is sent to the KDCs on the same stagger by a
+ * {@link UdpKdcRace}.
+ */
+public class KdcConnector {
+    private static final Logger LOG = LoggerFactory.getLogger(KdcConnector.class);
+
+    /**
+     * Delay before trying the next KDC while the previous ones are connecting.
+     */
+    public static final long STAGGER_MILLIS = 200;
+
+    static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+        new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "kdc-connector");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+    private final int timeout;
+    private final KdcHealth health;
+    private final KdcConnectionPool udpPool;
+
+    /**
+     * @param timeout The connect and socket timeout in milliseconds
+     * @param health The KDC scores, updated with the failed attempts
+     * @param udpPool The UDP transports to reuse, or null to open new ones
+     */
+    public KdcConnector(int timeout, KdcHealth health, KdcConnectionPool udpPool) {
+        this.timeout = timeout;
+        this.health = health;
+        this.udpPool = udpPool;
+    }
+
+    /**
+     * Connect to one of the KDCs.
+     * @param kdcs The KDCs and their addresses, in the order to try them
+     * @return The connection
+     * @throws IOException if no KDC can be reached
+     */
+    public Connection connect(Map<String, TransportPair> kdcs) throws IOException {
+        List<Map.Entry<String, TransportPair>> tcpKdcs = new ArrayList<>();
+        for (Map.Entry<String, TransportPair> kdc : kdcs.entrySet()) {
+            if (kdc.getValue().tcpAddress != null) {
+                tcpKdcs.add(kdc);
+            }
+        }
+
+        IOException failure = null;
+        if (!tcpKdcs.isEmpty()) {
+            try {
+                return connectTcp(tcpKdcs);
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        List<Map.Entry<String, TransportPair>> udpKdcs = new ArrayList<>();
+        for (Map.Entry<String, TransportPair> kdc : kdcs.entrySet()) {
+            if (kdc.getValue().udpAddress != null) {
+                udpKdcs.add(kdc);
+            }
+        }
+        if (udpKdcs.size() > 1) {
+            return new UdpKdcRace(this, udpKdcs, timeout).getConnection();
+        }
+        if (udpKdcs.size() == 1) {
+            Map.Entry<String, TransportPair> kdc = udpKdcs.get(0);
+            return new Connection(kdc.getKey(), kdc.getValue(), openUdp(kdc.getValue()));
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        throw new IOException("Failed to establish the transport");
+    }
+
+    /**
+     * Connect to a KDC over TCP.
+     * @param kdc The KDC
+     * @param tpair The KDC addresses, with a TCP address
+     * @return The connection
+     * @throws IOException if the KDC can't be reached
+     */
+    public Connection connectTcp(String kdc, TransportPair tpair) throws IOException {
+        List<Map.Entry<String, TransportPair>> kdcs = new ArrayList<>();
+        kdcs.add(new AbstractMap.SimpleEntry<>(kdc, tpair));
+        return connectTcp(kdcs);
+    }
+
+    /**
+     * Open a UDP transport to a KDC, or reuse a pooled one.
+     */
+    KrbTransport openUdp(TransportPair tpair) throws IOException {
+        KrbTransport transport = udpPool != null ? udpPool.poll(tpair.udpAddress) : null;
+        if (transport == null) {
+            transport = new KrbUdpTransport(tpair.udpAddress, timeout);
+        }
+        return transport;
+    }
+
+    private Connection connectTcp(List<Map.Entry<String, TransportPair>> kdcs) throws IOException {
+        AtomicBoolean connected = new AtomicBoolean();
+        CompletionService<Connection> attempts = new ExecutorCompletionService<>(EXECUTOR);
+        List<Future<Connection>> started = new ArrayList<>();
+        int finished = 0;
+        IOException failure = null;
+
+        try {
+            while (finished < kdcs.size()) {
+                if (started.size() == finished) {
+                    // Nothing is connecting, no need to wait
+                    started.add(attempts.submit(connectTcp(kdcs.get(started.size()), connected)));
+                    continue;
+                }
+
+                Future<Connection> attempt = started.size() < kdcs.size()
+                    ? attempts.poll(STAGGER_MILLIS, TimeUnit.MILLISECONDS) : attempts.take();
+                if (attempt == null) {
+                    started.add(attempts.submit(connectTcp(kdcs.get(started.size()), connected)));
+                    continue;
+                }
+
+                finished++;
+                try {
+                    return attempt.get();
+                } catch (ExecutionException e) {
+                    failure = e.getCause() instanceof IOException ? (IOException) e.getCause()
+                        : new IOException(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Make the running attempts close their connections
+            if (!connected.compareAndSet(false, true)) {
+                releaseConnected(started);
+            }
+            throw new InterruptedIOException("Interrupted while connecting to KDC");
+        }
+
+        throw failure;
+    }
+
+    private Callable<Connection> connectTcp(final Map.Entry<String, TransportPair> kdc,
+                                            final AtomicBoolean connected) {
+        return new Callable<Connection>() {
+            @Override
+            public Connection call() throws IOException {
+                Socket socket = new Socket();
+                try {
+                    socket.setSoTimeout(timeout);
+                    socket.connect(kdc.getValue().tcpAddress, timeout);
+                } catch (IOException e) {
+                    socket.close();
+                    health.failure(kdc.getKey());
+                    LOG.info("Failed to connect to KDC " + kdc.getKey() + ". " + e);
+                    throw e;
+                }
+
+                if (!connected.compareAndSet(false, true)) {
+                    socket.close();
+                    throw new IOException("Connected to KDC " + kdc.getKey() + " too late");
+                }
+                return new Connection(kdc.getKey(), kdc.getValue(), new KrbTcpTransport(socket));
+            }
+        };
+    }
+
+    private static void releaseConnected(List<Future<Connection>> attempts) {
+        for (Future<Connection> attempt : attempts) {
+            try {
+                if (attempt.isDone()) {
+                    attempt.get().getTransport().release();
+                }
+            } catch (InterruptedException | ExecutionException e) { //NOPMD
+                // Not the connected one
+            }
+        }
+    }
+
+    /**
+     * A transport connected to a KDC.
+     */
+    public static class Connection {
+        private final String kdc;
+        private final TransportPair tpair;
+        private final KrbTransport transport;
+
+        public Connection(String kdc, TransportPair tpair, KrbTransport transport) {
+            this.kdc = kdc;
+            this.tpair = tpair;
+            this.transport = transport;
+        }
+
+        public String getKdc() {
+            return kdc;
+        }
+
+        public TransportPair getTransportPair() {
+            return tpair;
+        }
+
+        public KrbTransport getTransport() {
+            return transport;
+        }
+
+        /**
+         * @return The KDCs the request was sent to
+         */
+        public List<String> getTriedKdcs() {
+            return Collections.singletonList(kdc);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Short-lived health and latency scores of KDCs, used to try first the KDC
+ * most likely to answer quickly.
+ *
+ * A KDC that failed is moved behind the others for
+ * {@link #FAILURE_PENALTY_MILLIS}, after which it gets its place back. The
+ * latency is a moving average of the round trip times, and a noticeably
+ * faster KDC is preferred. Otherwise the configured order is kept.
+ */
+public class KdcHealth {
+    /**
+     * How long a failed KDC is tried after the others.
+     */
+    public static final long FAILURE_PENALTY_MILLIS = 30 * 1000;
+
+    /**
+     * Latency differences below this don't reorder the KDCs.
+     */
+    public static final long LATENCY_STEP_MILLIS = 50;
+
+    private final ConcurrentMap<String, Score> scores = new ConcurrentHashMap<>();
+
+    /**
+     * Record a request answered by a KDC.
+     * @param kdc The KDC
+     * @param latencyMillis The round trip time
+     */
+    public void success(String kdc, long latencyMillis) {
+        Score score = getScore(kdc);
+        synchronized (score) {
+            score.failedAt = 0;
+            score.latency = score.latency < 0 ? latencyMillis
+                : (3 * score.latency + latencyMillis) / 4;
+        }
+    }
+
+    /**
+     * Record a KDC that couldn't be reached or didn't answer.
+     * @param kdc The KDC
+     */
+    public void failure(String kdc) {
+        Score score = getScore(kdc);
+        synchronized (score) {
+            score.failedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * @param kdc The KDC
+     * @return true if the KDC failed recently
+     */
+    public boolean isFailing(String kdc) {
+        return rank(kdc, System.currentTimeMillis()) == Long.MAX_VALUE;
+    }
+
+    /**
+     * Order KDCs by their scores, dropping duplicates.
+     * @param kdcs The KDCs in the configured order
+     * @return The KDCs to try in this order
+     */
+    public List<String> order(List<String> kdcs) {
+        List<String> result = new ArrayList<>(new LinkedHashSet<>(kdcs));
+        result.remove(null);
+
+        long now = System.currentTimeMillis();
+        final Map<String, Long> ranks = new HashMap<>();
+        for (String kdc : result) {
+            ranks.put(kdc, rank(kdc, now));
+        }
+        // The sort is stable, so equally ranked KDCs keep their order
+        Collections.sort(result, new Comparator<String>() {
+            @Override
+            public int compare(String kdc1, String kdc2) {
+                return ranks.get(kdc1).compareTo(ranks.get(kdc2));
+            }
+        });
+        return result;
+    }
+
+    private long rank(String kdc, long now) {
+        Score score = scores.get(kdc);
+        if (score == null) {
+            return 0;
+        }
+        synchronized (score) {
+            if (score.failedAt > 0 && now - score.failedAt < FAILURE_PENALTY_MILLIS) {
+                return Long.MAX_VALUE;
+            }
+            return score.latency < 0 ? 0 : score.latency / LATENCY_STEP_MILLIS;
+        }
+    }
+
+    private Score getScore(String kdc) {
+        Score score = scores.get(kdc);
+        if (score == null) {
+            Score newScore = new Score();
+            score = scores.putIfAbsent(kdc, newScore);
+            if (score == null) {
+                score = newScore;
+            }
+        }
+        return score;
+    }
+
+    private static class Score {
+        private long latency = -1;
+        private long failedAt;
+    }
+}
@@ -0,0 +1,272 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client.impl;
+
+import org.apache.kerby.kerberos.kerb.transport.AbstractKrbTransport;
+import org.apache.kerby.kerberos.kerb.transport.KrbTransport;
+import org.apache.kerby.kerberos.kerb.transport.TransportPair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A UDP transport sending a request to several KDCs in parallel, then
+ * talking to the first one that replies.
+ *
+ * The request is sent to the first KDC, and to the next one whenever the
+ * previous attempts failed or weren't answered within
+ * {@link KdcConnector#STAGGER_MILLIS}. All the attempts end at the timeout
+ * since the request was sent, so a KDC tried later waits less than the
+ * timeout and the race takes the timeout at most. The first reply wins and
+ * the other sockets are closed. The next messages of the exchange, like the
+ * request again with preauth data, go to the winner only.
+ */
+class UdpKdcRace extends AbstractKrbTransport implements KrbTransport {
+    private static final Logger LOG = LoggerFactory.getLogger(UdpKdcRace.class);
+
+    private final KdcConnector connector;
+    private final List<Map.Entry<String, TransportPair>> kdcs;
+    private final int timeout;
+    private final List<String> triedKdcs = new ArrayList<>();
+    private byte[] request;
+    private Attempt winner;
+
+    /**
+     * @param connector The connector opening the UDP transports
+     * @param kdcs The KDCs with a UDP address, in the order to try them
+     * @param timeout The timeout of the race in milliseconds, 0 to wait forever
+     */
+    UdpKdcRace(KdcConnector connector, List<Map.Entry<String, TransportPair>> kdcs, int timeout) {
+        this.connector = connector;
+        this.kdcs = kdcs;
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return The connection, to the winner once a KDC replied
+     */
+    KdcConnector.Connection getConnection() {
+        return new RaceConnection();
+    }
+
+    @Override
+    public void sendMessage(ByteBuffer message) throws IOException {
+        if (winner != null) {
+            winner.transport.sendMessage(message);
+            return;
+        }
+        // The message buffer is reused once sent, while the race resends it
+        request = new byte[message.remaining()];
+        message.get(request);
+    }
+
+    @Override
+    public ByteBuffer receiveMessage() throws IOException {
+        if (winner != null) {
+            return winner.transport.receiveMessage();
+        }
+        if (request == null) {
+            throw new IOException("No request sent to the KDCs");
+        }
+        return race();
+    }
+
+    private ByteBuffer race() throws IOException {
+        long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+        CompletionService<ByteBuffer> replies = new ExecutorCompletionService<>(KdcConnector.EXECUTOR);
+        Map<Future<ByteBuffer>, Attempt> started = new HashMap<>();
+        int finished = 0;
+        IOException failure = null;
+
+        try {
+            while (finished < kdcs.size()) {
+                if (started.size() == finished) {
+                    // Nothing is waiting for a reply, no need to wait
+                    start(replies, started);
+                    continue;
+                }
+
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    break;
+                }
+                boolean more = started.size() < kdcs.size();
+                Future<ByteBuffer> reply = replies.poll(more ? Math.min(KdcConnector.STAGGER_MILLIS, wait) : wait,
+                    TimeUnit.MILLISECONDS);
+                if (reply == null) {
+                    if (more && System.currentTimeMillis() < deadline) {
+                        start(replies, started);
+                    }
+                    continue;
+                }
+
+                finished++;
+                try {
+                    ByteBuffer message = reply.get();
+                    winner = started.get(reply);
+                    return message;
+                } catch (ExecutionException e) {
+                    failure = e.getCause() instanceof IOException ? (IOException) e.getCause()
+                        : new IOException(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for KDC " + triedKdcs);
+        } finally {
+            request = null;
+            for (Attempt attempt : started.values()) {
+                if (attempt != winner) {
+                    attempt.close();
+                }
+            }
+        }
+
+        if (finished == kdcs.size()) {
+            throw failure;
+        }
+        throw new SocketTimeoutException("No reply from KDC " + triedKdcs + " in " + timeout + " ms");
+    }
+
+    private void start(CompletionService<ByteBuffer> replies, Map<Future<ByteBuffer>, Attempt> started) {
+        Map.Entry<String, TransportPair> kdc = kdcs.get(started.size());
+        Attempt attempt = new Attempt(kdc, request);
+        triedKdcs.add(kdc.getKey());
+        started.put(replies.submit(attempt), attempt);
+    }
+
+    @Override
+    public boolean isTcp() {
+        return false;
+    }
+
+    @Override
+    public InetAddress getRemoteAddress() {
+        return getKdc().getValue().udpAddress.getAddress();
+    }
+
+    @Override
+    public void release() {
+        if (winner != null) {
+            winner.transport.release();
+        }
+    }
+
+    private Map.Entry<String, TransportPair> getKdc() {
+        return winner != null ? winner.kdc : kdcs.get(0);
+    }
+
+    /**
+     * Sends the request to a KDC and waits for its reply.
+     */
+    private final class Attempt implements Callable<ByteBuffer> {
+        private final Map.Entry<String, TransportPair> kdc;
+        private final byte[] message;
+        private KrbTransport transport;
+        private boolean closed;
+
+        Attempt(Map.Entry<String, TransportPair> kdc, byte[] message) {
+            this.kdc = kdc;
+            this.message = message;
+        }
+
+        @Override
+        public ByteBuffer call() throws IOException {
+            KrbTransport opened = connector.openUdp(kdc.getValue());
+            synchronized (this) {
+                if (closed) {
+                    opened.release();
+                    throw new IOException("KDC " + kdc.getKey() + " tried too late");
+                }
+                transport = opened;
+            }
+
+            try {
+                opened.sendMessage(ByteBuffer.wrap(message));
+                return opened.receiveMessage();
+            } catch (IOException e) {
+                if (!isClosed()) {
+                    LOG.info("Failed to send to KDC " + kdc.getKey() + " over UDP. " + e);
+                }
+                throw e;
+            }
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Close the socket, making a pending receive fail.
+         */
+        synchronized void close() {
+            closed = true;
+            if (transport != null) {
+                transport.release();
+            }
+        }
+    }
+
+    /**
+     * The connection to the KDC that won the race.
+     */
+    private final class RaceConnection extends KdcConnector.Connection {
+        RaceConnection() {
+            super(kdcs.get(0).getKey(), kdcs.get(0).getValue(), UdpKdcRace.this);
+        }
+
+        @Override
+        public String getKdc() {
+            return UdpKdcRace.this.getKdc().getKey();
+        }
+
+        @Override
+        public TransportPair getTransportPair() {
+            return UdpKdcRace.this.getKdc().getValue();
+        }
+
+        @Override
+        public KrbTransport getTransport() {
+            return winner != null ? winner.transport : UdpKdcRace.this;
+        }
+
+        @Override
+        public List<String> getTriedKdcs() {
+            return winner != null ? Collections.singletonList(getKdc())
+                : new ArrayList<String>(triedKdcs);
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.apache.kerby.kerberos.kerb.client.PkinitOption;
 import org.apache.kerby.kerberos.kerb.client.TokenOption;
 import org.apache.kerby.kerberos.kerb.common.KrbUtil;
 import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
 import org.apache.kerby.kerberos.kerb.type.base.HostAddress;
 import org.apache.kerby.kerberos.kerb.type.base.HostAddresses;
 import org.apache.kerby.kerberos.kerb.type.base.KeyUsage;
@@ -36,16 +37,21 @@ import org.apache.kerby.kerberos.kerb.type.kdc.EncAsRepPart;
 import org.apache.kerby.kerberos.kerb.type.kdc.EncKdcRepPart;
 import org.apache.kerby.kerberos.kerb.type.kdc.KdcRep;
 import org.apache.kerby.kerberos.kerb.type.kdc.KdcReqBody;
+import org.apache.kerby.kerberos.kerb.type.pa.PaDataType;
 import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 
 public class AsRequest extends KdcRequest {
 
     private PrincipalName clientPrincipal;
     private EncryptionKey clientKey;
+    private boolean firstAttempt = true;
+    private boolean unaskedPreauth;
+    private boolean preauthHinted;
 
     public AsRequest(KrbContext context) {
         super(context);
@@ -83,6 +89,68 @@ public class AsRequest extends KdcRequest {
         setKdcReq(asReq);
     }
 
+    /**
+     * Send an encrypted timestamp on the first attempt if there is a hint
+     * which encryption type the KDC expects, saving the PREAUTH_REQUIRED
+     * round-trip.
+     */
+    @Override
+    protected void preauth() throws KrbException {
+        if (firstAttempt) {
+            firstAttempt = false;
+            if (isEncTsPreauth()) {
+                List<EncryptionType> hint = getPreauthHint();
+                if (hint != null && !hint.isEmpty()) {
+                    setEncryptionTypes(hint);
+                    setPreauthRequired(true);
+                    preauthHinted = true;
+                }
+                unaskedPreauth = getPreauthContext().isPreauthRequired();
+            }
+        }
+
+        super.preauth();
+    }
+
+    /**
+     * Get the encryption types to use for preauth before the KDC asks for it.
+     * @return The encryption types, or null if no hint
+     */
+    protected List<EncryptionType> getPreauthHint() {
+        return getContext().getPreauthHintCache().get(getClientPrincipal().getName());
+    }
+
+    /**
+     * Resend without preauth data, if the KDC rejected the encryption type
+     * or an encrypted timestamp made from a hint. The KDC then replies with
+     * the encryption types to use.
+     */
+    @Override
+    public boolean recoverFromError(KrbErrorCode errorCode) {
+        if (!unaskedPreauth) {
+            return false;
+        }
+        unaskedPreauth = false;
+        if (errorCode != KrbErrorCode.KDC_ERR_ETYPE_NOSUPP
+                && !(preauthHinted && (errorCode == KrbErrorCode.KDC_ERR_PREAUTH_FAILED
+                || errorCode == KrbErrorCode.KRB_AP_ERR_BAD_INTEGRITY))) {
+            return false;
+        }
+
+        getContext().getPreauthHintCache().remove(getClientPrincipal().getName());
+        setEncryptionTypes(null);
+        resetReqBody();
+        setClientKey(null);
+        setAsKey(null);
+        setPreauthRequired(false);
+        resetPrequthContxt();
+        return true;
+    }
+
+    private boolean isEncTsPreauth() {
+        return getPreauthContext().getAllowedPaType() == PaDataType.ENC_TIMESTAMP;
+    }
+
     @Override
     public void processResponse(KdcRep kdcRep) throws KrbException  {
         setKdcRep(kdcRep);
@@ -137,6 +205,13 @@ public class AsRequest extends KdcRequest {
                 }
             }
         }
+
+        if (isEncTsPreauth()) {
+            getContext().getPreauthHintCache().put(getClientPrincipal().getName(),
+                Collections.singletonList(getKdcRep().getEncryptedEncPart().getEType()));
+        }
+
+        freezeTicket();
     }
 
     public TgtTicket getTicket() {
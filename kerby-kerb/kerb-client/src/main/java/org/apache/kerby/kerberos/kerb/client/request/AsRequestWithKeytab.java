@@ -24,13 +24,18 @@ import org.apache.kerby.kerberos.kerb.KrbException;
 import org.apache.kerby.kerberos.kerb.client.KrbContext;
 import org.apache.kerby.kerberos.kerb.client.KrbOption;
 import org.apache.kerby.kerberos.kerb.keytab.Keytab;
+import org.apache.kerby.kerberos.kerb.keytab.KeytabEntry;
 import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
 import org.apache.kerby.kerberos.kerb.type.pa.PaDataType;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class AsRequestWithKeytab extends AsRequest {
+    private Keytab keytab;
 
     public AsRequestWithKeytab(KrbContext context) {
         super(context);
@@ -38,7 +43,35 @@ public class AsRequestWithKeytab extends AsRequest {
         setAllowedPreauth(PaDataType.ENC_TIMESTAMP);
     }
 
+    /**
+     * Use the encryption types of the keys in the keytab when nothing better
+     * is known.
+     */
+    @Override
+    protected List<EncryptionType> getPreauthHint() {
+        List<EncryptionType> hint = super.getPreauthHint();
+        if (hint != null) {
+            return hint;
+        }
+
+        Keytab keytab = getKeytab();
+        if (keytab == null) {
+            return null;
+        }
+        List<EncryptionType> keyTypes = new ArrayList<>();
+        for (KeytabEntry entry : keytab.getKeytabEntries(getClientPrincipal())) {
+            keyTypes.add(entry.getKey().getKeyType());
+        }
+        List<EncryptionType> etypes = new ArrayList<>(getEncryptionTypes());
+        etypes.retainAll(keyTypes);
+        return etypes;
+    }
+
     private Keytab getKeytab() {
+        if (keytab != null) {
+            return keytab;
+        }
+
         File keytabFile = null;
         KOptions kOptions = getRequestOptions();
 
@@ -59,7 +92,6 @@ public class AsRequestWithKeytab extends AsRequest {
             }
         }
 
-        Keytab keytab = null;
         try {
             keytab =  Keytab.loadKeytab(keytabFile);
         } catch (IOException e) {
@@ -22,8 +22,8 @@ package org.apache.kerby.kerberos.kerb.client.request;
 import org.apache.kerby.kerberos.kerb.KrbException;
 import org.apache.kerby.kerberos.kerb.client.KrbContext;
 import org.apache.kerby.kerberos.kerb.client.KrbOption;
-import org.apache.kerby.kerberos.kerb.crypto.EncryptionHandler;
 import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
 import org.apache.kerby.kerberos.kerb.type.pa.PaDataType;
 
 public class AsRequestWithPasswd extends AsRequest {
@@ -41,8 +41,10 @@ public class AsRequestWithPasswd extends AsRequest {
     @Override
     public EncryptionKey getClientKey() throws KrbException {
         if (super.getClientKey() == null) {
-            EncryptionKey tmpKey = EncryptionHandler.string2Key(getClientPrincipal().getName(),
-                    getPassword(), getChosenEncryptionType());
+            PrincipalName principal = getClientPrincipal();
+            EncryptionKey tmpKey = getContext().getStr2keyCache().string2Key(
+                    principal.getName(), getPassword(), PrincipalName.makeSalt(principal),
+                    null, getChosenEncryptionType());
             setClientKey(tmpKey);
         }
         return super.getClientKey();
@@ -21,6 +21,7 @@ package org.apache.kerby.kerberos.kerb.client.request;
 
 import org.apache.kerby.KOption;
 import org.apache.kerby.KOptions;
+import org.apache.kerby.kerberos.kerb.KrbErrorCode;
 import org.apache.kerby.kerberos.kerb.KrbException;
 import org.apache.kerby.kerberos.kerb.client.KrbContext;
 import org.apache.kerby.kerberos.kerb.client.KrbKdcOption;
@@ -46,6 +47,7 @@ import org.apache.kerby.kerberos.kerb.type.kdc.KdcReq;
 import org.apache.kerby.kerberos.kerb.type.kdc.KdcReqBody;
 import org.apache.kerby.kerberos.kerb.type.pa.PaDataType;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
@@ -166,6 +168,13 @@ public abstract class KdcRequest {
         return reqBody;
     }
 
+    /**
+     * Drop the request body, to make it again for a resent request.
+     */
+    protected void resetReqBody() {
+        reqBody = null;
+    }
+
     public KdcRep getKdcRep() {
         return kdcRep;
     }
@@ -174,6 +183,19 @@ public abstract class KdcRequest {
         this.kdcRep = kdcRep;
     }
 
+    /**
+     * Freeze the issued ticket, as it's encoded unchanged in every later
+     * request using it.
+     * @throws KrbException e
+     */
+    protected void freezeTicket() throws KrbException {
+        try {
+            kdcRep.getTicket().freeze();
+        } catch (IOException e) {
+            throw new KrbException("Failed to encode the ticket", e);
+        }
+    }
+
     protected KdcReqBody makeReqBody(KerberosTime renewTill) throws KrbException {
         KdcReqBody body = new KdcReqBody();
 
@@ -343,6 +365,16 @@ public abstract class KdcRequest {
         getPreauthHandler().preauth(this);
     }
 
+    /**
+     * Prepare to resend the request after a KDC error, if the error may be
+     * caused by preauth data the KDC didn't ask for.
+     * @param errorCode The KDC error code
+     * @return true if the request should be resent
+     */
+    public boolean recoverFromError(KrbErrorCode errorCode) {
+        return false;
+    }
+
     protected PreauthHandler getPreauthHandler() {
         return getContext().getPreauthHandler();
     }
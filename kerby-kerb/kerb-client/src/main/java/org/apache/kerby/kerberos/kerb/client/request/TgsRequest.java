@@ -96,11 +96,18 @@ public class TgsRequest extends KdcRequest {
             LOG.error("Nonce " + getChosenNonce() + "didn't match " + encTgsRepPart.getNonce());
             throw new KrbException("Nonce didn't match");
         }
+
+        freezeTicket();
     }
 
     public SgtTicket getSgt() {
         SgtTicket serviceTkt = new SgtTicket(getKdcRep().getTicket(),
                 (EncTgsRepPart) getKdcRep().getEncPart());
+        PrincipalName clientPrincipal = getKdcRep().getCname();
+        if (clientPrincipal != null) {
+            clientPrincipal.setRealm(getKdcRep().getCrealm());
+            serviceTkt.setClientPrincipal(clientPrincipal);
+        }
         return serviceTkt;
     }
 }
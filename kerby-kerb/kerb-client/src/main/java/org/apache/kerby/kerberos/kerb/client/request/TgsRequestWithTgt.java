@@ -48,6 +48,10 @@ public class TgsRequestWithTgt extends TgsRequest {
         setAllowedPreauth(PaDataType.TGS_REQ);
     }
 
+    public TgtTicket getTgt() {
+        return tgt;
+    }
+
     public PrincipalName getClientPrincipal() {
         return tgt.getClientPrincipal();
     }
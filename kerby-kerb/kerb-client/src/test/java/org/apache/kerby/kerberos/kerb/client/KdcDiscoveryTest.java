@@ -0,0 +1,154 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client;
+
+import org.apache.kerby.kerberos.kerb.client.KdcDiscovery.SrvRecord;
+import org.apache.kerby.kerberos.kerb.client.KdcDiscovery.SrvResolver;
+import org.apache.kerby.kerberos.kerb.transport.TransportPair;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KdcDiscoveryTest {
+    private KrbConfig krbConfig;
+    private final List<String> lookups = new ArrayList<>();
+    private boolean failLookups;
+
+    private final SrvResolver resolver = new SrvResolver() {
+        @Override
+        public List<SrvRecord> resolve(String name) throws IOException {
+            lookups.add(name);
+            if (failLookups) {
+                throw new IOException("Failed to look up " + name);
+            }
+            if (name.startsWith("_kerberos._tcp.")) {
+                return Arrays.asList(
+                    new SrvRecord(10, 0, 88, "127.0.0.2."),
+                    new SrvRecord(0, 0, 88, "127.0.0.1."));
+            }
+            return Arrays.asList(
+                new SrvRecord(0, 10, 88, "127.0.0.1."),
+                new SrvRecord(0, 20, 750, "127.0.0.3."),
+                new SrvRecord(0, 0, 0, "."));
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        krbConfig = new KrbConfig();
+        krbConfig.addKrb5Config(new File(KdcDiscoveryTest.class.getResource(
+            "/krb5-specials.conf").toURI()));
+        krbConfig.setBoolean(KrbConfigKey.DNS_LOOKUP_KDC, true);
+    }
+
+    @Test
+    public void testSrvKdcs() throws Exception {
+        KrbSetting setting = new KrbSetting(krbConfig);
+        Map<String, TransportPair> kdcs = new KdcDiscovery(setting, resolver).getKdcs();
+
+        String realm = setting.getKdcRealm();
+        assertThat(lookups).containsExactly("_kerberos._tcp." + realm, "_kerberos._udp." + realm);
+
+        // The configured KDC first, then TCP and UDP records by priority and weight
+        assertThat(kdcs.keySet()).containsExactly(setting.getKdcHost(),
+            "127.0.0.1:88", "127.0.0.2:88", "127.0.0.3:750");
+
+        TransportPair tpair = kdcs.get("127.0.0.1:88");
+        assertThat(tpair.tcpAddress.getPort()).isEqualTo(88);
+        assertThat(tpair.udpAddress.getPort()).isEqualTo(88);
+        assertThat(kdcs.get("127.0.0.2:88").udpAddress).isNull();
+        assertThat(kdcs.get("127.0.0.3:750").tcpAddress).isNull();
+        assertThat(kdcs.get("127.0.0.3:750").udpAddress.getPort()).isEqualTo(750);
+    }
+
+    @Test
+    public void testCached() throws Exception {
+        KdcDiscovery discovery = new KdcDiscovery(new KrbSetting(krbConfig), resolver);
+        Map<String, TransportPair> kdcs = discovery.getKdcs();
+        kdcs.clear();
+
+        Map<String, TransportPair> cached = discovery.getKdcs();
+        assertThat(cached).hasSize(4);
+        assertThat(lookups).hasSize(2);
+
+        discovery.clear();
+        assertThat(discovery.getKdcs()).hasSize(4);
+        assertThat(lookups).hasSize(4);
+    }
+
+    @Test
+    public void testExpired() throws Exception {
+        krbConfig.setLong(KrbConfigKey.KDC_DISCOVERY_TTL, 0L);
+        KdcDiscovery discovery = new KdcDiscovery(new KrbSetting(krbConfig), resolver);
+        discovery.getKdcs();
+        discovery.getKdcs();
+        assertThat(lookups).hasSize(4);
+    }
+
+    @Test
+    public void testFailedLookupNotCached() throws Exception {
+        KrbSetting setting = new KrbSetting(krbConfig);
+        failLookups = true;
+        KdcDiscovery discovery = new KdcDiscovery(setting, resolver, 0);
+        assertThat(discovery.getKdcs().keySet()).containsExactly(setting.getKdcHost());
+
+        // Looked up again right away, not after the TTL
+        failLookups = false;
+        assertThat(discovery.getKdcs()).hasSize(4);
+        assertThat(lookups).hasSize(4);
+
+        discovery.getKdcs();
+        assertThat(lookups).hasSize(4);
+    }
+
+    @Test
+    public void testKeepKdcsOnFailedLookup() throws Exception {
+        krbConfig.setLong(KrbConfigKey.KDC_DISCOVERY_TTL, 0L);
+        KdcDiscovery discovery = new KdcDiscovery(new KrbSetting(krbConfig), resolver);
+        assertThat(discovery.getKdcs()).hasSize(4);
+
+        failLookups = true;
+        assertThat(discovery.getKdcs()).hasSize(4);
+        assertThat(lookups).hasSize(4);
+
+        failLookups = false;
+        assertThat(discovery.getKdcs()).hasSize(4);
+        assertThat(lookups).hasSize(6);
+    }
+
+    @Test
+    public void testDnsLookupDisabled() throws Exception {
+        krbConfig.setBoolean(KrbConfigKey.DNS_LOOKUP_KDC, false);
+        KrbSetting setting = new KrbSetting(krbConfig);
+        Map<String, TransportPair> kdcs = new KdcDiscovery(setting, resolver).getKdcs();
+
+        assertThat(lookups).isEmpty();
+        assertThat(kdcs.keySet()).isEqualTo(Collections.singleton(setting.getKdcHost()));
+    }
+}
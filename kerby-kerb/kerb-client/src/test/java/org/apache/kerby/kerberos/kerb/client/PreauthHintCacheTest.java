@@ -0,0 +1,69 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client;
+
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PreauthHintCacheTest {
+    private static final String PRINCIPAL = "drankye@EXAMPLE.COM";
+
+    @Test
+    public void testHint() {
+        PreauthHintCache cache = new PreauthHintCache(2);
+        assertThat(cache.get(PRINCIPAL)).isNull();
+
+        cache.put(PRINCIPAL, Arrays.asList(EncryptionType.AES128_CTS, EncryptionType.DES3_CBC_SHA1));
+        assertThat(cache.get(PRINCIPAL)).containsExactly(
+            EncryptionType.AES128_CTS, EncryptionType.DES3_CBC_SHA1);
+
+        cache.put(PRINCIPAL, Collections.singletonList(EncryptionType.AES256_CTS));
+        assertThat(cache.get(PRINCIPAL)).containsExactly(EncryptionType.AES256_CTS);
+
+        cache.remove(PRINCIPAL);
+        assertThat(cache.get(PRINCIPAL)).isNull();
+    }
+
+    @Test
+    public void testEviction() {
+        PreauthHintCache cache = new PreauthHintCache(2);
+        cache.put("a@EXAMPLE.COM", Collections.singletonList(EncryptionType.AES128_CTS));
+        cache.put("b@EXAMPLE.COM", Collections.singletonList(EncryptionType.AES128_CTS));
+        cache.get("a@EXAMPLE.COM");
+        cache.put("c@EXAMPLE.COM", Collections.singletonList(EncryptionType.AES128_CTS));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a@EXAMPLE.COM")).isNotNull();
+        assertThat(cache.get("b@EXAMPLE.COM")).isNull();
+    }
+
+    @Test
+    public void testDisabled() {
+        PreauthHintCache cache = new PreauthHintCache(0);
+        cache.put(PRINCIPAL, Collections.singletonList(EncryptionType.AES128_CTS));
+        assertThat(cache.isEnabled()).isFalse();
+        assertThat(cache.get(PRINCIPAL)).isNull();
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client;
+
+import org.apache.kerby.KOptions;
+import org.apache.kerby.kerberos.kerb.type.KerberosTime;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptedData;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
+import org.apache.kerby.kerberos.kerb.type.kdc.EncTgsRepPart;
+import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
+import org.apache.kerby.kerberos.kerb.type.ticket.Ticket;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SgtTicketCacheTest {
+    private static final String CLIENT = "drankye@EXAMPLE.COM";
+    private static final String SERVER = "test-service/localhost@EXAMPLE.COM";
+    private static final long MARGIN = 1000;
+
+    @Test
+    public void testCachedTicket() {
+        SgtTicketCache cache = new SgtTicketCache(2, MARGIN, false);
+        SgtTicket ticket = makeTicket(60 * 1000);
+        cache.put(CLIENT, SERVER, new KOptions(), ticket, null);
+
+        SgtTicket cached = cache.get(CLIENT, SERVER, new KOptions());
+        assertThat(cached).isNotSameAs(ticket);
+        assertThat(isSameEndTime(cached, ticket)).isTrue();
+        assertThat(cached.getTicket().getSname().getNameStrings())
+            .isEqualTo(ticket.getTicket().getSname().getNameStrings());
+        assertThat(cached.getSessionKey()).isEqualTo(ticket.getSessionKey());
+        assertThat(cached.getClientPrincipal()).isEqualTo(ticket.getClientPrincipal());
+        assertThat(cached.getClientPrincipal().getRealm()).isEqualTo("EXAMPLE.COM");
+        assertThat(cache.get("other@EXAMPLE.COM", SERVER, new KOptions())).isNull();
+        assertThat(cache.get(CLIENT, "other/localhost@EXAMPLE.COM", new KOptions())).isNull();
+    }
+
+    @Test
+    public void testCopies() {
+        SgtTicketCache cache = new SgtTicketCache(2, MARGIN, false);
+        SgtTicket ticket = makeTicket(60 * 1000);
+        SgtTicket copy = makeTicket(60 * 1000);
+        copy.getEncKdcRepPart().setEndTime(ticket.getEncKdcRepPart().getEndTime());
+        cache.put(CLIENT, SERVER, new KOptions(), ticket, null);
+
+        // Changing the cached ticket or a copy of it doesn't change the cache
+        ticket.getEncKdcRepPart().setEndTime(new KerberosTime(0));
+        cache.get(CLIENT, SERVER, new KOptions()).getEncKdcRepPart().setKey(null);
+
+        SgtTicket cached = cache.get(CLIENT, SERVER, new KOptions());
+        assertThat(isSameEndTime(cached, copy)).isTrue();
+        assertThat(cached.getSessionKey()).isNotNull();
+    }
+
+    @Test
+    public void testKdcFlags() {
+        SgtTicketCache cache = new SgtTicketCache(2, MARGIN, false);
+        cache.put(CLIENT, SERVER, new KOptions(), makeTicket(60 * 1000), null);
+
+        KOptions requestOptions = new KOptions();
+        requestOptions.add(KrbKdcOption.FORWARDABLE);
+        assertThat(cache.get(CLIENT, SERVER, requestOptions)).isNull();
+    }
+
+    @Test
+    public void testExpiry() {
+        SgtTicketCache cache = new SgtTicketCache(2, MARGIN, false);
+
+        // Ending within the refresh margin
+        cache.put(CLIENT, SERVER, new KOptions(), makeTicket(MARGIN / 2), null);
+        assertThat(cache.size()).isZero();
+
+        cache.put(CLIENT, SERVER, new KOptions(), makeTicket(MARGIN + 50), null);
+        assertThat(cache.size()).isEqualTo(1);
+        sleep(100);
+        assertThat(cache.get(CLIENT, SERVER, new KOptions())).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void testEviction() {
+        SgtTicketCache cache = new SgtTicketCache(2, MARGIN, false);
+        cache.put(CLIENT, "a@EXAMPLE.COM", new KOptions(), makeTicket(60 * 1000), null);
+        cache.put(CLIENT, "b@EXAMPLE.COM", new KOptions(), makeTicket(60 * 1000), null);
+        cache.get(CLIENT, "a@EXAMPLE.COM", new KOptions());
+        cache.put(CLIENT, "c@EXAMPLE.COM", new KOptions(), makeTicket(60 * 1000), null);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(CLIENT, "a@EXAMPLE.COM", new KOptions())).isNotNull();
+        assertThat(cache.get(CLIENT, "b@EXAMPLE.COM", new KOptions())).isNull();
+    }
+
+    @Test
+    public void testRenewal() throws Exception {
+        SgtTicketCache cache = new SgtTicketCache(2, MARGIN, true);
+        final SgtTicket renewed = makeTicket(60 * 1000);
+        final CountDownLatch loaded = new CountDownLatch(1);
+        cache.put(CLIENT, SERVER, new KOptions(), makeTicket(MARGIN + 100),
+            new SgtTicketCache.Loader() {
+                @Override
+                public SgtTicket load() {
+                    loaded.countDown();
+                    return renewed;
+                }
+            });
+        assertThat(isRenewed(cache, renewed)).isFalse();
+
+        assertThat(loaded.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 50 && !isRenewed(cache, renewed); i++) {
+            sleep(10);
+        }
+        assertThat(isRenewed(cache, renewed)).isTrue();
+        cache.clear();
+    }
+
+    @Test
+    public void testRenewalBeforeExpiry() throws Exception {
+        final SgtTicketCache cache = new SgtTicketCache(2, MARGIN, true);
+        final AtomicBoolean cachedWhileLoading = new AtomicBoolean();
+        final CountDownLatch loaded = new CountDownLatch(1);
+        cache.put(CLIENT, SERVER, new KOptions(), makeTicket(MARGIN + 400),
+            new SgtTicketCache.Loader() {
+                @Override
+                public SgtTicket load() {
+                    cachedWhileLoading.set(cache.get(CLIENT, SERVER, new KOptions()) != null);
+                    loaded.countDown();
+                    return makeTicket(60 * 1000);
+                }
+            });
+        cache.get(CLIENT, SERVER, new KOptions());
+
+        assertThat(loaded.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(cachedWhileLoading.get()).isTrue();
+        cache.clear();
+    }
+
+    @Test
+    public void testClearCancelsRenewal() throws Exception {
+        SgtTicketCache cache = new SgtTicketCache(2, MARGIN, true);
+        final CountDownLatch loaded = new CountDownLatch(1);
+        cache.put(CLIENT, SERVER, new KOptions(), makeTicket(MARGIN + 100),
+            new SgtTicketCache.Loader() {
+                @Override
+                public SgtTicket load() {
+                    loaded.countDown();
+                    return makeTicket(60 * 1000);
+                }
+            });
+        cache.get(CLIENT, SERVER, new KOptions());
+        cache.clear();
+
+        assertThat(loaded.await(300, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void testDisabled() {
+        SgtTicketCache cache = new SgtTicketCache(0, MARGIN, false);
+        cache.put(CLIENT, SERVER, new KOptions(), makeTicket(60 * 1000), null);
+        assertThat(cache.isEnabled()).isFalse();
+        assertThat(cache.get(CLIENT, SERVER, new KOptions())).isNull();
+    }
+
+    private static boolean isRenewed(SgtTicketCache cache, SgtTicket renewed) {
+        SgtTicket cached = cache.get(CLIENT, SERVER, new KOptions());
+        return cached != null && isSameEndTime(cached, renewed);
+    }
+
+    // The encoded times are in seconds
+    private static boolean isSameEndTime(SgtTicket ticket1, SgtTicket ticket2) {
+        return ticket1.getEncKdcRepPart().getEndTime().getTime() / 1000
+            == ticket2.getEncKdcRepPart().getEndTime().getTime() / 1000;
+    }
+
+    private static SgtTicket makeTicket(long lifetime) {
+        Ticket ticket = new Ticket();
+        ticket.setSname(new PrincipalName(SERVER));
+        ticket.setRealm("EXAMPLE.COM");
+        ticket.setEncryptedEncPart(new EncryptedData());
+        ticket.getEncryptedEncPart().setEType(EncryptionType.AES128_CTS_HMAC_SHA1_96);
+        ticket.getEncryptedEncPart().setCipher(new byte[16]);
+
+        EncTgsRepPart encPart = new EncTgsRepPart();
+        encPart.setKey(new EncryptionKey(EncryptionType.AES128_CTS_HMAC_SHA1_96, new byte[16]));
+        encPart.setSname(new PrincipalName(SERVER));
+        encPart.setSrealm("EXAMPLE.COM");
+        encPart.setAuthTime(new KerberosTime());
+        encPart.setEndTime(new KerberosTime(System.currentTimeMillis() + lifetime));
+
+        SgtTicket sgtTicket = new SgtTicket(ticket, encPart);
+        sgtTicket.setClientPrincipal(new PrincipalName(CLIENT));
+        return sgtTicket;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client;
+
+import org.apache.kerby.kerberos.kerb.crypto.EncryptionHandler;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StringToKeyCacheTest {
+    private static final String PRINCIPAL = "drankye@EXAMPLE.COM";
+    private static final String SALT = "EXAMPLE.COMdrankye";
+    private static final EncryptionType ETYPE = EncryptionType.AES128_CTS;
+
+    @Test
+    public void testCachedKey() throws Exception {
+        StringToKeyCache cache = new StringToKeyCache(2);
+        EncryptionKey expected = EncryptionHandler.string2Key("123456", SALT, null, ETYPE);
+
+        EncryptionKey key = cache.string2Key(PRINCIPAL, "123456", SALT, null, ETYPE);
+        assertThat(key).isEqualTo(expected);
+        assertThat(cache.size()).isEqualTo(1);
+
+        // Wiping a returned key doesn't affect the cached one
+        key.getKeyData()[0] ^= 1;
+        assertThat(cache.string2Key(PRINCIPAL, "123456", SALT, null, ETYPE)).isEqualTo(expected);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testChangedPassword() throws Exception {
+        StringToKeyCache cache = new StringToKeyCache(2);
+        cache.string2Key(PRINCIPAL, "123456", SALT, null, ETYPE);
+
+        EncryptionKey key = cache.string2Key(PRINCIPAL, "654321", SALT, null, ETYPE);
+        assertThat(key).isEqualTo(EncryptionHandler.string2Key("654321", SALT, null, ETYPE));
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testIterations() throws Exception {
+        StringToKeyCache cache = new StringToKeyCache(2);
+        byte[] iterations = new byte[] {0, 0, 0x10, 0};
+        cache.string2Key(PRINCIPAL, "123456", SALT, null, ETYPE);
+
+        EncryptionKey key = cache.string2Key(PRINCIPAL, "123456", SALT, iterations, ETYPE);
+        assertThat(key).isEqualTo(EncryptionHandler.string2Key("123456", SALT, iterations, ETYPE));
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testOtherPrincipal() throws Exception {
+        StringToKeyCache cache = new StringToKeyCache(2);
+        cache.string2Key(PRINCIPAL, "123456", SALT, null, ETYPE);
+        cache.string2Key("other@EXAMPLE.COM", "123456", SALT, null, ETYPE);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        StringToKeyCache cache = new StringToKeyCache(2);
+        cache.string2Key(PRINCIPAL, "123456", SALT, null, ETYPE);
+        cache.string2Key(PRINCIPAL, "123456", SALT, null, EncryptionType.DES3_CBC_SHA1);
+        cache.string2Key(PRINCIPAL, "123456", SALT, null, EncryptionType.ARCFOUR_HMAC);
+        assertThat(cache.size()).isEqualTo(2);
+
+        cache.clear();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        assertThat(new KrbConfig().getStr2keyCacheSize()).isZero();
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        StringToKeyCache cache = new StringToKeyCache(0);
+        assertThat(cache.isEnabled()).isFalse();
+
+        EncryptionKey key = cache.string2Key(PRINCIPAL, "123456", SALT, null, ETYPE);
+        assertThat(key).isEqualTo(EncryptionHandler.string2Key("123456", SALT, null, ETYPE));
+        assertThat(cache.size()).isEqualTo(0);
+    }
+}
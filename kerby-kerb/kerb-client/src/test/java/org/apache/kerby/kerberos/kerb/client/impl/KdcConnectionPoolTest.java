@@ -0,0 +1,107 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client.impl;
+
+import org.apache.kerby.kerberos.kerb.transport.AbstractKrbTransport;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KdcConnectionPoolTest {
+    private static final InetSocketAddress KDC = new InetSocketAddress("localhost", 88);
+
+    @Test
+    public void testReuse() {
+        KdcConnectionPool pool = new KdcConnectionPool(2);
+        TestTransport first = new TestTransport();
+        TestTransport second = new TestTransport();
+        pool.offer(KDC, first);
+        pool.offer(KDC, second);
+        assertThat(pool.getIdleCount(KDC)).isEqualTo(2);
+
+        // The most recently used one first
+        assertThat(pool.poll(KDC)).isSameAs(second);
+        assertThat(pool.getReusedCount()).isEqualTo(1);
+
+        // Over the limit
+        TestTransport third = new TestTransport();
+        pool.offer(KDC, second);
+        pool.offer(KDC, third);
+        assertThat(third.released).isTrue();
+
+        pool.clear();
+        assertThat(first.released).isTrue();
+        assertThat(second.released).isTrue();
+        assertThat(pool.getIdleCount(KDC)).isEqualTo(0);
+    }
+
+    @Test
+    public void testEvictIdle() throws Exception {
+        KdcConnectionPool pool = new KdcConnectionPool(4, 100);
+        TestTransport stale1 = new TestTransport();
+        TestTransport stale2 = new TestTransport();
+        pool.offer(KDC, stale1);
+        pool.offer(KDC, stale2);
+        Thread.sleep(200);
+
+        // A fresh connection at the head doesn't keep the stale ones open
+        TestTransport fresh = new TestTransport();
+        pool.offer(KDC, fresh);
+        assertThat(stale1.released).isTrue();
+        assertThat(stale2.released).isTrue();
+        assertThat(pool.getIdleCount(KDC)).isEqualTo(1);
+
+        assertThat(pool.poll(KDC)).isSameAs(fresh);
+        assertThat(fresh.released).isFalse();
+    }
+
+    private static class TestTransport extends AbstractKrbTransport {
+        private boolean released;
+
+        @Override
+        public void sendMessage(ByteBuffer message) throws IOException {
+        }
+
+        @Override
+        public ByteBuffer receiveMessage() throws IOException {
+            return null;
+        }
+
+        @Override
+        public boolean isTcp() {
+            return true;
+        }
+
+        @Override
+        public InetAddress getRemoteAddress() {
+            return KDC.getAddress();
+        }
+
+        @Override
+        public void release() {
+            released = true;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.client.impl;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KdcHealthTest {
+
+    @Test
+    public void testConfiguredOrder() {
+        KdcHealth health = new KdcHealth();
+        assertThat(health.order(Arrays.asList("kdc1", "kdc2", "kdc1", null, "kdc3")))
+            .containsExactly("kdc1", "kdc2", "kdc3");
+    }
+
+    @Test
+    public void testFailedLast() {
+        KdcHealth health = new KdcHealth();
+        health.failure("kdc1");
+        health.failure("kdc2");
+        assertThat(health.isFailing("kdc1")).isTrue();
+        assertThat(health.order(Arrays.asList("kdc1", "kdc2", "kdc3")))
+            .containsExactly("kdc3", "kdc1", "kdc2");
+
+        health.success("kdc1", 10);
+        assertThat(health.isFailing("kdc1")).isFalse();
+        assertThat(health.order(Arrays.asList("kdc1", "kdc2", "kdc3")))
+            .containsExactly("kdc1", "kdc3", "kdc2");
+    }
+
+    @Test
+    public void testLatency() {
+        KdcHealth health = new KdcHealth();
+        health.success("kdc1", 400);
+        health.success("kdc2", 20);
+        health.success("kdc3", 10);
+        // kdc2 and kdc3 are about as fast
+        assertThat(health.order(Arrays.asList("kdc1", "kdc2", "kdc3")))
+            .containsExactly("kdc2", "kdc3", "kdc1");
+
+        // A single fast reply doesn't make up for a slow history
+        health.success("kdc1", 10);
+        assertThat(health.order(Arrays.asList("kdc1", "kdc2", "kdc3")))
+            .containsExactly("kdc2", "kdc3", "kdc1");
+    }
+}
@@ -31,9 +31,12 @@ import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
 import org.apache.kerby.kerberos.kerb.type.base.KeyUsage;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class EncryptionUtil {
 
@@ -43,6 +46,11 @@ public class EncryptionUtil {
      */
     private static final Map<String, String> CIPHER_ALGO_MAP = new LinkedHashMap<String, String>();
 
+    /**
+     * The pool to derive keys in parallel, created on first use.
+     */
+    private static ForkJoinPool keyGenPool;
+
     static {
         CIPHER_ALGO_MAP.put("rc4", "ArcFourHmac");
         CIPHER_ALGO_MAP.put("aes256", "AES256");
@@ -102,17 +110,69 @@ public class EncryptionUtil {
     public static List<EncryptionKey> generateKeys(
             String principal, String passwd,
             List<EncryptionType> encryptionTypes) throws KrbException {
-        List<EncryptionKey> results = new ArrayList<EncryptionKey>(encryptionTypes.size());
-        for (EncryptionType eType : encryptionTypes) {
-            EncryptionKey encKey = EncryptionHandler.string2Key(
-                principal, passwd, eType);
-            encKey.setKvno(1);
-            results.add(encKey);
+        // The batch generation would make random keys for a null password
+        if (passwd == null) {
+            throw new IllegalArgumentException("Invalid and null password for " + principal);
         }
 
+        if (encryptionTypes.size() < 2) {
+            List<EncryptionKey> results = new ArrayList<EncryptionKey>(encryptionTypes.size());
+            for (EncryptionType eType : encryptionTypes) {
+                EncryptionKey encKey = EncryptionHandler.string2Key(
+                    principal, passwd, eType);
+                encKey.setKvno(1);
+                results.add(encKey);
+            }
+            return results;
+        }
+
+        Map<String, String> passwords = new LinkedHashMap<>(1);
+        passwords.put(principal, passwd);
+        return generateKeys(passwords, encryptionTypes).get(principal);
+    }
+
+    /**
+     * Generate the keys of a batch of principals. The string2key or random2key
+     * of every principal and encryption type is run in parallel on a fork-join
+     * pool, which matters when many principals are created with a password.
+     *
+     * @param passwords The principal names mapped to their passwords, a null
+     *                  password means random keys for the principal
+     * @param encryptionTypes The encryption types
+     * @return The principal names mapped to their keys, in the order of the
+     * given principals and encryption types
+     * @throws KrbException e
+     */
+    public static Map<String, List<EncryptionKey>> generateKeys(
+            Map<String, String> passwords,
+            List<EncryptionType> encryptionTypes) throws KrbException {
+        String[] principals = passwords.keySet().toArray(new String[passwords.size()]);
+        String[] passwds = new String[principals.length];
+        for (int i = 0; i < principals.length; i++) {
+            passwds[i] = passwords.get(principals[i]);
+        }
+
+        EncryptionKey[][] keys = new EncryptionKey[principals.length][encryptionTypes.size()];
+        AtomicReference<KrbException> error = new AtomicReference<>();
+        getKeyGenPool().invoke(new KeyGenTask(principals, passwds, encryptionTypes, keys, error));
+        if (error.get() != null) {
+            throw error.get();
+        }
+
+        Map<String, List<EncryptionKey>> results = new LinkedHashMap<>(principals.length);
+        for (int i = 0; i < principals.length; i++) {
+            results.put(principals[i], new ArrayList<EncryptionKey>(Arrays.asList(keys[i])));
+        }
         return results;
     }
 
+    private static synchronized ForkJoinPool getKeyGenPool() {
+        if (keyGenPool == null) {
+            keyGenPool = new ForkJoinPool();
+        }
+        return keyGenPool;
+    }
+
     public static EncryptionType getBestEncryptionType(List<EncryptionType> requestedTypes,
                                                        List<EncryptionType> configuredTypes) {
         for (EncryptionType encryptionType : configuredTypes) {
@@ -126,9 +186,7 @@ public class EncryptionUtil {
 
     public static EncryptedData seal(Asn1Encodeable asn1Type,
                                      EncryptionKey key, KeyUsage usage) throws KrbException {
-        byte[] encoded = KrbCodec.encode(asn1Type);
-        EncryptedData encrypted = EncryptionHandler.encrypt(encoded, key, usage);
-        return encrypted;
+        return EncryptionHandler.encrypt(asn1Type, key, usage);
     }
 
     public static <T extends Asn1Type> T unseal(EncryptedData encrypted, EncryptionKey key,
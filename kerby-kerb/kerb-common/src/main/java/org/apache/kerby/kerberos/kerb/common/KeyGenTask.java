@@ -0,0 +1,104 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.common;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.crypto.EncryptionHandler;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fork-join task that derives the keys of a batch of principals. Every
+ * (principal, encryption type) pair is a single job, and the job range is
+ * split in halves until one job is left, so both the principals and the
+ * encryption types of a principal are spread over the pool.
+ */
+class KeyGenTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final String[] principals;
+    private final String[] passwords;
+    private final List<EncryptionType> encTypes;
+    private final EncryptionKey[][] results;
+    private final AtomicReference<KrbException> error;
+    private final int from;
+    private final int to;
+
+    /**
+     * @param principals The principal names
+     * @param passwords The passwords, null entries get random keys
+     * @param encTypes The encryption types
+     * @param results The keys, indexed by principal and encryption type
+     * @param error The first error met by any job
+     */
+    KeyGenTask(String[] principals, String[] passwords,
+               List<EncryptionType> encTypes, EncryptionKey[][] results,
+               AtomicReference<KrbException> error) {
+        this(principals, passwords, encTypes, results, error,
+                0, principals.length * encTypes.size());
+    }
+
+    private KeyGenTask(String[] principals, String[] passwords,
+                       List<EncryptionType> encTypes, EncryptionKey[][] results,
+                       AtomicReference<KrbException> error, int from, int to) {
+        this.principals = principals;
+        this.passwords = passwords;
+        this.encTypes = encTypes;
+        this.results = results;
+        this.error = error;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from > 1) {
+            int middle = (from + to) >>> 1;
+            invokeAll(new KeyGenTask(principals, passwords, encTypes, results, error, from, middle),
+                    new KeyGenTask(principals, passwords, encTypes, results, error, middle, to));
+            return;
+        }
+
+        if (from == to || error.get() != null) {
+            return;
+        }
+
+        int principalIndex = from / encTypes.size();
+        int typeIndex = from % encTypes.size();
+        EncryptionType eType = encTypes.get(typeIndex);
+        try {
+            EncryptionKey encKey;
+            if (passwords[principalIndex] == null) {
+                encKey = EncryptionHandler.random2Key(eType);
+            } else {
+                encKey = EncryptionHandler.string2Key(principals[principalIndex],
+                        passwords[principalIndex], eType);
+            }
+            encKey.setKvno(1);
+            results[principalIndex][typeIndex] = encKey;
+        } catch (KrbException e) {
+            error.compareAndSet(null, e);
+        }
+    }
+}
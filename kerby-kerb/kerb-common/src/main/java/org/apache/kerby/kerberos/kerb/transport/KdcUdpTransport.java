@@ -34,8 +34,7 @@ public class KdcUdpTransport extends KrbUdpTransport {
     private BlockingQueue<ByteBuffer> bufferQueue = new ArrayBlockingQueue<ByteBuffer>(2);
 
     public KdcUdpTransport(DatagramChannel channel, InetSocketAddress remoteAddress) throws IOException {
-        super(remoteAddress);
-        setChannel(channel);
+        super(channel, remoteAddress);
     }
 
     @Override
@@ -50,6 +49,14 @@ public class KdcUdpTransport extends KrbUdpTransport {
         return message;
     }
 
+    /**
+     * The channel is shared by all the clients and owned by the network.
+     */
+    @Override
+    public void release() {
+        // NOOP
+    }
+
     protected synchronized void onRecvMessage(ByteBuffer message) {
         if (message != null) {
             bufferQueue.add(message);
@@ -49,7 +49,7 @@ public class KrbNetwork {
             } catch (IOException e1) {
                 if (tpair.udpAddress != null) {
                     try {
-                        transport = new KrbUdpTransport(tpair.udpAddress);
+                        transport = new KrbUdpTransport(tpair.udpAddress, socketTimeout);
                     } catch (Exception e2) {
                         transport = null;
                     }
@@ -60,7 +60,7 @@ public class KrbNetwork {
         } else {
             if (tpair.udpAddress != null) {
                 try {
-                    transport = new KrbUdpTransport(tpair.udpAddress);
+                    transport = new KrbUdpTransport(tpair.udpAddress, socketTimeout);
                 } catch (Exception e3) {
                     transport = null;
                 }
@@ -46,7 +46,15 @@ public class KrbTcpTransport
 
     @Override
     public void sendMessage(ByteBuffer message) throws IOException {
-        outputStream.write(message.array()); // TODO: may not be backed by array
+        if (message.hasArray()) {
+            outputStream.write(message.array(), message.arrayOffset() + message.position(),
+                message.remaining());
+            message.position(message.limit());
+        } else {
+            byte[] bytes = new byte[message.remaining()];
+            message.get(bytes);
+            outputStream.write(bytes);
+        }
     }
 
     @Override
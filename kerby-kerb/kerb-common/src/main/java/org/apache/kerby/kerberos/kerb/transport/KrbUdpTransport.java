@@ -20,29 +20,67 @@
 package org.apache.kerby.kerberos.kerb.transport;
 
 import java.io.IOException;
+import java.net.DatagramPacket;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
 
 /**
  * Default implementation of {@link KrbTransport} using UDP.
+ *
+ * The transport owns a connected channel and a receive buffer, both kept
+ * for the next requests when the transport is reused. Datagrams left over
+ * from an earlier exchange, like the late reply to a timed out request, are
+ * dropped before sending again.
  */
 public class KrbUdpTransport
         extends AbstractKrbTransport implements KrbTransport {
+    /**
+     * The max size of a UDP message.
+     */
+    public static final int MAX_MESSAGE_SIZE = 65507;
+
     private DatagramChannel channel;
     private InetSocketAddress remoteAddress;
-    private ByteBuffer recvBuffer;
+    private DatagramPacket recvPacket;
+    private boolean used;
+    private boolean ownChannel = true;
 
     public KrbUdpTransport(InetSocketAddress remoteAddress) throws IOException {
+        this(remoteAddress, 0);
+    }
+
+    /**
+     * @param remoteAddress The KDC address
+     * @param timeout The receive timeout in milliseconds, 0 to wait forever
+     * @throws IOException e
+     */
+    public KrbUdpTransport(InetSocketAddress remoteAddress, int timeout) throws IOException {
         this.remoteAddress = remoteAddress;
 
         DatagramChannel tmpChannel = DatagramChannel.open();
-        tmpChannel.configureBlocking(true);
-        tmpChannel.connect(remoteAddress);
+        try {
+            tmpChannel.configureBlocking(true);
+            tmpChannel.connect(remoteAddress);
+            tmpChannel.socket().setSoTimeout(timeout);
+        } catch (IOException e) {
+            tmpChannel.close();
+            throw e;
+        }
         setChannel(tmpChannel);
+    }
 
-        recvBuffer = ByteBuffer.allocate(65507);
+    /**
+     * Use a channel owned by someone else.
+     * @param channel The channel
+     * @param remoteAddress The remote address
+     */
+    protected KrbUdpTransport(DatagramChannel channel, InetSocketAddress remoteAddress) {
+        this.remoteAddress = remoteAddress;
+        this.ownChannel = false;
+        setChannel(channel);
     }
 
     protected void setChannel(DatagramChannel channel) {
@@ -51,15 +89,36 @@ public class KrbUdpTransport
 
     @Override
     public void sendMessage(ByteBuffer message) throws IOException {
+        if (used && ownChannel) {
+            dropPending();
+        }
+        used = true;
         channel.send(message, remoteAddress);
     }
 
     @Override
     public ByteBuffer receiveMessage() throws IOException {
-        recvBuffer.clear();
-        channel.receive(recvBuffer);
-        recvBuffer.flip();
-        return recvBuffer;
+        if (recvPacket == null) {
+            recvPacket = new DatagramPacket(new byte[MAX_MESSAGE_SIZE], MAX_MESSAGE_SIZE);
+        }
+        recvPacket.setLength(MAX_MESSAGE_SIZE);
+        // Unlike the channel, the socket honors the receive timeout
+        channel.socket().receive(recvPacket);
+        // The buffer is reused, while the message may be referenced by the reply
+        return ByteBuffer.wrap(Arrays.copyOf(recvPacket.getData(), recvPacket.getLength()));
+    }
+
+    private void dropPending() throws IOException {
+        ByteBuffer buffer = recvPacket != null ? ByteBuffer.wrap(recvPacket.getData())
+            : ByteBuffer.allocate(MAX_MESSAGE_SIZE);
+        channel.configureBlocking(false);
+        try {
+            while (channel.receive(buffer) != null) {
+                buffer.clear();
+            }
+        } finally {
+            channel.configureBlocking(true);
+        }
     }
 
     @Override
@@ -75,7 +134,7 @@ public class KrbUdpTransport
     @Override
     public void release() {
         try {
-            channel.disconnect();
+            channel.close();
         } catch (IOException e) { //NOPMD
             // System.err.println(e); //NOOP
         }
@@ -0,0 +1,88 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb;
+
+import org.apache.kerby.kerberos.kerb.common.EncryptionUtil;
+import org.apache.kerby.kerberos.kerb.crypto.EncryptionHandler;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A unit test for the batch key generation in EncryptionUtil.
+ */
+public class EncryptionUtilTest {
+    private static final List<EncryptionType> ENC_TYPES = Arrays.asList(
+            EncryptionType.AES128_CTS, EncryptionType.DES3_CBC_SHA1,
+            EncryptionType.ARCFOUR_HMAC, EncryptionType.CAMELLIA128_CTS_CMAC);
+
+    @Test
+    public void testGenerateKeys() throws KrbException {
+        Map<String, String> passwords = new LinkedHashMap<>();
+        for (int i = 0; i < 10; i++) {
+            passwords.put("user" + i + "@EXAMPLE.COM", "passwd" + i);
+        }
+        passwords.put("random@EXAMPLE.COM", null);
+
+        Map<String, List<EncryptionKey>> keys = EncryptionUtil.generateKeys(passwords, ENC_TYPES);
+        assertThat(keys.keySet()).containsExactlyElementsOf(passwords.keySet());
+
+        for (Map.Entry<String, String> entry : passwords.entrySet()) {
+            List<EncryptionKey> principalKeys = keys.get(entry.getKey());
+            assertThat(principalKeys).hasSize(ENC_TYPES.size());
+            for (int i = 0; i < ENC_TYPES.size(); i++) {
+                EncryptionKey key = principalKeys.get(i);
+                assertThat(key.getKeyType().getValue()).isEqualTo(ENC_TYPES.get(i).getValue());
+                assertThat(key.getKvno()).isEqualTo(1);
+                if (entry.getValue() != null) {
+                    assertThat(key.getKeyData()).isEqualTo(EncryptionHandler.string2Key(
+                            entry.getKey(), entry.getValue(), ENC_TYPES.get(i)).getKeyData());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGenerateKeysForPrincipal() throws KrbException {
+        List<EncryptionKey> keys = EncryptionUtil.generateKeys("user@EXAMPLE.COM", "passwd", ENC_TYPES);
+        assertThat(keys).hasSize(ENC_TYPES.size());
+        for (int i = 0; i < ENC_TYPES.size(); i++) {
+            assertThat(keys.get(i)).isEqualTo(EncryptionHandler.string2Key(
+                    "user@EXAMPLE.COM", "passwd", ENC_TYPES.get(i)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullPasswordForPrincipal() throws KrbException {
+        EncryptionUtil.generateKeys("user@EXAMPLE.COM", null, ENC_TYPES);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullPasswordForOneEncType() throws KrbException {
+        EncryptionUtil.generateKeys("user@EXAMPLE.COM", null, ENC_TYPES.subList(0, 1));
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.transport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KrbUdpTransportTest {
+    private DatagramChannel server;
+    private KrbUdpTransport transport;
+
+    @Before
+    public void setUp() throws Exception {
+        server = DatagramChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        transport = new KrbUdpTransport((InetSocketAddress) server.getLocalAddress(), 1000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        transport.release();
+        server.close();
+    }
+
+    @Test
+    public void testExchange() throws Exception {
+        transport.sendMessage(toBuffer("request1"));
+        SocketAddress client = reply("reply1");
+        assertThat(toString(transport.receiveMessage())).isEqualTo("reply1");
+
+        // A late reply to the first request is dropped
+        server.send(toBuffer("late reply1"), client);
+        Thread.sleep(100);
+        transport.sendMessage(toBuffer("request2"));
+        reply("reply2");
+        assertThat(toString(transport.receiveMessage())).isEqualTo("reply2");
+    }
+
+    @Test
+    public void testUnreceivedReply() throws Exception {
+        // The first request is given up, like after a timeout
+        transport.sendMessage(toBuffer("request1"));
+        ByteBuffer request = ByteBuffer.allocate(64);
+        SocketAddress client = server.receive(request);
+
+        // Its reply arrives before the next request on the reused socket
+        server.send(toBuffer("reply1"), client);
+        Thread.sleep(100);
+        transport.sendMessage(toBuffer("request2"));
+        reply("reply2");
+        assertThat(toString(transport.receiveMessage())).isEqualTo("reply2");
+    }
+
+    @Test(expected = SocketTimeoutException.class)
+    public void testTimeout() throws Exception {
+        transport.sendMessage(toBuffer("request"));
+        transport.receiveMessage();
+    }
+
+    @Test(expected = ClosedChannelException.class)
+    public void testRelease() throws Exception {
+        transport.release();
+        transport.sendMessage(toBuffer("request"));
+    }
+
+    private SocketAddress reply(String message) throws Exception {
+        ByteBuffer request = ByteBuffer.allocate(64);
+        SocketAddress client = server.receive(request);
+        server.send(toBuffer(message), client);
+        return client;
+    }
+
+    private static ByteBuffer toBuffer(String message) {
+        return ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String toString(ByteBuffer message) {
+        byte[] bytes = new byte[message.remaining()];
+        message.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
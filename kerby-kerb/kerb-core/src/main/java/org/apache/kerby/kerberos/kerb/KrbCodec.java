@@ -19,10 +19,12 @@
  */
 package org.apache.kerby.kerberos.kerb;
 
-import org.apache.kerby.asn1.Asn1;
+import org.apache.kerby.asn1.Asn1Factories;
 import org.apache.kerby.asn1.Tag;
 import org.apache.kerby.asn1.parse.Asn1ParseResult;
+import org.apache.kerby.asn1.parse.Asn1Parser;
 import org.apache.kerby.asn1.type.Asn1Type;
+import org.apache.kerby.asn1.util.EncodingBuffer;
 import org.apache.kerby.kerberos.kerb.type.ap.ApReq;
 import org.apache.kerby.kerberos.kerb.type.base.KrbError;
 import org.apache.kerby.kerberos.kerb.type.base.KrbMessage;
@@ -34,6 +36,7 @@ import org.apache.kerby.kerberos.kerb.type.kdc.TgsReq;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 public class KrbCodec {
 
@@ -53,6 +56,38 @@ public class KrbCodec {
         }
     }
 
+    /**
+     * Encode into a reusable buffer, see {@link EncodingBuffer}.
+     * @param krbObj The object to encode
+     * @param buffer The encoding buffer
+     * @return The encoding, valid until the buffer is used again
+     * @throws KrbException e
+     */
+    public static ByteBuffer encode(Asn1Type krbObj, EncodingBuffer buffer) throws KrbException {
+        try {
+            return buffer.encode(krbObj);
+        } catch (IOException e) {
+            throw new KrbException("Encoding failed", e);
+        }
+    }
+
+    /**
+     * Encode a krb message straight to a channel through the direct buffer
+     * pooled for the current thread.
+     * @param krbMessage The message to encode
+     * @param channel The channel to write to
+     * @return The bytes written
+     * @throws KrbException e
+     */
+    public static int encode(KrbMessage krbMessage,
+                             WritableByteChannel channel) throws KrbException {
+        try {
+            return EncodingBuffer.direct().encode(krbMessage, channel);
+        } catch (IOException e) {
+            throw new KrbException("Encoding failed", e);
+        }
+    }
+
     public static void decode(byte[] content, Asn1Type value) throws KrbException {
         decode(ByteBuffer.wrap(content), value);
     }
@@ -74,8 +109,8 @@ public class KrbCodec {
             ByteBuffer content, Class<T> krbType) throws KrbException {
         Asn1Type implObj;
         try {
-            implObj = krbType.newInstance();
-        } catch (Exception e) {
+            implObj = Asn1Factories.create(krbType);
+        } catch (RuntimeException e) {
             throw new KrbException("Decoding failed", e);
         }
 
@@ -89,7 +124,24 @@ public class KrbCodec {
     }
 
     public static KrbMessage decodeMessage(ByteBuffer buffer) throws IOException {
-        Asn1ParseResult parsingResult = Asn1.parse(buffer);
+        return decodeMessage(buffer, false);
+    }
+
+    /**
+     * Decode a krb message, optionally in lazy decoding mode where the
+     * constructed fields are decoded when first accessed. The buffer content
+     * must stay unchanged while the message is in use in that mode.
+     * @param buffer The encoded message
+     * @param lazy Whether to decode the fields on demand
+     * @return The krb message
+     * @throws IOException e
+     */
+    public static KrbMessage decodeMessage(ByteBuffer buffer,
+                                           boolean lazy) throws IOException {
+        Asn1ParseResult parsingResult = Asn1Parser.readItem(buffer);
+        if (parsingResult == null) {
+            throw new IOException("No content to decode");
+        }
         Tag tag = parsingResult.tag();
         KrbMessage msg;
         KrbMessageType msgType = KrbMessageType.fromValue(tag.tagNo());
@@ -111,6 +163,7 @@ public class KrbCodec {
             throw new IOException("To be supported krb message type with tag: " + tag);
         }
 
+        msg.useLazyDecoding(lazy);
         msg.decode(parsingResult);
         return msg;
     }
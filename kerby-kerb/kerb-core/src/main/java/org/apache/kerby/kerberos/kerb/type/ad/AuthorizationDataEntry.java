@@ -19,6 +19,7 @@
  */
 package org.apache.kerby.kerberos.kerb.type.ad;
 
+import org.apache.kerby.asn1.Asn1Factories;
 import org.apache.kerby.asn1.Asn1FieldInfo;
 import org.apache.kerby.asn1.EnumType;
 import org.apache.kerby.asn1.ExplicitField;
@@ -148,9 +149,9 @@ public class AuthorizationDataEntry extends KrbSequenceType {
                 AuthorizationDataEntryField.AD_DATA);
         if (authzBytes != null) {
             try {
-                result = type.newInstance();
+                result = Asn1Factories.create(type);
                 result.decode(authzBytes);
-            } catch (InstantiationException | IllegalAccessException | IOException e) {
+            } catch (IllegalArgumentException | IOException e) {
                 LOG.error("Failed to get the AD_DATA field. " + e.toString());
             }
         }
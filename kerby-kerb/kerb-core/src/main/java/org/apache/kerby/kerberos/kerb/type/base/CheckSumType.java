@@ -73,6 +73,12 @@ public enum CheckSumType implements EnumType {
     /** Defined in RFC 6803, section 9 */
     CMAC_CAMELLIA256    (0x0012, "cmac-camellia256", "CMAC Camellia256 key"),
 
+    /** Defined in RFC 8009, section 8 */
+    HMAC_SHA256_128_AES128 (0x0013, "hmac-sha256-128-aes128", "HMAC-SHA256 AES128 key"),
+
+    /** Defined in RFC 8009, section 8 */
+    HMAC_SHA384_192_AES256 (0x0014, "hmac-sha384-192-aes256", "HMAC-SHA384 AES256 key"),
+
     //Microsoft netlogon cksumtype
     MD5_HMAC_ARCFOUR    (-137, "md5-hmac-rc4", "Microsoft MD5 HMAC"),
 
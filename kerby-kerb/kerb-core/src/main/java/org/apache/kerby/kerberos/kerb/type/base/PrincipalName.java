@@ -19,6 +19,7 @@
  */
 package org.apache.kerby.kerberos.kerb.type.base;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -26,7 +27,9 @@ import java.util.List;
 import org.apache.kerby.asn1.Asn1FieldInfo;
 import org.apache.kerby.asn1.EnumType;
 import org.apache.kerby.asn1.ExplicitField;
+import org.apache.kerby.asn1.parse.Asn1ParseResult;
 import org.apache.kerby.asn1.type.Asn1Integer;
+import org.apache.kerby.asn1.type.Asn1Type;
 import org.apache.kerby.kerberos.kerb.type.KerberosStrings;
 import org.apache.kerby.kerberos.kerb.type.KrbSequenceType;
 
@@ -92,6 +95,9 @@ public class PrincipalName extends KrbSequenceType {
     /** The PrincipalName's realm */
     private String realm;
 
+    /** The pooled String representation, built on demand */
+    private String name;
+
     /**
      * Creates a PrincipalName instance
      */
@@ -244,41 +250,37 @@ public class PrincipalName extends KrbSequenceType {
      */
     public void setRealm(String realm) {
         this.realm = realm;
+        this.name = null;
     }
 
     /**
      * @return A String representation of this PrincipalName, as primary [ '/' instance ]* [ '@' realm ]
      */
     public String getName() {
-        return makeSingleName();
+        if (name == null) {
+            name = PrincipalNamePool.getDefault().getName(getNameStrings(), realm);
+        }
+        return name;
     }
 
     /**
-     * Reconstruct the PrincipalName String from teh stored components
+     * {@inheritDoc}
      */
-    private String makeSingleName() {
-        List<String> names = getNameStrings();
-        StringBuilder sb = new StringBuilder();
-        boolean isFirst = true;
-        
-        for (String name : names) {
-            if (isFirst) {
-                isFirst = false;
-            } else {
-                sb.append('/');
-            }
-            
-            sb.append(name);
-        }
-
-        if (realm != null && !realm.isEmpty()) {
-            sb.append('@');
-            sb.append(realm);
-        }
+    @Override
+    protected void setFieldAs(EnumType index, Asn1Type value) {
+        name = null;
+        super.setFieldAs(index, value);
+    }
 
-        return sb.toString();
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decodeBody(Asn1ParseResult parseResult) throws IOException {
+        name = null;
+        super.decodeBody(parseResult);
     }
-    
+
     /**
      * Splits the given NameString into components (primary, instances and realm) :
      * primary [ / instance]* [ @ realm ]
@@ -296,7 +298,7 @@ public class PrincipalName extends KrbSequenceType {
         
         if (realmPos != -1) {
             nameParts = nameString.substring(0, realmPos);
-            realm = nameString.substring(realmPos + 1);
+            setRealm(nameString.substring(realmPos + 1));
         } else {
             nameParts = nameString;
         }
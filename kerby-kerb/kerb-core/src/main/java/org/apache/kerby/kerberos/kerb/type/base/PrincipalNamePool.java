@@ -0,0 +1,125 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.type.base;
+
+import java.util.List;
+
+/**
+ * A bounded pool of canonical principal name strings, as primary [ '/' instance ]*
+ * [ '@' realm ]. The KDC builds the same few names again and again to look up
+ * identities, so they're shared, along with their cached hash code, instead of
+ * being rebuilt per request.
+ *
+ * The pool is direct mapped by the hash of the name components and the realm,
+ * and a colliding name replaces the pooled one. Entries are immutable, so the
+ * pool is safe for concurrent use without locking: a racing update only loses
+ * an entry. The decoded components and realms are mostly shared strings
+ * already, so their hash codes are cached and the lookup compares by identity.
+ */
+public final class PrincipalNamePool {
+    private static final PrincipalNamePool DEFAULT = new PrincipalNamePool(1024);
+
+    private final Entry[] entries;
+    private final int mask;
+
+    /**
+     * @param size The number of entries, rounded up to a power of two
+     */
+    public PrincipalNamePool(int size) {
+        int capacity = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+        this.entries = new Entry[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @return The pool shared by principal names
+     */
+    public static PrincipalNamePool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Get the canonical name of the given components and realm.
+     * @param nameStrings The name components
+     * @param realm The realm, may be null or empty
+     * @return The pooled name
+     */
+    public String getName(List<String> nameStrings, String realm) {
+        int hash = realm != null ? realm.hashCode() : 0;
+        for (String nameString : nameStrings) {
+            hash = 31 * hash + (nameString != null ? nameString.hashCode() : 0);
+        }
+
+        int index = (hash ^ (hash >>> 16)) & mask;
+        Entry entry = entries[index];
+        if (entry != null && entry.matches(nameStrings, realm)) {
+            return entry.name;
+        }
+
+        entry = new Entry(nameStrings, realm);
+        entries[index] = entry;
+        return entry.name;
+    }
+
+    private static final class Entry {
+        private final String[] nameStrings;
+        private final String realm;
+        private final String name;
+
+        Entry(List<String> nameStrings, String realm) {
+            this.nameStrings = nameStrings.toArray(new String[nameStrings.size()]);
+            this.realm = realm;
+            this.name = makeName(this.nameStrings, realm);
+        }
+
+        boolean matches(List<String> names, String otherRealm) {
+            if (names.size() != nameStrings.length || !equal(realm, otherRealm)) {
+                return false;
+            }
+            for (int i = 0; i < nameStrings.length; i++) {
+                if (!equal(nameStrings[i], names.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean equal(String s1, String s2) {
+            return s1 == s2 || s1 != null && s1.equals(s2);
+        }
+
+        private static String makeName(String[] nameStrings, String realm) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < nameStrings.length; i++) {
+                if (i > 0) {
+                    sb.append('/');
+                }
+                sb.append(nameStrings[i]);
+            }
+
+            if (realm != null && !realm.isEmpty()) {
+                sb.append('@');
+                sb.append(realm);
+            }
+
+            return sb.toString();
+        }
+    }
+}
@@ -26,6 +26,8 @@ import org.apache.kerby.asn1.type.Asn1Integer;
 import org.apache.kerby.asn1.type.Asn1OctetString;
 import org.apache.kerby.kerberos.kerb.type.KrbSequenceType;
 
+import java.nio.ByteBuffer;
+
 /**
  * The PaData component as defined in RFC 4120 :
  * 
@@ -114,6 +116,14 @@ public class PaDataEntry extends KrbSequenceType {
         return getFieldAsOctets(PaDataEntryField.PADATA_VALUE);
     }
 
+    /**
+     * @return The data stored in this instance as a read-only buffer, not
+     * copied when decoded in lazy decoding mode
+     */
+    public ByteBuffer getPaDataValueBuffer() {
+        return getFieldAsOctetsBuffer(PaDataEntryField.PADATA_VALUE);
+    }
+
     /**
      * Sets some data in this instance
      *  
@@ -19,6 +19,9 @@
  */
 package org.apache.kerby.kerberos.kerb.codec;
 
+import org.apache.kerby.asn1.util.EncodingBuffer;
+import org.apache.kerby.kerberos.kerb.KrbCodec;
+import org.apache.kerby.kerberos.kerb.type.ap.ApReq;
 import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
 import org.apache.kerby.kerberos.kerb.type.base.KrbMessageType;
 import org.apache.kerby.kerberos.kerb.type.base.NameType;
@@ -30,7 +33,10 @@ import org.apache.kerby.kerberos.kerb.type.pa.PaDataEntry;
 import org.apache.kerby.kerberos.kerb.type.pa.PaDataType;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -89,4 +95,83 @@ public class TgsReqCodecTest {
         assertThat(eTypes.get(5).getValue()).isEqualTo(0x0018);
         //assertThat(eTypes.get(6).getValue()).isEqualTo(-135);//FIXME
     }
+
+    @Test
+    public void testLazyDecoding() throws IOException {
+        byte[] bytes = CodecTestUtil.readBinaryFile("/tgsreq.token");
+        TgsReq tgsReq = (TgsReq) KrbCodec.decodeMessage(ByteBuffer.wrap(bytes), true);
+
+        // Nothing touched, so the original bytes are copied verbatim
+        assertThat(tgsReq.encode()).isEqualTo(bytes);
+
+        KdcReqBody body = tgsReq.getReqBody();
+        assertThat(body.isLazyDecoding()).isTrue();
+        assertThat(body.getSname().getNameStrings()).contains("host", "xp1.denydc.com");
+        assertThat(tgsReq.getPaData().getElements()).hasSize(1);
+        assertThat(tgsReq.encode()).isEqualTo(bytes);
+    }
+
+    @Test
+    public void testEncodingToChannel() throws Exception {
+        byte[] bytes = CodecTestUtil.readBinaryFile("/tgsreq.token");
+        TgsReq tgsReq = new TgsReq();
+        tgsReq.decode(bytes);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int written = KrbCodec.encode(tgsReq, Channels.newChannel(out));
+        assertThat(written).isEqualTo(bytes.length);
+        assertThat(out.toByteArray()).isEqualTo(bytes);
+
+        // The pooled buffer is reused and grows for larger encodings
+        EncodingBuffer buffer = new EncodingBuffer(false);
+        ByteBuffer first = KrbCodec.encode(tgsReq, buffer);
+        assertThat(first.remaining()).isEqualTo(bytes.length);
+        ByteBuffer second = KrbCodec.encode(tgsReq, buffer);
+        assertThat(second).isSameAs(first);
+        byte[] encoded = new byte[second.remaining()];
+        second.get(encoded);
+        assertThat(encoded).isEqualTo(bytes);
+        assertThat(buffer.prepare(EncodingBuffer.INITIAL_CAPACITY * 3).capacity())
+            .isGreaterThanOrEqualTo(EncodingBuffer.INITIAL_CAPACITY * 3);
+    }
+
+    @Test
+    public void testSlicedOctetsAndSharedStrings() throws Exception {
+        byte[] bytes = CodecTestUtil.readBinaryFile("/tgsreq.token");
+        TgsReq tgsReq = (TgsReq) KrbCodec.decodeMessage(ByteBuffer.wrap(bytes), true);
+        TgsReq another = (TgsReq) KrbCodec.decodeMessage(ByteBuffer.wrap(bytes.clone()), true);
+
+        // Short ASCII strings are shared between decodings
+        assertThat(another.getReqBody().getRealm()).isSameAs(tgsReq.getReqBody().getRealm());
+
+        // The padata value is a read-only view into the message
+        PaDataEntry entry = tgsReq.getPaData().getElements().get(0);
+        ByteBuffer value = entry.getPaDataValueBuffer();
+        assertThat(value.isReadOnly()).isTrue();
+        ApReq apReq = KrbCodec.decode(value, ApReq.class);
+        assertThat(apReq.encode()).isEqualTo(entry.getPaDataValue());
+
+        assertThat(tgsReq.encode()).isEqualTo(bytes);
+    }
+
+    @Test
+    public void testPooledPrincipalNames() throws Exception {
+        byte[] bytes = CodecTestUtil.readBinaryFile("/tgsreq.token");
+        TgsReq tgsReq = (TgsReq) KrbCodec.decodeMessage(ByteBuffer.wrap(bytes), true);
+        TgsReq another = (TgsReq) KrbCodec.decodeMessage(ByteBuffer.wrap(bytes.clone()), true);
+
+        PrincipalName sName = tgsReq.getReqBody().getSname();
+        PrincipalName otherSName = another.getReqBody().getSname();
+        sName.setRealm(tgsReq.getReqBody().getRealm());
+        otherSName.setRealm(another.getReqBody().getRealm());
+
+        // The same principal decoded twice maps to one name instance
+        assertThat(otherSName.getName()).isSameAs(sName.getName());
+        assertThat(sName.getName()).isEqualTo("host/xp1.denydc.com@DENYDC.COM");
+
+        // Changing the realm yields another name
+        otherSName.setRealm("EXAMPLE.COM");
+        assertThat(otherSName.getName()).isEqualTo("host/xp1.denydc.com@EXAMPLE.COM");
+        assertThat(new PrincipalName("host/xp1.denydc.com@DENYDC.COM").getName()).isSameAs(sName.getName());
+    }
 }
@@ -19,10 +19,14 @@
  */
 package org.apache.kerby.kerberos.kerb.crypto;
 
+import org.apache.kerby.asn1.type.Asn1Type;
 import org.apache.kerby.kerberos.kerb.KrbErrorCode;
 import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.crypto.enc.AbstractEncTypeHandler;
 import org.apache.kerby.kerberos.kerb.crypto.enc.Aes128CtsHmacSha1Enc;
+import org.apache.kerby.kerberos.kerb.crypto.enc.Aes128CtsHmacSha256Enc;
 import org.apache.kerby.kerberos.kerb.crypto.enc.Aes256CtsHmacSha1Enc;
+import org.apache.kerby.kerberos.kerb.crypto.enc.Aes256CtsHmacSha384Enc;
 import org.apache.kerby.kerberos.kerb.crypto.enc.Camellia128CtsCmacEnc;
 import org.apache.kerby.kerberos.kerb.crypto.enc.Camellia256CtsCmacEnc;
 import org.apache.kerby.kerberos.kerb.crypto.enc.Des3CbcSha1Enc;
@@ -38,6 +42,8 @@ import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
 import org.apache.kerby.kerberos.kerb.type.base.KeyUsage;
 import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
 
+import java.io.IOException;
+
 /**
  * Encryption handler as the highest level API for encryption stuffs defined in
  * Kerberos RFC3961. It supports all the encryption types. New encryption type
@@ -136,6 +142,14 @@ public class EncryptionHandler {
                 encHandler = new Aes256CtsHmacSha1Enc();
                 break;
 
+            case AES128_CTS_HMAC_SHA256_128:
+                encHandler = new Aes128CtsHmacSha256Enc();
+                break;
+
+            case AES256_CTS_HMAC_SHA384_192:
+                encHandler = new Aes256CtsHmacSha384Enc();
+                break;
+
             case CAMELLIA128_CTS_CMAC:
             case CAMELLIA128_CTS:
                 encHandler = new Camellia128CtsCmacEnc();
@@ -184,7 +198,38 @@ public class EncryptionHandler {
                                         KeyUsage usage) throws KrbException {
         EncTypeHandler handler = getEncHandler(key.getKeyType());
         byte[] cipher = handler.encrypt(plainText, key.getKeyData(), usage.getValue());
+        return newEncryptedData(cipher, key);
+    }
+
+    /**
+     * Encrypt the encoding of a value with the encryption key and key usage.
+     *
+     * @param value The value to encode and encrypt
+     * @param key The encryption key
+     * @param usage The key usage
+     * @return The encrypted data
+     * @throws KrbException e
+     */
+    public static EncryptedData encrypt(Asn1Type value, EncryptionKey key,
+                                        KeyUsage usage) throws KrbException {
+        EncTypeHandler handler = getEncHandler(key.getKeyType());
+        byte[] cipher;
+        if (handler instanceof AbstractEncTypeHandler) {
+            cipher = ((AbstractEncTypeHandler) handler).encrypt(value,
+                key.getKeyData(), usage.getValue());
+        } else {
+            byte[] plainText;
+            try {
+                plainText = value.encode();
+            } catch (IOException e) {
+                throw new KrbException("Encoding failed", e);
+            }
+            cipher = handler.encrypt(plainText, key.getKeyData(), usage.getValue());
+        }
+        return newEncryptedData(cipher, key);
+    }
 
+    private static EncryptedData newEncryptedData(byte[] cipher, EncryptionKey key) {
         EncryptedData ed = new EncryptedData();
         ed.setCipher(cipher);
         ed.setEType(key.getKeyType());
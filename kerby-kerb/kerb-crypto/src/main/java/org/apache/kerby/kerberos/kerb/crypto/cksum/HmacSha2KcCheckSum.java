@@ -0,0 +1,45 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.crypto.cksum;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.crypto.enc.EncryptProvider;
+import org.apache.kerby.kerberos.kerb.crypto.key.AesSha2KeyMaker;
+import org.apache.kerby.kerberos.kerb.crypto.util.HmacSha2;
+
+/**
+ * HMAC-SHA2 checksum with a derived Kc key, ref. RFC 8009 section 5.
+ */
+public abstract class HmacSha2KcCheckSum extends AbstractKeyedCheckSumTypeHandler {
+
+    public HmacSha2KcCheckSum(EncryptProvider encProvider, HashProvider hashProvider,
+                              int computeSize, int outputSize) {
+        super(encProvider, hashProvider, computeSize, outputSize);
+    }
+
+    @Override
+    protected byte[] doChecksumWithKey(byte[] data, int start, int len,
+                                       byte[] key, int usage) throws KrbException {
+        AesSha2KeyMaker km = (AesSha2KeyMaker) keyMaker();
+        byte[] kc = km.dk(key, usage, (byte) 0x99, outputSize());
+
+        return HmacSha2.hmac(km.getMacAlgorithm(), kc, data, start, len);
+    }
+}
@@ -19,12 +19,16 @@
  */
 package org.apache.kerby.kerberos.kerb.crypto.enc;
 
+import org.apache.kerby.asn1.type.Asn1Type;
 import org.apache.kerby.kerberos.kerb.crypto.AbstractCryptoTypeHandler;
 import org.apache.kerby.kerberos.kerb.crypto.EncTypeHandler;
 import org.apache.kerby.kerberos.kerb.crypto.cksum.HashProvider;
 import org.apache.kerby.kerberos.kerb.crypto.key.KeyMaker;
 import org.apache.kerby.kerberos.kerb.KrbException;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
 public abstract class AbstractEncTypeHandler
         extends AbstractCryptoTypeHandler implements EncTypeHandler {
 
@@ -104,24 +108,55 @@ public abstract class AbstractEncTypeHandler
 
     @Override
     public byte[] encrypt(byte[] data, byte[] key, byte[] iv, int usage) throws KrbException {
-        int confounderLen = confounderSize();
-        int checksumLen = checksumSize();
-        int headerLen = confounderLen + checksumLen;
-        int inputLen = data.length;
-        int paddingLen = paddingLength(inputLen);
+        int headerLen = confounderSize() + checksumSize();
+        byte[] workBuffer = newWorkBuffer(data.length);
+        System.arraycopy(data, 0, workBuffer, headerLen, data.length);
+
+        return encryptWorkBuffer(workBuffer, data.length, key, iv, usage);
+    }
+
+    /**
+     * Encrypt the encoding of a value, encoding it in place in the cipher
+     * work buffer instead of into an intermediate array.
+     * @param value The value to encode and encrypt
+     * @param key The key
+     * @param usage The key usage
+     * @return The cipher
+     * @throws KrbException e
+     */
+    public byte[] encrypt(Asn1Type value, byte[] key, int usage) throws KrbException {
+        byte[] iv = new byte[encProvider().blockSize()];
+        return encrypt(value, key, iv, usage);
+    }
+
+    public byte[] encrypt(Asn1Type value, byte[] key, byte[] iv, int usage) throws KrbException {
+        int headerLen = confounderSize() + checksumSize();
+        byte[] workBuffer;
+        int inputLen;
+        try {
+            inputLen = value.encodingLength();
+            workBuffer = newWorkBuffer(inputLen);
+            value.encode(ByteBuffer.wrap(workBuffer, headerLen, inputLen));
+        } catch (IOException e) {
+            throw new KrbException("Encoding failed", e);
+        }
+
+        return encryptWorkBuffer(workBuffer, inputLen, key, iv, usage);
+    }
 
+    private byte[] newWorkBuffer(int inputLen) {
         /**
          *  E(Confounder | Checksum | Plaintext | Padding), or
          *  header | data | padding | trailer, where trailer may be absent
          */
+        int headerLen = confounderSize() + checksumSize();
+        return new byte[headerLen + inputLen + paddingLength(inputLen)];
+    }
 
-        int workLength = headerLen + inputLen + paddingLen;
-
-        byte[] workBuffer = new byte[workLength];
-        System.arraycopy(data, 0, workBuffer, headerLen, data.length);
-
-        int[] workLens = new int[] {confounderLen, checksumLen,
-                inputLen, paddingLen};
+    private byte[] encryptWorkBuffer(byte[] workBuffer, int inputLen, byte[] key,
+                                     byte[] iv, int usage) throws KrbException {
+        int[] workLens = new int[] {confounderSize(), checksumSize(),
+                inputLen, paddingLength(inputLen)};
 
         encryptWith(workBuffer, workLens, key, iv, usage, false);
         return workBuffer;
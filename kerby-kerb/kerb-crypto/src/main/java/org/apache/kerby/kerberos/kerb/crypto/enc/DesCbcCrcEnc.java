@@ -19,6 +19,7 @@
  */
 package org.apache.kerby.kerberos.kerb.crypto.enc;
 
+import org.apache.kerby.asn1.type.Asn1Type;
 import org.apache.kerby.kerberos.kerb.crypto.cksum.provider.Crc32Provider;
 import org.apache.kerby.kerberos.kerb.KrbException;
 import org.apache.kerby.kerberos.kerb.type.base.CheckSumType;
@@ -45,6 +46,13 @@ public class DesCbcCrcEnc extends DesCbcEnc {
         return encrypt(data, key, iv, usage);
     }
 
+    @Override
+    public byte[] encrypt(Asn1Type value, byte[] key, int usage) throws KrbException {
+        byte[] iv = new byte[encProvider().blockSize()];
+        System.arraycopy(key, 0, iv, 0, key.length);
+        return encrypt(value, key, iv, usage);
+    }
+
     @Override
     public byte[] decrypt(byte[] cipher, byte[] key, int usage)
             throws KrbException {
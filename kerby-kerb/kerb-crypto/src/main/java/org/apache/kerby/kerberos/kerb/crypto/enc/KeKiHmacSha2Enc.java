@@ -0,0 +1,131 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.crypto.enc;
+
+import org.apache.kerby.kerberos.kerb.KrbErrorCode;
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.crypto.cksum.HashProvider;
+import org.apache.kerby.kerberos.kerb.crypto.key.AesSha2KeyMaker;
+import org.apache.kerby.kerberos.kerb.crypto.util.Confounder;
+import org.apache.kerby.kerberos.kerb.crypto.util.HmacSha2;
+
+import javax.crypto.Mac;
+
+/**
+ * The AES-SHA2 encryption types, ref. RFC 8009 section 5. Unlike RFC 3962
+ * the HMAC is computed over the cipher state and the ciphertext.
+ */
+public abstract class KeKiHmacSha2Enc extends AbstractEncTypeHandler {
+
+    public KeKiHmacSha2Enc(EncryptProvider encProvider,
+                           HashProvider hashProvider, int prfSize) {
+        super(encProvider, hashProvider, prfSize);
+    }
+
+    @Override
+    public int paddingSize() {
+        return 0;
+    }
+
+    @Override
+    protected int paddingLength(int inputLen) {
+        return 0;
+    }
+
+    @Override
+    public byte[] prf(byte[] key, byte[] seed) throws KrbException {
+        return keyMaker().prf(key, seed, prfSize());
+    }
+
+    @Override
+    protected AesSha2KeyMaker keyMaker() {
+        return (AesSha2KeyMaker) super.keyMaker();
+    }
+
+    @Override
+    protected void encryptWith(byte[] workBuffer, int[] workLens,
+                               byte[] key, byte[] iv, int usage, boolean raw) throws KrbException {
+        int confounderLen = workLens[0];
+        int checksumLen = workLens[1];
+        int inputLen = workLens[2];
+
+        byte[] ke = keyMaker().dk(key, usage, (byte) 0xaa, keySize());
+
+        if (raw) {
+            encProvider().encrypt(ke, iv, workBuffer);
+            return;
+        }
+
+        byte[] ki = keyMaker().dk(key, usage, (byte) 0x55, checksumLen);
+
+        /**
+         * C = E(Ke, Confounder | Plaintext, IV), H = HMAC(Ki, IV | C),
+         * and the result is C | H.
+         */
+        byte[] tmpEnc = new byte[confounderLen + inputLen];
+        byte[] confounder = Confounder.makeBytes(confounderLen);
+        System.arraycopy(confounder, 0, tmpEnc, 0, confounderLen);
+        System.arraycopy(workBuffer, confounderLen + checksumLen,
+                tmpEnc, confounderLen, inputLen);
+
+        Mac mac = HmacSha2.getMac(keyMaker().getMacAlgorithm(), ki);
+        mac.update(iv);
+        encProvider().encrypt(ke, iv, tmpEnc);
+        mac.update(tmpEnc);
+        byte[] checksum = mac.doFinal();
+
+        System.arraycopy(tmpEnc, 0, workBuffer, 0, tmpEnc.length);
+        System.arraycopy(checksum, 0, workBuffer, tmpEnc.length, checksumLen);
+    }
+
+    @Override
+    protected byte[] decryptWith(byte[] workBuffer, int[] workLens,
+                                 byte[] key, byte[] iv, int usage, boolean raw) throws KrbException {
+        int confounderLen = workLens[0];
+        int checksumLen = workLens[1];
+        int dataLen = workLens[2];
+
+        byte[] ke = keyMaker().dk(key, usage, (byte) 0xaa, keySize());
+
+        byte[] tmpEnc = new byte[confounderLen + dataLen];
+        System.arraycopy(workBuffer, 0, tmpEnc, 0, confounderLen + dataLen);
+        if (raw) {
+            encProvider().decrypt(ke, iv, tmpEnc);
+            return tmpEnc;
+        }
+
+        // verify the checksum before spending time on decryption
+        byte[] ki = keyMaker().dk(key, usage, (byte) 0x55, checksumLen);
+        Mac mac = HmacSha2.getMac(keyMaker().getMacAlgorithm(), ki);
+        mac.update(iv);
+        mac.update(tmpEnc);
+        byte[] newChecksum = mac.doFinal();
+
+        if (!checksumEqual(newChecksum, workBuffer, confounderLen + dataLen, checksumLen)) {
+            throw new KrbException(KrbErrorCode.KRB_AP_ERR_BAD_INTEGRITY);
+        }
+
+        encProvider().decrypt(ke, iv, tmpEnc);
+
+        byte[] data = new byte[dataLen];
+        System.arraycopy(tmpEnc, confounderLen, data, 0, dataLen);
+        return data;
+    }
+}
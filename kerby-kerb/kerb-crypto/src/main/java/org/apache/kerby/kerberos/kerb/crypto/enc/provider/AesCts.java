@@ -0,0 +1,152 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.crypto.enc.provider;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+
+/**
+ * AES in CBC mode with ciphertext stealing, as defined by RFC 3962.
+ *
+ * The mode is built on a per-thread cached "AES/CBC/NoPadding" cipher, so it
+ * works with the default JCE provider and benefits from the intrinsified AES
+ * CBC implementation of the JVM. The last two ciphertext blocks are swapped
+ * even when the input is a multiple of the block size, and the cipher state
+ * is updated to the next-to-last ciphertext block.
+ */
+public final class AesCts {
+    private static final int BLOCK_SIZE = 16;
+
+    private static final ThreadLocal<Cipher> CBC_CIPHER = new ThreadLocal<>();
+
+    private AesCts() { }
+
+    /**
+     * Encrypt data in place.
+     * @param key The AES key
+     * @param cipherState The initial vector, updated on return
+     * @param data The data, at least one block long
+     * @throws KrbException e
+     */
+    public static void encrypt(byte[] key, byte[] cipherState,
+                               byte[] data) throws KrbException {
+        checkLength(data);
+
+        int blocksNum = (data.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int lastBlockLen = data.length - (blocksNum - 1) * BLOCK_SIZE;
+        Cipher cipher = getCipher(key, cipherState, Cipher.ENCRYPT_MODE);
+
+        try {
+            if (blocksNum == 1) {
+                cipher.doFinal(data, 0, BLOCK_SIZE, data, 0);
+                System.arraycopy(data, 0, cipherState, 0, BLOCK_SIZE);
+                return;
+            }
+
+            // CBC over the zero padded input yields C1 .. Cn-1, Cn
+            byte[] work = new byte[blocksNum * BLOCK_SIZE];
+            System.arraycopy(data, 0, work, 0, data.length);
+            cipher.doFinal(work, 0, work.length, work, 0);
+
+            // Output C1 .. Cn-2, Cn, truncated Cn-1
+            int offset = (blocksNum - 2) * BLOCK_SIZE;
+            System.arraycopy(work, 0, data, 0, offset);
+            System.arraycopy(work, offset + BLOCK_SIZE, data, offset, BLOCK_SIZE);
+            System.arraycopy(work, offset, data, offset + BLOCK_SIZE, lastBlockLen);
+            System.arraycopy(data, offset, cipherState, 0, BLOCK_SIZE);
+        } catch (GeneralSecurityException e) {
+            throw new KrbException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decrypt data in place.
+     * @param key The AES key
+     * @param cipherState The initial vector, updated on return
+     * @param data The data, at least one block long
+     * @throws KrbException e
+     */
+    public static void decrypt(byte[] key, byte[] cipherState,
+                               byte[] data) throws KrbException {
+        checkLength(data);
+
+        int blocksNum = (data.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int lastBlockLen = data.length - (blocksNum - 1) * BLOCK_SIZE;
+
+        try {
+            if (blocksNum == 1) {
+                Cipher cipher = getCipher(key, cipherState, Cipher.DECRYPT_MODE);
+                byte[] nextState = new byte[BLOCK_SIZE];
+                System.arraycopy(data, 0, nextState, 0, BLOCK_SIZE);
+                cipher.doFinal(data, 0, BLOCK_SIZE, data, 0);
+                System.arraycopy(nextState, 0, cipherState, 0, BLOCK_SIZE);
+                return;
+            }
+
+            int offset = (blocksNum - 2) * BLOCK_SIZE;
+
+            // Dn = D(Cn) = Pn | 0 xor Cn-1, so the tail of Dn completes Cn-1
+            byte[] lastBlocks = new byte[2 * BLOCK_SIZE];
+            Cipher cipher = getCipher(key, new byte[BLOCK_SIZE], Cipher.DECRYPT_MODE);
+            cipher.doFinal(data, offset, BLOCK_SIZE, lastBlocks, 0);
+            System.arraycopy(data, offset + BLOCK_SIZE, lastBlocks, 0, lastBlockLen);
+            System.arraycopy(data, offset, lastBlocks, BLOCK_SIZE, BLOCK_SIZE);
+
+            // Plain CBC over C1 .. Cn-2, Cn-1, Cn now yields P1 .. Pn | 0
+            byte[] work = new byte[blocksNum * BLOCK_SIZE];
+            System.arraycopy(data, 0, work, 0, offset);
+            System.arraycopy(lastBlocks, 0, work, offset, 2 * BLOCK_SIZE);
+
+            cipher = getCipher(key, cipherState, Cipher.DECRYPT_MODE);
+            cipher.doFinal(work, 0, work.length, work, 0);
+
+            System.arraycopy(lastBlocks, BLOCK_SIZE, cipherState, 0, BLOCK_SIZE);
+            System.arraycopy(work, 0, data, 0, data.length);
+        } catch (GeneralSecurityException e) {
+            throw new KrbException(e.getMessage(), e);
+        }
+    }
+
+    private static void checkLength(byte[] data) throws KrbException {
+        if (data.length < BLOCK_SIZE) {
+            throw new KrbException("Data should be at least one block: "
+                    + data.length);
+        }
+    }
+
+    private static Cipher getCipher(byte[] key, byte[] iv,
+                                    int mode) throws KrbException {
+        Cipher cipher = CBC_CIPHER.get();
+        try {
+            if (cipher == null) {
+                cipher = Cipher.getInstance("AES/CBC/NoPadding");
+                CBC_CIPHER.set(cipher);
+            }
+            cipher.init(mode, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+        } catch (GeneralSecurityException e) {
+            throw new KrbException("Failed to init AES cipher. " + e.getMessage(), e);
+        }
+        return cipher;
+    }
+}
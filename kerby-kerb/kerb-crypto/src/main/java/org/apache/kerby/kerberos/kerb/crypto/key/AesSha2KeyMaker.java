@@ -0,0 +1,104 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.crypto.key;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.crypto.enc.provider.AesProvider;
+import org.apache.kerby.kerberos.kerb.crypto.util.BytesUtil;
+import org.apache.kerby.kerberos.kerb.crypto.util.HmacSha2;
+import org.apache.kerby.kerberos.kerb.crypto.util.Pbkdf;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * Key maker for the AES-SHA2 encryption types, ref. RFC 8009.
+ */
+public class AesSha2KeyMaker extends AbstractKeyMaker {
+
+    private static final byte[] PRF_CONSTANT = "prf".getBytes(StandardCharsets.UTF_8);
+
+    public AesSha2KeyMaker(AesProvider encProvider) {
+        super(encProvider);
+    }
+
+    @Override
+    public byte[] random2Key(byte[] randomBits) throws KrbException {
+        return randomBits;
+    }
+
+    @Override
+    public byte[] str2key(String string, String salt, byte[] param) throws KrbException {
+        int iterCount = getIterCount(param, 32768);
+
+        byte[] saltBytes = getSaltBytes(salt, getPepper());
+
+        int keySize = encProvider().keySize();
+        byte[] random;
+        try {
+            random = Pbkdf.pbkdf2(string.toCharArray(), saltBytes,
+                    iterCount, keySize, getPbkdfAlgorithm());
+        } catch (GeneralSecurityException e) {
+            throw new KrbException("pbkdf2 failed", e);
+        }
+
+        byte[] tmpKey = random2Key(random);
+        return HmacSha2.kdf(getMacAlgorithm(), tmpKey, KERBEROS_CONSTANT,
+                null, keySize * 8);
+    }
+
+    /**
+     * Derive a key for the usage and the key type, which is 0x99 for Kc,
+     * 0xAA for Ke and 0x55 for Ki.
+     * @param key The base key
+     * @param usage The key usage
+     * @param keyType The derived key type octet
+     * @param keySize The derived key size in bytes
+     * @return The derived key
+     * @throws KrbException e
+     */
+    public byte[] dk(byte[] key, int usage, byte keyType,
+                     int keySize) throws KrbException {
+        byte[] constant = new byte[5];
+        BytesUtil.int2bytes(usage, constant, 0, true);
+        constant[4] = keyType;
+        return HmacSha2.kdf(getMacAlgorithm(), key, constant, null, keySize * 8);
+    }
+
+    public byte[] prf(byte[] key, byte[] seed, int prfSize) throws KrbException {
+        return HmacSha2.kdf(getMacAlgorithm(), key, PRF_CONSTANT, seed, prfSize * 8);
+    }
+
+    public String getMacAlgorithm() {
+        return isAes128() ? HmacSha2.HMAC_SHA256 : HmacSha2.HMAC_SHA384;
+    }
+
+    private String getPbkdfAlgorithm() {
+        return isAes128() ? "PBKDF2WithHmacSHA256" : "PBKDF2WithHmacSHA384";
+    }
+
+    private String getPepper() {
+        return isAes128() ? "aes128-cts-hmac-sha256-128" : "aes256-cts-hmac-sha384-192";
+    }
+
+    private boolean isAes128() {
+        return encProvider().keySize() == 16;
+    }
+}
@@ -22,6 +22,7 @@ package org.apache.kerby.kerberos.kerb.crypto.random;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -30,6 +31,7 @@ import java.nio.file.Paths;
 
 /**
  * use "/dev/urandom", which is on linux, to implement RandomProvider, so it should be used on linux.
+ * The file is read through a buffer, so small requests don't each cost a system call.
  */
 public class NativeRandom implements RandomProvider {
     private static final Logger LOG = LoggerFactory
@@ -41,9 +43,9 @@ public class NativeRandom implements RandomProvider {
     @Override
     public void init() {
         try {
-            input = Files.newInputStream(Paths.get(randFile));
+            input = new BufferedInputStream(Files.newInputStream(Paths.get(randFile)));
         } catch (IOException e) {
-            LOG.error("Failed to init from file: " + randFile + ". " + e.toString());
+            throw new IllegalStateException("Failed to init from file: " + randFile, e);
         }
     }
 
@@ -68,13 +70,19 @@ public class NativeRandom implements RandomProvider {
     }
 
     @Override
-    public void nextBytes(byte[] bytes) {
+    public synchronized void nextBytes(byte[] bytes) {
         try {
-            if (input.read(bytes) == -1) {
-                throw new IOException();
+            int offset = 0;
+            while (offset < bytes.length) {
+                int read = input.read(bytes, offset, bytes.length - offset);
+                if (read == -1) {
+                    throw new IOException("Unexpected end of " + randFile);
+                }
+                offset += read;
             }
         } catch (IOException e) {
-            LOG.error("Failed to read nextBytes. " + e.toString());
+            // Never hand out bytes that weren't filled
+            throw new IllegalStateException("Failed to read nextBytes from " + randFile, e);
         }
     }
 
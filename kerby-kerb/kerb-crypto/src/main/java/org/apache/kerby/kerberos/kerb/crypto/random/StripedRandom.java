@@ -0,0 +1,152 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.crypto.random;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * A {@link RandomProvider} for many concurrent callers, like a KDC issuing
+ * session keys or a client making confounders.
+ *
+ * Instead of one shared SecureRandom, whose monitor every thread contends
+ * on, the provider keeps a number of stripes and a thread always uses the
+ * same stripe. Each stripe is a hash based DRBG that seeds itself from the
+ * system, mixes in a seed from a block source and serves small requests
+ * from its own buffer, so most calls are a copy under an uncontended lock.
+ * A stripe mixes in a fresh seed from the block source after every
+ * {@link #RESEED_INTERVAL} bytes.
+ */
+public class StripedRandom implements RandomProvider {
+    private static final int BUFFER_SIZE = 512;
+    private static final int SEED_SIZE = 32;
+    private static final long RESEED_INTERVAL = 1024 * 1024;
+
+    private final RandomProvider seedSource;
+    private final Stripe[] stripes;
+
+    /**
+     * Use the JDK SecureRandom as the block source.
+     */
+    public StripedRandom() {
+        this(new JavaRandom());
+    }
+
+    /**
+     * @param seedSource The block source to seed and reseed the stripes
+     */
+    public StripedRandom(RandomProvider seedSource) {
+        this.seedSource = seedSource;
+
+        int num = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+        this.stripes = new Stripe[num];
+    }
+
+    @Override
+    public synchronized void init() {
+        seedSource.init();
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(seedSource);
+        }
+    }
+
+    /**
+     * Mix the seed into every stripe, supplementing rather than replacing
+     * the existing seeds.
+     */
+    @Override
+    public void setSeed(byte[] seed) {
+        for (Stripe stripe : stripes) {
+            stripe.setSeed(seed);
+        }
+    }
+
+    @Override
+    public void nextBytes(byte[] bytes) {
+        long id = Thread.currentThread().getId();
+        int index = (int) (id ^ (id >>> 16)) & (stripes.length - 1);
+        stripes[index].nextBytes(bytes);
+    }
+
+    @Override
+    public synchronized void destroy() {
+        seedSource.destroy();
+    }
+
+    private static final class Stripe {
+        private final RandomProvider seedSource;
+        private final SecureRandom drbg;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position = BUFFER_SIZE;
+        private long generated;
+
+        Stripe(RandomProvider seedSource) {
+            this.seedSource = seedSource;
+            try {
+                this.drbg = SecureRandom.getInstance("SHA1PRNG");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("No SHA1PRNG available", e);
+            }
+            // Output before any setSeed makes the DRBG seed itself from the
+            // system, so later seeds supplement that entropy instead of
+            // being the only entropy it has
+            drbg.nextBytes(buffer);
+            reseed();
+        }
+
+        synchronized void setSeed(byte[] seed) {
+            drbg.setSeed(seed);
+            position = BUFFER_SIZE;
+        }
+
+        synchronized void nextBytes(byte[] bytes) {
+            if (generated >= RESEED_INTERVAL) {
+                reseed();
+            }
+
+            if (bytes.length > BUFFER_SIZE) {
+                drbg.nextBytes(bytes);
+                generated += bytes.length;
+                return;
+            }
+
+            if (bytes.length > BUFFER_SIZE - position) {
+                drbg.nextBytes(buffer);
+                generated += BUFFER_SIZE;
+                position = 0;
+            }
+            System.arraycopy(buffer, position, bytes, 0, bytes.length);
+            // Never hand out the same bytes twice
+            Arrays.fill(buffer, position, position + bytes.length, (byte) 0);
+            position += bytes.length;
+        }
+
+        private void reseed() {
+            byte[] seed = new byte[SEED_SIZE];
+            synchronized (seedSource) {
+                seedSource.nextBytes(seed);
+            }
+            drbg.setSeed(seed);
+            position = BUFFER_SIZE;
+            generated = 0;
+        }
+    }
+}
@@ -19,15 +19,9 @@
  */
 package org.apache.kerby.kerberos.kerb.crypto.util;
 
-import java.security.SecureRandom;
-
 public final class Confounder {
 
-    private static SecureRandom instance = new SecureRandom();
-
     public static byte[] makeBytes(int size) {
-        byte[] data = new byte[size];
-        instance.nextBytes(data);
-        return data;
+        return Random.makeBytes(size);
     }
 }
@@ -0,0 +1,107 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.crypto.util;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HMAC-SHA2 on top of per-thread cached JCE Mac instances, and the
+ * KDF-HMAC-SHA2 key derivation function defined in RFC 8009 section 3.
+ */
+public final class HmacSha2 {
+    public static final String HMAC_SHA256 = "HmacSHA256";
+    public static final String HMAC_SHA384 = "HmacSHA384";
+
+    private static final ThreadLocal<Map<String, Mac>> MACS =
+            new ThreadLocal<Map<String, Mac>>() {
+                @Override
+                protected Map<String, Mac> initialValue() {
+                    return new HashMap<>();
+                }
+            };
+
+    private HmacSha2() { }
+
+    /**
+     * Get a Mac of this thread initialized with the key. The returned Mac
+     * should be used and finished before the next call on the same thread.
+     * @param algorithm The Mac algorithm, HmacSHA256 or HmacSHA384
+     * @param key The key
+     * @return The initialized Mac
+     * @throws KrbException e
+     */
+    public static Mac getMac(String algorithm, byte[] key) throws KrbException {
+        Map<String, Mac> macs = MACS.get();
+        Mac mac = macs.get(algorithm);
+        try {
+            if (mac == null) {
+                mac = Mac.getInstance(algorithm);
+                macs.put(algorithm, mac);
+            }
+            mac.init(new SecretKeySpec(key, algorithm));
+        } catch (GeneralSecurityException e) {
+            throw new KrbException("Failed to init " + algorithm, e);
+        }
+        return mac;
+    }
+
+    public static byte[] hmac(String algorithm, byte[] key, byte[] data,
+                              int start, int len) throws KrbException {
+        Mac mac = getMac(algorithm, key);
+        mac.update(data, start, len);
+        return mac.doFinal();
+    }
+
+    /*
+     * KDF-HMAC-SHA2(key, label, [context,] k):
+     * k-truncate(HMAC(key, 0x00000001 | label | 0x00 | [context |] k))
+     */
+    public static byte[] kdf(String algorithm, byte[] key, byte[] label,
+                             byte[] context, int bits) throws KrbException {
+        byte[] counter = new byte[4];
+        BytesUtil.int2bytes(1, counter, 0, true);
+        byte[] length = new byte[4];
+        BytesUtil.int2bytes(bits, length, 0, true);
+
+        Mac mac = getMac(algorithm, key);
+        mac.update(counter);
+        mac.update(label);
+        mac.update((byte) 0);
+        if (context != null) {
+            mac.update(context);
+        }
+        mac.update(length);
+        byte[] result = mac.doFinal();
+
+        int size = bits / 8;
+        if (size == result.length) {
+            return result;
+        }
+        byte[] output = new byte[size];
+        System.arraycopy(result, 0, output, 0, size);
+        return output;
+    }
+}
@@ -19,11 +19,16 @@
  */
 package org.apache.kerby.kerberos.kerb.crypto.util;
 
-import java.security.SecureRandom;
+import org.apache.kerby.kerberos.kerb.crypto.random.RandomProvider;
+import org.apache.kerby.kerberos.kerb.crypto.random.StripedRandom;
 
 public final class Random {
 
-    private static SecureRandom instance = new SecureRandom();
+    private static RandomProvider instance = new StripedRandom();
+
+    static {
+        instance.init();
+    }
 
     public static byte[] makeBytes(int size) {
         byte[] data = new byte[size];
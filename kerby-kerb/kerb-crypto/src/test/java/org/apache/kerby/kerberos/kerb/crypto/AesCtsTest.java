@@ -0,0 +1,101 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.crypto;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.crypto.enc.provider.AesCts;
+import org.apache.kerby.util.HexUtil;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * AES CTS test with the vectors from RFC 3962 appendix B.
+ */
+public class AesCtsTest {
+
+    /* All examples use the AES 128-bit key "chicken teriyaki" and a zero IV. */
+    static byte[] key = "chicken teriyaki".getBytes(StandardCharsets.US_ASCII);
+
+    /* Example inputs are this message truncated to 17, 31, 32, 47, 48 and 64 bytes. */
+    static String inputBytes = "4920776f756c64206c696b6520746865"
+            + "2047656e6572616c2047617527732043"
+            + "6869636b656e2c20706c656173652c20"
+            + "616e6420776f6e746f6e20736f75702e";
+
+    @Test
+    public void testAesCts() throws KrbException {
+        performTest(17,
+                "c6353568f2bf8cb4d8a580362da7ff7f97",
+                "c6353568f2bf8cb4d8a580362da7ff7f");
+
+        performTest(31,
+                "fc00783e0efdb2c1d445d4c8eff7ed22"
+                        + "97687268d6ecccc0c07b25e25ecfe5",
+                "fc00783e0efdb2c1d445d4c8eff7ed22");
+
+        performTest(32,
+                "39312523a78662d5be7fcbcc98ebf5a8"
+                        + "97687268d6ecccc0c07b25e25ecfe584",
+                "39312523a78662d5be7fcbcc98ebf5a8");
+
+        performTest(47,
+                "97687268d6ecccc0c07b25e25ecfe584"
+                        + "b3fffd940c16a18c1b5549d2f838029e"
+                        + "39312523a78662d5be7fcbcc98ebf5",
+                "b3fffd940c16a18c1b5549d2f838029e");
+
+        performTest(48,
+                "97687268d6ecccc0c07b25e25ecfe584"
+                        + "9dad8bbb96c4cdc03bc103e1a194bbd8"
+                        + "39312523a78662d5be7fcbcc98ebf5a8",
+                "9dad8bbb96c4cdc03bc103e1a194bbd8");
+
+        performTest(64,
+                "97687268d6ecccc0c07b25e25ecfe584"
+                        + "39312523a78662d5be7fcbcc98ebf5a8"
+                        + "4807efe836ee89a526730dbc2f7bc840"
+                        + "9dad8bbb96c4cdc03bc103e1a194bbd8",
+                "4807efe836ee89a526730dbc2f7bc840");
+    }
+
+    @Test(expected = KrbException.class)
+    public void testShortInput() throws KrbException {
+        AesCts.encrypt(key, new byte[16], new byte[15]);
+    }
+
+    private void performTest(int len, String output, String nextIv) throws KrbException {
+        byte[] plain = Arrays.copyOf(HexUtil.hex2bytes(inputBytes), len);
+
+        byte[] data = plain.clone();
+        byte[] iv = new byte[16];
+        AesCts.encrypt(key, iv, data);
+        assertThat(data).as("Encrypt " + len).isEqualTo(HexUtil.hex2bytes(output));
+        assertThat(iv).as("Encrypt IV " + len).isEqualTo(HexUtil.hex2bytes(nextIv));
+
+        iv = new byte[16];
+        AesCts.decrypt(key, iv, data);
+        assertThat(data).as("Decrypt " + len).isEqualTo(plain);
+        assertThat(iv).as("Decrypt IV " + len).isEqualTo(HexUtil.hex2bytes(nextIv));
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.crypto;
+
+import org.apache.kerby.kerberos.kerb.crypto.enc.provider.Aes128Provider;
+import org.apache.kerby.kerberos.kerb.crypto.enc.provider.Aes256Provider;
+import org.apache.kerby.kerberos.kerb.crypto.key.AesSha2KeyMaker;
+import org.apache.kerby.kerberos.kerb.type.base.CheckSum;
+import org.apache.kerby.kerberos.kerb.type.base.CheckSumType;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.apache.kerby.kerberos.kerb.type.base.KeyUsage;
+import org.apache.kerby.util.CryptoUtil;
+import org.apache.kerby.util.HexUtil;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * AES-SHA2 encryption types test with the vectors from RFC 8009 appendix A.
+ */
+public class AesSha2Test {
+
+    static String aes128Key = "3705D96080C17728A0E800EAB6E0D23C";
+
+    static String aes256Key = "6D404D37FAF79F9DF0D33568D320669800EB4836472EA8A026D16B7182460C52";
+
+    /* The salt is 16 random bytes, valid as UTF-8, followed by "ATHENA.MIT.EDUraeburn". */
+    static String salt = new String(HexUtil.hex2bytes("10DF9DD783E5BC8ACEA1730E74355F61"),
+            StandardCharsets.UTF_8) + "ATHENA.MIT.EDUraeburn";
+
+    /* Example plaintexts are this message truncated to 0, 6, 16 and 21 bytes. */
+    static String plainBytes = "000102030405060708090A0B0C0D0E0F1011121314";
+
+    @Test
+    public void testString2Key() throws Exception {
+        EncryptionKey key = EncryptionHandler.string2Key("password", salt,
+                HexUtil.hex2bytes("00008000"), EncryptionType.AES128_CTS_HMAC_SHA256_128);
+        assertThat(key.getKeyData()).isEqualTo(
+                HexUtil.hex2bytes("089BCA48B105EA6EA77CA5D2F39DC5E7"));
+
+        assumeTrue(CryptoUtil.isAES256Enabled());
+        key = EncryptionHandler.string2Key("password", salt,
+                HexUtil.hex2bytes("00008000"), EncryptionType.AES256_CTS_HMAC_SHA384_192);
+        assertThat(key.getKeyData()).isEqualTo(HexUtil.hex2bytes(
+                "45BD806DBF6A833A9CFFC1C94589A222367A79BC21C413718906E9F578A78467"));
+    }
+
+    @Test
+    public void testKeyDerivationAes128() throws Exception {
+        AesSha2KeyMaker km = new AesSha2KeyMaker(new Aes128Provider());
+        byte[] key = HexUtil.hex2bytes(aes128Key);
+
+        assertThat(km.dk(key, 2, (byte) 0x99, 16)).as("Kc")
+                .isEqualTo(HexUtil.hex2bytes("B31A018A48F54776F403E9A396325DC3"));
+        assertThat(km.dk(key, 2, (byte) 0xaa, 16)).as("Ke")
+                .isEqualTo(HexUtil.hex2bytes("9B197DD1E8C5609D6E67C3E37C62C72E"));
+        assertThat(km.dk(key, 2, (byte) 0x55, 16)).as("Ki")
+                .isEqualTo(HexUtil.hex2bytes("9FDA0E56AB2D85E1569A688696C26A6C"));
+    }
+
+    @Test
+    public void testKeyDerivationAes256() throws Exception {
+        assumeTrue(CryptoUtil.isAES256Enabled());
+
+        AesSha2KeyMaker km = new AesSha2KeyMaker(new Aes256Provider());
+        byte[] key = HexUtil.hex2bytes(aes256Key);
+
+        assertThat(km.dk(key, 2, (byte) 0x99, 24)).as("Kc")
+                .isEqualTo(HexUtil.hex2bytes("EF5718BE86CC84963D8BBB5031E9F5C4BA41F28FAF69E73D"));
+        assertThat(km.dk(key, 2, (byte) 0xaa, 32)).as("Ke")
+                .isEqualTo(HexUtil.hex2bytes("56AB22BEE63D82D7BC5227F6773F8EA7A5EB1C825160C38312980C442E5C7E49"));
+        assertThat(km.dk(key, 2, (byte) 0x55, 24)).as("Ki")
+                .isEqualTo(HexUtil.hex2bytes("69B16514E3CD8E56B82010D5C73012B622C4D00FFC23ED1F"));
+    }
+
+    @Test
+    public void testPrf() throws Exception {
+        byte[] seed = "test".getBytes(StandardCharsets.US_ASCII);
+
+        byte[] prf = EncryptionHandler.getEncHandler(EncryptionType.AES128_CTS_HMAC_SHA256_128)
+                .prf(HexUtil.hex2bytes(aes128Key), seed);
+        assertThat(prf).isEqualTo(HexUtil.hex2bytes(
+                "9D188616F63852FE86915BB840B4A886FF3E6BB0F819B49B893393D393854295"));
+
+        assumeTrue(CryptoUtil.isAES256Enabled());
+        prf = EncryptionHandler.getEncHandler(EncryptionType.AES256_CTS_HMAC_SHA384_192)
+                .prf(HexUtil.hex2bytes(aes256Key), seed);
+        assertThat(prf).isEqualTo(HexUtil.hex2bytes(
+                "9801F69A368C2BF675E59521E177D9A07F67EFE1CFDE8D3C8D6F6A0256E3B17D"
+                        + "B3C1B62AD1B8553360D17367EB1514D2"));
+    }
+
+    @Test
+    public void testChecksum() throws Exception {
+        byte[] data = HexUtil.hex2bytes(plainBytes);
+
+        CheckSum checkSum = CheckSumHandler.checksumWithKey(CheckSumType.HMAC_SHA256_128_AES128,
+                data, HexUtil.hex2bytes(aes128Key), KeyUsage.fromValue(2));
+        assertThat(checkSum.getChecksum()).isEqualTo(
+                HexUtil.hex2bytes("D78367186643D67B411CBA9139FC1DEE"));
+
+        assumeTrue(CryptoUtil.isAES256Enabled());
+        checkSum = CheckSumHandler.checksumWithKey(CheckSumType.HMAC_SHA384_192_AES256,
+                data, HexUtil.hex2bytes(aes256Key), KeyUsage.fromValue(2));
+        assertThat(checkSum.getChecksum()).isEqualTo(
+                HexUtil.hex2bytes("45EE791567EEFCA37F4AC1E0222DE80D43C3BFA06699672A"));
+    }
+
+    @Test
+    public void testDecryptAes128() throws Exception {
+        performDecrypt(EncryptionType.AES128_CTS_HMAC_SHA256_128, aes128Key, 0,
+                "EF85FB890BB8472F4DAB20394DCA781DAD877EDA39D50C870C0D5A0A8E48C718");
+        performDecrypt(EncryptionType.AES128_CTS_HMAC_SHA256_128, aes128Key, 6,
+                "84D7F30754ED987BAB0BF3506BEB09CFB55402CEF7E6877CE99E247E52D16ED4421DFDF8976C");
+        performDecrypt(EncryptionType.AES128_CTS_HMAC_SHA256_128, aes128Key, 16,
+                "3517D640F50DDC8AD3628722B3569D2AE07493FA8263254080EA65C1008E8FC2"
+                        + "95FB4852E7D83E1E7C48C37EEBE6B0D3");
+        performDecrypt(EncryptionType.AES128_CTS_HMAC_SHA256_128, aes128Key, 21,
+                "720F73B18D9859CD6CCB4346115CD336C70F58EDC0C4437C5573544C31C813BC"
+                        + "E1E6D072C186B39A413C2F92CA9B8334A287FFCBFC");
+    }
+
+    @Test
+    public void testDecryptAes256() throws Exception {
+        assumeTrue(CryptoUtil.isAES256Enabled());
+
+        performDecrypt(EncryptionType.AES256_CTS_HMAC_SHA384_192, aes256Key, 0,
+                "41F53FA5BFE7026D91FAF9BE959195A058707273A96A40F0A01960621AC61274"
+                        + "8B9BBFBE7EB4CE3C");
+        performDecrypt(EncryptionType.AES256_CTS_HMAC_SHA384_192, aes256Key, 6,
+                "4ED7B37C2BCAC8F74F23C1CF07E62BC7B75FB3F637B9F559C7F664F69EAB7B60"
+                        + "92237526EA0D1F61CB20D69D10F2");
+        performDecrypt(EncryptionType.AES256_CTS_HMAC_SHA384_192, aes256Key, 16,
+                "BC47FFEC7998EB91E8115CF8D19DAC4BBBE2E163E87DD37F49BECA92027764F6"
+                        + "8CF51F14D798C2273F35DF574D1F932E40C4FF255B36A266");
+        performDecrypt(EncryptionType.AES256_CTS_HMAC_SHA384_192, aes256Key, 21,
+                "40013E2DF58E8751957D2878BCD2D6FE101CCFD556CB1EAE79DB3C3EE86429F2"
+                        + "B2A602AC86FEF6ECB647D6295FAE077A1FEB517508D2C16B4192E01F62");
+    }
+
+    @Test
+    public void testEncryptDecrypt() throws Exception {
+        byte[] data = HexUtil.hex2bytes(plainBytes);
+        EncryptionKey key = EncryptionHandler.random2Key(EncryptionType.AES128_CTS_HMAC_SHA256_128);
+
+        byte[] cipher = EncryptionHandler.encrypt(data, key, KeyUsage.fromValue(3)).getCipher();
+        assertThat(cipher.length).isEqualTo(16 + data.length + 16);
+        assertThat(EncryptionHandler.decrypt(cipher, key, KeyUsage.fromValue(3))).isEqualTo(data);
+    }
+
+    private void performDecrypt(EncryptionType encType, String key, int len,
+                                String cipher) throws Exception {
+        byte[] plain = new byte[len];
+        System.arraycopy(HexUtil.hex2bytes(plainBytes), 0, plain, 0, len);
+
+        EncryptionKey encKey = new EncryptionKey(encType, HexUtil.hex2bytes(key));
+        byte[] decrypted = EncryptionHandler.decrypt(HexUtil.hex2bytes(cipher),
+                encKey, KeyUsage.fromValue(2));
+        assertThat(decrypted).as("Decrypt " + len + " bytes").isEqualTo(plain);
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.crypto;
+
+import org.apache.kerby.kerberos.kerb.crypto.random.JavaRandom;
+import org.apache.kerby.kerberos.kerb.crypto.random.RandomProvider;
+import org.apache.kerby.kerberos.kerb.crypto.random.StripedRandom;
+import org.apache.kerby.util.HexUtil;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StripedRandomTest {
+
+    @Test
+    public void testNextBytes() {
+        StripedRandom random = new StripedRandom(new JavaRandom());
+        random.init();
+
+        Set<String> seen = new HashSet<>();
+        // Cross the stripe buffer boundaries a few times
+        for (int size : new int[] {1, 16, 32, 511, 512, 513, 4096}) {
+            for (int i = 0; i < 100; i++) {
+                byte[] bytes = new byte[size];
+                random.nextBytes(bytes);
+                if (size >= 16) {
+                    assertThat(seen.add(HexUtil.bytesToHex(bytes))).isTrue();
+                }
+            }
+        }
+        random.destroy();
+    }
+
+    @Test
+    public void testConcurrentNextBytes() throws Exception {
+        final StripedRandom random = new StripedRandom(new JavaRandom());
+        random.init();
+
+        final Set<String> seen = Collections.synchronizedSet(new HashSet<String>());
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        byte[] bytes = new byte[16];
+                        random.nextBytes(bytes);
+                        seen.add(HexUtil.bytesToHex(bytes));
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(seen).hasSize(threads.length * 1000);
+        random.destroy();
+    }
+
+    @Test
+    public void testReseed() {
+        final AtomicInteger seeds = new AtomicInteger();
+        StripedRandom random = new StripedRandom(new JavaRandom() {
+            @Override
+            public void nextBytes(byte[] bytes) {
+                seeds.incrementAndGet();
+                super.nextBytes(bytes);
+            }
+        });
+        random.init();
+        int initialSeeds = seeds.get();
+
+        // One thread uses one stripe, generate past the 1MB reseed interval twice
+        byte[] bytes = new byte[4096];
+        for (int i = 0; i < 2 * 1024 * 1024 / bytes.length + 1; i++) {
+            random.nextBytes(bytes);
+        }
+        assertThat(seeds.get() - initialSeeds).isEqualTo(2);
+        random.destroy();
+    }
+
+    @Test
+    public void testBrokenSeedSource() {
+        RandomProvider zeros = new RandomProvider() {
+            @Override
+            public void init() {
+            }
+
+            @Override
+            public void setSeed(byte[] seed) {
+            }
+
+            @Override
+            public void nextBytes(byte[] bytes) {
+            }
+
+            @Override
+            public void destroy() {
+            }
+        };
+
+        // A seed source that hands out only zeros must not make the output predictable
+        StripedRandom random1 = new StripedRandom(zeros);
+        random1.init();
+        StripedRandom random2 = new StripedRandom(zeros);
+        random2.init();
+        byte[] bytes1 = new byte[32];
+        random1.nextBytes(bytes1);
+        byte[] bytes2 = new byte[32];
+        random2.nextBytes(bytes2);
+        assertThat(bytes1).isNotEqualTo(bytes2);
+    }
+}
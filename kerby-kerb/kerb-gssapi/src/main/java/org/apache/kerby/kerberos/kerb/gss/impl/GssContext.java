@@ -20,6 +20,7 @@
 package org.apache.kerby.kerberos.kerb.gss.impl;
 
 import com.sun.security.jgss.InquireType;
+import org.apache.kerby.asn1.parse.Asn1StreamParser;
 import org.apache.kerby.kerberos.kerb.KrbException;
 import org.apache.kerby.kerberos.kerb.gss.GssMechFactory;
 import org.apache.kerby.kerberos.kerb.gss.KerbyGssProvider;
@@ -46,6 +47,7 @@ import sun.security.jgss.spi.GSSCredentialSpi;
 import sun.security.jgss.spi.GSSNameSpi;
 
 import javax.security.auth.kerberos.KerberosTicket;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -355,14 +357,12 @@ public class GssContext implements GSSContextSpi {
      */
     private void verifyServerToken(InputStream is, int mechTokenSize)
             throws GSSException {
-        byte[] token;
         ApRep apRep;
         try {
             if (!(is.read() == MSG_AP_REP[0] && is.read() == MSG_AP_REP[1])) {
                 throw new GSSException(GSSException.FAILURE, -1, "Invalid ApRep message ID");
             }
-            token = new byte[mechTokenSize - MSG_AP_REP.length];
-            is.read(token);
+            ByteBuffer token = readToken(is, mechTokenSize - MSG_AP_REP.length);
             apRep = new ApRep();
             apRep.decode(token);
         } catch (IOException e) {
@@ -415,17 +415,27 @@ public class GssContext implements GSSContextSpi {
         return ret;
     }
 
+    /**
+     * Read the ASN1 encoded message of a token, which may arrive in pieces.
+     */
+    private static ByteBuffer readToken(InputStream is, int tokenSize) throws IOException {
+        ByteBuffer token = new Asn1StreamParser(tokenSize > 0
+            ? tokenSize : Asn1StreamParser.DEFAULT_MAX_LENGTH).read(is);
+        if (token == null) {
+            throw new EOFException("Token ended before the message");
+        }
+        return token;
+    }
+
     private byte[] verifyClientToken(GssAcceptCred acceptCred, InputStream is, int mechTokenSize)
             throws GSSException {
-        byte[] token;
         ApReq apReq;
         try {
             if (!(is.read() == MSG_AP_REQ[0] && is.read() == MSG_AP_REQ[1])) {
                 throw new GSSException(GSSException.FAILURE, -1, "Invalid ApReq message ID");
             }
 
-            token = new byte[mechTokenSize - MSG_AP_REQ.length];
-            is.read(token);
+            ByteBuffer token = readToken(is, mechTokenSize - MSG_AP_REQ.length);
             apReq = new ApReq();
             apReq.decode(token);
         } catch (IOException e) {
@@ -42,7 +42,9 @@ public final class BackendTestUtil {
 
     static final EncryptionType[] ENC_TYPES = new EncryptionType[]{
             EncryptionType.AES128_CTS,
-            EncryptionType.DES3_CBC_SHA1_KD
+            EncryptionType.DES3_CBC_SHA1_KD,
+            EncryptionType.AES128_CTS_HMAC_SHA256_128,
+            EncryptionType.AES256_CTS_HMAC_SHA384_192
     };
 
     public static void createManyIdentities(IdentityBackend backend,
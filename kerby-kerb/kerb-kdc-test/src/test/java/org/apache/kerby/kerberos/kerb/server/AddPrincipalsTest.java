@@ -0,0 +1,82 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.server;
+
+import org.apache.kerby.KOptions;
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.admin.kadmin.local.LocalKadminImpl;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Add a batch of principals, some of which already exist.
+ */
+public class AddPrincipalsTest extends KdcTestBase {
+
+    @Test
+    public void testAddPrincipals() throws Exception {
+        String user1 = "user1@" + TestKdcServer.KDC_REALM;
+        String user2 = "user2@" + TestKdcServer.KDC_REALM;
+        String service = "test-service2/" + getHostname() + "@" + TestKdcServer.KDC_REALM;
+
+        Map<String, String> principals = new LinkedHashMap<>();
+        principals.put(user1, "password1");
+        principals.put(getClientPrincipal(), "new password");
+        principals.put(service, null);
+        principals.put(getServerPrincipal(), null);
+        principals.put(user2, "password2");
+
+        LocalKadminImpl kadmin = (LocalKadminImpl) getKdcServer().getKadmin();
+        int size = kadmin.size();
+        Map<String, KrbException> failures = kadmin.addPrincipals(principals, new KOptions());
+
+        // The existing principals are reported and left as they were
+        assertThat(failures.keySet()).containsExactly(getClientPrincipal(), getServerPrincipal());
+        assertThat(failures.get(getClientPrincipal()).getMessage()).contains("already exists");
+        assertThat(kadmin.size()).isEqualTo(size + 3);
+        assertThat(getKrbClient().requestTgt(getClientPrincipal(), getClientPassword())).isNotNull();
+
+        // The others are added with their passwords or random keys
+        TgtTicket tgt = getKrbClient().requestTgt(user1, "password1");
+        assertThat(tgt).isNotNull();
+        assertThat(getKrbClient().requestTgt(user2, "password2")).isNotNull();
+        assertThat(kadmin.getPrincipal(service).getKeys()).isNotEmpty();
+        assertThat(getKrbClient().requestSgt(tgt, service).getSessionKey()).isNotNull();
+    }
+
+    @Test
+    public void testAllExisting() throws Exception {
+        Map<String, String> principals = new LinkedHashMap<>();
+        principals.put(getClientPrincipal(), getClientPassword());
+        principals.put(getServerPrincipal(), getServerPassword());
+
+        LocalKadminImpl kadmin = (LocalKadminImpl) getKdcServer().getKadmin();
+        int size = kadmin.size();
+        Map<String, KrbException> failures = kadmin.addPrincipals(principals, new KOptions());
+
+        assertThat(failures).hasSize(2);
+        assertThat(kadmin.size()).isEqualTo(size);
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.server;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.client.KrbAsyncClient;
+import org.apache.kerby.kerberos.kerb.client.KrbFuture;
+import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pipeline many asynchronous requests from one thread.
+ */
+public class AsyncClientKdcTest extends KdcTestBase {
+    private static final int REQUESTS = 20;
+
+    private KrbAsyncClient asyncClient;
+
+    @Override
+    protected boolean allowUdp() {
+        return false;
+    }
+
+    @Override
+    protected void setUpClient() throws Exception {
+        super.setUpClient();
+        asyncClient = new KrbAsyncClient(getKrbClient());
+        asyncClient.init();
+    }
+
+    @After
+    public void closeClient() {
+        asyncClient.close();
+    }
+
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        List<KrbFuture<TgtTicket>> tgts = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            tgts.add(asyncClient.requestTgtAsync(getClientPrincipal(), getClientPassword()));
+        }
+
+        List<KrbFuture<SgtTicket>> tkts = new ArrayList<>();
+        for (KrbFuture<TgtTicket> tgt : tgts) {
+            tkts.add(asyncClient.requestSgtAsync(tgt.getResult(), getServerPrincipal()));
+        }
+        for (KrbFuture<SgtTicket> tkt : tkts) {
+            assertThat(tkt.getResult().getSessionKey()).isNotNull();
+        }
+    }
+
+    @Test
+    public void testCallbacks() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(REQUESTS);
+        final AtomicInteger failures = new AtomicInteger();
+        final Set<String> threads = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        for (int i = 0; i < REQUESTS; i++) {
+            asyncClient.requestTgtAsync(getClientPrincipal(), getClientPassword())
+                .addCallback(new KrbFuture.Callback<TgtTicket>() {
+                    @Override
+                    public void onSuccess(TgtTicket result) {
+                        threads.add(Thread.currentThread().getName());
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(KrbException failure) {
+                        failures.incrementAndGet();
+                        latch.countDown();
+                    }
+                });
+        }
+
+        assertThat(latch.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(failures.get()).isZero();
+        // The replies are processed off the I/O thread
+        assertThat(threads).doesNotContain("krb-client-io");
+    }
+
+    @Test
+    public void testFailedRequest() throws Exception {
+        KrbFuture<TgtTicket> tgt = asyncClient.requestTgtAsync(getClientPrincipal(), "bad password");
+        try {
+            tgt.getResult();
+        } catch (KrbException e) {
+            assertThat(tgt.isDone()).isTrue();
+            return;
+        }
+        throw new AssertionError("Request with a bad password should fail");
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.server;
+
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fail over from a KDC that accepts connections but never replies, and skip
+ * it for the next requests.
+ */
+public class KdcFailoverTest extends KdcTestBase {
+    private static final int TIMEOUT = 2000;
+
+    private ServerSocket deadKdc;
+
+    @Override
+    protected void setUpClient() throws Exception {
+        int kdcPort = getKrbClient().getSetting().checkGetKdcTcpPort();
+
+        // The kernel accepts the connections into the backlog
+        deadKdc = new ServerSocket(0, 50, InetAddress.getByName("localhost"));
+
+        File krb5File = File.createTempFile("krb5-failover", ".conf");
+        krb5File.deleteOnExit();
+        try (Writer writer = new FileWriter(krb5File)) {
+            writer.write("[realms]\n  " + TestKdcServer.KDC_REALM + " = {\n"
+                + "    kdc = localhost:" + kdcPort + "\n  }\n");
+        }
+        getKrbClient().getKrbConfig().addKrb5Config(krb5File);
+
+        getKrbClient().setKdcHost("localhost:" + deadKdc.getLocalPort());
+        getKrbClient().setTimeout(TIMEOUT);
+        getKrbClient().init();
+    }
+
+    @After
+    public void closeDeadKdc() throws IOException {
+        deadKdc.close();
+    }
+
+    @Test
+    public void testFailover() throws Exception {
+        TgtTicket tgt = getKrbClient().requestTgt(getClientPrincipal(), getClientPassword());
+        assertThat(tgt).isNotNull();
+
+        long start = System.currentTimeMillis();
+        tgt = getKrbClient().requestTgt(getClientPrincipal(), getClientPassword());
+        assertThat(tgt).isNotNull();
+        assertThat(System.currentTimeMillis() - start).isLessThan(TIMEOUT);
+
+        assertThat(getKrbClient().requestSgt(tgt, getServerPrincipal())).isNotNull();
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.server;
+
+import org.apache.kerby.kerberos.kerb.type.base.KrbMessageType;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Relays TCP connections to a KDC, counting the connections and the
+ * requests by message type.
+ */
+public class KdcTcpRelay {
+    private final int port;
+    private final int kdcPort;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicIntegerArray requests = new AtomicIntegerArray(32);
+    private ServerSocket serverSocket;
+
+    /**
+     * @param port The port to listen on
+     * @param kdcPort The TCP port of the KDC
+     */
+    public KdcTcpRelay(int port, int kdcPort) {
+        this.port = port;
+        this.kdcPort = kdcPort;
+    }
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getByName("localhost"));
+        startDaemon(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Socket client = serverSocket.accept();
+                        connections.incrementAndGet();
+                        Socket kdc = new Socket("localhost", kdcPort);
+                        relayRequests(client, kdc);
+                        relay(kdc, client);
+                    }
+                } catch (IOException e) { //NOPMD
+                    // Stopped
+                }
+            }
+        });
+    }
+
+    public void stop() throws IOException {
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    public int getRequests(KrbMessageType type) {
+        return requests.get(type.getValue());
+    }
+
+    /**
+     * Relay the length prefixed requests, counting them by the application
+     * tag of the message.
+     */
+    private void relayRequests(final Socket from, final Socket to) throws IOException {
+        final DataInputStream in = new DataInputStream(from.getInputStream());
+        final DataOutputStream out = new DataOutputStream(to.getOutputStream());
+        startDaemon(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        byte[] message = new byte[in.readInt()];
+                        in.readFully(message);
+                        if (message.length > 0) {
+                            requests.incrementAndGet(message[0] & 0x1f);
+                        }
+                        out.writeInt(message.length);
+                        out.write(message);
+                        out.flush();
+                    }
+                } catch (IOException e) { //NOPMD
+                    // Closed
+                } finally {
+                    close(from, to);
+                }
+            }
+        });
+    }
+
+    private void relay(final Socket from, final Socket to) throws IOException {
+        final InputStream in = from.getInputStream();
+        final OutputStream out = to.getOutputStream();
+        startDaemon(new Runnable() {
+            @Override
+            public void run() {
+                byte[] buffer = new byte[4096];
+                try {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                    }
+                } catch (IOException e) { //NOPMD
+                    // Closed
+                } finally {
+                    close(from, to);
+                }
+            }
+        });
+    }
+
+    private static void close(Socket from, Socket to) {
+        try {
+            from.close();
+            to.close();
+        } catch (IOException e) { //NOPMD
+            // Closed
+        }
+    }
+
+    private static void startDaemon(Runnable runnable) {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
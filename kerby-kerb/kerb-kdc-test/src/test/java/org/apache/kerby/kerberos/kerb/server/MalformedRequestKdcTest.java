@@ -0,0 +1,107 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.server;
+
+import org.apache.kerby.kerberos.kerb.KrbCodec;
+import org.apache.kerby.kerberos.kerb.KrbErrorCode;
+import org.apache.kerby.kerberos.kerb.common.KrbUtil;
+import org.apache.kerby.kerberos.kerb.type.KerberosTime;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.apache.kerby.kerberos.kerb.type.base.KrbError;
+import org.apache.kerby.kerberos.kerb.type.base.KrbMessage;
+import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
+import org.apache.kerby.kerberos.kerb.type.kdc.KdcOptions;
+import org.apache.kerby.kerberos.kerb.type.kdc.KdcReqBody;
+import org.apache.kerby.kerberos.kerb.type.kdc.TgsReq;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Send a TGS-REQ whose body can't be decoded, the KDC should reply an error.
+ */
+public class MalformedRequestKdcTest extends KdcTestBase {
+
+    @Override
+    protected boolean allowUdp() {
+        return false;
+    }
+
+    @Test
+    public void testCorruptedTgsReqBody() throws Exception {
+        PrincipalName cname = new PrincipalName(getClientPrincipal());
+        KdcReqBody body = new KdcReqBody();
+        body.setKdcOptions(new KdcOptions());
+        body.setCname(cname);
+        body.setRealm(TestKdcServer.KDC_REALM);
+        body.setSname(KrbUtil.makeTgsPrincipal(TestKdcServer.KDC_REALM));
+        body.setTill(new KerberosTime(KerberosTime.now().getTime() + 3600 * 1000));
+        body.setNonce(1);
+        body.setEtypes(Collections.singletonList(EncryptionType.AES128_CTS_HMAC_SHA1_96));
+        TgsReq tgsReq = new TgsReq();
+        tgsReq.setReqBody(body);
+        byte[] request = KrbCodec.encode(tgsReq);
+
+        // Retag the name-type of the cname as [5], which the body decoding
+        // only runs into when the cname is read
+        byte[] cnameBytes = KrbCodec.encode(cname);
+        int offset = indexOf(request, cnameBytes);
+        assertThat(offset).isGreaterThan(0);
+        assertThat(request[offset + 2]).isEqualTo((byte) 0xa0);
+        request[offset + 2] = (byte) 0xa5;
+
+        Socket socket = new Socket("localhost", getKdcServer().getKdcTcpPort());
+        try {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(request.length);
+            out.write(request);
+            out.flush();
+
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            byte[] reply = new byte[in.readInt()];
+            in.readFully(reply);
+
+            KrbMessage message = KrbCodec.decodeMessage(ByteBuffer.wrap(reply));
+            assertThat(message).isInstanceOf(KrbError.class);
+            assertThat(((KrbError) message).getErrorCode()).isEqualTo(KrbErrorCode.KRB_ERR_GENERIC);
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target) {
+        for (int i = 0; i <= bytes.length - target.length; i++) {
+            boolean found = true;
+            for (int j = 0; j < target.length && found; j++) {
+                found = bytes[i + j] == target[j];
+            }
+            if (found) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.server;
+
+import org.apache.kerby.KOptions;
+import org.apache.kerby.kerberos.kerb.client.KrbClient;
+import org.apache.kerby.kerberos.kerb.client.KrbOption;
+import org.apache.kerby.kerberos.kerb.client.impl.DefaultInternalKrbClient;
+import org.apache.kerby.kerberos.kerb.client.impl.KdcConnectionPool;
+import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Share one client with pooled KDC connections between threads.
+ */
+public class PooledConnectionsKdcTest extends KdcTestBase {
+    private static final int THREADS = 8;
+    private static final int REQUESTS = 5;
+
+    @Override
+    protected boolean allowUdp() {
+        return false;
+    }
+
+    @Override
+    protected void setUpClient() throws Exception {
+        getKrbClient().setKdcConnectionPoolSize(THREADS);
+        getKrbClient().init();
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        final KrbClient client = getKrbClient();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        for (int j = 0; j < REQUESTS; j++) {
+                            TgtTicket tgt = client.requestTgt(getClientPrincipal(), getClientPassword());
+                            assertThat(tgt).isNotNull();
+                            SgtTicket tkt = client.requestSgt(tgt, getServerPrincipal());
+                            assertThat(tkt.getSessionKey()).isNotNull();
+                        }
+                        return REQUESTS;
+                    }
+                }));
+            }
+
+            for (Future<Integer> result : results) {
+                assertThat(result.get()).isEqualTo(REQUESTS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConnectionReused() throws Exception {
+        DefaultInternalKrbClient client = new DefaultInternalKrbClient(getKrbClient().getSetting());
+        client.init();
+        KdcConnectionPool pool = client.getConnectionPool();
+        InetSocketAddress kdcAddress = new InetSocketAddress(
+            getKdcServer().getKdcSetting().getKdcHost(), getKdcServer().getKdcTcpPort());
+
+        for (int i = 0; i < REQUESTS; i++) {
+            KOptions requestOptions = new KOptions();
+            requestOptions.add(KrbOption.CLIENT_PRINCIPAL, getClientPrincipal());
+            requestOptions.add(KrbOption.USE_PASSWD, true);
+            requestOptions.add(KrbOption.USER_PASSWD, getClientPassword());
+            assertThat(client.requestTgt(requestOptions)).isNotNull();
+        }
+
+        // One connection served all the requests
+        assertThat(pool.getIdleCount(kdcAddress)).isEqualTo(1);
+        assertThat(pool.getReusedCount()).isGreaterThanOrEqualTo(REQUESTS - 1);
+
+        client.close();
+        assertThat(pool.getIdleCount(kdcAddress)).isEqualTo(0);
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.server;
+
+import org.apache.kerby.KOptions;
+import org.apache.kerby.kerberos.kerb.client.KrbOption;
+import org.apache.kerby.kerberos.kerb.client.impl.DefaultInternalKrbClient;
+import org.apache.kerby.kerberos.kerb.client.impl.KdcConnectionPool;
+import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Send requests one after another on pooled UDP sockets.
+ */
+public class PooledUdpKdcTest extends KdcTestBase {
+    private static final int REQUESTS = 5;
+
+    @Override
+    protected boolean allowTcp() {
+        return false;
+    }
+
+    @Override
+    protected boolean allowUdp() {
+        return true;
+    }
+
+    @Override
+    protected void setUpClient() throws Exception {
+        getKrbClient().setKdcConnectionPoolSize(2);
+        getKrbClient().init();
+    }
+
+    @Test
+    public void testRequests() throws Exception {
+        for (int i = 0; i < REQUESTS; i++) {
+            TgtTicket tgt = getKrbClient().requestTgt(getClientPrincipal(), getClientPassword());
+            assertThat(tgt).isNotNull();
+            SgtTicket tkt = getKrbClient().requestSgt(tgt, getServerPrincipal());
+            assertThat(tkt.getSessionKey()).isNotNull();
+        }
+    }
+
+    @Test
+    public void testSocketReused() throws Exception {
+        DefaultInternalKrbClient client = new DefaultInternalKrbClient(getKrbClient().getSetting());
+        client.init();
+        KdcConnectionPool pool = client.getUdpPool();
+        InetSocketAddress kdcAddress = new InetSocketAddress(
+            getKdcServer().getKdcSetting().getKdcHost(), getKdcServer().getKdcUdpPort());
+
+        for (int i = 0; i < REQUESTS; i++) {
+            KOptions requestOptions = new KOptions();
+            requestOptions.add(KrbOption.CLIENT_PRINCIPAL, getClientPrincipal());
+            requestOptions.add(KrbOption.USE_PASSWD, true);
+            requestOptions.add(KrbOption.USER_PASSWD, getClientPassword());
+            assertThat(client.requestTgt(requestOptions)).isNotNull();
+        }
+
+        // One socket served all the requests
+        assertThat(pool.getIdleCount(kdcAddress)).isEqualTo(1);
+        assertThat(pool.getReusedCount()).isGreaterThanOrEqualTo(REQUESTS - 1);
+
+        client.close();
+        assertThat(pool.getIdleCount(kdcAddress)).isEqualTo(0);
+    }
+}
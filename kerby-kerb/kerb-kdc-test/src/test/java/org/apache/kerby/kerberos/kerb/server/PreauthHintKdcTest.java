@@ -0,0 +1,123 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.server;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.client.KrbConfigKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.apache.kerby.kerberos.kerb.type.base.KrbMessageType;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.apache.kerby.util.CryptoUtil;
+import org.apache.kerby.util.NetworkUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Send preauth data on the first request, falling back on errors.
+ */
+public class PreauthHintKdcTest extends KdcTestBase {
+    private KdcTcpRelay relay;
+
+    @Override
+    protected boolean allowUdp() {
+        return false;
+    }
+
+    @Override
+    protected void setUpClient() throws Exception {
+        // The KDC has no AES256 keys, so trying it first fails
+        getKrbClient().getKrbConfig().setString(KrbConfigKey.PERMITTED_ENCTYPES,
+            "aes256-cts-hmac-sha1-96 aes128-cts-hmac-sha1-96");
+
+        // Count the requests reaching the KDC
+        relay = new KdcTcpRelay(NetworkUtil.getServerPort(), getKdcServer().getKdcTcpPort());
+        relay.start();
+        getKrbClient().setKdcTcpPort(relay.getPort());
+        getKrbClient().init();
+    }
+
+    @After
+    public void stopRelay() throws IOException {
+        relay.stop();
+    }
+
+    @Test
+    public void testRoundTrips() throws Exception {
+        // Don't send preauth data unasked without a hint
+        getKrbClient().getKrbConfig().setBoolean(KrbConfigKey.PREAUTH_REQUIRED, false);
+
+        // Without a hint the KDC asks for preauth first
+        TgtTicket tgt = getKrbClient().requestTgt(getClientPrincipal(), getClientPassword());
+        assertThat(tgt.getSessionKey()).isNotNull();
+        assertThat(relay.getRequests(KrbMessageType.AS_REQ)).isEqualTo(2);
+
+        // With the hint the preauth data is sent right away
+        tgt = getKrbClient().requestTgt(getClientPrincipal(), getClientPassword());
+        assertThat(tgt.getSessionKey()).isNotNull();
+        assertThat(relay.getRequests(KrbMessageType.AS_REQ)).isEqualTo(3);
+    }
+
+    @Test
+    public void testUnsupportedKeyType() throws Exception {
+        assumeTrue(CryptoUtil.isAES256Enabled());
+
+        // AES256 is rejected, then the KDC asks for preauth with its key type
+        TgtTicket tgt = getKrbClient().requestTgt(getClientPrincipal(), getClientPassword());
+        assertThat(tgt.getSessionKey().getKeyType()).isEqualTo(EncryptionType.AES128_CTS_HMAC_SHA1_96);
+        assertThat(relay.getRequests(KrbMessageType.AS_REQ)).isEqualTo(3);
+
+        // Again with the hint
+        tgt = getKrbClient().requestTgt(getClientPrincipal(), getClientPassword());
+        assertThat(tgt.getSessionKey()).isNotNull();
+        assertThat(relay.getRequests(KrbMessageType.AS_REQ)).isEqualTo(4);
+    }
+
+    @Test
+    public void testKeytabKeyTypes() throws Exception {
+        File keytabFile = new File(getTestDir(), "test-client.keytab");
+        getKdcServer().exportPrincipal(getClientPrincipal(), keytabFile);
+        try {
+            TgtTicket tgt = getKrbClient().requestTgt(getClientPrincipal(), keytabFile);
+            assertThat(tgt.getSessionKey()).isNotNull();
+        } finally {
+            keytabFile.delete();
+        }
+    }
+
+    @Test
+    public void testWrongPasswordAfterHint() throws Exception {
+        assertThat(getKrbClient().requestTgt(getClientPrincipal(), getClientPassword())).isNotNull();
+
+        try {
+            getKrbClient().requestTgt(getClientPrincipal(), "bad password");
+            throw new AssertionError("Request with a bad password should fail");
+        } catch (KrbException e) {
+            assertThat(e.getKrbErrorCode()).isNotNull();
+        }
+
+        assertThat(getKrbClient().requestTgt(getClientPrincipal(), getClientPassword())).isNotNull();
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.server;
+
+import org.apache.kerby.kerberos.kerb.KrbCodec;
+import org.apache.kerby.kerberos.kerb.KrbErrorCode;
+import org.apache.kerby.kerberos.kerb.common.KrbUtil;
+import org.apache.kerby.kerberos.kerb.transport.KrbUdpTransport;
+import org.apache.kerby.kerberos.kerb.type.KerberosTime;
+import org.apache.kerby.kerberos.kerb.type.base.KrbError;
+import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.apache.kerby.util.NetworkUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A KDC replies over UDP that the response is too big, the client should
+ * send the request again over TCP to the same KDC.
+ *
+ * The client only falls back to UDP when the KDC can't be reached over TCP,
+ * so the TCP port of the client is only opened, relaying to the KDC, once
+ * the UDP request arrived.
+ */
+public class ResponseTooBigKdcTest extends KdcTestBase {
+    private final AtomicInteger udpRequests = new AtomicInteger();
+    private DatagramChannel udpKdc;
+    private volatile KdcTcpRelay tcpRelay;
+    private int tcpPort;
+
+    @Override
+    protected boolean allowUdp() {
+        return false;
+    }
+
+    @Override
+    protected void setUpClient() throws Exception {
+        tcpPort = NetworkUtil.getServerPort();
+        udpKdc = DatagramChannel.open();
+        udpKdc.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        startDaemon(new Runnable() {
+            @Override
+            public void run() {
+                replyTooBig();
+            }
+        });
+
+        getKrbClient().setKdcTcpPort(tcpPort);
+        getKrbClient().setKdcUdpPort(((InetSocketAddress) udpKdc.getLocalAddress()).getPort());
+        getKrbClient().init();
+    }
+
+    @After
+    public void closeRelay() throws IOException {
+        udpKdc.close();
+        if (tcpRelay != null) {
+            tcpRelay.stop();
+        }
+    }
+
+    @Test
+    public void testResendOverTcp() throws Exception {
+        TgtTicket tgt = getKrbClient().requestTgt(getClientPrincipal(), getClientPassword());
+        assertThat(tgt).isNotNull();
+        assertThat(udpRequests.get()).isEqualTo(1);
+        assertThat(tcpRelay.getConnections()).isEqualTo(1);
+
+        SgtTicket tkt = getKrbClient().requestSgt(tgt, getServerPrincipal());
+        assertThat(tkt.getSessionKey()).isNotNull();
+        assertThat(udpRequests.get()).isEqualTo(1);
+        assertThat(tcpRelay.getConnections()).isEqualTo(2);
+    }
+
+    private void replyTooBig() {
+        ByteBuffer request = ByteBuffer.allocate(KrbUdpTransport.MAX_MESSAGE_SIZE);
+        try {
+            while (true) {
+                request.clear();
+                SocketAddress client = udpKdc.receive(request);
+                udpRequests.incrementAndGet();
+                if (tcpRelay == null) {
+                    tcpRelay = new KdcTcpRelay(tcpPort, getKdcServer().getKdcTcpPort());
+                    tcpRelay.start();
+                }
+                udpKdc.send(ByteBuffer.wrap(KrbCodec.encode(makeTooBigError())), client);
+            }
+        } catch (Exception e) { //NOPMD
+            // Closed
+        }
+    }
+
+    private KrbError makeTooBigError() {
+        KrbError krbError = new KrbError();
+        krbError.setStime(KerberosTime.now());
+        krbError.setSusec(100);
+        krbError.setErrorCode(KrbErrorCode.RESPONSE_TOO_BIG);
+        krbError.setRealm(TestKdcServer.KDC_REALM);
+        krbError.setSname(KrbUtil.makeTgsPrincipal(TestKdcServer.KDC_REALM));
+        return krbError;
+    }
+
+    private static void startDaemon(Runnable runnable) {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
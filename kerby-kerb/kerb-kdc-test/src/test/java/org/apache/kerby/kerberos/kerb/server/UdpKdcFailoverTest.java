@@ -0,0 +1,91 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.server;
+
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fail over from a KDC that drops the UDP requests without waiting for it
+ * to time out.
+ */
+public class UdpKdcFailoverTest extends KdcTestBase {
+    private static final int TIMEOUT = 5000;
+
+    private DatagramSocket deadKdc;
+
+    @Override
+    protected boolean allowTcp() {
+        return false;
+    }
+
+    @Override
+    protected boolean allowUdp() {
+        return true;
+    }
+
+    @Override
+    protected void setUpClient() throws Exception {
+        int kdcPort = getKrbClient().getSetting().checkGetKdcUdpPort();
+
+        // Nothing ever reads from the socket
+        deadKdc = new DatagramSocket(new InetSocketAddress(InetAddress.getByName("localhost"), 0));
+
+        File krb5File = File.createTempFile("krb5-udp-failover", ".conf");
+        krb5File.deleteOnExit();
+        try (Writer writer = new FileWriter(krb5File)) {
+            writer.write("[realms]\n  " + TestKdcServer.KDC_REALM + " = {\n"
+                + "    kdc = localhost:" + kdcPort + "\n  }\n");
+        }
+        getKrbClient().getKrbConfig().addKrb5Config(krb5File);
+
+        getKrbClient().setKdcHost("localhost:" + deadKdc.getLocalPort());
+        getKrbClient().setTimeout(TIMEOUT);
+        getKrbClient().init();
+    }
+
+    @After
+    public void closeDeadKdc() throws IOException {
+        deadKdc.close();
+    }
+
+    @Test
+    public void testFailover() throws Exception {
+        long start = System.currentTimeMillis();
+        TgtTicket tgt = getKrbClient().requestTgt(getClientPrincipal(), getClientPassword());
+        assertThat(tgt).isNotNull();
+        assertThat(System.currentTimeMillis() - start).isLessThan(TIMEOUT);
+
+        start = System.currentTimeMillis();
+        assertThat(getKrbClient().requestSgt(tgt, getServerPrincipal())).isNotNull();
+        assertThat(System.currentTimeMillis() - start).isLessThan(TIMEOUT);
+    }
+}
@@ -19,12 +19,18 @@
  */
 package org.apache.kerby.kerberos.kerb.server;
 
+import org.apache.kerby.kerberos.kerb.common.KrbUtil;
 import org.apache.kerby.kerberos.kerb.identity.IdentityService;
 import org.apache.kerby.kerberos.kerb.server.preauth.PreauthHandler;
 import org.apache.kerby.kerberos.kerb.server.replay.ReplayCheckService;
+import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
+
+import java.io.IOException;
 
 public class KdcContext {
     private final KdcSetting kdcSetting;
+    private final String kdcRealm;
+    private final PrincipalName tgsPrincipal;
 
     private IdentityService identityService;
     private ReplayCheckService replayCache;
@@ -32,6 +38,15 @@ public class KdcContext {
 
     public KdcContext(KdcSetting kdcSetting) {
         this.kdcSetting = kdcSetting;
+        this.kdcRealm = kdcSetting.getKdcRealm();
+
+        // Encoded into every TGT and TGS error, so it's encoded once
+        this.tgsPrincipal = KrbUtil.makeTgsPrincipal(kdcRealm);
+        try {
+            tgsPrincipal.freeze();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid KDC realm " + kdcRealm, e);
+        }
     }
 
     public KdcSetting getKdcSetting() {
@@ -67,6 +82,15 @@ public class KdcContext {
     }
 
     public String getKdcRealm() {
-        return kdcSetting.getKdcRealm();
+        return kdcRealm;
+    }
+
+    /**
+     * Get the TGS principal of the realm, shared by the requests. It's frozen
+     * and must not be changed.
+     * @return The TGS principal
+     */
+    public PrincipalName getTgsPrincipal() {
+        return tgsPrincipal;
     }
 }
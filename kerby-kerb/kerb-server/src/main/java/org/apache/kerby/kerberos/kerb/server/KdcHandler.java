@@ -19,6 +19,7 @@
  */
 package org.apache.kerby.kerberos.kerb.server;
 
+import org.apache.kerby.asn1.util.EncodingBuffer;
 import org.apache.kerby.kerberos.kerb.KrbCodec;
 import org.apache.kerby.kerberos.kerb.KrbErrorCode;
 import org.apache.kerby.kerberos.kerb.KrbException;
@@ -32,6 +33,7 @@ import org.apache.kerby.kerberos.kerb.type.base.KrbMessageType;
 import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
 import org.apache.kerby.kerberos.kerb.type.kdc.AsReq;
 import org.apache.kerby.kerberos.kerb.type.kdc.KdcReq;
+import org.apache.kerby.kerberos.kerb.type.kdc.KdcReqBody;
 import org.apache.kerby.kerberos.kerb.type.kdc.TgsReq;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,6 +69,24 @@ public class KdcHandler {
      */
     public ByteBuffer handleMessage(ByteBuffer receivedMessage, boolean isTcp,
                                     InetAddress remoteAddress) throws KrbException {
+        return handleMessage(receivedMessage, isTcp, remoteAddress, null);
+    }
+
+    /**
+     * Process the client request message, encoding the response into a
+     * reusable buffer. The response is then only valid until the buffer is
+     * used again, so it suits transports sending it right away.
+     *
+     * @throws org.apache.kerby.kerberos.kerb.KrbException e
+     * @param receivedMessage The client request message
+     * @param  isTcp whether the protocol is tcp
+     * @param remoteAddress Address from remote side
+     * @param responseBuffer The buffer to encode into, or null to allocate
+     * @return The response message
+     */
+    public ByteBuffer handleMessage(ByteBuffer receivedMessage, boolean isTcp,
+                                    InetAddress remoteAddress,
+                                    EncodingBuffer responseBuffer) throws KrbException {
         KrbMessage krbRequest;
         KdcRequest kdcRequest = null;
         KrbMessage krbResponse;
@@ -74,7 +94,9 @@ public class KdcHandler {
         ByteBuffer message = receivedMessage.duplicate();
 
         try {
-            krbRequest = KrbCodec.decodeMessage(receivedMessage);
+            // Fields like additional tickets and authorization data are
+            // decoded only when the request processing gets to them
+            krbRequest = KrbCodec.decodeMessage(receivedMessage, true);
         } catch (IOException e) {
             LOG.error("Krb decoding message failed", e);
             throw new KrbException(KrbErrorCode.KRB_AP_ERR_MSG_TYPE, "Krb decoding message failed");
@@ -84,6 +106,15 @@ public class KdcHandler {
         if (messageType == KrbMessageType.TGS_REQ || messageType
                 == KrbMessageType.AS_REQ) {
             KdcReq kdcReq = (KdcReq) krbRequest;
+            try {
+                // Lazily decoded fields only fail when first read, so read the
+                // ones needed for dispatch and error replies up front
+                checkRequestBody(kdcReq);
+            } catch (RuntimeException e) {
+                LOG.error("Krb decoding request body failed", e);
+                return encodeResponse(makeDecodingError(e), isTcp, responseBuffer);
+            }
+
             String realm = getRequestRealm(kdcReq);
             if (realm == null || !kdcContext.getKdcRealm().equals(realm)) {
                 LOG.error("Invalid realm from kdc request: " + realm);
@@ -150,20 +181,71 @@ public class KdcHandler {
             }
         }
 
-        int bodyLen = krbResponse.encodingLength();
+        return encodeResponse(krbResponse, isTcp, responseBuffer);
+    }
+
+    private ByteBuffer encodeResponse(KrbMessage krbResponse, boolean isTcp,
+                                      EncodingBuffer responseBuffer) throws KrbException {
+        int headerLen = isTcp ? 4 : 0;
         ByteBuffer responseMessage;
-        if (isTcp) {
-            responseMessage = ByteBuffer.allocate(bodyLen + 4);
-            responseMessage.putInt(bodyLen);
+        if (responseBuffer != null) {
+            try {
+                responseMessage = responseBuffer.encode(krbResponse, headerLen);
+            } catch (IOException e) {
+                throw new KrbException("Encoding failed", e);
+            }
         } else {
-            responseMessage = ByteBuffer.allocate(bodyLen);
+            responseMessage = ByteBuffer.allocate(headerLen + krbResponse.encodingLength());
+            responseMessage.position(headerLen);
+            KrbCodec.encode(krbResponse, responseMessage);
+            responseMessage.flip();
+        }
+        if (isTcp) {
+            responseMessage.putInt(0, responseMessage.limit() - headerLen);
         }
-        KrbCodec.encode(krbResponse, responseMessage);
-        responseMessage.flip();
 
         return responseMessage;
     }
 
+    /**
+     * Make sure the request body fields read before and while handling
+     * errors are decoded, so a malformed request fails here rather than
+     * when the error reply is made.
+     *
+     * @param kdcReq kdc request
+     */
+    private void checkRequestBody(KdcReq kdcReq) {
+        KdcReqBody reqBody = kdcReq.getReqBody();
+        if (reqBody == null) {
+            throw new IllegalArgumentException("No request body");
+        }
+        reqBody.getRealm();
+        if (reqBody.getCname() != null) {
+            reqBody.getCname().getNameStrings();
+        }
+        if (reqBody.getSname() != null) {
+            reqBody.getSname().getNameStrings();
+        }
+    }
+
+    /**
+     * Make the error replied to a request that can't be decoded.
+     *
+     * @param e The decoding failure
+     * @return The KrbError
+     */
+    private KrbError makeDecodingError(RuntimeException e) {
+        KrbError krbError = new KrbError();
+        krbError.setStime(KerberosTime.now());
+        krbError.setSusec(100);
+        krbError.setErrorCode(KrbErrorCode.KRB_ERR_GENERIC);
+        krbError.setCrealm(kdcContext.getKdcRealm());
+        krbError.setRealm(kdcContext.getKdcRealm());
+        krbError.setSname(kdcContext.getTgsPrincipal());
+        krbError.setEtext("Krb decoding request body failed: " + e.getMessage());
+        return krbError;
+    }
+
     /**
      * Process the recoverable exception.
      *
@@ -19,6 +19,7 @@
  */
 package org.apache.kerby.kerberos.kerb.server.impl;
 
+import org.apache.kerby.asn1.util.EncodingBuffer;
 import org.apache.kerby.kerberos.kerb.server.KdcContext;
 import org.apache.kerby.kerberos.kerb.server.KdcHandler;
 import org.apache.kerby.kerberos.kerb.transport.KrbTcpTransport;
@@ -64,7 +65,8 @@ public class DefaultKdcHandler extends KdcHandler implements Runnable {
         boolean isTcp = transport instanceof KrbTcpTransport;
 
         try {
-            ByteBuffer krbResponse = handleMessage(message, isTcp, clientAddress);
+            ByteBuffer krbResponse = handleMessage(message, isTcp, clientAddress,
+                EncodingBuffer.heap());
             transport.sendMessage(krbResponse);
         } catch (Exception e) {
             transport.release();
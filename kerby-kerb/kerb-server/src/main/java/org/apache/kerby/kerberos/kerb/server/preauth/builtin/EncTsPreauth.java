@@ -43,7 +43,7 @@ public class EncTsPreauth extends AbstractPreauthPlugin {
     @Override
     public boolean verify(KdcRequest kdcRequest, PluginRequestContext requestContext,
                           PaDataEntry paData) throws KrbException {
-        EncryptedData encData = KrbCodec.decode(paData.getPaDataValue(), EncryptedData.class);
+        EncryptedData encData = KrbCodec.decode(paData.getPaDataValueBuffer(), EncryptedData.class);
         EncryptionKey clientKey = kdcRequest.getClientKey(encData.getEType());
         if (clientKey == null) {
             throw new KrbException(KrbErrorCode.KDC_ERR_ETYPE_NOSUPP);
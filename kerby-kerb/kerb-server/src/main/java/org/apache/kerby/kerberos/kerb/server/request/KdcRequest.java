@@ -24,7 +24,6 @@ import org.apache.kerby.kerberos.kerb.KrbConstant;
 import org.apache.kerby.kerberos.kerb.KrbErrorCode;
 import org.apache.kerby.kerberos.kerb.KrbException;
 import org.apache.kerby.kerberos.kerb.common.EncryptionUtil;
-import org.apache.kerby.kerberos.kerb.common.KrbUtil;
 import org.apache.kerby.kerberos.kerb.crypto.CheckSumHandler;
 import org.apache.kerby.kerberos.kerb.crypto.EncryptionHandler;
 import org.apache.kerby.kerberos.kerb.crypto.fast.FastUtil;
@@ -50,6 +49,7 @@ import org.apache.kerby.kerberos.kerb.type.base.KrbError;
 import org.apache.kerby.kerberos.kerb.type.base.KrbMessage;
 import org.apache.kerby.kerberos.kerb.type.base.MethodData;
 import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
+import org.apache.kerby.kerberos.kerb.type.base.PrincipalNamePool;
 import org.apache.kerby.kerberos.kerb.type.fast.ArmorType;
 import org.apache.kerby.kerberos.kerb.type.fast.KrbFastArmor;
 import org.apache.kerby.kerberos.kerb.type.fast.KrbFastArmoredReq;
@@ -69,6 +69,7 @@ import org.slf4j.LoggerFactory;
 
 import java.net.InetAddress;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -202,7 +203,7 @@ public abstract class KdcRequest {
      * @throws org.apache.kerby.kerberos.kerb.KrbException e.
      */
     private void checkTgsEntry() throws KrbException {
-        KrbIdentity tgsEntry = getEntry(getTgsPrincipal().getName());
+        KrbIdentity tgsEntry = getEntry(getTgsPrincipalName());
         setTgsEntry(tgsEntry);
     }
 
@@ -570,8 +571,18 @@ public abstract class KdcRequest {
      * @return principal name
      */
     public PrincipalName getTgsPrincipal() {
-        PrincipalName result = KrbUtil.makeTgsPrincipal(kdcContext.getKdcRealm());
-        return result;
+        return kdcContext.getTgsPrincipal();
+    }
+
+    /**
+     * Get the pooled name of the tgs principal, without making the principal.
+     *
+     * @return tgs principal name
+     */
+    protected String getTgsPrincipalName() {
+        String realm = kdcContext.getKdcRealm();
+        return PrincipalNamePool.getDefault().getName(
+            Arrays.asList(KrbConstant.TGS_PRINCIPAL, realm), realm);
     }
 
     /**
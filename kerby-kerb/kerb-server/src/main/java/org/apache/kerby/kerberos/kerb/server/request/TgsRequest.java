@@ -124,7 +124,7 @@ public class TgsRequest extends KdcRequest {
      * @param paDataEntry preauthentication data entry
      */
     public void verifyAuthenticator(PaDataEntry paDataEntry) throws KrbException {
-        ApReq apReq = KrbCodec.decode(paDataEntry.getPaDataValue(), ApReq.class);
+        ApReq apReq = KrbCodec.decode(paDataEntry.getPaDataValueBuffer(), ApReq.class);
 
         if (apReq.getPvno() != KrbConstant.KRB_V5) {
             throw new KrbException(KrbErrorCode.KRB_AP_ERR_BADVERSION);
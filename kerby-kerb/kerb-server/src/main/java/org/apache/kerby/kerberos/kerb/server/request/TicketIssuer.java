@@ -254,7 +254,10 @@ public abstract class TicketIssuer {
     }
 
     protected PrincipalName getServerPrincipal() {
-        return getKdcReq().getReqBody().getSname();
+        PrincipalName serverPrincipal = getKdcReq().getReqBody().getSname();
+        // Most tickets are TGTs, which share the frozen TGS principal
+        PrincipalName tgsPrincipal = kdcRequest.getTgsPrincipal();
+        return tgsPrincipal.equals(serverPrincipal) ? tgsPrincipal : serverPrincipal;
     }
 
     protected EncryptionType getTicketEncryptionType() throws KrbException {
@@ -0,0 +1,47 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.server;
+
+import org.apache.kerby.KOptions;
+import org.apache.kerby.kerberos.kerb.identity.backend.BackendConfig;
+import org.apache.kerby.kerberos.kerb.type.base.NameType;
+import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KdcContextTest {
+
+    @Test
+    public void testTgsPrincipal() throws Exception {
+        KOptions startupOptions = new KOptions();
+        startupOptions.add(KdcServerOption.KDC_REALM, "TEST.COM");
+        KdcContext kdcContext = new KdcContext(
+            new KdcSetting(startupOptions, new KdcConfig(), new BackendConfig()));
+
+        assertThat(kdcContext.getKdcRealm()).isEqualTo("TEST.COM");
+        PrincipalName tgsPrincipal = kdcContext.getTgsPrincipal();
+        assertThat(tgsPrincipal).isEqualTo(
+            new PrincipalName("krbtgt/TEST.COM@TEST.COM", NameType.NT_SRV_INST));
+        assertThat(tgsPrincipal.isFrozen()).isTrue();
+        // Built once for all the requests
+        assertThat(kdcContext.getTgsPrincipal()).isSameAs(tgsPrincipal);
+    }
+}
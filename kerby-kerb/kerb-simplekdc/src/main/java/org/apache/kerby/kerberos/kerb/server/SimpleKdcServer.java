@@ -296,6 +296,7 @@ public class SimpleKdcServer extends KdcServer {
      */
     @Override
     public synchronized void stop() throws KrbException {
+        krbClnt.close();
         super.stop();
         try {
             krb5Conf.deleteKrb5conf();
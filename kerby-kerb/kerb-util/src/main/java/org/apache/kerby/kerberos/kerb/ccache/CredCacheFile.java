@@ -0,0 +1,387 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.ccache;
+
+import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A credential cache file that can be shared by several processes.
+ *
+ * Writers hold an exclusive advisory lock on the file and readers a shared
+ * one, which on POSIX systems are the same fcntl locks MIT Kerberos takes on
+ * its file caches. Credentials are appended at the end of the file instead
+ * of rewriting it, and lookups scan the raw content of the file and only
+ * decode the entry that matches. File locks are held on behalf of the whole JVM and
+ * overlapping ones can't be taken twice, even shared, so threads of one
+ * process are serialized with a lock per file as well.
+ */
+public class CredCacheFile {
+    private static final ConcurrentMap<String, Lock> LOCKS =
+            new ConcurrentHashMap<>();
+
+    private final File file;
+
+    public CredCacheFile(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Replace the content of the file with the given credential cache.
+     * @param cache The credential cache
+     * @throws IOException e
+     */
+    public void store(CredentialCache cache) throws IOException {
+        byte[] content = encode(cache);
+
+        Lock lock = getLock();
+        lock.lock();
+        try (FileChannel channel = openForWrite();
+             FileLock fileLock = channel.lock()) { //NOPMD
+            write(channel, content, 0);
+            channel.truncate(content.length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append a credential to the file, initializing the file with the
+     * client of the credential as primary principal if it is empty. The
+     * client has to be the primary principal of a non empty file.
+     * @param credential The credential
+     * @throws IOException e
+     */
+    public void append(Credential credential) throws IOException {
+        append(credential, false);
+    }
+
+    /**
+     * Append a credential to the file like {@link #append}, but replace the
+     * content of the file with it when its client isn't the primary
+     * principal, as storing a single credential always did.
+     * @param credential The credential
+     * @throws IOException e
+     */
+    public void appendOrStore(Credential credential) throws IOException {
+        append(credential, true);
+    }
+
+    private void append(Credential credential, boolean storeOtherClient) throws IOException {
+        Lock lock = getLock();
+        lock.lock();
+        try (FileChannel channel = openForWrite();
+             FileLock fileLock = channel.lock()) { //NOPMD
+            long size = channel.size();
+            if (size == 0) {
+                write(channel, encode(new CredentialCache(credential)), 0);
+                return;
+            }
+
+            // Left open, closing it would close the channel before the lock is released
+            CredCacheInputStream header = new CredCacheInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel.position(0))));
+            int version;
+            PrincipalName primaryPrincipal;
+            try {
+                version = header.readShort();
+                if (version == CredentialCache.FCC_FVNO_4) {
+                    header.skipBytes(header.readShort() & 0xffff);
+                }
+                primaryPrincipal = header.readPrincipal(version);
+            } catch (EOFException e) {
+                throw new IOException("Invalid credential cache file: "
+                        + file.getAbsolutePath(), e);
+            }
+            if (credential.getClientName() == null
+                    || !primaryPrincipal.getName().equals(credential.getClientName().getName())) {
+                if (storeOtherClient && credential.getClientName() != null) {
+                    byte[] content = encode(new CredentialCache(credential));
+                    write(channel, content, 0);
+                    channel.truncate(content.length);
+                    return;
+                }
+                throw new IOException("The client " + credential.getClientName()
+                        + " isn't the primary principal " + primaryPrincipal
+                        + " of the credential cache file: " + file.getAbsolutePath());
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (CredCacheOutputStream ccos = new CredCacheOutputStream(out)) {
+                credential.store(ccos, version);
+            }
+            write(channel, out.toByteArray(), size);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Load the whole file.
+     * @return The credential cache
+     * @throws IOException e
+     */
+    public CredentialCache load() throws IOException {
+        Lock lock = getLock();
+        lock.lock();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             FileLock fileLock = channel.lock(0, Long.MAX_VALUE, true)) { //NOPMD
+            CredentialCache cache = new CredentialCache();
+            cache.load(new ByteArrayInputStream(read(channel)));
+            return cache;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Find the credential for the given server principal. The realm is
+     * ignored when the principal has none. When the server has several
+     * entries the last appended one is returned.
+     * @param server The server principal
+     * @return The credential, or null if not found
+     * @throws IOException e
+     */
+    public Credential find(PrincipalName server) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+
+        Lock lock = getLock();
+        lock.lock();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             FileLock fileLock = channel.lock(0, Long.MAX_VALUE, true)) { //NOPMD
+            if (channel.size() == 0) {
+                return null;
+            }
+            return scan(ByteBuffer.wrap(read(channel)), server);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Invalid credential cache file: "
+                    + file.getAbsolutePath(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Credential scan(ByteBuffer buffer, PrincipalName server) throws IOException {
+        byte[] realm = server.getRealm() != null
+                ? server.getRealm().getBytes(StandardCharsets.UTF_8) : null;
+        List<String> nameStrings = server.getNameStrings();
+        byte[][] components = new byte[nameStrings.size()][];
+        for (int i = 0; i < components.length; i++) {
+            components[i] = nameStrings.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+
+        int version = buffer.getShort();
+        if (version == CredentialCache.FCC_FVNO_4) {
+            skip(buffer, buffer.getShort() & 0xffff);
+        }
+        skipPrincipal(buffer, version);
+
+        int found = -1;
+        int foundEnd = -1;
+        while (buffer.hasRemaining()) {
+            int start = buffer.position();
+            skipPrincipal(buffer, version);
+            boolean matches = matchPrincipal(buffer, version, realm, components);
+            skipCredential(buffer, version);
+            if (matches) {
+                found = start;
+                foundEnd = buffer.position();
+            }
+        }
+
+        if (found < 0) {
+            return null;
+        }
+
+        byte[] entry = new byte[foundEnd - found];
+        buffer.position(found);
+        buffer.get(entry);
+
+        Credential credential = new Credential();
+        try (CredCacheInputStream ccis = new CredCacheInputStream(
+                new ByteArrayInputStream(entry))) {
+            credential.load(ccis, version);
+        }
+        return credential;
+    }
+
+    private static boolean matchPrincipal(ByteBuffer buffer, int version,
+                                          byte[] realm, byte[][] components) throws IOException {
+        if (version != CredentialCache.FCC_FVNO_1) {
+            buffer.getInt(); // name type
+        }
+        int count = buffer.getInt();
+        if (version == CredentialCache.FCC_FVNO_1) {
+            count--;
+        }
+
+        boolean matches = matchCounted(buffer, realm) && count == components.length;
+        for (int i = 0; i < count; i++) {
+            if (matches) {
+                matches = matchCounted(buffer, components[i]);
+            } else {
+                skipCounted(buffer);
+            }
+        }
+        return matches;
+    }
+
+    private static boolean matchCounted(ByteBuffer buffer, byte[] expected) throws IOException {
+        int len = buffer.getInt();
+        int start = buffer.position();
+        skip(buffer, len);
+
+        if (expected == null) {
+            return true;
+        }
+        if (len != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (buffer.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void skipPrincipal(ByteBuffer buffer, int version) throws IOException {
+        if (version != CredentialCache.FCC_FVNO_1) {
+            buffer.getInt(); // name type
+        }
+        int count = buffer.getInt();
+        if (version == CredentialCache.FCC_FVNO_1) {
+            count--;
+        }
+
+        skipCounted(buffer); // realm
+        for (int i = 0; i < count; i++) {
+            skipCounted(buffer);
+        }
+    }
+
+    /**
+     * Skip everything after the server principal, following the layout
+     * read by {@link Credential#load}.
+     */
+    private static void skipCredential(ByteBuffer buffer, int version) throws IOException {
+        buffer.getShort(); // key type
+        if (version == CredentialCache.FCC_FVNO_3) {
+            buffer.getShort();
+        }
+        skipCounted(buffer); // key data
+
+        skip(buffer, 4 * 4 + 1 + 4); // times, is skey, ticket flags
+
+        for (int i = 0; i < 2; i++) { // addresses, then authorization data
+            int num = buffer.getInt();
+            for (int j = 0; j < num; j++) {
+                buffer.getShort();
+                skipCounted(buffer);
+            }
+        }
+
+        skipCounted(buffer); // ticket or configuration data
+        skipCounted(buffer); // second ticket
+    }
+
+    private static void skipCounted(ByteBuffer buffer) throws IOException {
+        skip(buffer, buffer.getInt());
+    }
+
+    private static void skip(ByteBuffer buffer, int len) throws IOException {
+        if (len < 0 || len > buffer.remaining()) {
+            throw new IOException("Unexpected octets len: " + len);
+        }
+        buffer.position(buffer.position() + len);
+    }
+
+    private byte[] read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Credential cache file too large: "
+                    + file.getAbsolutePath());
+        }
+
+        ByteBuffer content = ByteBuffer.allocate((int) size);
+        while (content.hasRemaining()) {
+            if (channel.read(content, content.position()) < 0) {
+                break; // Truncated meanwhile, left to the decoding to fail
+            }
+        }
+        return content.array();
+    }
+
+    private FileChannel openForWrite() throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void write(FileChannel channel, byte[] content,
+                              long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static byte[] encode(CredentialCache cache) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.store(out);
+        return out.toByteArray();
+    }
+
+    private Lock getLock() throws IOException {
+        String path = file.getCanonicalPath();
+        Lock lock = LOCKS.get(path);
+        if (lock == null) {
+            Lock newLock = new ReentrantLock();
+            lock = LOCKS.putIfAbsent(path, newLock);
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+        return lock;
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
 import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
 import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -33,9 +34,15 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Keytab management util.
+ *
+ * Keys are looked up through an index keyed by principal, encryption type
+ * and key version, built as entries are added and rebuilt on the next lookup
+ * after entries are removed. Very large keytabs can be read lazily through
+ * {@link MappedKeytab} instead.
  */
 public final class Keytab implements KrbKeytab {
 
@@ -46,8 +53,11 @@ public final class Keytab implements KrbKeytab {
 
     private Map<PrincipalName, List<KeytabEntry>> principalEntries;
 
+    private Map<KeyIndex, EncryptionKey> keyIndex;
+
     public Keytab() {
         this.principalEntries = new HashMap<PrincipalName, List<KeytabEntry>>();
+        this.keyIndex = new HashMap<KeyIndex, EncryptionKey>();
     }
 
     public static Keytab loadKeytab(File keytabFile) throws IOException {
@@ -77,6 +87,7 @@ public final class Keytab implements KrbKeytab {
     @Override
     public void removeKeytabEntries(PrincipalName principal) {
         principalEntries.remove(principal);
+        keyIndex = null;
     }
 
     @Override
@@ -99,6 +110,7 @@ public final class Keytab implements KrbKeytab {
                 KeytabEntry tmp = iter.next();
                 if (entry.equals(tmp)) {
                     iter.remove();
+                    keyIndex = null;
                     break;
                 }
             }
@@ -123,14 +135,48 @@ public final class Keytab implements KrbKeytab {
 
     @Override
     public EncryptionKey getKey(PrincipalName principal, EncryptionType keyType) {
-        List<KeytabEntry> entries = getKeytabEntries(principal);
-        for (KeytabEntry ke : entries) {
-            if (ke.getKey().getKeyType() == keyType) {
-                return ke.getKey();
+        return getKeyIndex().get(new KeyIndex(principal, keyType, null));
+    }
+
+    /**
+     * Get the key of a principal with the given encryption type and key version.
+     * @param principal The principal
+     * @param keyType The encryption type
+     * @param kvno The key version
+     * @return The key, or null if there is none
+     */
+    public EncryptionKey getKey(PrincipalName principal, EncryptionType keyType, int kvno) {
+        return getKeyIndex().get(new KeyIndex(principal, keyType, kvno));
+    }
+
+    private Map<KeyIndex, EncryptionKey> getKeyIndex() {
+        if (keyIndex == null) {
+            keyIndex = new HashMap<KeyIndex, EncryptionKey>();
+            for (List<KeytabEntry> entries : principalEntries.values()) {
+                for (KeytabEntry entry : entries) {
+                    index(entry);
+                }
             }
         }
+        return keyIndex;
+    }
 
-        return null;
+    /**
+     * The first entry added for a principal and encryption type is also the
+     * one returned when no key version is given.
+     */
+    private void index(KeytabEntry entry) {
+        PrincipalName principal = entry.getPrincipal();
+        EncryptionType keyType = entry.getKey().getKeyType();
+
+        KeyIndex anyVersion = new KeyIndex(principal, keyType, null);
+        if (!keyIndex.containsKey(anyVersion)) {
+            keyIndex.put(anyVersion, entry.getKey());
+        }
+        KeyIndex version = new KeyIndex(principal, keyType, entry.getKvno());
+        if (!keyIndex.containsKey(version)) {
+            keyIndex.put(version, entry.getKey());
+        }
     }
 
     @Override
@@ -139,7 +185,7 @@ public final class Keytab implements KrbKeytab {
             throw new IllegalArgumentException("Invalid keytab file: " + keytabFile.getAbsolutePath());
         }
 
-        try (InputStream is = Files.newInputStream(keytabFile.toPath())) {
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(keytabFile.toPath()))) {
             load(is);
         }
     }
@@ -171,6 +217,9 @@ public final class Keytab implements KrbKeytab {
             principalEntries.put(principal, entries);
         }
         entries.add(entry);
+        if (keyIndex != null) {
+            index(entry);
+        }
     }
 
     private int readVersion(KeytabInputStream kis) throws IOException {
@@ -239,4 +288,37 @@ public final class Keytab implements KrbKeytab {
         }
     }
 
+    private static final class KeyIndex {
+        private final PrincipalName principal;
+        private final EncryptionType keyType;
+        private final Integer kvno;
+
+        KeyIndex(PrincipalName principal, EncryptionType keyType, Integer kvno) {
+            this.principal = principal;
+            this.keyType = keyType;
+            this.kvno = kvno;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof KeyIndex)) {
+                return false;
+            }
+
+            KeyIndex that = (KeyIndex) o;
+            return principal.equals(that.principal) && keyType == that.keyType
+                    && Objects.equals(kvno, that.kvno);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = principal.hashCode();
+            result = 31 * result + keyType.hashCode();
+            result = 31 * result + (kvno != null ? kvno : -1);
+            return result;
+        }
+    }
 }
@@ -0,0 +1,243 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.keytab;
+
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A read only keytab over a memory mapped view of a keytab file, for very
+ * large keytabs of which a process only needs a few principals.
+ *
+ * Opening it reads only the principal of every entry, to index the entries
+ * by principal. The entries of a principal are decoded from the mapped view
+ * on its first lookup, and its keys are then looked up through the index of
+ * a {@link Keytab}. The file is expected to be replaced, e.g. renamed over,
+ * rather than rewritten in place while it's mapped; use
+ * {@link ReloadingKeytab} for keytabs rotated in place.
+ */
+public final class MappedKeytab {
+    private final File keytabFile;
+    private final ByteBuffer content;
+    private final int version;
+    private final Map<PrincipalName, List<Integer>> entryOffsets;
+    private final ConcurrentMap<PrincipalName, Keytab> decoded;
+
+    private MappedKeytab(File keytabFile, ByteBuffer content) throws IOException {
+        this.keytabFile = keytabFile;
+        this.content = content;
+        this.entryOffsets = new HashMap<PrincipalName, List<Integer>>();
+        this.decoded = new ConcurrentHashMap<PrincipalName, Keytab>();
+
+        ByteBuffer buffer = content.duplicate();
+        if (buffer.remaining() < 2) {
+            throw new IOException("Invalid keytab file: " + keytabFile.getAbsolutePath());
+        }
+        this.version = buffer.getShort();
+        if (version != Keytab.V501 && version != Keytab.V502) {
+            throw new IOException("Unsupported keytab version " + version
+                    + ": " + keytabFile.getAbsolutePath());
+        }
+        index(buffer);
+    }
+
+    /**
+     * Map a keytab file and index its entries by principal.
+     * @param keytabFile The keytab file
+     * @return The mapped keytab
+     * @throws IOException e
+     */
+    public static MappedKeytab open(File keytabFile) throws IOException {
+        if (!keytabFile.exists() || !keytabFile.canRead()) {
+            throw new IllegalArgumentException("Invalid keytab file: " + keytabFile.getAbsolutePath());
+        }
+
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(keytabFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Keytab file too large: " + keytabFile.getAbsolutePath());
+            }
+            return new MappedKeytab(keytabFile,
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public List<PrincipalName> getPrincipals() {
+        return new ArrayList<PrincipalName>(entryOffsets.keySet());
+    }
+
+    public List<KeytabEntry> getKeytabEntries(PrincipalName principal) {
+        Keytab keytab = getKeytab(principal);
+        if (keytab == null) {
+            return new ArrayList<KeytabEntry>();
+        }
+        return keytab.getKeytabEntries(principal);
+    }
+
+    /**
+     * Get the first key of a principal with the given encryption type.
+     * @param principal The principal
+     * @param keyType The encryption type
+     * @return The key, or null if there is none
+     */
+    public EncryptionKey getKey(PrincipalName principal, EncryptionType keyType) {
+        Keytab keytab = getKeytab(principal);
+        return keytab != null ? keytab.getKey(principal, keyType) : null;
+    }
+
+    /**
+     * Get the key of a principal with the given encryption type and key version.
+     * @param principal The principal
+     * @param keyType The encryption type
+     * @param kvno The key version
+     * @return The key, or null if there is none
+     */
+    public EncryptionKey getKey(PrincipalName principal, EncryptionType keyType, int kvno) {
+        Keytab keytab = getKeytab(principal);
+        return keytab != null ? keytab.getKey(principal, keyType, kvno) : null;
+    }
+
+    /**
+     * Load all the entries into a keytab that can be changed and stored.
+     * @return The keytab
+     */
+    public Keytab toKeytab() {
+        Keytab keytab = new Keytab();
+        for (PrincipalName principal : entryOffsets.keySet()) {
+            keytab.addKeytabEntries(getKeytabEntries(principal));
+        }
+        return keytab;
+    }
+
+    private void index(ByteBuffer buffer) throws IOException {
+        while (buffer.remaining() >= 4) {
+            int size = buffer.getInt();
+            if (size < 0) {
+                // A hole left by a removed entry
+                skip(buffer, -size);
+                continue;
+            }
+            int offset = buffer.position();
+            skip(buffer, size);
+
+            PrincipalName principal = openEntry(offset, size).readPrincipal(version);
+            List<Integer> offsets = entryOffsets.get(principal);
+            if (offsets == null) {
+                offsets = new ArrayList<Integer>();
+                entryOffsets.put(principal, offsets);
+            }
+            offsets.add(offset);
+        }
+    }
+
+    private Keytab getKeytab(PrincipalName principal) {
+        Keytab keytab = decoded.get(principal);
+        if (keytab != null) {
+            return keytab;
+        }
+        List<Integer> offsets = entryOffsets.get(principal);
+        if (offsets == null) {
+            return null;
+        }
+
+        keytab = new Keytab();
+        for (int offset : offsets) {
+            keytab.addEntry(readEntry(offset));
+        }
+        Keytab existing = decoded.putIfAbsent(principal, keytab);
+        return existing != null ? existing : keytab;
+    }
+
+    private KeytabEntry readEntry(int offset) {
+        int size = content.getInt(offset - 4);
+        KeytabEntry entry = new KeytabEntry();
+        try {
+            entry.load(openEntry(offset, size), version, size);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid keytab entry at " + offset
+                    + " in " + keytabFile.getAbsolutePath(), e);
+        }
+        return entry;
+    }
+
+    private KeytabInputStream openEntry(int offset, int size) {
+        ByteBuffer entry = content.duplicate();
+        entry.limit(offset + size);
+        entry.position(offset);
+        return new KeytabInputStream(new ByteBufferInputStream(entry));
+    }
+
+    private void skip(ByteBuffer buffer, int len) throws IOException {
+        if (len > buffer.remaining()) {
+            throw new IOException("Bad keytab file with less data than expected: " + len
+                    + ", " + keytabFile.getAbsolutePath());
+        }
+        buffer.position(buffer.position() + len);
+    }
+
+    /**
+     * Reads a keytab entry straight from the mapped view.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.keytab;
+
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A keytab file that is loaded again when it changes, so services pick up
+ * rotated keys without a restart. The file is read at most once per check
+ * interval and parsed again only when its content digest changed, so a
+ * rewrite that keeps the size and modification time is still noticed. Keytab
+ * files are small, so reading one costs about as much as checking its
+ * attributes. If a reload fails, e.g. while the file is being rewritten, the
+ * previously loaded keys stay in use until the next check.
+ */
+public class ReloadingKeytab {
+    private static final Logger LOG = LoggerFactory.getLogger(ReloadingKeytab.class);
+
+    private final File keytabFile;
+    private final long checkInterval;
+    private volatile Keytab keytab;
+    private volatile long nextCheck;
+    private byte[] digest;
+
+    /**
+     * @param keytabFile The keytab file
+     * @param checkInterval The interval between checks for changes, in milliseconds
+     */
+    public ReloadingKeytab(File keytabFile, long checkInterval) {
+        this.keytabFile = keytabFile;
+        this.checkInterval = checkInterval;
+    }
+
+    public File getKeytabFile() {
+        return keytabFile;
+    }
+
+    /**
+     * Get the keytab, loading the file again first if it changed. The
+     * returned keytab is shared and should not be modified.
+     * @return The keytab
+     * @throws IOException e
+     */
+    public Keytab getKeytab() throws IOException {
+        if (keytab == null || System.currentTimeMillis() >= nextCheck) {
+            checkAndReload();
+        }
+        return keytab;
+    }
+
+    public EncryptionKey getKey(PrincipalName principal, EncryptionType keyType) throws IOException {
+        return getKeytab().getKey(principal, keyType);
+    }
+
+    public EncryptionKey getKey(PrincipalName principal, EncryptionType keyType,
+                                int kvno) throws IOException {
+        return getKeytab().getKey(principal, keyType, kvno);
+    }
+
+    private synchronized void checkAndReload() throws IOException {
+        long now = System.currentTimeMillis();
+        if (keytab != null && now < nextCheck) {
+            return;
+        }
+        nextCheck = now + checkInterval;
+
+        try {
+            byte[] content = Files.readAllBytes(keytabFile.toPath());
+            byte[] newDigest = digest(content);
+            if (keytab != null && MessageDigest.isEqual(newDigest, digest)) {
+                return;
+            }
+            keytab = Keytab.loadKeytab(new ByteArrayInputStream(content));
+            digest = newDigest;
+        } catch (IOException | IllegalArgumentException e) {
+            if (keytab == null) {
+                throw new IOException("Failed to load keytab " + keytabFile.getAbsolutePath(), e);
+            }
+            LOG.warn("Failed to reload keytab " + keytabFile.getAbsolutePath()
+                    + ", keeping the previous keys. " + e);
+        }
+    }
+
+    private static byte[] digest(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.util;
+
+import org.apache.kerby.kerberos.kerb.ccache.CredCacheFile;
+import org.apache.kerby.kerberos.kerb.ccache.Credential;
+import org.apache.kerby.kerberos.kerb.ccache.CredentialCache;
+import org.apache.kerby.kerberos.kerb.type.KerberosTime;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
+import org.apache.kerby.kerberos.kerb.type.kdc.EncTgsRepPart;
+import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
+import org.apache.kerby.kerberos.kerb.type.ticket.Ticket;
+import org.apache.kerby.kerberos.kerb.type.ticket.TicketFlags;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class CredCacheFileTest {
+
+    private File file;
+    private CredCacheFile cacheFile;
+    private Credential tgt;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("krb5_test", ".cc");
+        try (InputStream cis = CredCacheFileTest.class.getResourceAsStream("/test.cc")) {
+            Files.copy(cis, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        cacheFile = new CredCacheFile(file);
+        tgt = cacheFile.load().getCredentials().get(0);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testAppend() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            cacheFile.append(newCredential("HTTP/host" + i + "@SH.INTEL.COM", 3600));
+        }
+
+        Credential cred = find("HTTP/host42@SH.INTEL.COM");
+        assertThat(cred).isNotNull();
+        assertThat(cred.getClientName().getName()).isEqualTo("drankye@SH.INTEL.COM");
+        assertThat(cred.getTicket().encode()).isEqualTo(tgt.getTicket().encode());
+
+        // Without a realm any realm matches
+        assertThat(cacheFile.find(new PrincipalName("HTTP/host42"))).isNotNull();
+        assertThat(find("krbtgt/SH.INTEL.COM@SH.INTEL.COM")).isNotNull();
+        assertThat(find("HTTP/host42@EXAMPLE.COM")).isNull();
+        assertThat(find("HTTP/host100@SH.INTEL.COM")).isNull();
+
+        CredentialCache cc = cacheFile.load();
+        assertThat(cc.getPrimaryPrincipal().getName()).isEqualTo("drankye@SH.INTEL.COM");
+        assertThat(cc.getCredentials()).hasSize(103);
+    }
+
+    @Test
+    public void testLastAppendedWins() throws IOException {
+        cacheFile.append(newCredential("HTTP/host@SH.INTEL.COM", 60));
+        cacheFile.append(newCredential("HTTP/host@SH.INTEL.COM", 7200));
+
+        Credential cred = find("HTTP/host@SH.INTEL.COM");
+        assertThat(cred.getEndTime().getTime() - cred.getAuthTime().getTime())
+                .isEqualTo(7200 * 1000L);
+    }
+
+    @Test
+    public void testAppendToEmptyFile() throws IOException {
+        Files.write(file.toPath(), new byte[0]);
+        cacheFile.append(newCredential("HTTP/host@SH.INTEL.COM", 3600));
+
+        CredentialCache cc = cacheFile.load();
+        assertThat(cc.getPrimaryPrincipal().getName()).isEqualTo("drankye@SH.INTEL.COM");
+        assertThat(cc.getCredentials()).hasSize(1);
+    }
+
+    @Test
+    public void testConcurrentAppends() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        final List<Exception> errors = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int thread = t;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 25; i++) {
+                            new CredCacheFile(file).append(
+                                    newCredential("HTTP/host" + thread + "-" + i + "@SH.INTEL.COM", 3600));
+                            new CredCacheFile(file).load();
+                        }
+                    } catch (Exception e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(errors).isEmpty();
+        assertThat(cacheFile.load().getCredentials()).hasSize(103);
+        assertThat(find("HTTP/host3-24@SH.INTEL.COM")).isNotNull();
+    }
+
+    @Test
+    public void testStoreReplacesContent() throws IOException {
+        cacheFile.append(newCredential("HTTP/host@SH.INTEL.COM", 3600));
+        cacheFile.store(new CredentialCache(tgt));
+
+        assertThat(cacheFile.load().getCredentials()).hasSize(1);
+        assertThat(find("HTTP/host@SH.INTEL.COM")).isNull();
+    }
+
+    @Test
+    public void testAppendOtherClient() throws IOException {
+        Credential cred = newCredential("HTTP/host@SH.INTEL.COM", 3600,
+                new PrincipalName("other@SH.INTEL.COM"));
+        try {
+            cacheFile.append(cred);
+            fail("Appended a credential of another client");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("other@SH.INTEL.COM");
+        }
+        assertThat(cacheFile.load().getCredentials()).hasSize(3);
+    }
+
+    @Test
+    public void testAppendOrStoreOtherClient() throws IOException {
+        cacheFile.appendOrStore(newCredential("HTTP/host@SH.INTEL.COM", 3600));
+        assertThat(cacheFile.load().getCredentials()).hasSize(4);
+
+        cacheFile.appendOrStore(newCredential("HTTP/host@SH.INTEL.COM", 3600,
+                new PrincipalName("other@SH.INTEL.COM")));
+        CredentialCache cc = cacheFile.load();
+        assertThat(cc.getPrimaryPrincipal().getName()).isEqualTo("other@SH.INTEL.COM");
+        assertThat(cc.getCredentials()).hasSize(1);
+        assertThat(find("HTTP/host@SH.INTEL.COM").getClientName().getName())
+                .isEqualTo("other@SH.INTEL.COM");
+    }
+
+    private Credential find(String server) throws IOException {
+        return cacheFile.find(new PrincipalName(server));
+    }
+
+    private Credential newCredential(String server, int lifetime) {
+        return newCredential(server, lifetime, tgt.getClientName());
+    }
+
+    private Credential newCredential(String server, int lifetime, PrincipalName client) {
+        PrincipalName serverName = new PrincipalName(server);
+        KerberosTime now = KerberosTime.now();
+
+        EncTgsRepPart repPart = new EncTgsRepPart();
+        repPart.setSname(serverName);
+        repPart.setSrealm(serverName.getRealm());
+        repPart.setKey(new EncryptionKey(EncryptionType.AES128_CTS_HMAC_SHA1_96, new byte[16]));
+        repPart.setFlags(new TicketFlags(0));
+        repPart.setAuthTime(now);
+        repPart.setStartTime(now);
+        repPart.setEndTime(now.extend(lifetime * 1000L));
+
+        Ticket ticket = tgt.getTicket();
+        return new Credential(new SgtTicket(ticket, repPart), client);
+    }
+}
@@ -21,6 +21,9 @@ package org.apache.kerby.kerberos.kerb.util;
 
 import org.apache.kerby.kerberos.kerb.keytab.Keytab;
 import org.apache.kerby.kerberos.kerb.keytab.KeytabEntry;
+import org.apache.kerby.kerberos.kerb.type.KerberosTime;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
 import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
 import org.junit.Test;
 
@@ -114,6 +117,27 @@ KVNO Timestamp         Principal
         assertEquals(16, numEntries);
     }
 
+    @Test
+    public void testKeyIndex() {
+        PrincipalName principal = new PrincipalName("HTTP/examples.com@EXAMPLE.COM");
+        EncryptionKey key1 = new EncryptionKey(EncryptionType.AES128_CTS_HMAC_SHA1_96, new byte[16]);
+        EncryptionKey key2 = new EncryptionKey(EncryptionType.AES128_CTS_HMAC_SHA1_96, new byte[]{
+            1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+
+        Keytab keytab = new Keytab();
+        keytab.addEntry(new KeytabEntry(principal, KerberosTime.now(), 1, key1));
+        keytab.addEntry(new KeytabEntry(principal, KerberosTime.now(), 2, key2));
+
+        assertThat(keytab.getKey(principal, EncryptionType.AES128_CTS_HMAC_SHA1_96)).isEqualTo(key1);
+        assertThat(keytab.getKey(principal, EncryptionType.AES128_CTS_HMAC_SHA1_96, 2)).isEqualTo(key2);
+        assertThat(keytab.getKey(principal, EncryptionType.AES256_CTS_HMAC_SHA1_96)).isNull();
+        assertThat(keytab.getKey(principal, EncryptionType.AES128_CTS_HMAC_SHA1_96, 3)).isNull();
+
+        keytab.removeKeytabEntries(principal, 1);
+        assertThat(keytab.getKey(principal, EncryptionType.AES128_CTS_HMAC_SHA1_96)).isEqualTo(key2);
+        assertThat(keytab.getKey(principal, EncryptionType.AES128_CTS_HMAC_SHA1_96, 1)).isNull();
+    }
+
     public static void main(String[] args) throws IOException {
         InputStream kis = KeytabTest.class.getResourceAsStream("test.keytab");
         Keytab keytab = Keytab.loadKeytab(kis);
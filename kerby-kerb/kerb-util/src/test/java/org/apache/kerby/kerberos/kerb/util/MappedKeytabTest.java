@@ -0,0 +1,109 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.util;
+
+import org.apache.kerby.kerberos.kerb.keytab.Keytab;
+import org.apache.kerby.kerberos.kerb.keytab.KeytabEntry;
+import org.apache.kerby.kerberos.kerb.keytab.MappedKeytab;
+import org.apache.kerby.kerberos.kerb.type.KerberosTime;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MappedKeytabTest {
+    private static final EncryptionType KEY_TYPE = EncryptionType.AES128_CTS_HMAC_SHA1_96;
+
+    private File keytabFile;
+
+    @Before
+    public void setUp() throws IOException {
+        keytabFile = File.createTempFile("test", ".keytab");
+    }
+
+    @After
+    public void tearDown() {
+        keytabFile.delete();
+    }
+
+    @Test
+    public void testSameKeysAsKeytab() throws IOException {
+        try (InputStream kis = MappedKeytabTest.class.getResourceAsStream("/test_multiple_principles.keytab")) {
+            Files.copy(kis, keytabFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Keytab keytab = Keytab.loadKeytab(keytabFile);
+        MappedKeytab mappedKeytab = MappedKeytab.open(keytabFile);
+
+        assertThat(mappedKeytab.getPrincipals()).containsOnlyElementsOf(keytab.getPrincipals());
+        assertThat(mappedKeytab.getPrincipals()).hasSize(2);
+        for (PrincipalName principal : keytab.getPrincipals()) {
+            assertThat(mappedKeytab.getKeytabEntries(principal))
+                    .containsExactlyElementsOf(keytab.getKeytabEntries(principal));
+            for (KeytabEntry entry : keytab.getKeytabEntries(principal)) {
+                EncryptionType keyType = entry.getKey().getKeyType();
+                assertThat(mappedKeytab.getKey(principal, keyType))
+                        .isEqualTo(keytab.getKey(principal, keyType));
+                assertThat(mappedKeytab.getKey(principal, keyType, 3))
+                        .isEqualTo(keytab.getKey(principal, keyType, 3));
+            }
+        }
+        assertThat(mappedKeytab.toKeytab().getPrincipals()).hasSize(2);
+    }
+
+    @Test
+    public void testKeyVersions() throws IOException {
+        PrincipalName http = new PrincipalName("HTTP/examples.com@EXAMPLE.COM");
+        PrincipalName host = new PrincipalName("host/examples.com@EXAMPLE.COM");
+        EncryptionKey key1 = newKey((byte) 1);
+        EncryptionKey key2 = newKey((byte) 2);
+        EncryptionKey key3 = newKey((byte) 3);
+
+        Keytab keytab = new Keytab();
+        keytab.addEntry(new KeytabEntry(http, KerberosTime.now(), 1, key1));
+        keytab.addEntry(new KeytabEntry(http, KerberosTime.now(), 2, key2));
+        keytab.addEntry(new KeytabEntry(host, KerberosTime.now(), 1, key3));
+        keytab.store(keytabFile);
+
+        MappedKeytab mappedKeytab = MappedKeytab.open(keytabFile);
+        assertThat(mappedKeytab.getKey(http, KEY_TYPE)).isEqualTo(key1);
+        assertThat(mappedKeytab.getKey(http, KEY_TYPE, 2)).isEqualTo(key2);
+        assertThat(mappedKeytab.getKey(host, KEY_TYPE, 1)).isEqualTo(key3);
+        assertThat(mappedKeytab.getKey(host, KEY_TYPE, 2)).isNull();
+        assertThat(mappedKeytab.getKey(http, EncryptionType.AES256_CTS_HMAC_SHA1_96)).isNull();
+        assertThat(mappedKeytab.getKey(new PrincipalName("other@EXAMPLE.COM"), KEY_TYPE)).isNull();
+        assertThat(mappedKeytab.getKeytabEntries(new PrincipalName("other@EXAMPLE.COM"))).isEmpty();
+    }
+
+    private EncryptionKey newKey(byte value) {
+        byte[] keyData = new byte[16];
+        keyData[0] = value;
+        return new EncryptionKey(KEY_TYPE, keyData);
+    }
+}
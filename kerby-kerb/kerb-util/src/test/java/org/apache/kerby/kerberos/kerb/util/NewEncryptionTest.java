@@ -73,6 +73,18 @@ public class NewEncryptionTest {
         testEncWith(EncryptionType.AES256_CTS_HMAC_SHA1_96);
     }
 
+    @Test
+    public void testAes128CtsHmacSha256() throws IOException, KrbException {
+        testEncWith(EncryptionType.AES128_CTS_HMAC_SHA256_128);
+    }
+
+    @Test
+    public void testAes256CtsHmacSha384() throws IOException, KrbException {
+        assumeTrue(CryptoUtil.isAES256Enabled());
+
+        testEncWith(EncryptionType.AES256_CTS_HMAC_SHA384_192);
+    }
+
     @Test
     public void testDes3CbcSha1() throws IOException, KrbException {
         testEncWith(EncryptionType.DES3_CBC_SHA1);
@@ -0,0 +1,139 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.util;
+
+import org.apache.kerby.kerberos.kerb.keytab.Keytab;
+import org.apache.kerby.kerberos.kerb.keytab.KeytabEntry;
+import org.apache.kerby.kerberos.kerb.keytab.ReloadingKeytab;
+import org.apache.kerby.kerberos.kerb.type.KerberosTime;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReloadingKeytabTest {
+    private static final EncryptionType KEY_TYPE = EncryptionType.AES128_CTS_HMAC_SHA1_96;
+
+    private final PrincipalName principal = new PrincipalName("HTTP/examples.com@EXAMPLE.COM");
+    private File keytabFile;
+
+    @Before
+    public void setUp() throws IOException {
+        keytabFile = File.createTempFile("test", ".keytab");
+    }
+
+    @After
+    public void tearDown() {
+        keytabFile.delete();
+    }
+
+    @Test
+    public void testReloadOnChange() throws IOException {
+        EncryptionKey key1 = newKey((byte) 1);
+        writeKeytab(newEntry(1, key1));
+
+        ReloadingKeytab keytab = new ReloadingKeytab(keytabFile, 0);
+        assertThat(keytab.getKey(principal, KEY_TYPE, 1)).isEqualTo(key1);
+        assertThat(keytab.getKey(principal, KEY_TYPE, 2)).isNull();
+
+        EncryptionKey key2 = newKey((byte) 2);
+        writeKeytab(newEntry(1, key1), newEntry(2, key2));
+        assertThat(keytab.getKey(principal, KEY_TYPE, 2)).isEqualTo(key2);
+        assertThat(keytab.getKey(principal, KEY_TYPE, 1)).isEqualTo(key1);
+    }
+
+    @Test
+    public void testReloadOnSameSizeRotation() throws IOException {
+        EncryptionKey key1 = newKey((byte) 1);
+        writeKeytab(newEntry(1, key1));
+        long lastModified = keytabFile.lastModified();
+        long length = keytabFile.length();
+
+        ReloadingKeytab keytab = new ReloadingKeytab(keytabFile, 0);
+        assertThat(keytab.getKey(principal, KEY_TYPE, 1)).isEqualTo(key1);
+
+        // Same principal and encryption type with a new key version, so the
+        // file keeps its size, and the modification time is put back
+        EncryptionKey key2 = newKey((byte) 2);
+        writeKeytab(newEntry(2, key2));
+        keytabFile.setLastModified(lastModified);
+        assertThat(keytabFile.length()).isEqualTo(length);
+        assertThat(keytabFile.lastModified()).isEqualTo(lastModified);
+
+        assertThat(keytab.getKey(principal, KEY_TYPE, 2)).isEqualTo(key2);
+        assertThat(keytab.getKey(principal, KEY_TYPE, 1)).isNull();
+    }
+
+    @Test
+    public void testCheckInterval() throws IOException {
+        EncryptionKey key1 = newKey((byte) 1);
+        writeKeytab(newEntry(1, key1));
+
+        ReloadingKeytab keytab = new ReloadingKeytab(keytabFile, 60 * 1000);
+        Keytab loaded = keytab.getKeytab();
+
+        writeKeytab(newEntry(1, key1), newEntry(2, newKey((byte) 2)));
+        assertThat(keytab.getKeytab()).isSameAs(loaded);
+        assertThat(keytab.getKey(principal, KEY_TYPE, 2)).isNull();
+    }
+
+    @Test
+    public void testKeepKeysOnBadFile() throws IOException {
+        EncryptionKey key1 = newKey((byte) 1);
+        writeKeytab(newEntry(1, key1));
+
+        ReloadingKeytab keytab = new ReloadingKeytab(keytabFile, 0);
+        assertThat(keytab.getKey(principal, KEY_TYPE, 1)).isEqualTo(key1);
+
+        Files.write(keytabFile.toPath(), new byte[] {5, 2, 0, 0, 0, 100, 0});
+        assertThat(keytab.getKey(principal, KEY_TYPE, 1)).isEqualTo(key1);
+    }
+
+    private void writeKeytab(KeytabEntry... entries) throws IOException {
+        long lastModified = keytabFile.lastModified();
+
+        Keytab keytab = new Keytab();
+        for (KeytabEntry entry : entries) {
+            keytab.addEntry(entry);
+        }
+        keytab.store(keytabFile);
+
+        // The file system may only keep the modification time in seconds
+        keytabFile.setLastModified(lastModified + 1000);
+    }
+
+    private KeytabEntry newEntry(int kvno, EncryptionKey key) {
+        return new KeytabEntry(principal, new KerberosTime(), kvno, key);
+    }
+
+    private EncryptionKey newKey(byte value) {
+        byte[] keyData = new byte[16];
+        keyData[0] = value;
+        return new EncryptionKey(KEY_TYPE, keyData);
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.tool.kdcload;
+
+import org.apache.kerby.KOption;
+import org.apache.kerby.KOptionInfo;
+import org.apache.kerby.KOptionType;
+
+public enum KdcLoadOption implements KOption {
+    NONE(null),
+    CONF_DIR(new KOptionInfo("-conf", "conf dir", KOptionType.DIR)),
+    WORKLOAD(new KOptionInfo("-w", "workload, as, tgs or mixed", KOptionType.STR)),
+    THREADS(new KOptionInfo("-t", "number of client threads", KOptionType.INT)),
+    RATE(new KOptionInfo("-r", "total requests per second, closed loop if not given",
+        KOptionType.INT)),
+    DURATION(new KOptionInfo("-d", "measured duration", KOptionType.DURATION)),
+    RAMP_UP(new KOptionInfo("-u", "ramp up time, not measured", KOptionType.DURATION)),
+    INTERVAL(new KOptionInfo("-i", "report interval in seconds", KOptionType.INT)),
+    KEYTAB_FILE(new KOptionInfo("-k", "keytab of the client principal", KOptionType.FILE)),
+    SERVICE(new KOptionInfo("-S", "service principal of the TGS requests", KOptionType.STR));
+
+    private final KOptionInfo optionInfo;
+
+    KdcLoadOption(KOptionInfo optionInfo) {
+        this.optionInfo = optionInfo;
+    }
+
+    @Override
+    public KOptionInfo getOptionInfo() {
+        return optionInfo;
+    }
+
+    public static KdcLoadOption fromName(String name) {
+        if (name != null) {
+            for (KdcLoadOption ko : values()) {
+                if (ko.optionInfo != null
+                        && ko.optionInfo.getName().equals(name)) {
+                    return ko;
+                }
+            }
+        }
+        return NONE;
+    }
+}
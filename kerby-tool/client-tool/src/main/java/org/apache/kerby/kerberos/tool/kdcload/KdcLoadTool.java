@@ -0,0 +1,432 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.tool.kdcload;
+
+import org.apache.kerby.KOptionType;
+import org.apache.kerby.KOptions;
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.client.KrbClient;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.apache.kerby.util.OSUtil;
+
+import java.io.Console;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A load generator for KDCs, replacing the former kinit tool with
+ * concurrence.
+ *
+ * Client threads share one client and request tickets in a closed loop, or
+ * together at a fixed rate. The workloads are AS requests, TGS requests
+ * with a TGT per thread, or an AS request followed by a TGS request with the
+ * new TGT. The threads are started evenly over the ramp up time, then the
+ * latencies are recorded without locks for the measured duration. At a
+ * fixed rate the latency counts from when a request was due, so the
+ * requests delayed by a stalled KDC aren't left out.
+ */
+public class KdcLoadTool {
+    private static final String USAGE = (OSUtil.isWindows()
+            ? "Usage: bin\\kdcload.cmd" : "Usage: sh bin/kdcload.sh")
+            + " <-conf conf_dir> [-w as|tgs|mixed] [-t threads] [-r rate]\n"
+            + "\t\t[-d duration] [-u ramp_up] [-i interval] [-k keytab_file]\n"
+            + "\t\t[-S service_principal] <principal>\n\n"
+            + "\tDESCRIPTION:\n"
+            + "\t\tkdcload requests tickets for principal from many threads and reports\n"
+            + "\t\tthe throughput, the latency percentiles and the errors.\n\n"
+            + "\tOPTIONS:\n"
+            + "\t\t-w workload: as, tgs or mixed (AS then TGS), as by default\n"
+            + "\t\t-t number of client threads, 4 by default\n"
+            + "\t\t-r total requests per second, closed loop by default\n"
+            + "\t\t-d measured duration, 30 seconds by default\n"
+            + "\t\t-u ramp up time, not measured, 0 by default\n"
+            + "\t\t-i report interval in seconds, 2 by default\n"
+            + "\t\t-k keytab of the principal, the password is asked otherwise\n"
+            + "\t\t-S service principal of the TGS requests\n"
+            + "\n";
+
+    enum Workload {
+        AS, TGS, MIXED
+    }
+
+    private final KrbClient krbClient;
+    private final String principal;
+    private final String password;
+    private final File keytab;
+    private final String service;
+    private final Workload workload;
+    private final int threads;
+    private final int rate;
+
+    private final RequestStats asStats = new RequestStats("AS-REQ");
+    private final RequestStats tgsStats = new RequestStats("TGS-REQ");
+    private volatile boolean running = true;
+    private volatile boolean measuring;
+
+    KdcLoadTool(KrbClient krbClient, String principal, String password, File keytab,
+                String service, Workload workload, int threads, int rate) {
+        this.krbClient = krbClient;
+        this.principal = principal;
+        this.password = password;
+        this.keytab = keytab;
+        this.service = service;
+        this.workload = workload;
+        this.threads = threads;
+        this.rate = rate;
+    }
+
+    /**
+     * Run the load and print the report.
+     * @param durationMillis The measured duration
+     * @param rampUpMillis The time to start the threads in
+     * @param intervalMillis The time between two progress lines
+     * @throws InterruptedException e
+     */
+    void run(long durationMillis, long rampUpMillis, long intervalMillis) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(new Worker(), "kdcload-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+            Thread.sleep(rampUpMillis / threads);
+        }
+
+        System.out.println("Time (s),AS-REQ (/s),TGS-REQ (/s),Errors");
+        measuring = true;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        long lastAs = 0;
+        long lastTgs = 0;
+        long now = start;
+        while (now < end) {
+            Thread.sleep(Math.min(intervalMillis, TimeUnit.NANOSECONDS.toMillis(end - now) + 1));
+            long elapsed = System.nanoTime() - now;
+            now += elapsed;
+
+            long as = asStats.getCount();
+            long tgs = tgsStats.getCount();
+            System.out.println(String.format(Locale.ROOT, "%.1f,%.1f,%.1f,%d",
+                (now - start) / 1e9, (as - lastAs) * 1e9 / elapsed, (tgs - lastTgs) * 1e9 / elapsed,
+                asStats.getErrors() + tgsStats.getErrors()));
+            lastAs = as;
+            lastTgs = tgs;
+        }
+        measuring = false;
+        running = false;
+        long elapsed = System.nanoTime() - start;
+
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        report(elapsed);
+    }
+
+    private void report(long elapsedNanos) {
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT, "%-8s %9s %7s %10s %10s %9s %9s %10s %9s",
+            "Request", "Count", "Errors", "Rate (/s)", "Mean (ms)", "p50 (ms)", "p99 (ms)",
+            "p999 (ms)", "Max (ms)"));
+        for (RequestStats stats : Arrays.asList(asStats, tgsStats)) {
+            if (stats.getCount() == 0) {
+                continue;
+            }
+            LatencyHistogram latencies = stats.latencies;
+            System.out.println(String.format(Locale.ROOT,
+                "%-8s %9d %7d %10.1f %10.2f %9.2f %9.2f %10.2f %9.2f",
+                stats.name, stats.getCount(), stats.getErrors(),
+                stats.getCount() * 1e9 / elapsedNanos, latencies.getMean() / 1000,
+                latencies.getPercentile(50) / 1000.0, latencies.getPercentile(99) / 1000.0,
+                latencies.getPercentile(99.9) / 1000.0, latencies.getMax() / 1000.0));
+        }
+
+        if (asStats.getErrors() + tgsStats.getErrors() > 0) {
+            System.out.println();
+            System.out.println("Errors by code:");
+            for (RequestStats stats : Arrays.asList(asStats, tgsStats)) {
+                for (Map.Entry<String, AtomicLong> entry
+                    : new TreeMap<>(stats.errorsByCode).entrySet()) {
+                    System.out.println("\t" + stats.name + " " + entry.getKey() + ": "
+                        + entry.getValue().get());
+                }
+            }
+        }
+    }
+
+    RequestStats getAsStats() {
+        return asStats;
+    }
+
+    RequestStats getTgsStats() {
+        return tgsStats;
+    }
+
+    private TgtTicket requestTgt() throws KrbException {
+        if (keytab != null) {
+            return krbClient.requestTgt(principal, keytab);
+        }
+        return krbClient.requestTgt(principal, password);
+    }
+
+    private TgtTicket timedRequestTgt(long start) {
+        try {
+            TgtTicket tgt = requestTgt();
+            asStats.success(start);
+            return tgt;
+        } catch (KrbException e) {
+            asStats.failure(e);
+            return null;
+        }
+    }
+
+    private void timedRequestSgt(TgtTicket tgt, long start) {
+        try {
+            krbClient.requestSgt(tgt, service);
+            tgsStats.success(start);
+        } catch (KrbException e) {
+            tgsStats.failure(e);
+        }
+    }
+
+    /**
+     * Sends requests until stopped, on a fixed schedule if there's a rate.
+     */
+    private class Worker implements Runnable {
+        @Override
+        public void run() {
+            long interval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) * threads / rate : 0;
+            long next = System.nanoTime();
+
+            TgtTicket tgt = null;
+            if (workload == Workload.TGS) {
+                try {
+                    tgt = requestTgt();
+                } catch (KrbException e) {
+                    System.err.println("Failed to request a TGT: " + e.getMessage());
+                    return;
+                }
+            }
+
+            while (running) {
+                long start = System.nanoTime();
+                if (interval > 0) {
+                    if (next > start) {
+                        LockSupport.parkNanos(next - start);
+                    }
+                    start = next;
+                    next += interval;
+                }
+
+                if (workload == Workload.AS) {
+                    timedRequestTgt(start);
+                } else if (workload == Workload.TGS) {
+                    timedRequestSgt(tgt, start);
+                } else {
+                    TgtTicket newTgt = timedRequestTgt(start);
+                    if (newTgt != null) {
+                        timedRequestSgt(newTgt, System.nanoTime());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The latencies and errors of a request type.
+     */
+    class RequestStats {
+        private final String name;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final ConcurrentMap<String, AtomicLong> errorsByCode = new ConcurrentHashMap<>();
+
+        RequestStats(String name) {
+            this.name = name;
+        }
+
+        void success(long start) {
+            if (measuring) {
+                latencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            }
+        }
+
+        void failure(KrbException e) {
+            if (!measuring) {
+                return;
+            }
+            errors.incrementAndGet();
+
+            String code;
+            if (e.getKrbErrorCode() != null) {
+                code = e.getKrbErrorCode().name();
+            } else if (e.getCause() != null) {
+                code = e.getCause().getClass().getSimpleName();
+            } else {
+                code = e.getMessage();
+            }
+            AtomicLong counter = errorsByCode.get(code);
+            if (counter == null) {
+                AtomicLong newCounter = new AtomicLong();
+                counter = errorsByCode.putIfAbsent(code, newCounter);
+                if (counter == null) {
+                    counter = newCounter;
+                }
+            }
+            counter.incrementAndGet();
+        }
+
+        long getCount() {
+            return latencies.getCount() + errors.get();
+        }
+
+        long getErrors() {
+            return errors.get();
+        }
+
+        long getErrors(String code) {
+            AtomicLong counter = errorsByCode.get(code);
+            return counter == null ? 0 : counter.get();
+        }
+    }
+
+    private static void printUsage(String error) {
+        System.err.println(error + "\n");
+        System.err.println(USAGE);
+        System.exit(-1);
+    }
+
+    /**
+     * Get password for the input principal from console
+     */
+    private static String getPassword(String principal) {
+        Console console = System.console();
+        if (console == null) {
+            System.out.println("Password for " + principal + ":");
+            try (Scanner scanner = new Scanner(System.in, "UTF-8")) {
+                return scanner.nextLine().trim();
+            }
+        }
+        console.printf("Password for " + principal + ":");
+        char[] passwordChars = console.readPassword();
+        String password = new String(passwordChars).trim();
+        Arrays.fill(passwordChars, ' ');
+
+        return password;
+    }
+
+    private static int getIntegerOption(KOptions options, KdcLoadOption option, int defaultValue) {
+        return options.contains(option) ? options.getIntegerOption(option) : defaultValue;
+    }
+
+    public static void main(String[] args) throws Exception {
+        KOptions options = new KOptions();
+        KdcLoadOption klo;
+        String principal = null;
+
+        int i = 0;
+        String opt, param, error;
+        while (i < args.length) {
+            error = null;
+
+            opt = args[i++];
+            if (opt.startsWith("-")) {
+                klo = KdcLoadOption.fromName(opt);
+                if (klo == KdcLoadOption.NONE) {
+                    error = "Invalid option:" + opt;
+                }
+            } else {
+                principal = opt;
+                klo = KdcLoadOption.NONE;
+            }
+
+            if (klo != KdcLoadOption.NONE && klo.getOptionInfo().getType() != KOptionType.NOV) {
+                // require a parameter
+                param = null;
+                if (i < args.length) {
+                    param = args[i++];
+                }
+                if (param != null) {
+                    KOptions.parseSetValue(klo.getOptionInfo(), param);
+                } else {
+                    error = "Option " + opt + " require a parameter";
+                }
+            }
+
+            if (error != null) {
+                printUsage(error);
+            }
+            if (klo != KdcLoadOption.NONE) {
+                options.add(klo);
+            }
+        }
+
+        if (!options.contains(KdcLoadOption.CONF_DIR)) {
+            printUsage("No conf dir given. ");
+        }
+        if (principal == null) {
+            printUsage("No principal is specified");
+        }
+
+        Workload workload = Workload.AS;
+        if (options.contains(KdcLoadOption.WORKLOAD)) {
+            try {
+                workload = Workload.valueOf(
+                    options.getStringOption(KdcLoadOption.WORKLOAD).toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                printUsage("Invalid workload: " + options.getStringOption(KdcLoadOption.WORKLOAD));
+            }
+        }
+        String service = options.getStringOption(KdcLoadOption.SERVICE);
+        if (workload != Workload.AS && service == null) {
+            printUsage("No service principal is specified for the TGS requests");
+        }
+
+        int threads = getIntegerOption(options, KdcLoadOption.THREADS, 4);
+        int rate = getIntegerOption(options, KdcLoadOption.RATE, 0);
+        int duration = getIntegerOption(options, KdcLoadOption.DURATION, 30);
+        int rampUp = getIntegerOption(options, KdcLoadOption.RAMP_UP, 0);
+        int interval = getIntegerOption(options, KdcLoadOption.INTERVAL, 2);
+        if (threads <= 0 || rate < 0 || duration <= 0 || rampUp < 0 || interval <= 0) {
+            printUsage("Invalid threads, rate, duration, ramp up or interval");
+        }
+
+        File keytab = options.getFileOption(KdcLoadOption.KEYTAB_FILE);
+        String password = keytab == null ? getPassword(principal) : null;
+
+        KrbClient krbClient = new KrbClient(options.getDirOption(KdcLoadOption.CONF_DIR));
+        krbClient.init();
+
+        new KdcLoadTool(krbClient, principal, password, keytab, service, workload, threads, rate)
+            .run(TimeUnit.SECONDS.toMillis(duration), TimeUnit.SECONDS.toMillis(rampUp),
+                TimeUnit.SECONDS.toMillis(interval));
+        System.exit(0);
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.tool.kdcload;
+
+import org.apache.kerby.kerberos.kerb.KrbErrorCode;
+import org.apache.kerby.kerberos.kerb.server.SimpleKdcServer;
+import org.apache.kerby.util.NetworkUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KdcLoadToolTest {
+    private static final String PASSWORD = "123456";
+
+    private SimpleKdcServer kdcServer;
+    private String clientPrincipal;
+    private String serverPrincipal;
+
+    @Before
+    public void setUp() throws Exception {
+        kdcServer = new SimpleKdcServer();
+        kdcServer.setAllowUdp(false);
+        kdcServer.setKdcTcpPort(NetworkUtil.getServerPort());
+        kdcServer.init();
+        kdcServer.start();
+
+        String realm = kdcServer.getKdcSetting().getKdcRealm();
+        clientPrincipal = "drankye@" + realm;
+        serverPrincipal = "test-service/localhost@" + realm;
+        kdcServer.createPrincipal(clientPrincipal, PASSWORD);
+        kdcServer.createPrincipal(serverPrincipal);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        kdcServer.stop();
+    }
+
+    @Test
+    public void testMixedWorkload() throws Exception {
+        KdcLoadTool tool = new KdcLoadTool(kdcServer.getKrbClient(), clientPrincipal, PASSWORD,
+            null, serverPrincipal, KdcLoadTool.Workload.MIXED, 2, 20);
+        tool.run(1000, 0, 500);
+
+        assertThat(tool.getAsStats().getCount()).isGreaterThan(0);
+        assertThat(tool.getAsStats().getErrors()).isEqualTo(0);
+        assertThat(tool.getTgsStats().getCount()).isGreaterThan(0);
+        assertThat(tool.getTgsStats().getErrors()).isEqualTo(0);
+    }
+
+    @Test
+    public void testFailures() throws Exception {
+        KdcLoadTool tool = new KdcLoadTool(kdcServer.getKrbClient(), clientPrincipal, "wrong",
+            null, null, KdcLoadTool.Workload.AS, 2, 20);
+        tool.run(1000, 0, 500);
+
+        long count = tool.getAsStats().getCount();
+        assertThat(count).isGreaterThan(0);
+        assertThat(tool.getAsStats().getErrors()).isEqualTo(count);
+        assertThat(tool.getAsStats().getErrors(KrbErrorCode.KRB_AP_ERR_BAD_INTEGRITY.name()))
+            .isEqualTo(count);
+        assertThat(tool.getTgsStats().getCount()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.tool.kdcload;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getCount()).isEqualTo(0);
+        assertThat(histogram.getMean()).isEqualTo(0);
+        assertThat(histogram.getPercentile(99)).isEqualTo(0);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 31; i++) {
+            histogram.record(i);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(31);
+        assertThat(histogram.getMean()).isEqualTo(16);
+        assertThat(histogram.getPercentile(0)).isEqualTo(1);
+        assertThat(histogram.getPercentile(50)).isEqualTo(16);
+        assertThat(histogram.getPercentile(100)).isEqualTo(31);
+    }
+
+    @Test
+    public void testBuckets() {
+        // 1000 to 1007 share a bucket of 2^4 wide linear sub-buckets
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        assertThat(histogram.getPercentile(50)).isEqualTo(1000);
+
+        histogram.record(1007);
+        assertThat(histogram.getPercentile(50)).isEqualTo(1007);
+
+        histogram.record(1008);
+        assertThat(histogram.getPercentile(50)).isEqualTo(1007);
+        assertThat(histogram.getPercentile(100)).isEqualTo(1008);
+        histogram.record(1100);
+        assertThat(histogram.getPercentile(75)).isEqualTo(1023);
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100000; i++) {
+            histogram.record(i);
+        }
+
+        assertThat(histogram.getMax()).isEqualTo(100000);
+        assertThat(histogram.getMean()).isEqualTo(50000.5);
+        checkPercentile(histogram.getPercentile(50), 50000);
+        checkPercentile(histogram.getPercentile(99), 99000);
+        checkPercentile(histogram.getPercentile(99.9), 99900);
+        assertThat(histogram.getPercentile(100)).isEqualTo(100000);
+    }
+
+    @Test
+    public void testClamp() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertThat(histogram.getMax()).isEqualTo(0);
+        assertThat(histogram.getPercentile(100)).isEqualTo(0);
+
+        histogram.record(Long.MAX_VALUE);
+        assertThat(histogram.getMax()).isEqualTo((1L << 37) - 1);
+        assertThat(histogram.getPercentile(100)).isEqualTo((1L << 37) - 1);
+        assertThat(histogram.getCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testConcurrentRecords() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 1; j <= 10000; j++) {
+                        histogram.record(j);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(40000);
+        assertThat(histogram.getMax()).isEqualTo(10000);
+        assertThat(histogram.getMean()).isEqualTo(5000.5);
+    }
+
+    /**
+     * A percentile is the top of its bucket, at most 1/32 above the value.
+     */
+    private void checkPercentile(long percentile, long expected) {
+        assertThat(percentile).isGreaterThanOrEqualTo(expected);
+        assertThat(percentile).isLessThanOrEqualTo(expected + expected / 32);
+    }
+}
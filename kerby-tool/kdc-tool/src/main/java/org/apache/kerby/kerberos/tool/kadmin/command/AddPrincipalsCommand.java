@@ -27,6 +27,9 @@ import org.apache.kerby.kerberos.tool.kadmin.ToolUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public class AddPrincipalsCommand extends KadminCommand {
     private static final Logger LOG = LoggerFactory.getLogger(AddPrincipalsCommand.class);
     private static final String USAGE = "Usage: add_principals [options]\n"
@@ -49,6 +52,11 @@ public class AddPrincipalsCommand extends KadminCommand {
             + "\t\tbatch_anks -expire 23/04/15:01:01:01 -kvno 1 -size 6";
 
 
+    /**
+     * The number of principals whose keys are derived in parallel at once.
+     */
+    private static final int BATCH_SIZE = 1000;
+
     private KOptions kOptions;
 
     public AddPrincipalsCommand(LocalKadmin kadmin) {
@@ -98,19 +106,33 @@ public class AddPrincipalsCommand extends KadminCommand {
     }
 
     private void addPrincipalForSize(int size, int existNumbers) {
-        int i = 0;
-        while (i < size) {
-            try {
-                int temp = i + existNumbers;
-                String principalName = "E" + temp + "@EXAMPLE.COM";
-                String password = "12";
-                getKadmin().addPrincipal(principalName, password, kOptions);
-            } catch (KrbException e) {
-                LOG.error("Fail to add principal. " + e);
+        int added = 0;
+        int failed = 0;
+        Map<String, String> principals = new LinkedHashMap<>(BATCH_SIZE);
+        for (int i = 0; i < size; i++) {
+            int temp = i + existNumbers;
+            String principalName = "E" + temp + "@EXAMPLE.COM";
+            String password = "12";
+            principals.put(principalName, password);
+            if (principals.size() == BATCH_SIZE || i == size - 1) {
+                try {
+                    Map<String, KrbException> failures = getKadmin().addPrincipals(principals, kOptions);
+                    for (Map.Entry<String, KrbException> failure : failures.entrySet()) {
+                        LOG.error("Fail to add principal " + failure.getKey() + ". " + failure.getValue());
+                        System.err.println("Fail to add principal " + failure.getKey() + ": "
+                                + failure.getValue().getMessage());
+                    }
+                    added += principals.size() - failures.size();
+                    failed += failures.size();
+                } catch (KrbException e) {
+                    LOG.error("Fail to add principals. " + e);
+                    System.err.println("Fail to add principals: " + e.getMessage());
+                    failed += principals.size();
+                }
+                principals.clear();
             }
-            i++;
         }
 
-        System.out.println("Principals created");
+        System.out.println(added + " principals created, " + failed + " failed");
     }
 }